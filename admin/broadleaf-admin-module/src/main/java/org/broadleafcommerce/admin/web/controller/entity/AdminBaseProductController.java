@@ -63,6 +63,7 @@ public class AdminBaseProductController extends AdminProductController {
         List<SectionCrumb> crumbs = this.getSectionCrumbs(request, (String)null, (String)null);
         PersistencePackageRequest ppr = this.getSectionPersistencePackageRequest(sectionClassName, requestParams, crumbs, pathVars);
         ppr.addCustomCriteria("ProductList");
+        ppr.setListGridFetch(true);
         ClassMetadata cmd = this.service.getClassMetadata(ppr).getDynamicResultSet().getClassMetaData();
         DynamicResultSet drs = this.service.getRecords(ppr).getDynamicResultSet();
         ListGrid listGrid = this.formService.buildMainListGrid(drs, cmd, sectionKey, crumbs);
@@ -29,7 +29,9 @@ import org.broadleafcommerce.cms.field.type.StorageType;
 import org.broadleafcommerce.cms.file.dao.StaticAssetStorageDao;
 import org.broadleafcommerce.cms.file.domain.StaticAsset;
 import org.broadleafcommerce.cms.file.domain.StaticAssetStorage;
+import org.broadleafcommerce.cms.file.service.operation.NamedOperationComponent;
 import org.broadleafcommerce.cms.file.service.operation.NamedOperationManager;
+import org.broadleafcommerce.cms.file.service.operation.StaticMapNamedOperationComponent;
 import org.broadleafcommerce.common.audit.Auditable;
 import org.broadleafcommerce.common.extension.ExtensionResultHolder;
 import org.broadleafcommerce.common.extension.ExtensionResultStatusType;
@@ -39,14 +41,19 @@ import org.broadleafcommerce.common.file.service.GloballySharedInputStream;
 import org.broadleafcommerce.common.io.ConcurrentFileOutputStream;
 import org.broadleafcommerce.common.util.StreamCapableTransactionalOperationAdapter;
 import org.broadleafcommerce.common.util.StreamingTransactionCapableUtil;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.openadmin.server.service.artifact.ArtifactService;
 import org.broadleafcommerce.openadmin.server.service.artifact.image.Operation;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedInputStream;
@@ -62,10 +69,22 @@ import java.security.NoSuchAlgorithmException;
 import java.sql.Blob;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Resource;
 
@@ -73,7 +92,7 @@ import javax.annotation.Resource;
  * @author Jeff Fischer, Brian Polster
  */
 @Service("blStaticAssetStorageService")
-public class StaticAssetStorageServiceImpl implements StaticAssetStorageService {
+public class StaticAssetStorageServiceImpl implements StaticAssetStorageService, DisposableBean {
 
     private static final Log LOG = LogFactory.getLog(StaticAssetStorageServiceImpl.class);
 
@@ -119,6 +138,31 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
     @Resource(name = "blConcurrentFileOutputStream")
     protected ConcurrentFileOutputStream concurrentFileOutputStream;
 
+    /**
+     * Threads used to convert image derivatives. With 0, conversions run on the requesting thread.
+     */
+    @Value("${asset.conversion.threads:0}")
+    protected int conversionThreads = 0;
+
+    /**
+     * Conversions waiting for a thread beyond this are rejected and the original asset is served instead
+     */
+    @Value("${asset.conversion.maxQueueDepth:100}")
+    protected int conversionMaxQueueDepth = 100;
+
+    /**
+     * How long a request waits for a conversion on the executor before it serves the original asset
+     */
+    @Value("${asset.conversion.waitSeconds:30}")
+    protected long conversionWaitSeconds = 30;
+
+    @Value("${asset.conversion.eager.enabled:false}")
+    protected boolean eagerDerivativeGenerationEnabled = false;
+
+    protected final ConcurrentHashMap<String, ConversionTask> conversionsInFlight = new ConcurrentHashMap<>();
+
+    protected volatile ThreadPoolExecutor conversionExecutor;
+
 
     protected StaticAsset findStaticAsset(String fullUrl) {
         StaticAsset staticAsset = staticAssetService.findStaticAssetByFullUrl(fullUrl);
@@ -203,6 +247,16 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
         if (staticAsset == null) {
             throw new AssetNotFoundException("Unable to find an asset for the url (" + fullUrl + ")");
         }
+        return getCacheFileModel(staticAsset, parameterMap, false);
+    }
+
+    /**
+     * @param convertOnCallingThread when true a missing derivative is converted on this thread rather than on the
+     * conversion executor, including one another request has already queued there. Work already running on the executor
+     * uses this so it never waits on its own pool.
+     */
+    protected Map<String, String> getCacheFileModel(StaticAsset staticAsset, Map<String, String> parameterMap,
+            boolean convertOnCallingThread) throws Exception {
         String mimeType = staticAsset.getMimeType();
 
         //extract the values for any named parameters
@@ -242,22 +296,198 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
             return buildModel(baseLocalFile.getAbsolutePath(), mimeType);
         } 
         else {
-            try (FileInputStream assetStream = new FileInputStream(baseLocalFile)) {
-                try (BufferedInputStream original = new BufferedInputStream(assetStream)) {
-                    original.mark(0);
-                    Operation[] operations = artifactService.buildOperations(convertedParameters, original, staticAsset.getMimeType());
-                   try (InputStream converted = artifactService.convert(original, operations, staticAsset.getMimeType())) {
-                       createLocalFileFromInputStream(converted, cacheFile);
-                   }
+            if (!convertSingleFlight(staticAsset, baseLocalFile, cacheFile, convertedParameters, convertOnCallingThread)) {
+                // The conversion could not be run or finished in time, so serve the original asset for this request
+                return buildModel(baseLocalFile.getAbsolutePath(), mimeType);
+            }
+            if ("image/gif".equals(mimeType)) {
+                mimeType = "image/png";
+            }
+            return buildModel(cacheFile.getAbsolutePath(), mimeType);
+        }
+    }
+
+    /**
+     * Makes sure only one conversion per cache file runs at a time. The first request for a missing derivative starts the
+     * conversion and every other request for the same file waits on that conversion instead of starting its own.
+     *
+     * @return true once the cache file exists, false if the conversion was rejected because the executor's queue is
+     * full or did not finish within {@link #conversionWaitSeconds}
+     */
+    protected boolean convertSingleFlight(final StaticAsset staticAsset, final File baseLocalFile, final File cacheFile,
+            final Map<String, String> convertedParameters, boolean convertOnCallingThread) throws Exception {
+        String key = cacheFile.getAbsolutePath();
+        ConversionTask task = new ConversionTask(key, new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                convertAsset(staticAsset, baseLocalFile, cacheFile, convertedParameters);
+                return cacheFile;
+            }
+        });
+        ConversionTask inFlight = conversionsInFlight.putIfAbsent(key, task);
+        ThreadPoolExecutor executor = convertOnCallingThread ? null : getConversionExecutor();
+        if (inFlight != null) {
+            task = inFlight;
+            if (convertOnCallingThread) {
+                // The conversion may still be queued on the pool this thread belongs to, so run it here rather than
+                // wait for a thread that may never come free. This does nothing if the conversion has already started.
+                task.run();
+            }
+        } else if (cacheFile.exists()) {
+            // Another conversion finished between our existence check and claiming the key
+            conversionsInFlight.remove(key, task);
+            return true;
+        } else if (executor == null) {
+            task.run();
+        } else {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                conversionsInFlight.remove(key, task);
+                LOG.warn("The asset conversion queue is full, serving the original asset for " + staticAsset.getFullUrl());
+                return false;
+            }
+        }
+
+        try {
+            if (executor == null) {
+                task.get();
+            } else {
+                task.get(conversionWaitSeconds, TimeUnit.SECONDS);
+            }
+            return true;
+        } catch (TimeoutException e) {
+            LOG.warn("Timed out waiting for the conversion of " + staticAsset.getFullUrl() + ", serving the original asset");
+            return false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    protected void convertAsset(StaticAsset staticAsset, File baseLocalFile, File cacheFile, Map<String, String> convertedParameters) throws Exception {
+        try (FileInputStream assetStream = new FileInputStream(baseLocalFile)) {
+            try (BufferedInputStream original = new BufferedInputStream(assetStream)) {
+                original.mark(0);
+                Operation[] operations = artifactService.buildOperations(convertedParameters, original, staticAsset.getMimeType());
+                try (InputStream converted = artifactService.convert(original, operations, staticAsset.getMimeType())) {
+                    createLocalFileFromInputStream(converted, cacheFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the bounded executor derivatives are converted on, or null when {@link #conversionThreads} is 0 and
+     * conversions run on the requesting thread
+     */
+    protected ThreadPoolExecutor getConversionExecutor() {
+        if (conversionThreads <= 0) {
+            return null;
+        }
+        ThreadPoolExecutor executor = conversionExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = conversionExecutor;
+                if (executor == null) {
+                    executor = new ThreadPoolExecutor(conversionThreads, conversionThreads, 0L, TimeUnit.MILLISECONDS,
+                            new LinkedBlockingQueue<Runnable>(Math.max(1, conversionMaxQueueDepth)), new ThreadFactory() {
+
+                        protected final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "Asset-Conversion-" + threadNumber.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    conversionExecutor = executor;
                 }
-                if ("image/gif".equals(mimeType)) {
-                    mimeType = "image/png";
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Converts every named operation configured through a {@link StaticMapNamedOperationComponent} for a newly stored
+     * image so the first shoppers to ask for those sizes do not pay for the conversion.
+     */
+    protected void generateNamedOperationDerivatives(final StaticAsset staticAsset) {
+        final List<String> operationNames = new ArrayList<>();
+        for (NamedOperationComponent component : namedOperationManager.getNamedOperationComponents()) {
+            if (component instanceof StaticMapNamedOperationComponent) {
+                operationNames.addAll(((StaticMapNamedOperationComponent) component).getNamedOperations().keySet());
+            }
+        }
+        if (operationNames.isEmpty()) {
+            return;
+        }
+        ThreadPoolExecutor executor = getConversionExecutor();
+        if (executor == null) {
+            generateDerivatives(staticAsset, operationNames);
+            return;
+        }
+        final BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    BroadleafRequestContext.setBroadleafRequestContext(context == null ? new BroadleafRequestContext()
+                            : context.createLightWeightClone());
+                    try {
+                        generateDerivatives(staticAsset, operationNames);
+                    } finally {
+                        BroadleafRequestContext.setBroadleafRequestContext(null);
+                    }
                 }
-                return buildModel(cacheFile.getAbsolutePath(), mimeType);
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.warn("The asset conversion queue is full, skipping pre-generation for " + staticAsset.getFullUrl());
+        }
+    }
+
+    /**
+     * Database stored assets are streamed from a Blob, which can only be read while the transaction that loaded it is
+     * open. Eager generation runs after the upload's transaction has committed, so those assets are converted inside a
+     * read-only transaction of their own.
+     */
+    protected void generateDerivatives(final StaticAsset staticAsset, final List<String> operationNames) {
+        if (!StorageType.DATABASE.equals(staticAsset.getStorageType())) {
+            generateDerivativesForOperations(staticAsset, operationNames);
+            return;
+        }
+        transUtil.runOptionalTransactionalOperation(new StreamCapableTransactionalOperationAdapter() {
+            @Override
+            public void execute() {
+                generateDerivativesForOperations(staticAsset, operationNames);
+            }
+        }, RuntimeException.class, true, TransactionDefinition.PROPAGATION_REQUIRED, TransactionDefinition.ISOLATION_DEFAULT,
+                true, transUtil.getTransactionManager());
+    }
+
+    protected void generateDerivativesForOperations(StaticAsset staticAsset, List<String> operationNames) {
+        for (String operationName : operationNames) {
+            Map<String, String> parameters = new HashMap<>();
+            parameters.put(operationName, "");
+            try {
+                getCacheFileModel(staticAsset, parameters, true);
+            } catch (Exception e) {
+                LOG.warn("Unable to pre-generate the " + operationName + " derivative of " + staticAsset.getFullUrl(), e);
             }
         }
     }
 
+    @Override
+    public void destroy() {
+        ThreadPoolExecutor executor = conversionExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
     protected boolean shouldRecompress(String mimeType) {
         String[] formats = null;
         if (!StringUtils.isEmpty(recompressFormats)) {
@@ -428,7 +658,7 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
 
     @Transactional("blTransactionManagerAssetStorageInfo")
     @Override
-    public void createStaticAssetStorage(InputStream fileInputStream, StaticAsset staticAsset) throws IOException {
+    public void createStaticAssetStorage(InputStream fileInputStream, final StaticAsset staticAsset) throws IOException {
         if (StorageType.DATABASE.equals(staticAsset.getStorageType())) {
             StaticAssetStorage storage = create();
             storage.setStaticAssetId(staticAsset.getId());
@@ -473,6 +703,21 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
                 broadleafFileService.closeWorkArea(tempWorkArea);
             }
         }
+    
+        if (eagerDerivativeGenerationEnabled && isImageFile(staticAsset.getFullUrl())) {
+            // The stored bytes are only visible to other threads once this transaction commits
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                    @Override
+                    public void afterCommit() {
+                        generateNamedOperationDerivatives(staticAsset);
+                    }
+                });
+            } else {
+                generateNamedOperationDerivatives(staticAsset);
+            }
+        }
     }
 
     protected long getMaxUploadSizeForFile(String fileName) {
@@ -539,4 +784,22 @@ public class StaticAssetStorageServiceImpl implements StaticAssetStorageService
             throw new IOException("Maximum Upload File Size Exceeded");
         }
     }
+
+    /**
+     * A conversion that removes itself from {@link #conversionsInFlight} once it finishes, successfully or not
+     */
+    protected class ConversionTask extends FutureTask<File> {
+
+        protected final String key;
+
+        public ConversionTask(String key, Callable<File> callable) {
+            super(callable);
+            this.key = key;
+        }
+
+        @Override
+        protected void done() {
+            conversionsInFlight.remove(key, this);
+        }
+    }
 }
@@ -34,6 +34,7 @@ import org.broadleafcommerce.common.locale.service.LocaleService;
 import org.broadleafcommerce.common.locale.util.LocaleUtil;
 import org.broadleafcommerce.common.page.dto.NullPageDTO;
 import org.broadleafcommerce.common.page.dto.PageDTO;
+import org.broadleafcommerce.common.rule.CompiledRuleWarmUpProvider;
 import org.broadleafcommerce.common.rule.RuleProcessor;
 import org.broadleafcommerce.common.site.domain.Site;
 import org.broadleafcommerce.common.template.TemplateOverrideExtensionManager;
@@ -58,7 +59,7 @@ import javax.cache.CacheManager;
  * @author Nathan Moore (nathandmoore)
  */
 @Service("blPageService")
-public class PageServiceImpl implements PageService {
+public class PageServiceImpl implements PageService, CompiledRuleWarmUpProvider {
 
     protected static final Log LOG = LogFactory.getLog(PageServiceImpl.class);
     protected static String AND = " && ";
@@ -459,6 +460,18 @@ public class PageServiceImpl implements PageService {
         return pageDao.readAllPageTemplates();
     }
 
+    @Override
+    public Map<String, Map<String, Class<?>>> readRulesForWarmUp() {
+        Map<String, Map<String, Class<?>>> rules = new HashMap<>();
+        for (Page page : pageDao.readAllPages()) {
+            String ruleExpression = pageServiceUtility.buildRuleExpression(page);
+            if (ruleExpression != null) {
+                rules.put(ruleExpression, null);
+            }
+        }
+        return rules;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public Boolean removePageFromCache(String mapKey) {
@@ -21,6 +21,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.rule.AbstractRuleProcessor;
 import org.broadleafcommerce.common.structure.dto.StructuredContentDTO;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -38,6 +40,21 @@ import java.util.Map;
 public class StructuredContentDefaultRuleProcessor extends AbstractRuleProcessor<StructuredContentDTO> {
     private static final Log LOG = LogFactory.getLog(StructuredContentDefaultRuleProcessor.class);
 
+    protected static final String MATCH_RESULTS_ATTRIBUTE = "blStructuredContentRuleResults";
+
+    /**
+     * Rule variables that are rebuilt for every content lookup but whose value does not change meaningfully during
+     * a single request, so they are left out of the memoization key
+     */
+    protected static final String[] REQUEST_CONSTANT_VARS = new String[]{"time"};
+
+    /**
+     * When true, the result of each rule expression is remembered for the rest of the request, so the same rule
+     * evaluated for several content items or content zones on a page only runs through MVEL once
+     */
+    @Value("${content.rule.results.memoize.enabled:false}")
+    protected boolean memoizeResults = false;
+
     /**
      * Returns true if all of the rules associated with the passed in <code>StructuredContent</code>
      * item match based on the passed in vars.
@@ -56,7 +73,7 @@ public class StructuredContentDefaultRuleProcessor extends AbstractRuleProcessor
             if (LOG.isTraceEnabled())  {
                 LOG.trace("Processing content rule for StructuredContent with id " + sc.getId() +".   Value = " + ruleExpression);
             }
-            boolean result = executeExpression(ruleExpression, vars);
+            boolean result = evaluate(ruleExpression, vars);
             if (! result) {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Content failed to pass rule and will not be included for StructuredContent with id " + sc.getId() +".   Value = " + ruleExpression);
@@ -70,6 +87,34 @@ public class StructuredContentDefaultRuleProcessor extends AbstractRuleProcessor
         }
     }
     
+    protected boolean evaluate(String ruleExpression, Map<String, Object> vars) {
+        Map<MatchResultKey, Boolean> matchResults = memoizeResults ? getRequestMatchResults() : null;
+        if (matchResults == null) {
+            return executeExpression(ruleExpression, vars);
+        }
+        MatchResultKey key = new MatchResultKey(ruleExpression, vars);
+        Boolean result = matchResults.get(key);
+        if (result == null) {
+            result = executeExpression(ruleExpression, vars);
+            matchResults.put(key, result);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Map<MatchResultKey, Boolean> getRequestMatchResults() {
+        BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        if (context == null) {
+            return null;
+        }
+        Map<MatchResultKey, Boolean> matchResults = (Map<MatchResultKey, Boolean>) context.getAdditionalProperties().get(MATCH_RESULTS_ATTRIBUTE);
+        if (matchResults == null) {
+            matchResults = new HashMap<>();
+            context.getAdditionalProperties().put(MATCH_RESULTS_ATTRIBUTE, matchResults);
+        }
+        return matchResults;
+    }
+
     @Override
     @SuppressWarnings("serial")
     public Map<String, String> getContextClassNames() {
@@ -80,5 +125,65 @@ public class StructuredContentDefaultRuleProcessor extends AbstractRuleProcessor
             put("request", "org.broadleafcommerce.common.RequestDTO");
         }};
     }
+
+    /**
+     * Identifies a rule evaluation within a request. Rule variables are compared by identity, so two content lookups
+     * share a result only when they evaluated the same expression against the same customer, product, request, etc.
+     */
+    protected static class MatchResultKey {
+
+        private final String ruleExpression;
+        private final Map<String, Object> vars;
+        private final int hashCode;
+
+        public MatchResultKey(String ruleExpression, Map<String, Object> vars) {
+            this.ruleExpression = ruleExpression;
+            this.vars = new HashMap<>();
+            int hash = ruleExpression.hashCode();
+            if (vars != null) {
+                for (Map.Entry<String, Object> entry : vars.entrySet()) {
+                    if (!isRequestConstant(entry.getKey())) {
+                        this.vars.put(entry.getKey(), entry.getValue());
+                        hash += entry.getKey().hashCode() ^ System.identityHashCode(entry.getValue());
+                    }
+                }
+            }
+            this.hashCode = hash;
+        }
+
+        protected static boolean isRequestConstant(String name) {
+            for (String constant : REQUEST_CONSTANT_VARS) {
+                if (constant.equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MatchResultKey)) {
+                return false;
+            }
+            MatchResultKey other = (MatchResultKey) o;
+            if (hashCode != other.hashCode || !ruleExpression.equals(other.ruleExpression) || !vars.keySet().equals(other.vars.keySet())) {
+                return false;
+            }
+            for (Map.Entry<String, Object> entry : vars.entrySet()) {
+                if (entry.getValue() != other.vars.get(entry.getKey())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
     
 }
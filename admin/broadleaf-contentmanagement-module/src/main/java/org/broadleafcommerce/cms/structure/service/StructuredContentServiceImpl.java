@@ -43,6 +43,7 @@ import org.broadleafcommerce.common.locale.service.LocaleService;
 import org.broadleafcommerce.common.locale.util.LocaleUtil;
 import org.broadleafcommerce.common.money.Money;
 import org.broadleafcommerce.common.persistence.EntityConfiguration;
+import org.broadleafcommerce.common.rule.CompiledRuleWarmUpProvider;
 import org.broadleafcommerce.common.rule.RuleProcessor;
 import org.broadleafcommerce.common.sandbox.domain.SandBox;
 import org.broadleafcommerce.common.site.domain.Site;
@@ -58,6 +59,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -71,7 +73,7 @@ import javax.cache.CacheManager;
  * @author bpolster
  */
 @Service("blStructuredContentService")
-public class StructuredContentServiceImpl implements StructuredContentService {
+public class StructuredContentServiceImpl implements StructuredContentService, CompiledRuleWarmUpProvider {
 
     protected static final Log LOG = LogFactory.getLog(StructuredContentServiceImpl.class);
 
@@ -455,6 +457,18 @@ public class StructuredContentServiceImpl implements StructuredContentService {
         }
     }
 
+    @Override
+    public Map<String, Map<String, Class<?>>> readRulesForWarmUp() {
+        Map<String, Map<String, Class<?>>> rules = new HashMap<>();
+        for (StructuredContent sc : structuredContentDao.findAllContentItems()) {
+            String ruleExpression = buildRuleExpression(sc);
+            if (ruleExpression != null) {
+                rules.put(ruleExpression, null);
+            }
+        }
+        return rules;
+    }
+
     protected List<ItemCriteriaDTO> buildItemCriteriaDTOList(StructuredContent sc) {
         List<ItemCriteriaDTO> itemCriteriaDTOList = new ArrayList<>();
         Set<StructuredContentItemCriteria> qualifyingItemCriteria = SetUtils.emptyIfNull(sc.getQualifyingItemCriteria());
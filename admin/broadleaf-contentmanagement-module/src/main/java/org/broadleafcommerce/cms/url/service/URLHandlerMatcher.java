@@ -0,0 +1,200 @@
+/*-
+ * #%L
+ * BroadleafCommerce CMS Module
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.cms.url.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.cms.url.domain.URLHandler;
+import org.broadleafcommerce.cms.url.domain.URLHandlerDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * An in-memory view of every {@link URLHandler} for a site. Exact incoming URLs are found with a single map lookup.
+ * Patterns are indexed by the literal text they must start with, so a URI is only run against the patterns whose
+ * literal prefix it starts with, in the same order the handlers were loaded. Patterns are compiled the first time a
+ * URI reaches them.
+ */
+public class URLHandlerMatcher {
+
+    private static final Log LOG = LogFactory.getLog(URLHandlerMatcher.class);
+
+    protected static final String PATTERN_META_CHARACTERS = "\\[](){}.*+?^$|";
+
+    protected final long created = System.currentTimeMillis();
+    protected final Map<String, URLHandler> exactHandlers = new HashMap<>();
+    protected final List<PatternEntry> patterns = new ArrayList<>();
+    protected final Map<String, int[]> patternIndexesByPrefix = new HashMap<>();
+    protected int maxPrefixLength = 0;
+
+    /**
+     * @param handlers every handler for the site, in the order they should be tried
+     * @param anchoredPatterns the incoming URL of each handler as the anchored pattern it is matched with
+     */
+    public URLHandlerMatcher(List<URLHandler> handlers, List<String> anchoredPatterns) {
+        Map<String, List<Integer>> indexes = new HashMap<>();
+        for (int i = 0; i < handlers.size(); i++) {
+            URLHandler handler = handlers.get(i);
+            URLHandlerDTO dto = new URLHandlerDTO(handler.getNewURL(), handler.getUrlRedirectType());
+            if (!exactHandlers.containsKey(handler.getIncomingURL())) {
+                exactHandlers.put(handler.getIncomingURL(), dto);
+            }
+
+            String prefix = getLiteralPrefix(anchoredPatterns.get(i));
+            List<Integer> prefixIndexes = indexes.get(prefix);
+            if (prefixIndexes == null) {
+                prefixIndexes = new ArrayList<>();
+                indexes.put(prefix, prefixIndexes);
+            }
+            prefixIndexes.add(patterns.size());
+            patterns.add(new PatternEntry(anchoredPatterns.get(i), handler.getIncomingURL(), dto));
+            maxPrefixLength = Math.max(maxPrefixLength, prefix.length());
+        }
+        for (Map.Entry<String, List<Integer>> entry : indexes.entrySet()) {
+            int[] prefixIndexes = new int[entry.getValue().size()];
+            for (int i = 0; i < prefixIndexes.length; i++) {
+                prefixIndexes[i] = entry.getValue().get(i);
+            }
+            patternIndexesByPrefix.put(entry.getKey(), prefixIndexes);
+        }
+    }
+
+    /**
+     * @return the handler for the URI, a {@link URLHandlerDTO} carrying the rewritten URL for patterns with
+     * substitutions, or null when nothing matches
+     */
+    public URLHandler match(String uri) {
+        URLHandler exact = exactHandlers.get(uri);
+        if (exact != null) {
+            return exact;
+        }
+
+        int[] candidates = findCandidates(uri);
+        for (int index : candidates) {
+            PatternEntry entry = patterns.get(index);
+            Pattern pattern = entry.getPattern();
+            if (pattern == null) {
+                continue;
+            }
+            Matcher m = pattern.matcher(uri);
+            if (m.find()) {
+                String newUrl = m.replaceFirst(entry.handler.getNewURL());
+                if (newUrl.equals(entry.handler.getNewURL())) {
+                    return entry.handler;
+                } else {
+                    return new URLHandlerDTO(newUrl, entry.handler.getUrlRedirectType());
+                }
+            }
+        }
+        return null;
+    }
+
+    public boolean isOlderThan(long millis) {
+        return System.currentTimeMillis() - created > millis;
+    }
+
+    public int getHandlerCount() {
+        return patterns.size();
+    }
+
+    /**
+     * @return the indexes of every pattern whose literal prefix the URI starts with, in ascending order
+     */
+    protected int[] findCandidates(String uri) {
+        int[] candidates = new int[0];
+        int size = 0;
+        int limit = Math.min(maxPrefixLength, uri.length());
+        for (int length = 0; length <= limit; length++) {
+            int[] indexes = patternIndexesByPrefix.get(uri.substring(0, length));
+            if (indexes != null) {
+                if (size + indexes.length > candidates.length) {
+                    candidates = Arrays.copyOf(candidates, size + indexes.length);
+                }
+                System.arraycopy(indexes, 0, candidates, size, indexes.length);
+                size += indexes.length;
+            }
+        }
+        Arrays.sort(candidates, 0, size);
+        return size == candidates.length ? candidates : Arrays.copyOf(candidates, size);
+    }
+
+    /**
+     * The literal text any URI matching the anchored pattern has to start with. Anything that is not plain text ends the
+     * prefix, and a character made optional by the quantifier after it is dropped. A top level alternation could match
+     * anywhere, so patterns containing one get an empty prefix and are tried for every URI.
+     */
+    protected static String getLiteralPrefix(String anchoredPattern) {
+        if (!anchoredPattern.startsWith("^") || anchoredPattern.indexOf('|') >= 0) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 1; i < anchoredPattern.length(); i++) {
+            char c = anchoredPattern.charAt(i);
+            if (PATTERN_META_CHARACTERS.indexOf(c) >= 0) {
+                if ((c == '*' || c == '?' || c == '{') && prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+                break;
+            }
+            prefix.append(c);
+        }
+        return prefix.toString();
+    }
+
+    protected static class PatternEntry {
+
+        protected final String anchoredPattern;
+        protected final String incomingUrl;
+        protected final URLHandler handler;
+        protected volatile Pattern pattern;
+        protected volatile boolean invalid = false;
+
+        protected PatternEntry(String anchoredPattern, String incomingUrl, URLHandler handler) {
+            this.anchoredPattern = anchoredPattern;
+            this.incomingUrl = incomingUrl;
+            this.handler = handler;
+        }
+
+        /**
+         * @return the compiled pattern, or null if it does not compile. An invalid pattern is only reported once.
+         */
+        protected Pattern getPattern() {
+            Pattern compiled = pattern;
+            if (compiled == null && !invalid) {
+                try {
+                    compiled = Pattern.compile(anchoredPattern);
+                    pattern = compiled;
+                } catch (PatternSyntaxException e) {
+                    invalid = true;
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn("Error parsing URL Handler (incoming =" + incomingUrl + "), outgoing = ( "
+                                + handler.getNewURL() + ")");
+                    }
+                }
+            }
+            return compiled;
+        }
+    }
+}
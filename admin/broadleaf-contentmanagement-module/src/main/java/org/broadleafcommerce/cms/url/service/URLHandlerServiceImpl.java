@@ -28,11 +28,15 @@ import org.broadleafcommerce.common.cache.StatisticsService;
 import org.broadleafcommerce.common.site.domain.Site;
 import org.broadleafcommerce.common.util.EfficientLRUMap;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -64,6 +68,21 @@ public class URLHandlerServiceImpl implements URLHandlerService {
 
     protected Map<String, Pattern> urlPatternMap = new EfficientLRUMap<String, Pattern>(2000);
 
+    /**
+     * When true, production lookups that miss the cache are answered by an in-memory {@link URLHandlerMatcher} of every
+     * handler for the site instead of a query followed by a scan of every handler
+     */
+    @Value("${url.handler.matcher.enabled:false}")
+    protected boolean matcherEnabled = false;
+
+    /**
+     * How long a site's matcher is used before it is rebuilt to pick up handlers changed on other nodes
+     */
+    @Value("${url.handler.matcher.refreshSeconds:3600}")
+    protected long matcherRefreshSeconds = 3600;
+
+    protected final Map<String, URLHandlerMatcher> urlHandlerMatchers = new ConcurrentHashMap<>();
+
     /**
      * Checks the passed in URL to determine if there is a matching URLHandler.
      * Returns null if no handler was found.
@@ -94,12 +113,16 @@ public class URLHandlerServiceImpl implements URLHandlerService {
         }
 
         if (handler == null) {
-            //Check for an exact match in the DB...
-            handler = urlHandlerDao.findURLHandlerByURI(uri);
+            if (matcherEnabled && BroadleafRequestContext.getBroadleafRequestContext().isProductionSandBox()) {
+                handler = getURLHandlerMatcher(site).match(uri);
+            } else {
+                //Check for an exact match in the DB...
+                handler = urlHandlerDao.findURLHandlerByURI(uri);
 
-            if (handler == null) {
-                //Check for a regex match
-                handler = checkForMatches(uri);
+                if (handler == null) {
+                    //Check for a regex match
+                    handler = checkForMatches(uri);
+                }
             }
 
             if (handler == null) {
@@ -141,9 +164,41 @@ public class URLHandlerServiceImpl implements URLHandlerService {
     @Override
     @Transactional("blTransactionManager")
     public URLHandler saveURLHandler(URLHandler handler) {
+        urlHandlerMatchers.clear();
         return urlHandlerDao.saveURLHandler(handler);
     }
 
+    /**
+     * Returns the matcher for the site, building it from every handler the first time the site is seen and again once it
+     * is older than {@link #matcherRefreshSeconds}
+     */
+    protected URLHandlerMatcher getURLHandlerMatcher(Site site) {
+        String key = site == null ? "" : String.valueOf(site.getId());
+        URLHandlerMatcher matcher = urlHandlerMatchers.get(key);
+        if (matcher == null || matcher.isOlderThan(TimeUnit.SECONDS.toMillis(matcherRefreshSeconds))) {
+            synchronized (urlHandlerMatchers) {
+                matcher = urlHandlerMatchers.get(key);
+                if (matcher == null || matcher.isOlderThan(TimeUnit.SECONDS.toMillis(matcherRefreshSeconds))) {
+                    matcher = buildURLHandlerMatcher(findAllURLHandlers());
+                    urlHandlerMatchers.put(key, matcher);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Built the URL handler matcher for site " + key + " with " + matcher.getHandlerCount()
+                                + " handlers");
+                    }
+                }
+            }
+        }
+        return matcher;
+    }
+
+    protected URLHandlerMatcher buildURLHandlerMatcher(List<URLHandler> handlers) {
+        List<String> anchoredPatterns = new ArrayList<>(handlers.size());
+        for (URLHandler handler : handlers) {
+            anchoredPatterns.add(wrapStringsWithAnchors(handler.getIncomingURL()));
+        }
+        return new URLHandlerMatcher(handlers, anchoredPatterns);
+    }
+
     protected URLHandler checkForMatches(String requestURI) {
         URLHandler currentHandler = null;
         try {
@@ -183,6 +238,9 @@ public class URLHandlerServiceImpl implements URLHandlerService {
 
     @Override
     public Boolean removeURLHandlerFromCache(String mapKey) {
+        // A handler changed, so the matchers built from the old handlers are stale as well
+        urlHandlerMatchers.clear();
+
         Boolean success = Boolean.FALSE;
         if (mapKey != null) {
             Object e = getUrlHandlerCache().get(mapKey);
@@ -25,23 +25,48 @@ import org.springframework.web.servlet.View;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
+ * Streams the cache file produced by the StaticAssetStorageService. The file is handed to the container's sendfile
+ * support when it advertises it and otherwise transferred straight from a {@link FileChannel}. Single byte ranges,
+ * If-Range, strong ETags and precompressed gzip/brotli variants of text assets are supported.
+ *
  * Created by jfischer
  */
 public class StaticAssetView implements View {
 
     private static final Log LOG = LogFactory.getLog(StaticAssetView.class);
 
+    protected static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    protected static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    protected static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    protected static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    protected static final long[] UNSATISFIABLE_RANGE = new long[0];
+
     protected boolean browserAssetCachingEnabled = true;
     protected long cacheSeconds = 60 * 60 * 24;
+    protected boolean rangeRequestsEnabled = true;
+    protected boolean sendfileEnabled = true;
+    protected boolean precompressedVariantsEnabled = true;
 
     @Override
     public String getContentType() {
@@ -51,10 +76,36 @@ public class StaticAssetView implements View {
     @Override
     public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
         String cacheFilePath = (String) model.get("cacheFilePath");
-        BufferedInputStream bis = new BufferedInputStream(new FileInputStream(cacheFilePath));
+        File cacheFile = new File(cacheFilePath);
+        if (!cacheFile.exists()) {
+            throw new FileNotFoundException(cacheFilePath);
+        }
         try {
             String mimeType = (String) model.get("mimeType");
             response.setContentType(mimeType);
+
+            File content = cacheFile;
+            String contentEncoding = null;
+            if (precompressedVariantsEnabled && isCompressible(mimeType)) {
+                response.setHeader("Vary", "Accept-Encoding");
+                String acceptEncoding = request.getHeader("Accept-Encoding");
+                if (acceptsEncoding(acceptEncoding, "br")) {
+                    File variant = getFreshVariant(cacheFile, ".br");
+                    if (variant != null) {
+                        content = variant;
+                        contentEncoding = "br";
+                    }
+                }
+                if (contentEncoding == null && acceptsEncoding(acceptEncoding, "gzip")) {
+                    File variant = getOrCreateGzipVariant(cacheFile);
+                    if (variant != null) {
+                        content = variant;
+                        contentEncoding = "gzip";
+                    }
+                }
+            }
+            String eTag = buildETag(cacheFile, contentEncoding);
+
             if (!browserAssetCachingEnabled) {
                 response.setHeader("Cache-Control","no-cache");
                 response.setHeader("Pragma","no-cache");
@@ -62,7 +113,14 @@ public class StaticAssetView implements View {
             } else {
                 response.setHeader("Cache-Control","public");
                 response.setHeader("Pragma","cache");
-                if (!StringUtils.isEmpty(request.getHeader("If-Modified-Since"))) {
+                response.setHeader("ETag", eTag);
+                String ifNoneMatch = request.getHeader("If-None-Match");
+                if (!StringUtils.isEmpty(ifNoneMatch)) {
+                    if (matchesETag(ifNoneMatch, eTag)) {
+                        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                        return;
+                    }
+                } else if (!StringUtils.isEmpty(request.getHeader("If-Modified-Since"))) {
                     long lastModified = request.getDateHeader("If-Modified-Since");
                     Calendar last = Calendar.getInstance();
                     last.setTime(new Date(lastModified));
@@ -82,19 +140,38 @@ public class StaticAssetView implements View {
                 cal.add(Calendar.SECOND, new Long(year).intValue());
                 response.setDateHeader ("Expires", cal.getTimeInMillis());
             }
-            OutputStream os = response.getOutputStream();
-            boolean eof = false;
-            while (!eof) {
-                int temp = bis.read();
-                if (temp < 0) {
-                    eof = true;
-                } else {
-                    os.write(temp);
+            if (contentEncoding != null) {
+                response.setHeader("Content-Encoding", contentEncoding);
+            }
+
+            long length = content.length();
+            long start = 0;
+            long count = length;
+            if (rangeRequestsEnabled) {
+                response.setHeader("Accept-Ranges", "bytes");
+                String range = request.getHeader("Range");
+                if (!StringUtils.isEmpty(range) && isIfRangeSatisfied(request.getHeader("If-Range"), eTag)) {
+                    long[] bounds = parseRange(range, length);
+                    if (bounds == UNSATISFIABLE_RANGE) {
+                        response.setHeader("Content-Range", "bytes */" + length);
+                        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                        return;
+                    }
+                    if (bounds != null) {
+                        start = bounds[0];
+                        count = bounds[1] - bounds[0] + 1;
+                        response.setHeader("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + length);
+                        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    }
                 }
             }
-            os.flush();
+            response.setContentLengthLong(count);
+
+            if (!"HEAD".equalsIgnoreCase(request.getMethod())) {
+                transfer(content, start, count, request, response);
+            }
         } catch (Exception e) {
-            if (e.getCause() instanceof SocketException) {
+            if (e.getCause() instanceof SocketException || e instanceof SocketException) {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Unable to stream asset", e);
                 }
@@ -102,12 +179,181 @@ public class StaticAssetView implements View {
                 LOG.error("Unable to stream asset", e);
                 throw e;
             }
-        } finally {
-            try {
-                bis.close();
-            } catch (Throwable e) {
-                //do nothing
+        }
+    }
+
+    /**
+     * Sends count bytes of the file starting at start. When the container supports sendfile the transfer is left to it
+     * once the response is complete, otherwise the bytes go from the file channel to the response without passing
+     * through a heap buffer here.
+     */
+    protected void transfer(File file, long start, long count, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (sendfileEnabled && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            OutputStream os = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(os);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    // The file was truncated underneath us
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+            os.flush();
+        }
+    }
+
+    /**
+     * Parses a Range header against a representation of the given length. Only a single byte range is honored; a
+     * header asking for several ranges or using another unit is ignored and the whole file is sent, as HTTP allows.
+     *
+     * @return the inclusive first and last byte positions, null to send the whole file or {@link #UNSATISFIABLE_RANGE}
+     */
+    protected long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return UNSATISFIABLE_RANGE;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if (end < start) {
+                    return start >= length ? UNSATISFIABLE_RANGE : null;
+                }
+            }
+            if (start >= length) {
+                return UNSATISFIABLE_RANGE;
             }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A range is only honored when If-Range is absent or names the current strong ETag. Dates are not accepted since the
+     * Last-Modified header sent here is not the file's real modification time.
+     */
+    protected boolean isIfRangeSatisfied(String ifRange, String eTag) {
+        return StringUtils.isEmpty(ifRange) || ifRange.trim().equals(eTag);
+    }
+
+    protected boolean matchesETag(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if ("*".equals(trimmed) || trimmed.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cache file names already carry a digest of the asset's update date and the operations applied to it, so the name
+     * and length identify the bytes without reading them
+     */
+    protected String buildETag(File cacheFile, String contentEncoding) {
+        StringBuilder sb = new StringBuilder("\"");
+        sb.append(cacheFile.getName()).append('-').append(cacheFile.length());
+        if (contentEncoding != null) {
+            sb.append('-').append(contentEncoding);
+        }
+        return sb.append('"').toString();
+    }
+
+    protected boolean isCompressible(String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        return mimeType.startsWith("text/") || mimeType.startsWith("application/javascript")
+                || mimeType.startsWith("application/x-javascript") || mimeType.startsWith("application/json")
+                || mimeType.startsWith("application/xml") || mimeType.startsWith("image/svg+xml");
+    }
+
+    protected boolean acceptsEncoding(String acceptEncoding, String encoding) {
+        if (StringUtils.isEmpty(acceptEncoding)) {
+            return false;
+        }
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(encoding)) {
+                return !(parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?"));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the variant of the cache file with the given suffix, provided it is at least as new as the cache file
+     */
+    protected File getFreshVariant(File cacheFile, String suffix) {
+        File variant = new File(cacheFile.getPath() + suffix);
+        if (variant.exists() && variant.lastModified() >= cacheFile.lastModified()) {
+            return variant;
+        }
+        return null;
+    }
+
+    /**
+     * Compresses the cache file next to itself the first time a gzip client asks for it. Brotli variants are only
+     * served when something else has placed them there. Failures fall back to sending the file uncompressed.
+     */
+    protected File getOrCreateGzipVariant(File cacheFile) {
+        File variant = getFreshVariant(cacheFile, ".gz");
+        if (variant != null) {
+            return variant;
+        }
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+            try (InputStream is = new FileInputStream(cacheFile);
+                    GZIPOutputStream gos = new GZIPOutputStream(new FileOutputStream(tempFile))) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = is.read(buffer)) >= 0) {
+                    gos.write(buffer, 0, read);
+                }
+            }
+            variant = new File(cacheFile.getPath() + ".gz");
+            Files.move(tempFile.toPath(), variant.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return variant;
+        } catch (IOException e) {
+            LOG.warn("Unable to create a gzip variant of " + cacheFile.getPath(), e);
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            return null;
         }
     }
 
@@ -126,4 +372,28 @@ public class StaticAssetView implements View {
     public void setCacheSeconds(long cacheSeconds) {
         this.cacheSeconds = cacheSeconds;
     }
+
+    public boolean isRangeRequestsEnabled() {
+        return rangeRequestsEnabled;
+    }
+
+    public void setRangeRequestsEnabled(boolean rangeRequestsEnabled) {
+        this.rangeRequestsEnabled = rangeRequestsEnabled;
+    }
+
+    public boolean isSendfileEnabled() {
+        return sendfileEnabled;
+    }
+
+    public void setSendfileEnabled(boolean sendfileEnabled) {
+        this.sendfileEnabled = sendfileEnabled;
+    }
+
+    public boolean isPrecompressedVariantsEnabled() {
+        return precompressedVariantsEnabled;
+    }
+
+    public void setPrecompressedVariantsEnabled(boolean precompressedVariantsEnabled) {
+        this.precompressedVariantsEnabled = precompressedVariantsEnabled;
+    }
 }
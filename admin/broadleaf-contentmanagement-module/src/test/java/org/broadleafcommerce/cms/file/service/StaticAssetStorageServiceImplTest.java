@@ -0,0 +1,306 @@
+/*-
+ * #%L
+ * BroadleafCommerce CMS Module
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.cms.file.service;
+
+import org.broadleafcommerce.cms.field.type.StorageType;
+import org.broadleafcommerce.cms.file.domain.StaticAsset;
+import org.broadleafcommerce.cms.file.domain.StaticAssetImpl;
+import org.broadleafcommerce.common.util.StreamCapableTransactionalOperation;
+import org.broadleafcommerce.common.util.StreamingTransactionCapableUtil;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * Covers the single-flight derivative conversion, the bounded conversion executor and eager derivative generation.
+ *
+ * @author Jeff Fischer
+ */
+public class StaticAssetStorageServiceImplTest extends TestCase {
+
+    protected File tempDirectory;
+
+    @Override
+    protected void setUp() throws Exception {
+        tempDirectory = File.createTempFile("asset-conversion", "");
+        tempDirectory.delete();
+        tempDirectory.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = tempDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tempDirectory.delete();
+    }
+
+    public void testConcurrentRequestsForTheSameDerivativeShareOneConversion() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestStorageService service = new TestStorageService(started, release, false);
+        final StaticAsset asset = buildAsset(StorageType.FILESYSTEM);
+        final File cacheFile = new File(tempDirectory, "derivative.png");
+        final List<Boolean> results = Collections.synchronizedList(new ArrayList<Boolean>());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread first = startConversion(service, asset, cacheFile, results, failure);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Thread second = startConversion(service, asset, cacheFile, results, failure);
+        waitUntilWaiting(second);
+
+        assertTrue(service.conversionsInFlight.containsKey(cacheFile.getAbsolutePath()));
+        release.countDown();
+        first.join(10000);
+        second.join(10000);
+
+        assertNull(failure.get());
+        assertEquals(Arrays.asList(true, true), results);
+        assertEquals(1, service.conversions.get());
+        assertTrue(service.conversionsInFlight.isEmpty());
+    }
+
+    public void testFailedConversionIsRemovedFromInFlight() throws Exception {
+        TestStorageService service = new TestStorageService(null, null, true);
+        StaticAsset asset = buildAsset(StorageType.FILESYSTEM);
+        File cacheFile = new File(tempDirectory, "derivative.png");
+
+        try {
+            service.convertSingleFlight(asset, null, cacheFile, new HashMap<String, String>(), false);
+            fail("The conversion failure should have been rethrown");
+        } catch (IOException e) {
+            assertEquals("conversion failed", e.getMessage());
+        }
+        assertTrue(service.conversionsInFlight.isEmpty());
+
+        service.fail = false;
+        assertTrue(service.convertSingleFlight(asset, null, cacheFile, new HashMap<String, String>(), false));
+        assertEquals(2, service.conversions.get());
+        assertTrue(service.conversionsInFlight.isEmpty());
+    }
+
+    public void testFullConversionQueueServesTheOriginal() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TestStorageService service = new TestStorageService(started, release, false);
+        service.conversionThreads = 1;
+        service.conversionMaxQueueDepth = 1;
+        service.conversionWaitSeconds = 0;
+        StaticAsset asset = buildAsset(StorageType.FILESYSTEM);
+        File running = new File(tempDirectory, "running.png");
+        File queued = new File(tempDirectory, "queued.png");
+        File rejected = new File(tempDirectory, "rejected.png");
+
+        try {
+            assertFalse(service.convertSingleFlight(asset, null, running, new HashMap<String, String>(), false));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertFalse(service.convertSingleFlight(asset, null, queued, new HashMap<String, String>(), false));
+            assertFalse(service.convertSingleFlight(asset, null, rejected, new HashMap<String, String>(), false));
+
+            assertTrue(service.conversionsInFlight.containsKey(running.getAbsolutePath()));
+            assertTrue(service.conversionsInFlight.containsKey(queued.getAbsolutePath()));
+            assertFalse(service.conversionsInFlight.containsKey(rejected.getAbsolutePath()));
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!service.conversionsInFlight.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(service.conversionsInFlight.isEmpty());
+            assertTrue(running.exists());
+            assertTrue(queued.exists());
+            assertFalse(rejected.exists());
+        } finally {
+            release.countDown();
+            service.destroy();
+        }
+    }
+
+    public void testConversionOnThePoolRunsAQueuedConversionForTheSameDerivative() throws Exception {
+        final TestStorageService service = new TestStorageService(null, null, false);
+        service.conversionThreads = 1;
+        service.conversionWaitSeconds = 0;
+        final StaticAsset asset = buildAsset(StorageType.FILESYSTEM);
+        final File cacheFile = new File(tempDirectory, "derivative.png");
+        final CountDownLatch gate = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicReference<Boolean> eagerResult = new AtomicReference<>();
+
+        try {
+            // an eager job occupies the only conversion thread
+            service.getConversionExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        gate.await(10, TimeUnit.SECONDS);
+                        eagerResult.set(service.convertSingleFlight(asset, null, cacheFile, new HashMap<String, String>(), true));
+                    } catch (Exception e) {
+                        eagerResult.set(false);
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            });
+
+            // a shopper request queues the same derivative behind it and serves the original
+            assertFalse(service.convertSingleFlight(asset, null, cacheFile, new HashMap<String, String>(), false));
+            assertTrue(service.conversionsInFlight.containsKey(cacheFile.getAbsolutePath()));
+
+            gate.countDown();
+            assertTrue(finished.await(10, TimeUnit.SECONDS));
+            assertEquals(Boolean.TRUE, eagerResult.get());
+            assertEquals(1, service.conversions.get());
+            assertTrue(cacheFile.exists());
+            assertTrue(service.conversionsInFlight.isEmpty());
+        } finally {
+            gate.countDown();
+            service.destroy();
+        }
+    }
+
+    public void testEagerGenerationOfDatabaseAssetsRunsInATransaction() throws Exception {
+        TestTransactionUtil transUtil = new TestTransactionUtil();
+        TestStorageService service = new TestStorageService(null, null, false);
+        service.transUtil = transUtil;
+
+        service.generateDerivatives(buildAsset(StorageType.DATABASE), Arrays.asList("thumbnail", "large"));
+
+        assertEquals(1, transUtil.operations);
+        assertTrue(transUtil.readOnly);
+        assertEquals(Arrays.asList(true, true), service.generatedInTransaction);
+    }
+
+    public void testEagerGenerationOfFileSystemAssetsSkipsTheTransaction() throws Exception {
+        TestTransactionUtil transUtil = new TestTransactionUtil();
+        TestStorageService service = new TestStorageService(null, null, false);
+        service.transUtil = transUtil;
+
+        service.generateDerivatives(buildAsset(StorageType.FILESYSTEM), Arrays.asList("thumbnail"));
+
+        assertEquals(0, transUtil.operations);
+        assertEquals(Arrays.asList(false), service.generatedInTransaction);
+    }
+
+    protected StaticAsset buildAsset(StorageType storageType) {
+        StaticAsset asset = new StaticAssetImpl();
+        asset.setFullUrl("/product.png");
+        asset.setMimeType("image/png");
+        asset.setStorageType(storageType);
+        return asset;
+    }
+
+    protected Thread startConversion(final TestStorageService service, final StaticAsset asset, final File cacheFile,
+            final List<Boolean> results, final AtomicReference<Throwable> failure) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    results.add(service.convertSingleFlight(asset, null, cacheFile, new HashMap<String, String>(), false));
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    protected void waitUntilWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+
+    protected static class TestStorageService extends StaticAssetStorageServiceImpl {
+
+        protected final CountDownLatch started;
+        protected final CountDownLatch release;
+        protected volatile boolean fail;
+        protected final AtomicInteger conversions = new AtomicInteger();
+        protected final List<Boolean> generatedInTransaction = new ArrayList<>();
+
+        public TestStorageService(CountDownLatch started, CountDownLatch release, boolean fail) {
+            this.started = started;
+            this.release = release;
+            this.fail = fail;
+        }
+
+        @Override
+        protected void convertAsset(StaticAsset staticAsset, File baseLocalFile, File cacheFile,
+                Map<String, String> convertedParameters) throws Exception {
+            conversions.incrementAndGet();
+            if (started != null) {
+                started.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            if (fail) {
+                throw new IOException("conversion failed");
+            }
+            cacheFile.createNewFile();
+        }
+
+        @Override
+        protected Map<String, String> getCacheFileModel(StaticAsset staticAsset, Map<String, String> parameterMap,
+                boolean convertOnCallingThread) throws Exception {
+            assertTrue(convertOnCallingThread);
+            generatedInTransaction.add(transUtil != null && ((TestTransactionUtil) transUtil).inTransaction);
+            return new HashMap<>();
+        }
+    }
+
+    protected static class TestTransactionUtil extends StreamingTransactionCapableUtil {
+
+        protected int operations;
+        protected boolean readOnly;
+        protected boolean inTransaction;
+
+        @Override
+        public <G extends Throwable> void runOptionalTransactionalOperation(StreamCapableTransactionalOperation operation,
+                Class<G> exceptionType, boolean useTransaction, int transactionBehavior, int isolationLevel,
+                boolean readOnly, PlatformTransactionManager transactionManager) throws G {
+            operations++;
+            this.readOnly = readOnly;
+            inTransaction = useTransaction;
+            try {
+                operation.execute();
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            } finally {
+                inTransaction = false;
+            }
+        }
+    }
+}
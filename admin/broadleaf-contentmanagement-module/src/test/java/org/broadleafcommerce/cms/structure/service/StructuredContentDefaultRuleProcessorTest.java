@@ -0,0 +1,63 @@
+/*-
+ * #%L
+ * BroadleafCommerce CMS Module
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.cms.structure.service;
+
+import org.broadleafcommerce.cms.structure.service.StructuredContentDefaultRuleProcessor.MatchResultKey;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests for the request scoped rule result keys of {@link StructuredContentDefaultRuleProcessor}
+ *
+ * @author Jeff Fischer
+ */
+public class StructuredContentDefaultRuleProcessorTest {
+
+    @Test
+    public void testKeyComparesVariablesByIdentity() {
+        Object customer = new Object();
+        Object product = new Object();
+
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("customer", customer);
+        vars.put("product", product);
+        vars.put("time", new Object());
+
+        Map<String, Object> sameVars = new HashMap<>();
+        sameVars.put("customer", customer);
+        sameVars.put("product", product);
+        sameVars.put("time", new Object());
+
+        Map<String, Object> otherProduct = new HashMap<>();
+        otherProduct.put("customer", customer);
+        otherProduct.put("product", new Object());
+        otherProduct.put("time", new Object());
+
+        String rule = "customer.registered == true";
+        MatchResultKey key = new MatchResultKey(rule, vars);
+
+        Assert.assertEquals(key, new MatchResultKey(rule, sameVars));
+        Assert.assertEquals(key.hashCode(), new MatchResultKey(rule, sameVars).hashCode());
+        Assert.assertNotEquals(key, new MatchResultKey(rule, otherProduct));
+        Assert.assertNotEquals(key, new MatchResultKey("customer.registered == false", sameVars));
+    }
+
+}
@@ -105,4 +105,23 @@ public class URLHandlerServiceTest extends TestCase {
         assertTrue(expectedNewURL.equals(h.getNewURL()));
     }
 
+    @Test
+    public void testMatcherMatchesLikeScan() {
+        URLHandlerMatcher matcher = handlerService.buildURLHandlerMatcher(buildUrlHandlerList());
+        assertEquals("/NewSimpleUrl", matcher.match("/simple_url").getNewURL());
+        assertEquals("/NewSimpleRegex", matcher.match("/simple_regex").getNewURL());
+        assertNull(matcher.match("/simple_url/test"));
+        assertNull(matcher.match("/simple_regex/test"));
+        assertEquals("/newblogs/second/first", matcher.match("/blogs/first/second").getNewURL());
+        assertEquals("/merchandise/shirts/mens", matcher.match("/merchandise/shirts-tops/mens").getNewURL());
+    }
+
+    @Test
+    public void testLiteralPrefix() {
+        assertEquals("/blogs/", URLHandlerMatcher.getLiteralPrefix("^/blogs/(.*)/(.*)$"));
+        assertEquals("/colo", URLHandlerMatcher.getLiteralPrefix("^/colou?r$"));
+        assertEquals("", URLHandlerMatcher.getLiteralPrefix("^(.*)/shirts-tops(.*)$"));
+        assertEquals("", URLHandlerMatcher.getLiteralPrefix("^/a|/b$"));
+    }
+
 }
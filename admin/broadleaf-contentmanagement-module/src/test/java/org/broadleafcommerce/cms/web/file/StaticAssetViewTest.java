@@ -0,0 +1,116 @@
+/*-
+ * #%L
+ * BroadleafCommerce CMS Module
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.cms.web.file;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import junit.framework.TestCase;
+
+public class StaticAssetViewTest extends TestCase {
+
+    protected File assetFile;
+    protected Map<String, Object> model;
+    protected StaticAssetView view;
+
+    @Override
+    protected void setUp() throws Exception {
+        assetFile = File.createTempFile("asset---0123456789abcdef", ".txt");
+        try (FileOutputStream fos = new FileOutputStream(assetFile)) {
+            fos.write("0123456789".getBytes("UTF-8"));
+        }
+        model = new HashMap<>();
+        model.put("cacheFilePath", assetFile.getAbsolutePath());
+        model.put("mimeType", "text/plain");
+        view = new StaticAssetView();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        new File(assetFile.getPath() + ".gz").delete();
+        assetFile.delete();
+    }
+
+    public void testParseRange() {
+        assertNull(view.parseRange("items=0-1", 10));
+        assertNull(view.parseRange("bytes=0-1,4-5", 10));
+        assertRange(view.parseRange("bytes=2-4", 10), 2, 4);
+        assertRange(view.parseRange("bytes=7-", 10), 7, 9);
+        assertRange(view.parseRange("bytes=-3", 10), 7, 9);
+        assertRange(view.parseRange("bytes=5-100", 10), 5, 9);
+        assertSame(StaticAssetView.UNSATISFIABLE_RANGE, view.parseRange("bytes=10-", 10));
+    }
+
+    public void testRangeRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test.txt");
+        request.addHeader("Range", "bytes=2-4");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(model, request, response);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 2-4/10", response.getHeader("Content-Range"));
+        assertEquals("234", response.getContentAsString());
+    }
+
+    public void testStaleIfRangeSendsWholeFile() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test.txt");
+        request.addHeader("Range", "bytes=2-4");
+        request.addHeader("If-Range", "\"something-else\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(model, request, response);
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    public void testMatchingETagIsNotModified() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        view.render(model, new MockHttpServletRequest("GET", "/test.txt"), first);
+        String eTag = first.getHeader("ETag");
+        assertNotNull(eTag);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test.txt");
+        request.addHeader("If-None-Match", eTag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(model, request, response);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+    }
+
+    public void testGzipVariant() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test.txt");
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(model, request, response);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertTrue(new File(assetFile.getPath() + ".gz").exists());
+    }
+
+    protected void assertRange(long[] range, long start, long end) {
+        assertNotNull(range);
+        assertEquals(start, range[0]);
+        assertEquals(end, range[1]);
+    }
+}
@@ -41,6 +41,7 @@ public class CriteriaTransferObject {
     private Integer upperCount;
     private Integer lowerCount;
     private Boolean presentationFetch;
+    private Boolean listGridFetch;
     private Boolean folderLookup;
     private Long folderId;
 
@@ -125,6 +126,21 @@ public class CriteriaTransferObject {
         this.presentationFetch = presentationFetch;
     }
 
+    /**
+     * Whether the results are only used to render the rows of a main or collection list grid. Such fetches may skip
+     * extracting properties that the grid does not display. Lookups are presentation fetches too, but read fields
+     * a grid does not show, so they are never list grid fetches.
+     *
+     * @return whether this is a list grid fetch
+     */
+    public Boolean getListGridFetch() {
+        return listGridFetch;
+    }
+
+    public void setListGridFetch(Boolean listGridFetch) {
+        this.listGridFetch = listGridFetch;
+    }
+
     /**
      * Add a {@link FilterAndSortCriteria} instance. Contains information about which records are retrieved
      * and in what direction they're sorted.
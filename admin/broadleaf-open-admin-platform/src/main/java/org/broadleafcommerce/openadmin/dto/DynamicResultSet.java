@@ -78,6 +78,9 @@ public class DynamicResultSet implements Serializable {
     @JsonProperty
     private Boolean promptSearch;
 
+    @JsonProperty
+    private Boolean totalCountApproximate;
+
     @JsonIgnore
     private Map<String, Tab> unselectedTabMetadata = new HashMap<String, Tab>();
 
@@ -215,4 +218,17 @@ public class DynamicResultSet implements Serializable {
     public void setPromptSearch(Boolean promptSearch) {
         this.promptSearch = promptSearch;
     }
+
+    /**
+     * Whether {@link #getTotalRecords()} is a lower bound ("at least this many") rather than an exact count
+     *
+     * @return
+     */
+    public Boolean getTotalCountApproximate() {
+        return totalCountApproximate;
+    }
+
+    public void setTotalCountApproximate(Boolean totalCountApproximate) {
+        this.totalCountApproximate = totalCountApproximate;
+    }
 }
@@ -18,7 +18,6 @@
 package org.broadleafcommerce.openadmin.server.dao;
 
 
-import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.logging.Log;
@@ -30,6 +29,7 @@ import org.broadleafcommerce.common.presentation.AdminPresentationClass;
 import org.broadleafcommerce.common.presentation.client.PersistencePerspectiveItemType;
 import org.broadleafcommerce.common.presentation.client.SupportedFieldType;
 import org.broadleafcommerce.common.presentation.client.VisibilityEnum;
+import org.broadleafcommerce.common.util.EfficientLRUMap;
 import org.broadleafcommerce.common.util.dao.DynamicDaoHelper;
 import org.broadleafcommerce.common.util.dao.DynamicDaoHelperImpl;
 import org.broadleafcommerce.common.util.dao.HibernateMappingProvider;
@@ -106,7 +106,11 @@ public class DynamicEntityDaoImpl implements DynamicEntityDao, ApplicationContex
 
     private static final Log LOG = LogFactory.getLog(DynamicEntityDaoImpl.class);
 
-    protected static final Map<String, Map<String, FieldMetadata>> METADATA_CACHE = new LRUMap<>(1000);
+    /**
+     * Built metadata by cache key. Entries are never modified once cached, so they are read without locking; each
+     * caller receives its own clones. Only building a missing entry is serialized.
+     */
+    protected static final Map<String, Map<String, FieldMetadata>> METADATA_CACHE = new EfficientLRUMap<>(1000);
 
     /**
      * Lifetime cache for the existence of DynamicEntityDaoImpl that just stores how many properties we have cached in METADATA_CACHE over the lifetime
@@ -765,91 +769,100 @@ public class DynamicEntityDaoImpl implements DynamicEntityDao, ApplicationContex
         for (Class<?> clazz : entities) {
             String cacheKey = getCacheKey(ceilingEntityFullyQualifiedClassname, foreignField, additionalNonPersistentProperties, additionalForeignFields, mergedPropertyType, populateManyToOneFields, clazz, configurationKey, isParentExcluded);
 
-            Map<String, FieldMetadata> cacheData = null;
-            synchronized (DynamicDaoHelperImpl.LOCK_OBJECT) {
-                if (useCache()) {
-                    cacheData = METADATA_CACHE.get(cacheKey);
-                }
-
-                if (cacheData == null) {
-                    Map<String, FieldMetadata> props = getPropertiesForEntityClass(
-                            clazz,
-                            foreignField,
-                            additionalNonPersistentProperties,
-                            additionalForeignFields,
-                            mergedPropertyType,
-                            populateManyToOneFields,
-                            includeFields,
-                            excludeFields,
-                            configurationKey,
-                            ceilingEntityFullyQualifiedClassname,
-                            parentClasses,
-                            prefix,
-                            isParentExcluded,
-                            parentPrefix);
-                    //first check all the properties currently in there to see if my entity inherits from them
-                    for (Class<?> clazz2 : entities) {
-                        if (!clazz2.getName().equals(clazz.getName())) {
-                            for (Map.Entry<String, FieldMetadata> entry : props.entrySet()) {
-                                FieldMetadata metadata = entry.getValue();
-                                try {
-                                    if (Class.forName(metadata.getInheritedFromType()).isAssignableFrom(clazz2)) {
-                                        String[] both = ArrayUtils.addAll(metadata.getAvailableToTypes(), new String[]{clazz2.getName()});
-                                        metadata.setAvailableToTypes(both);
+            Map<String, FieldMetadata> cacheData = useCache() ? METADATA_CACHE.get(cacheKey) : null;
+            boolean fromCache = cacheData != null;
+            if (cacheData == null) {
+                synchronized (DynamicDaoHelperImpl.LOCK_OBJECT) {
+                    if (useCache()) {
+                        cacheData = METADATA_CACHE.get(cacheKey);
+                        fromCache = cacheData != null;
+                    }
+                    if (cacheData == null) {
+                        Map<String, FieldMetadata> props = getPropertiesForEntityClass(
+                                clazz,
+                                foreignField,
+                                additionalNonPersistentProperties,
+                                additionalForeignFields,
+                                mergedPropertyType,
+                                populateManyToOneFields,
+                                includeFields,
+                                excludeFields,
+                                configurationKey,
+                                ceilingEntityFullyQualifiedClassname,
+                                parentClasses,
+                                prefix,
+                                isParentExcluded,
+                                parentPrefix);
+                        //first check all the properties currently in there to see if my entity inherits from them
+                        for (Class<?> clazz2 : entities) {
+                            if (!clazz2.getName().equals(clazz.getName())) {
+                                for (Map.Entry<String, FieldMetadata> entry : props.entrySet()) {
+                                    FieldMetadata metadata = entry.getValue();
+                                    try {
+                                        if (Class.forName(metadata.getInheritedFromType()).isAssignableFrom(clazz2)) {
+                                            String[] both = ArrayUtils.addAll(metadata.getAvailableToTypes(), new String[]{clazz2.getName()});
+                                            metadata.setAvailableToTypes(both);
+                                        }
+                                    } catch (ClassNotFoundException e) {
+                                        throw new RuntimeException(e);
                                     }
-                                } catch (ClassNotFoundException e) {
-                                    throw new RuntimeException(e);
                                 }
                             }
                         }
-                    }
-                    METADATA_CACHE.put(cacheKey, props);
+                        METADATA_CACHE.put(cacheKey, Collections.unmodifiableMap(props));
 
-                    if (LOG.isTraceEnabled()) {
-                        LOG.trace("Added " + props.size() + " to the metadata cache with key " + cacheKey + " for the class " + ceilingEntityFullyQualifiedClassname);
-                    }
-
-                    if (validateMetadataCacheSizes) {
-                        Integer previousSize = METADATA_CACHE_SIZES.get(cacheKey);
-                        Integer currentSize = props.size();
-                        if (previousSize == null) {
-                            METADATA_CACHE_SIZES.put(cacheKey, currentSize);
-                        } else if (!currentSize.equals(previousSize)) {
-                            String msg = "Attempted to store " + currentSize + " properties in the cache for the key " + cacheKey + " but we had previously stored " + previousSize + " properties";
-                            LOG.error(msg);
-                            throw new RuntimeException(msg);
+                        if (LOG.isTraceEnabled()) {
+                            LOG.trace("Added " + props.size() + " to the metadata cache with key " + cacheKey + " for the class " + ceilingEntityFullyQualifiedClassname);
                         }
-                    }
 
-                    cacheData = props;
-                } else {
-                    if (LOG.isTraceEnabled()) {
-                        LOG.trace("Read " + cacheData.size() + " from the metada cache with key " + cacheKey + " for the class " + ceilingEntityFullyQualifiedClassname);
-                    }
-                    for (FieldMetadata value : cacheData.values()) {
-                        //in case of MT different sites can potentially have different data driven enums, as we don't take into account
-                        //site during cache key calculation(have metadata per-site is overkill) we want to refresh data driven enums
-                        if(value instanceof BasicFieldMetadata && StringUtils.isNotEmpty(((BasicFieldMetadata)value).getOptionListEntity())){
-                            basicFieldMetadataProvider.refreshDataDrivenEnumMetadata((BasicFieldMetadata) value);
-                        }
-                        //that's for the case when metadata cache is enabled(cache.entity.dao.metadata.ttl=-1) and you cache metadata for en locale
-                        //then switch to FR that has comma as decimal separator
-                        if (value instanceof BasicFieldMetadata) {
-                            BasicFieldMetadata v = (BasicFieldMetadata) value;
-                            if (SupportedFieldType.DECIMAL.equals(v.getSecondaryType()) || SupportedFieldType.INTEGER.equals(v.getSecondaryType())
-                                    || SupportedFieldType.INTEGER.equals(v.getFieldType()) || SupportedFieldType.DECIMAL.equals(v.getFieldType())) {
-                                refreshDecimalDefaultValue(v);
+                        if (validateMetadataCacheSizes) {
+                            Integer previousSize = METADATA_CACHE_SIZES.get(cacheKey);
+                            Integer currentSize = props.size();
+                            if (previousSize == null) {
+                                METADATA_CACHE_SIZES.put(cacheKey, currentSize);
+                            } else if (!currentSize.equals(previousSize)) {
+                                String msg = "Attempted to store " + currentSize + " properties in the cache for the key " + cacheKey + " but we had previously stored " + previousSize + " properties";
+                                LOG.error(msg);
+                                throw new RuntimeException(msg);
                             }
                         }
+
+                        cacheData = props;
                     }
                 }
             }
-            //clone the metadata before passing to the system
-            Map<String, FieldMetadata> clonedCache = new HashMap<>(cacheData.size());
+            if (fromCache && LOG.isTraceEnabled()) {
+                LOG.trace("Read " + cacheData.size() + " from the metada cache with key " + cacheKey + " for the class " + ceilingEntityFullyQualifiedClassname);
+            }
+            //clone the metadata before passing to the system, as callers customize it for their request
             for (Map.Entry<String, FieldMetadata> entry : cacheData.entrySet()) {
-                clonedCache.put(entry.getKey(), entry.getValue().cloneFieldMetadata());
+                FieldMetadata value = entry.getValue().cloneFieldMetadata();
+                if (fromCache) {
+                    refreshCachedMetadata(value);
+                }
+                mergedProperties.put(entry.getKey(), value);
+            }
+        }
+    }
+
+    /**
+     * Refreshes the parts of a cached, cloned {@link FieldMetadata} that depend on the current request rather than on
+     * the cache key
+     */
+    protected void refreshCachedMetadata(FieldMetadata value) {
+        //in case of MT different sites can potentially have different data driven enums, as we don't take into account
+        //site during cache key calculation(have metadata per-site is overkill) we want to refresh data driven enums
+        if (value instanceof BasicFieldMetadata && StringUtils.isNotEmpty(((BasicFieldMetadata) value).getOptionListEntity())) {
+            basicFieldMetadataProvider.refreshDataDrivenEnumMetadata((BasicFieldMetadata) value);
+        }
+        //that's for the case when metadata cache is enabled(cache.entity.dao.metadata.ttl=-1) and you cache metadata for en locale
+        //then switch to FR that has comma as decimal separator
+        if (value instanceof BasicFieldMetadata) {
+            BasicFieldMetadata v = (BasicFieldMetadata) value;
+            if (SupportedFieldType.DECIMAL.equals(v.getSecondaryType()) || SupportedFieldType.INTEGER.equals(v.getSecondaryType())
+                    || SupportedFieldType.INTEGER.equals(v.getFieldType()) || SupportedFieldType.DECIMAL.equals(v.getFieldType())) {
+                refreshDecimalDefaultValue(v);
             }
-            mergedProperties.putAll(clonedCache);
         }
     }
 
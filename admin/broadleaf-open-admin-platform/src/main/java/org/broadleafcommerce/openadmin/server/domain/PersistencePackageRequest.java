@@ -51,6 +51,7 @@ public class PersistencePackageRequest {
     protected Integer lowerCount;
     protected Integer pageSize;
     protected Boolean presentationFetch;
+    protected Boolean listGridFetch;
     protected SectionCrumb[] sectionCrumbs;
     protected String sectionEntityField;
     protected String requestingEntityName;
@@ -288,6 +289,11 @@ public class PersistencePackageRequest {
         return this;
     }
 
+    public PersistencePackageRequest withListGridFetch(Boolean listGridFetch) {
+        setListGridFetch(listGridFetch);
+        return this;
+    }
+
     public PersistencePackageRequest withSectionCrumbs(List<SectionCrumb> sectionCrumbs) {
         setSectionCrumbs(sectionCrumbs.toArray(new SectionCrumb[sectionCrumbs.size()]));
         return this;
@@ -716,6 +722,19 @@ public class PersistencePackageRequest {
         this.presentationFetch = presentationFetch;
     }
 
+    /**
+     * Whether or not the results are only used to render the rows of a main or collection list grid
+     *
+     * @return
+     */
+    public Boolean getListGridFetch() {
+        return listGridFetch;
+    }
+
+    public void setListGridFetch(Boolean listGridFetch) {
+        this.listGridFetch = listGridFetch;
+    }
+
     /**
      * Tells if this {@code PersistentPackageRequest} is a lookup that will end up foldered
      * @return true if this is a foldered lookup, false otherwise
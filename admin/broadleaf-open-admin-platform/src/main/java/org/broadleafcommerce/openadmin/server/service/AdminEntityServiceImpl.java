@@ -338,7 +338,8 @@ public class AdminEntityServiceImpl implements AdminEntityService {
             .withLowerCount(fetchPageRequest.getLowerCount())
             .withUpperCount(fetchPageRequest.getUpperCount())
             .withPageSize(fetchPageRequest.getPageSize())
-            .withPresentationFetch(true);
+            .withPresentationFetch(true)
+            .withListGridFetch(true);
 
         FilterAndSortCriteria fasc;
 
@@ -991,6 +992,7 @@ public class AdminEntityServiceImpl implements AdminEntityService {
             cto.setMaxResults(request.getPageSize());
         }
         cto.setPresentationFetch(request.getPresentationFetch());
+        cto.setListGridFetch(request.getListGridFetch());
 
         if (request.isFolderedLookup()) {
             cto.setFolderLookup(true);
@@ -176,6 +176,13 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
     @Value("${use.translation.search:false}")
     protected boolean useTranslationSearch;
 
+    /**
+     * When true, fetches flagged as list grid fetches only extract the properties the grid can show, rather than every
+     * property of the entity
+     */
+    @Value("${admin.list.grid.presentation.fetch.prominent.only:false}")
+    protected boolean presentationFetchProminentOnly;
+
     @Resource(name = "blLocaleService")
     protected LocaleService localeService;
 
@@ -232,6 +239,49 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
         return FormatUtil.getDateFormat();
     }
 
+    /**
+     * Reduce the merged properties to those needed to render a list grid row: prominent fields, ids, the foreign key
+     * and sort fields of the perspective and the record status fields. Extracting the remaining properties would
+     * initialize lazy associations (translations, media, xrefs) for every row only to discard the values.
+     *
+     * @param mergedProperties all the properties for the fetched entity
+     * @param foreignKey the foreign key for the fetch, if any
+     * @return the properties to extract for a presentation fetch
+     */
+    protected Map<String, FieldMetadata> filterPresentationMetadata(Map<String, FieldMetadata> mergedProperties, ForeignKey foreignKey) {
+        Map<String, FieldMetadata> newMap = new HashMap<String, FieldMetadata>();
+        for (Map.Entry<String, FieldMetadata> entry : mergedProperties.entrySet()) {
+            String fieldName = entry.getKey();
+            FieldMetadata md = entry.getValue();
+            if (!(md instanceof BasicFieldMetadata) || isPresentationProperty(fieldName, (BasicFieldMetadata) md, foreignKey)) {
+                newMap.put(fieldName, md);
+            }
+        }
+        return newMap;
+    }
+
+    /**
+     * Only main and collection list grid fetches are reduced. Lookups such as selectize and typeahead fields are also
+     * presentation fetches, but read display fields that are not necessarily prominent.
+     */
+    protected boolean isProminentOnlyFetch(CriteriaTransferObject cto) {
+        return presentationFetchProminentOnly && Boolean.TRUE.equals(cto.getListGridFetch());
+    }
+
+    protected boolean isPresentationProperty(String fieldName, BasicFieldMetadata md, ForeignKey foreignKey) {
+        if (Boolean.TRUE.equals(md.isProminent())) {
+            return true;
+        }
+        if (SupportedFieldType.ID == md.getFieldType() || SupportedFieldType.FOREIGN_KEY == md.getFieldType()
+                || SupportedFieldType.ADDITIONAL_FOREIGN_KEY == md.getFieldType()) {
+            return true;
+        }
+        if (foreignKey != null && (fieldName.equals(foreignKey.getManyToField()) || fieldName.equals(foreignKey.getSortField()))) {
+            return true;
+        }
+        return "hasError".equals(fieldName) || "progressStatus".equals(fieldName);
+    }
+
     protected Map<String, FieldMetadata> filterOutCollectionMetadata(Map<String, FieldMetadata> metadata) {
         if (metadata == null) {
             return null;
@@ -1228,6 +1278,7 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
     public DynamicResultSet fetch(PersistencePackage persistencePackage, CriteriaTransferObject cto) throws ServiceException {
         Entity[] payload;
         int totalRecords;
+        boolean totalCountApproximate;
         PersistencePerspective persistencePerspective = persistencePackage.getPersistencePerspective();
         String ceilingEntityFullyQualifiedClassname = persistencePackage.getCeilingEntityFullyQualifiedClassname();
         ForeignKey foreignKey = (ForeignKey) persistencePerspective.getPersistencePerspectiveItems().get(PersistencePerspectiveItemType.FOREIGNKEY);
@@ -1263,15 +1314,22 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
             FetchRequest countFetchRequest = new FetchRequest(persistencePackage, cto,
                     persistencePackage.getFetchTypeFullyQualifiedClassname(), countFilterMappings);
             totalRecords = getTotalRecords(countFetchRequest);
+            totalCountApproximate = countFetchRequest.isTotalCountApproximate();
 
+            Map<String, FieldMetadata> extractionProperties = mergedProperties;
+            if (isProminentOnlyFetch(cto)) {
+                extractionProperties = filterPresentationMetadata(mergedProperties, foreignKey);
+            }
             FetchExtractionRequest fetchExtractionRequest = new FetchExtractionRequest(persistencePackage, cto,
-                    persistencePackage.getFetchTypeFullyQualifiedClassname(), mergedProperties, records);
+                    persistencePackage.getFetchTypeFullyQualifiedClassname(), extractionProperties, records);
             payload = getRecords(fetchExtractionRequest);
         } catch (Exception e) {
             throw new ServiceException("Unable to fetch results for " + ceilingEntityFullyQualifiedClassname, e);
         }
 
-        return new DynamicResultSet(null, payload, totalRecords);
+        DynamicResultSet dynamicResultSet = new DynamicResultSet(null, payload, totalRecords);
+        dynamicResultSet.setTotalCountApproximate(totalCountApproximate);
+        return dynamicResultSet;
     }
 
     private void addTranslationSearchIfNeeded(CriteriaTransferObject cto, Map<String, FieldMetadata> mergedProperties) {
@@ -1401,6 +1459,23 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
         }
     }
 
+    /**
+     * Count the persistent entities matching the filter mappings, but stop counting once maxCount is reached
+     *
+     * @param ceilingEntity
+     * @param filterMappings
+     * @param maxCount the largest count to return
+     * @return the number of matching entities, or maxCount if there are at least that many
+     */
+    public Integer getCappedTotalRecords(String ceilingEntity, List<FilterMapping> filterMappings, int maxCount) {
+        try {
+            return criteriaTranslator.translateIdQuery(persistenceManager.getDynamicEntityDao(),
+                    ceilingEntity, filterMappings, maxCount).getResultList().size();
+        } catch (CriteriaConversionException e) {
+            return getTotalRecords(ceilingEntity, filterMappings);
+        }
+    }
+
     @Override
     public Serializable getMaxValue(String ceilingEntity, List<FilterMapping> filterMappings, String maxField) {
         return criteriaTranslator.translateMaxQuery(persistenceManager.getDynamicEntityDao(),
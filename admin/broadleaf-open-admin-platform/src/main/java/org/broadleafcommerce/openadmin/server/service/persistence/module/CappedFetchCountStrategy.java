@@ -0,0 +1,89 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import org.apache.commons.lang3.StringUtils;
+import org.broadleafcommerce.openadmin.server.service.persistence.FetchTypeDetection;
+import org.broadleafcommerce.openadmin.server.service.type.FetchType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * {@link FetchCountStrategy} for the ceiling entities listed in admin.fetch.count.capped.entities. Rather than counting
+ * every matching row, it counts at most admin.fetch.count.cap + 1 ids. When there are more rows than the cap, the cap
+ * is returned and the count is flagged as approximate, so the grid shows "10000+" instead of waiting for an exact COUNT.
+ * </p>
+ * Only {@link FetchType#LARGERESULTSET} fetches are capped. Those grids page with next/previous links driven by
+ * firstId/lastId, while {@link FetchType#DEFAULT} grids size their infinite scroll from the total and could not reach
+ * rows past the cap.
+ *
+ * @author Jeff Fischer
+ */
+@Component("blCappedFetchCountStrategy")
+public class CappedFetchCountStrategy implements FetchCountStrategy {
+
+    @Value("${admin.fetch.count.capped.entities:}")
+    protected String cappedEntities;
+
+    @Value("${admin.fetch.count.cap:10000}")
+    protected int cap;
+
+    @Autowired(required = false)
+    protected FetchTypeDetection fetchTypeDetection;
+
+    protected Set<String> cappedEntityNames = new HashSet<>();
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.isNotBlank(cappedEntities)) {
+            for (String entityName : Arrays.asList(cappedEntities.split(","))) {
+                if (StringUtils.isNotBlank(entityName)) {
+                    cappedEntityNames.add(entityName.trim());
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean canHandle(FetchRequest fetchRequest) {
+        return cappedEntityNames.contains(fetchRequest.getCeilingEntity()) && isLargeResultSetFetch(fetchRequest);
+    }
+
+    @Override
+    public Integer getTotalRecords(FetchRequest fetchRequest, BasicPersistenceModule basicPersistenceModule) {
+        int count = basicPersistenceModule.getCappedTotalRecords(fetchRequest.getCeilingEntity(),
+                fetchRequest.getFilterMappings(), cap + 1);
+        if (count > cap) {
+            fetchRequest.setTotalCountApproximate(true);
+            return cap;
+        }
+        return count;
+    }
+
+    protected boolean isLargeResultSetFetch(FetchRequest fetchRequest) {
+        return fetchTypeDetection != null && FetchType.LARGERESULTSET == fetchTypeDetection.getFetchType(
+                fetchRequest.getPersistencePackage(), fetchRequest.getCto());
+    }
+}
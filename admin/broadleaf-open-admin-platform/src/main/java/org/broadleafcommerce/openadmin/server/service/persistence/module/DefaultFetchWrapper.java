@@ -21,9 +21,11 @@ import org.broadleafcommerce.common.presentation.client.OperationType;
 import org.broadleafcommerce.openadmin.dto.Entity;
 import org.broadleafcommerce.openadmin.server.service.persistence.PersistenceManager;
 import org.broadleafcommerce.openadmin.server.service.persistence.PersistenceManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -34,6 +36,9 @@ import java.util.List;
 @Component("blFetchWrapper")
 public class DefaultFetchWrapper implements FetchWrapper {
 
+    @Autowired(required = false)
+    protected List<FetchCountStrategy> fetchCountStrategies = new ArrayList<>();
+
     @Override
     public List<Serializable> getPersistentRecords(FetchRequest fetchRequest) {
         return getBasicPersistenceModule().getPersistentRecords(fetchRequest.getCeilingEntity(),
@@ -42,6 +47,11 @@ public class DefaultFetchWrapper implements FetchWrapper {
 
     @Override
     public Integer getTotalRecords(FetchRequest fetchRequest) {
+        for (FetchCountStrategy fetchCountStrategy : fetchCountStrategies) {
+            if (fetchCountStrategy.canHandle(fetchRequest)) {
+                return fetchCountStrategy.getTotalRecords(fetchRequest, getBasicPersistenceModule());
+            }
+        }
         return getBasicPersistenceModule().getTotalRecords(fetchRequest.getCeilingEntity(), fetchRequest.getFilterMappings());
     }
 
@@ -0,0 +1,47 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+/**
+ * Strategy for computing the total record count of an admin fetch. {@link DefaultFetchWrapper} uses the first strategy
+ * that can handle a {@link FetchRequest} and falls back to an exact count when none can. Large tables may register a
+ * strategy that trades exactness for speed, such as {@link CappedFetchCountStrategy} or one reading the database
+ * statistics for the table.
+ *
+ * @author Jeff Fischer
+ */
+public interface FetchCountStrategy {
+
+    /**
+     * Whether this strategy should compute the count for the given fetch, generally based on the ceiling entity
+     *
+     * @param fetchRequest
+     * @return
+     */
+    boolean canHandle(FetchRequest fetchRequest);
+
+    /**
+     * Compute the total record count for the fetch
+     *
+     * @param fetchRequest
+     * @param basicPersistenceModule
+     * @return
+     */
+    Integer getTotalRecords(FetchRequest fetchRequest, BasicPersistenceModule basicPersistenceModule);
+
+}
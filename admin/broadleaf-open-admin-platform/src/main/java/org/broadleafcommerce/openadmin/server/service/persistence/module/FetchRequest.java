@@ -36,6 +36,7 @@ public class FetchRequest {
     protected CriteriaTransferObject cto;
     protected String ceilingEntity;
     protected List<FilterMapping> filterMappings;
+    protected boolean totalCountApproximate = false;
 
     public FetchRequest(PersistencePackage persistencePackage,
                         CriteriaTransferObject cto,
@@ -99,4 +100,18 @@ public class FetchRequest {
         this.filterMappings = filterMappings;
     }
 
+
+    /**
+     * Whether the total record count computed for this request is a lower bound rather than an exact count. Set by
+     * a {@link FetchCountStrategy} that stopped counting early.
+     *
+     * @return
+     */
+    public boolean isTotalCountApproximate() {
+        return totalCountApproximate;
+    }
+
+    public void setTotalCountApproximate(boolean totalCountApproximate) {
+        this.totalCountApproximate = totalCountApproximate;
+    }
 }
@@ -24,6 +24,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.persistence.EntityConfiguration;
 import org.broadleafcommerce.common.util.BLCFieldUtils;
+import org.broadleafcommerce.common.util.EfficientLRUMap;
 import org.broadleafcommerce.common.util.HibernateUtils;
 import org.broadleafcommerce.common.value.ValueAssignable;
 import org.broadleafcommerce.openadmin.server.dao.DynamicEntityDao;
@@ -41,6 +42,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.EntityManager;
 import javax.persistence.metamodel.EntityType;
@@ -56,6 +58,18 @@ public class FieldManager {
 
     public static final String MAPFIELDSEPARATOR = "---";
 
+    /**
+     * Parsed property paths (e.g. "defaultSku.name" or "productAttributes---color") by path. Record reads resolve the
+     * same paths for every row, so they are only tokenized once.
+     */
+    protected static final Map<String, PropertyPathSegment[]> PROPERTY_PATH_CACHE = new EfficientLRUMap<>(5000);
+
+    /**
+     * Accessible fields by owning class and field name. This avoids the hierarchy walk, cache key building and
+     * setAccessible check for each segment of each path on each record.
+     */
+    protected static final Map<Class<?>, Map<String, Field>> ACCESSIBLE_FIELD_CACHE = new ConcurrentHashMap<>();
+
     protected EntityConfiguration entityConfiguration;
     protected EntityManager entityManager;
     protected List<SortableValue> middleFields = new ArrayList<SortableValue>(5);
@@ -76,23 +90,59 @@ public class FieldManager {
         return fieldUtils.getField(clazz, fieldName);
     }
 
+    /**
+     * Retrieve the field declared on the class or one of its superclasses, already made accessible. The lookup is
+     * cached per class, so this is cheap enough to call for every segment of every property read by the admin.
+     *
+     * @param clazz the class to search
+     * @param fieldName the simple (non-dotted) name of the field
+     * @return the accessible field, or null if the class has no such field
+     */
+    public static Field getAccessibleField(Class<?> clazz, String fieldName) {
+        Map<String, Field> fields = ACCESSIBLE_FIELD_CACHE.get(clazz);
+        if (fields == null) {
+            fields = new ConcurrentHashMap<>();
+            Map<String, Field> previous = ACCESSIBLE_FIELD_CACHE.putIfAbsent(clazz, fields);
+            if (previous != null) {
+                fields = previous;
+            }
+        }
+        Field field = fields.get(fieldName);
+        if (field == null) {
+            field = getSingleField(clazz, fieldName);
+            if (field != null) {
+                field.setAccessible(true);
+                fields.put(fieldName, field);
+            }
+        }
+        return field;
+    }
+
+    protected static PropertyPathSegment[] getPropertyPath(String fieldName) {
+        PropertyPathSegment[] path = PROPERTY_PATH_CACHE.get(fieldName);
+        if (path == null) {
+            StringTokenizer tokens = new StringTokenizer(fieldName, ".");
+            path = new PropertyPathSegment[tokens.countTokens()];
+            int j = 0;
+            while (tokens.hasMoreTokens()) {
+                path[j++] = new PropertyPathSegment(tokens.nextToken());
+            }
+            PROPERTY_PATH_CACHE.put(fieldName, path);
+        }
+        return path;
+    }
+
     public Object getFieldValue(Object bean, String fieldName) throws IllegalAccessException, FieldNotAvailableException {
-        StringTokenizer tokens = new StringTokenizer(fieldName, ".");
         Class<?> componentClass = bean.getClass();
         Field field = null;
         Object value = HibernateUtils.deproxy(bean);
 
-        while (tokens.hasMoreTokens()) {
-            String fieldNamePart = tokens.nextToken();
-            String mapKey = null;
-            if (fieldNamePart.contains(FieldManager.MAPFIELDSEPARATOR)) {
-                mapKey = fieldNamePart.substring(fieldNamePart.indexOf(FieldManager.MAPFIELDSEPARATOR) + FieldManager.MAPFIELDSEPARATOR.length(), fieldNamePart.length());
-                fieldNamePart = fieldNamePart.substring(0, fieldNamePart.indexOf(FieldManager.MAPFIELDSEPARATOR));
-            }
-            field = getSingleField(componentClass, fieldNamePart);
+        for (PropertyPathSegment segment : getPropertyPath(fieldName)) {
+            String fieldNamePart = segment.getFieldName();
+            String mapKey = segment.getMapKey();
+            field = getAccessibleField(componentClass, fieldNamePart);
 
             if (field != null) {
-                field.setAccessible(true);
                 value = field.get(value);
                 value = HibernateUtils.deproxy(value);
 
@@ -119,26 +169,24 @@ public class FieldManager {
     }
 
     public Object setFieldValue(Object bean, String fieldName, Object newValue) throws IllegalAccessException, InstantiationException {
-        StringTokenizer tokens = new StringTokenizer(fieldName, ".");
+        PropertyPathSegment[] path = getPropertyPath(fieldName);
         Class<?> componentClass = bean.getClass();
         Field field;
         bean = HibernateUtils.deproxy(bean);
         Object value = bean;
 
-        int count = tokens.countTokens();
+        int count = path.length;
         int j=0;
         StringBuilder sb = new StringBuilder();
-        while (tokens.hasMoreTokens()) {
-            String fieldNamePart = tokens.nextToken();
-            sb.append(fieldNamePart);
-            String mapKey = null;
-            if (fieldNamePart.contains(FieldManager.MAPFIELDSEPARATOR)) {
-                mapKey = fieldNamePart.substring(fieldNamePart.indexOf(FieldManager.MAPFIELDSEPARATOR) + FieldManager.MAPFIELDSEPARATOR.length(), fieldNamePart.length());
-                fieldNamePart = fieldNamePart.substring(0, fieldNamePart.indexOf(FieldManager.MAPFIELDSEPARATOR));
+        for (PropertyPathSegment segment : path) {
+            sb.append(segment.getToken());
+            String fieldNamePart = segment.getFieldName();
+            String mapKey = segment.getMapKey();
+
+            field = getAccessibleField(componentClass, fieldNamePart);
+            if (field == null) {
+                throw new IllegalStateException("Unable to find field (" + fieldNamePart + ") on the class (" + componentClass + ")");
             }
-
-            field = getSingleField(componentClass, fieldNamePart);
-            field.setAccessible(true);
             if (j == count - 1) {
                 if (mapKey != null) {
                     handleMapFieldPopulation(bean, fieldName, newValue, componentClass, field, value, fieldNamePart, mapKey);
@@ -365,6 +413,40 @@ public class FieldManager {
         middleFields.clear();
     }
 
+    /**
+     * A single dot separated segment of a property path, with any map key split off
+     */
+    protected static class PropertyPathSegment {
+
+        private final String token;
+        private final String fieldName;
+        private final String mapKey;
+
+        public PropertyPathSegment(String token) {
+            this.token = token;
+            int separatorIndex = token.indexOf(FieldManager.MAPFIELDSEPARATOR);
+            if (separatorIndex >= 0) {
+                fieldName = token.substring(0, separatorIndex);
+                mapKey = token.substring(separatorIndex + FieldManager.MAPFIELDSEPARATOR.length());
+            } else {
+                fieldName = token;
+                mapKey = null;
+            }
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public String getMapKey() {
+            return mapKey;
+        }
+    }
+
     private class SortableValue implements Comparable<SortableValue> {
 
         private Integer pos;
@@ -33,4 +33,17 @@ public interface CriteriaTranslator {
     TypedQuery<Serializable> translateCountQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings);
 
     TypedQuery<Serializable> translateMaxQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, String maxField);
+
+    /**
+     * Build an unordered query selecting only the ids of the entities matching the filter mappings, limited to
+     * maxResults rows. Counting the rows of this query gives a count capped at maxResults, which the database can
+     * stop computing early, unlike a COUNT over the whole filtered table.
+     *
+     * @param dynamicEntityDao
+     * @param ceilingEntity
+     * @param filterMappings
+     * @param maxResults the most ids to return
+     * @return the id query
+     */
+    TypedQuery<Serializable> translateIdQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, Integer maxResults);
 }
@@ -80,6 +80,11 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
         return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, false, false, firstResult, maxResults, null);
     }
 
+    @Override
+    public TypedQuery<Serializable> translateIdQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, Integer maxResults) {
+        return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, false, false, true, null, maxResults, null);
+    }
+
     /**
      * Determines the appropriate entity in this current class tree to use as the ceiling entity for the query. Because
      * we filter with AND instead of OR, we throw an exception if an attempt to utilize properties from mutually exclusive
@@ -163,8 +168,12 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
         return null;
     }
 
-    @SuppressWarnings("unchecked")
     protected TypedQuery<Serializable> constructQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, boolean isCount, boolean isMax, Integer firstResult, Integer maxResults, String maxField) {
+        return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, isCount, isMax, false, firstResult, maxResults, maxField);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected TypedQuery<Serializable> constructQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, boolean isCount, boolean isMax, boolean isId, Integer firstResult, Integer maxResults, String maxField) {
 
         CriteriaBuilder criteriaBuilder = dynamicEntityDao.getStandardEntityManager().getCriteriaBuilder();
 
@@ -188,6 +197,9 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
             criteria.select(criteriaBuilder.count(original));
         } else if (isMax) {
             criteria.select(criteriaBuilder.max((Path<Number>) ((Object) original.get(maxField))));
+        } else if (isId) {
+            String idFldName = (String) dynamicEntityDao.getIdMetadata(ceilingClass).get("name");
+            criteria.select((Path<Serializable>) ((Object) original.get(idFldName)));
         } else {
             criteria.select(original);
         }
@@ -197,7 +209,7 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
         addRestrictions(ceilingEntity, filterMappings, criteriaBuilder, original, restrictions, sorts, criteria);
 
         criteria.where(restrictions.toArray(new Predicate[restrictions.size()]));
-        if (!isCount && !isMax) {
+        if (!isCount && !isMax && !isId) {
             criteria.orderBy(sorts.toArray(new Order[sorts.size()]));
             //If someone provides a firstResult value, then there is generally pagination going on.
             //In order to produce consistent results, especially with certain databases such as PostgreSQL, 
@@ -80,6 +80,7 @@ public class ListGrid {
     protected int lowerCount;
     protected boolean totalCountLessThanPageSize;
     protected boolean promptSearch;
+    protected boolean totalCountApproximate;
 
     // If true, only clicking the check box area will toggle the row selection when using multi select
     protected boolean multiSelectCheckBoxOnly;
@@ -768,6 +769,14 @@ public class ListGrid {
         this.promptSearch = promptSearch;
     }
 
+    public boolean isTotalCountApproximate() {
+        return totalCountApproximate;
+    }
+
+    public void setTotalCountApproximate(boolean totalCountApproximate) {
+        this.totalCountApproximate = totalCountApproximate;
+    }
+
     public String getHelpText() { return helpText; }
 
     public void setHelpText(String helpText) { this.helpText = helpText; }
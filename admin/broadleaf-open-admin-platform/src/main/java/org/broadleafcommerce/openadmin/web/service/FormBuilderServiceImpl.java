@@ -1012,6 +1012,9 @@ public class FormBuilderServiceImpl implements FormBuilderService {
         if (drs.getPromptSearch() != null) {
             listGrid.setPromptSearch(drs.getPromptSearch());
         }
+        if (drs.getTotalCountApproximate() != null) {
+            listGrid.setTotalCountApproximate(drs.getTotalCountApproximate());
+        }
 
         return listGrid;
     }
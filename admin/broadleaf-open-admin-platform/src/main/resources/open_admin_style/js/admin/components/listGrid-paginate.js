@@ -95,6 +95,21 @@
         getTotalCountLessThanPageSize : function($tbody) {
             return $tbody.data('lessthanpagesize');
         },
+
+        /**
+         * Whether the total record count is only a lower bound because the server stopped counting early
+         */
+        getTotalCountApproximate : function($tbody) {
+            return $tbody.data('totalcountapproximate') === true;
+        },
+
+        /**
+         * The total record count as it should be shown to the user, e.g. "10000+" for an approximate count
+         */
+        getTotalRecordsDisplay : function($tbody) {
+            var totalRecords = this.getTotalRecords($tbody);
+            return this.getTotalCountApproximate($tbody) ? totalRecords + '+' : totalRecords;
+        },
         
         getRange : function(rangeDescription) {
             var seperator = rangeDescription.indexOf('-');
@@ -152,8 +167,9 @@
             var totalRecords = this.getTotalRecords($tbody);
 
             // If the index is larger than the total number of records, then technically the record is loaded
-            // Add 1 since index is 0-indexed & total records is 1-indexed
-            if ((index + 1) > totalRecords) {
+            // Add 1 since index is 0-indexed & total records is 1-indexed. An approximate total is only a lower bound,
+            // so records past it may still exist.
+            if ((index + 1) > totalRecords && !this.getTotalCountApproximate($tbody)) {
                 return true;
             }
             
@@ -618,7 +634,7 @@
                 $footer.find('.low-index').text("0");
                 $footer.find('.high-index').text("0");
             }
-            $footer.find('.total-records').text(totalRecords);
+            $footer.find('.total-records').text(this.getTotalRecordsDisplay($tbody));
             if (upperCount - totalRecords > 1) {
                 $footer.find('.previous-page').css('display', 'inline');
             } else {
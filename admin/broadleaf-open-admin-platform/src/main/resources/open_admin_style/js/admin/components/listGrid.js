@@ -86,7 +86,8 @@
             var totalRecords = $listGridContainer.find('.listgrid-body-wrapper table tbody').data('totalrecords');
             if ($fieldGroupListGridWrapperHeader.length) {
                 var $totalRecords = $fieldGroupListGridWrapperHeader.find('.listgrid-total-records');
-                var totalRecordsText = totalRecords == 1 ? '(' + totalRecords + ' Record)' : '(' + totalRecords + ' Records)';
+                var totalRecordsDisplay = BLCAdmin.listGrid.paginate.getTotalRecordsDisplay($tbody);
+                var totalRecordsText = totalRecords == 1 ? '(' + totalRecordsDisplay + ' Record)' : '(' + totalRecordsDisplay + ' Records)';
 
                 if (totalRecords != 0 || $totalRecords.html().indexOf('Fetch') < 0) {
                     $totalRecords.html(totalRecordsText);
@@ -0,0 +1,197 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.spec
+
+import org.broadleafcommerce.openadmin.dto.ClassTree
+import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject
+import org.broadleafcommerce.openadmin.server.dao.DynamicEntityDao
+import org.broadleafcommerce.openadmin.server.security.remote.SecurityVerifier
+import org.broadleafcommerce.openadmin.server.security.service.RowLevelSecurityService
+import org.broadleafcommerce.openadmin.server.service.persistence.FetchTypeDetection
+import org.broadleafcommerce.openadmin.server.service.persistence.module.BasicPersistenceModule
+import org.broadleafcommerce.openadmin.server.service.persistence.module.CappedFetchCountStrategy
+import org.broadleafcommerce.openadmin.server.service.persistence.module.DefaultFetchWrapper
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FetchCountStrategy
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FetchRequest
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.CriteriaTranslatorImpl
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FilterMapping
+import org.broadleafcommerce.openadmin.server.service.type.FetchType
+
+import javax.persistence.EntityManager
+import javax.persistence.TypedQuery
+import javax.persistence.criteria.CriteriaBuilder
+import javax.persistence.criteria.CriteriaQuery
+import javax.persistence.criteria.Path
+import javax.persistence.criteria.Root
+
+import spock.lang.Specification
+
+/**
+ * Tests for the total record count strategies used by {@link DefaultFetchWrapper}
+ *
+ * @author Jeff Fischer
+ */
+class FetchCountStrategySpec extends Specification {
+
+    static class StubPersistenceModule extends BasicPersistenceModule {
+        int matchingRecords = 0
+        int requestedMaxCount = -1
+
+        @Override
+        Integer getTotalRecords(String ceilingEntity, List<FilterMapping> filterMappings) {
+            return matchingRecords
+        }
+
+        @Override
+        Integer getCappedTotalRecords(String ceilingEntity, List<FilterMapping> filterMappings, int maxCount) {
+            requestedMaxCount = maxCount
+            return Math.min(matchingRecords, maxCount)
+        }
+    }
+
+    static class StubFetchWrapper extends DefaultFetchWrapper {
+        BasicPersistenceModule module
+
+        @Override
+        protected BasicPersistenceModule getBasicPersistenceModule() {
+            return module
+        }
+    }
+
+    static final String CEILING = "org.broadleafcommerce.core.order.domain.OrderImpl"
+
+    StubPersistenceModule module
+    StubFetchWrapper wrapper
+    FetchRequest fetchRequest
+
+    def setup() {
+        module = new StubPersistenceModule(matchingRecords: 500)
+        wrapper = new StubFetchWrapper(module: module)
+        fetchRequest = new FetchRequest(null, new CriteriaTransferObject(), CEILING, new ArrayList<FilterMapping>())
+    }
+
+    CappedFetchCountStrategy cappedStrategy(FetchType fetchType) {
+        CappedFetchCountStrategy strategy = new CappedFetchCountStrategy()
+        strategy.cappedEntities = CEILING
+        strategy.cap = 100
+        strategy.fetchTypeDetection = Stub(FetchTypeDetection) {
+            getFetchType(_, _) >> fetchType
+        }
+        strategy.init()
+        return strategy
+    }
+
+    def "the exact count is used when no strategy handles the request"() {
+        when:
+        wrapper.fetchCountStrategies = [Stub(FetchCountStrategy) { canHandle(_) >> false }]
+
+        then:
+        wrapper.getTotalRecords(fetchRequest) == 500
+        !fetchRequest.totalCountApproximate
+    }
+
+    def "the first strategy that handles the request computes the count"() {
+        given:
+        FetchCountStrategy first = Stub(FetchCountStrategy) {
+            canHandle(_) >> true
+            getTotalRecords(_, _) >> 7
+        }
+        FetchCountStrategy second = Stub(FetchCountStrategy) {
+            canHandle(_) >> true
+            getTotalRecords(_, _) >> 8
+        }
+
+        when:
+        wrapper.fetchCountStrategies = [Stub(FetchCountStrategy) { canHandle(_) >> false }, first, second]
+
+        then:
+        wrapper.getTotalRecords(fetchRequest) == 7
+    }
+
+    def "large result set counts stop at the cap and are flagged as approximate"() {
+        when:
+        wrapper.fetchCountStrategies = [cappedStrategy(FetchType.LARGERESULTSET)]
+        Integer count = wrapper.getTotalRecords(fetchRequest)
+
+        then:
+        count == 100
+        module.requestedMaxCount == 101
+        fetchRequest.totalCountApproximate
+    }
+
+    def "counts below the cap are exact"() {
+        when:
+        module.matchingRecords = 40
+        wrapper.fetchCountStrategies = [cappedStrategy(FetchType.LARGERESULTSET)]
+        Integer count = wrapper.getTotalRecords(fetchRequest)
+
+        then:
+        count == 40
+        !fetchRequest.totalCountApproximate
+    }
+
+    def "scrolling grids and unlisted entities are never capped"() {
+        expect:
+        !cappedStrategy(FetchType.DEFAULT).canHandle(fetchRequest)
+        !cappedStrategy(FetchType.LARGERESULTSET).canHandle(
+                new FetchRequest(null, new CriteriaTransferObject(), "some.other.Entity", new ArrayList<FilterMapping>()))
+
+        when:
+        CappedFetchCountStrategy noDetection = cappedStrategy(FetchType.LARGERESULTSET)
+        noDetection.fetchTypeDetection = null
+
+        then:
+        !noDetection.canHandle(fetchRequest)
+    }
+
+    def "the id query selects only the id, without ordering, limited to the max results"() {
+        given:
+        CriteriaTranslatorImpl translator = new CriteriaTranslatorImpl()
+        translator.rowSecurityService = Mock(RowLevelSecurityService)
+        translator.adminSecurityService = Mock(SecurityVerifier)
+
+        EntityManager em = Mock()
+        CriteriaBuilder criteriaBuilder = Mock()
+        CriteriaQuery criteria = Mock()
+        Root root = Mock()
+        Path idPath = Mock()
+        TypedQuery query = Mock()
+        DynamicEntityDao dao = Mock()
+
+        dao.getStandardEntityManager() >> em
+        dao.getAllPolymorphicEntitiesFromCeiling(String) >> ([String] as Class[])
+        dao.getClassTree(_) >> new ClassTree(String.name)
+        dao.getIdMetadata(String) >> [name: "id"]
+        em.getCriteriaBuilder() >> criteriaBuilder
+        em.createQuery(criteria) >> query
+        criteriaBuilder.createQuery(String) >> criteria
+        criteria.from(String) >> root
+        root.get("id") >> idPath
+
+        when:
+        TypedQuery result = translator.translateIdQuery(dao, String.name, new ArrayList<FilterMapping>(), 101)
+
+        then:
+        result == query
+        1 * criteria.select(idPath)
+        0 * criteria.orderBy(*_)
+        1 * query.setMaxResults(101)
+        0 * query.setFirstResult(_)
+    }
+
+}
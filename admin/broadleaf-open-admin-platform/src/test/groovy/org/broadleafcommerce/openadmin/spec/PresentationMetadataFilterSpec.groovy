@@ -0,0 +1,98 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.spec
+
+import org.broadleafcommerce.common.presentation.client.SupportedFieldType
+import org.broadleafcommerce.openadmin.dto.BasicCollectionMetadata
+import org.broadleafcommerce.openadmin.dto.BasicFieldMetadata
+import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject
+import org.broadleafcommerce.openadmin.dto.FieldMetadata
+import org.broadleafcommerce.openadmin.dto.ForeignKey
+import org.broadleafcommerce.openadmin.server.service.persistence.module.BasicPersistenceModule
+
+import spock.lang.Specification
+
+/**
+ * Tests for the reduced property set extracted for list grid fetches by {@link BasicPersistenceModule}
+ *
+ * @author Jeff Fischer
+ */
+class PresentationMetadataFilterSpec extends Specification {
+
+    BasicPersistenceModule module = new BasicPersistenceModule()
+
+    def "only list grid fetches are reduced to the grid's properties"() {
+        setup:
+        module.presentationFetchProminentOnly = prominentOnly
+        CriteriaTransferObject cto = new CriteriaTransferObject()
+        cto.setPresentationFetch(presentationFetch)
+        cto.setListGridFetch(listGridFetch)
+
+        expect:
+        module.isProminentOnlyFetch(cto) == reduced
+
+        where:
+        prominentOnly | presentationFetch | listGridFetch || reduced
+        true          | true              | true          || true
+        true          | true              | null          || false // selectize, typeahead and other lookups
+        true          | null              | null          || false
+        false         | true              | true          || false
+    }
+
+    def "prominent, id, foreign key, perspective and status properties are kept"() {
+        setup:
+        ForeignKey foreignKey = new ForeignKey()
+        foreignKey.setManyToField("product")
+        foreignKey.setSortField("sequence")
+
+        Map<String, FieldMetadata> properties = [
+                name          : field(SupportedFieldType.STRING, true),
+                description   : field(SupportedFieldType.HTML, false),
+                id            : field(SupportedFieldType.ID, false),
+                defaultSku    : field(SupportedFieldType.FOREIGN_KEY, false),
+                product       : field(SupportedFieldType.STRING, false),
+                sequence      : field(SupportedFieldType.INTEGER, false),
+                hasError      : field(SupportedFieldType.BOOLEAN, false),
+                progressStatus: field(SupportedFieldType.STRING, false),
+                urlKey        : field(SupportedFieldType.STRING, null),
+                allSkus       : new BasicCollectionMetadata()
+        ]
+
+        when:
+        Map<String, FieldMetadata> filtered = module.filterPresentationMetadata(properties, foreignKey)
+
+        then:
+        filtered.keySet() == ["name", "id", "defaultSku", "product", "sequence", "hasError", "progressStatus", "allSkus"] as Set
+    }
+
+    def "only prominent and id properties are kept without a foreign key"() {
+        expect:
+        module.isPresentationProperty("name", field(SupportedFieldType.STRING, true), null)
+        module.isPresentationProperty("id", field(SupportedFieldType.ID, false), null)
+        module.isPresentationProperty("parent", field(SupportedFieldType.ADDITIONAL_FOREIGN_KEY, false), null)
+        !module.isPresentationProperty("sequence", field(SupportedFieldType.INTEGER, false), null)
+        !module.isPresentationProperty("description", field(SupportedFieldType.HTML, null), null)
+    }
+
+    protected BasicFieldMetadata field(SupportedFieldType fieldType, Boolean prominent) {
+        BasicFieldMetadata md = new BasicFieldMetadata()
+        md.setFieldType(fieldType)
+        md.setProminent(prominent)
+        return md
+    }
+}
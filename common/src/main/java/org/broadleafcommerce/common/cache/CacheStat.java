@@ -19,40 +19,77 @@ package org.broadleafcommerce.common.cache;
 
 import java.math.BigDecimal;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.broadleafcommerce.common.time.SystemTime;
+import org.broadleafcommerce.common.util.LatencyHistogram;
 
 /**
+ * Running statistics for a single cache. Counters are {@link LongAdder}s so that many threads recording against the
+ * same key do not contend on a single value.
+ *
  * @author Jeff Fischer
  */
 public class CacheStat {
 
-    protected AtomicLong requestCount = new AtomicLong(0L);
-    protected AtomicLong cacheHitCount = new AtomicLong(0L);
-    protected Long lastLogTime = SystemTime.asMillis(true);
+    protected LongAdder requestCount = new LongAdder();
+    protected LongAdder cacheHitCount = new LongAdder();
+    protected AtomicLong lastLogTime = new AtomicLong(SystemTime.asMillis(true));
+    protected LatencyHistogram loadTimes = new LatencyHistogram();
 
     public Long getCacheHitCount() {
-        return cacheHitCount.longValue();
+        return cacheHitCount.sum();
     }
 
     public Long getLastLogTime() {
-        return lastLogTime;
+        return lastLogTime.get();
     }
 
-    public synchronized void setLastLogTime(Long lastLogTime) {
-        this.lastLogTime = lastLogTime;
+    public void setLastLogTime(Long lastLogTime) {
+        this.lastLogTime.set(lastLogTime);
+    }
+
+    /**
+     * Moves the last log time forward to now, if it has not already been moved by another thread
+     *
+     * @return true if the caller should log
+     */
+    public boolean markLogged(long expectedLastLogTime, long now) {
+        return lastLogTime.compareAndSet(expectedLastLogTime, now);
     }
 
     public Long getRequestCount() {
-        return requestCount.longValue();
+        return requestCount.sum();
     }
 
     public void incrementRequest() {
-        requestCount.incrementAndGet();
+        requestCount.increment();
     }
 
     public void incrementHit() {
-        cacheHitCount.incrementAndGet();
+        cacheHitCount.increment();
+    }
+
+    /**
+     * Record the time taken to load an item into the cache after a miss
+     */
+    public void recordLoadTime(long nanos) {
+        loadTimes.recordNanos(nanos);
+    }
+
+    public LatencyHistogram getLoadTimes() {
+        return loadTimes;
+    }
+
+    /**
+     * @return the hit rate as a percentage, or -1 if nothing has been requested
+     */
+    public double getHitRatePercentage() {
+        long requests = requestCount.sum();
+        if (requests == 0) {
+            return -1D;
+        }
+        return Math.round(cacheHitCount.sum() * 10000D / requests) / 100D;
     }
 
     public BigDecimal getHitRate() {
@@ -64,4 +101,11 @@ public class CacheStat {
         percentage = percentage.multiply(new BigDecimal(100)).setScale(2, BigDecimal.ROUND_HALF_UP);
         return percentage;
     }
+
+    /**
+     * @return a point in time copy of this stat
+     */
+    public CacheStatSnapshot snapshot(String key) {
+        return new CacheStatSnapshot(key, getRequestCount(), getCacheHitCount(), loadTimes.copy());
+    }
 }
@@ -0,0 +1,80 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import org.broadleafcommerce.common.util.LatencyHistogram;
+
+import java.io.Serializable;
+
+/**
+ * An immutable, point in time copy of a {@link CacheStat}, handed to each {@link StatisticsExporter}.
+ */
+public class CacheStatSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final String key;
+    protected final long requestCount;
+    protected final long cacheHitCount;
+    protected final LatencyHistogram loadTimes;
+
+    public CacheStatSnapshot(String key, long requestCount, long cacheHitCount, LatencyHistogram loadTimes) {
+        this.key = key;
+        this.requestCount = requestCount;
+        this.cacheHitCount = cacheHitCount;
+        this.loadTimes = loadTimes;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount;
+    }
+
+    public long getCacheMissCount() {
+        return requestCount - cacheHitCount;
+    }
+
+    /**
+     * @return the hit rate as a percentage, or -1 if nothing has been requested
+     */
+    public double getHitRatePercentage() {
+        if (requestCount == 0) {
+            return -1D;
+        }
+        return Math.round(cacheHitCount * 10000D / requestCount) / 100D;
+    }
+
+    /**
+     * @return the distribution of load times recorded for this cache. This copy is not updated further.
+     */
+    public LatencyHistogram getLoadTimes() {
+        return loadTimes;
+    }
+
+    @Override
+    public String toString() {
+        return key + ": requests=" + requestCount + ", hitRate=" + getHitRatePercentage() + "%, loadTimes=[" + loadTimes + "]";
+    }
+}
@@ -29,5 +29,8 @@ public enum CacheStatType {
     SKU_URL_MISSING_CACHE_HIT_RATE,
     TRANSLATION_CACHE_HIT_RATE,
     RESOURCE_BUNDLING_CACHE_HIT_RATE,
-    GENERATED_RESOURCE_CACHE_HIT_RATE
+    GENERATED_RESOURCE_CACHE_HIT_RATE,
+    COMPILED_RULE_CACHE_HIT_RATE,
+    TRANSLATION_STORE_HIT_RATE,
+    SKU_PRICING_RESULT_CACHE_HIT_RATE
 }
@@ -0,0 +1,36 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import java.util.List;
+
+/**
+ * Receives the cache statistics gathered by {@link StatisticsService} every {@code cache.stat.export.interval}
+ * milliseconds. Register an implementation as a Spring bean to publish the statistics to a monitoring system.
+ * <p>
+ * Exporters are called from a single background thread, so a slow exporter delays the next publication but never the
+ * threads recording statistics.
+ */
+public interface StatisticsExporter {
+
+    /**
+     * @param snapshots a copy of the statistics for every key recorded so far
+     */
+    void export(List<CacheStatSnapshot> snapshots);
+
+}
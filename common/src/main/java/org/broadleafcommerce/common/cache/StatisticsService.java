@@ -17,12 +17,27 @@
  */
 package org.broadleafcommerce.common.cache;
 
+import java.util.List;
+
 /**
  * @author Jeff Fischer
  */
 public interface StatisticsService {
     void addCacheStat(String key, boolean isHit);
 
+    /**
+     * Record how long it took to load an item for the given cache after a miss
+     *
+     * @param key the same key used for {@link #addCacheStat(String, boolean)}
+     * @param nanos the load time in nanoseconds
+     */
+    void addCacheLoadTime(String key, long nanos);
+
+    /**
+     * @return a point in time copy of the statistics for every key recorded so far
+     */
+    List<CacheStatSnapshot> getCacheStatSnapshots();
+
     Long getLogResolution();
 
     void setLogResolution(Long logResolution);
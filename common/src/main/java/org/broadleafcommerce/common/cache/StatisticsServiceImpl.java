@@ -21,17 +21,26 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.time.SystemTime;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jmx.export.naming.SelfNaming;
 import org.springframework.jmx.support.ObjectNameManager;
 import org.springframework.stereotype.Service;
-import java.math.BigDecimal;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.management.Attribute;
 import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
@@ -53,14 +62,58 @@ public class StatisticsServiceImpl implements DynamicMBean, StatisticsService, S
 
     private static final Log LOG = LogFactory.getLog(StatisticsServiceImpl.class);
 
+    protected static final String LOAD_TIME_P50_SUFFIX = ".LOAD_TIME_P50_MILLIS";
+    protected static final String LOAD_TIME_P99_SUFFIX = ".LOAD_TIME_P99_MILLIS";
+
     @Value("${cache.stat.log.resolution}")
     protected Long logResolution = 30000L;
 
+    /**
+     * How often, in milliseconds, snapshots are handed to the registered {@link StatisticsExporter}s. Zero or less
+     * turns publication off.
+     */
+    @Value("${cache.stat.export.interval:60000}")
+    protected Long exportInterval = 60000L;
+
     protected String appName = "broadleaf";
 
     protected StatisticsServiceLogAdapter adapter;
 
-    protected Map<String, CacheStat> cacheStats = Collections.synchronizedMap(new HashMap<String, CacheStat>());
+    @Autowired(required = false)
+    protected List<StatisticsExporter> exporters = new ArrayList<StatisticsExporter>();
+
+    protected ScheduledExecutorService exportExecutor;
+
+    protected ConcurrentMap<String, CacheStat> cacheStats = new ConcurrentHashMap<String, CacheStat>();
+
+    @PostConstruct
+    public void init() {
+        if (exportInterval == null || exportInterval <= 0 || exporters == null || exporters.isEmpty()) {
+            return;
+        }
+        exportExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "StatisticsService-Exporter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        exportExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                exportStats();
+            }
+        }, exportInterval, exportInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (exportExecutor != null) {
+            exportExecutor.shutdownNow();
+            exportExecutor = null;
+        }
+    }
 
     @Override
     public void addCacheStat(String key, boolean isHit) {
@@ -69,21 +122,61 @@ public class StatisticsServiceImpl implements DynamicMBean, StatisticsService, S
             myStat.incrementHit();
         }
         myStat.incrementRequest();
-        if (myStat.getLastLogTime() + logResolution < SystemTime.asMillis()) {
-            myStat.setLastLogTime(SystemTime.asMillis());
-            BigDecimal percentage = myStat.getHitRate();
-            if (LOG.isInfoEnabled()) {
-                LOG.info("Cache hit percentage for " + key + " is: " + percentage.toString() + "%");
+        if (LOG.isInfoEnabled()) {
+            logHitRateIfDue(key, myStat);
+        }
+    }
+
+    @Override
+    public void addCacheLoadTime(String key, long nanos) {
+        getCacheStat(key).recordLoadTime(nanos);
+    }
+
+    @Override
+    public List<CacheStatSnapshot> getCacheStatSnapshots() {
+        List<CacheStatSnapshot> snapshots = new ArrayList<CacheStatSnapshot>(cacheStats.size());
+        for (Map.Entry<String, CacheStat> stats : cacheStats.entrySet()) {
+            snapshots.add(stats.getValue().snapshot(stats.getKey()));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Logs the hit rate for the key at most once per log resolution, no matter how many threads are recording
+     */
+    protected void logHitRateIfDue(String key, CacheStat myStat) {
+        long lastLogTime = myStat.getLastLogTime();
+        long now = SystemTime.asMillis();
+        if (lastLogTime + logResolution < now && myStat.markLogged(lastLogTime, now)) {
+            CacheStatSnapshot snapshot = myStat.snapshot(key);
+            LOG.info("Cache hit percentage for " + key + " is: " + snapshot.getHitRatePercentage() + "%");
+            if (snapshot.getLoadTimes().getCount() > 0) {
+                LOG.info("Cache load times for " + key + " are: " + snapshot.getLoadTimes());
+            }
+        }
+    }
+
+    protected void exportStats() {
+        List<CacheStatSnapshot> snapshots = getCacheStatSnapshots();
+        for (StatisticsExporter exporter : exporters) {
+            try {
+                exporter.export(snapshots);
+            } catch (Exception e) {
+                LOG.error("Unable to export cache statistics using " + exporter.getClass().getName(), e);
             }
         }
     }
 
     protected CacheStat getCacheStat(String key) {
-        if (!cacheStats.containsKey(key)) {
-            CacheStat stat = new CacheStat();
-            cacheStats.put(key, stat);
+        CacheStat stat = cacheStats.get(key);
+        if (stat == null) {
+            CacheStat newStat = new CacheStat();
+            stat = cacheStats.putIfAbsent(key, newStat);
+            if (stat == null) {
+                stat = newStat;
+            }
         }
-        return cacheStats.get(key);
+        return stat;
     }
 
     @Override
@@ -110,6 +203,22 @@ public class StatisticsServiceImpl implements DynamicMBean, StatisticsService, S
         }
     }
 
+    public Long getExportInterval() {
+        return exportInterval;
+    }
+
+    public void setExportInterval(Long exportInterval) {
+        this.exportInterval = exportInterval;
+    }
+
+    public List<StatisticsExporter> getExporters() {
+        return exporters;
+    }
+
+    public void setExporters(List<StatisticsExporter> exporters) {
+        this.exporters = exporters;
+    }
+
     public String getAppName() {
         return appName;
     }
@@ -123,7 +232,18 @@ public class StatisticsServiceImpl implements DynamicMBean, StatisticsService, S
         if (attribute.equals("LOG_RESOLUTION")) {
             return getLogResolution();
         }
-        return getCacheStat(attribute).getHitRate().doubleValue();
+        if (attribute.endsWith(LOAD_TIME_P50_SUFFIX)) {
+            return getLoadTimePercentile(attribute, LOAD_TIME_P50_SUFFIX, 50D);
+        }
+        if (attribute.endsWith(LOAD_TIME_P99_SUFFIX)) {
+            return getLoadTimePercentile(attribute, LOAD_TIME_P99_SUFFIX, 99D);
+        }
+        return getCacheStat(attribute).getHitRatePercentage();
+    }
+
+    protected Double getLoadTimePercentile(String attribute, String suffix, double percentile) {
+        CacheStat stat = cacheStats.get(attribute.substring(0, attribute.length() - suffix.length()));
+        return stat == null ? 0D : stat.getLoadTimes().getPercentileMillis(percentile);
     }
 
     @Override
@@ -138,7 +258,9 @@ public class StatisticsServiceImpl implements DynamicMBean, StatisticsService, S
     public AttributeList getAttributes(String[] attributes) {
         AttributeList list = new AttributeList();
         for (Map.Entry<String, CacheStat> stats : cacheStats.entrySet()) {
-            list.add(new Attribute(stats.getKey(), stats.getValue().getHitRate().doubleValue()));
+            list.add(new Attribute(stats.getKey(), stats.getValue().getHitRatePercentage()));
+            list.add(new Attribute(stats.getKey() + LOAD_TIME_P50_SUFFIX, stats.getValue().getLoadTimes().getPercentileMillis(50D)));
+            list.add(new Attribute(stats.getKey() + LOAD_TIME_P99_SUFFIX, stats.getValue().getLoadTimes().getPercentileMillis(99D)));
         }
         return list;
     }
@@ -178,6 +300,8 @@ public class StatisticsServiceImpl implements DynamicMBean, StatisticsService, S
         SortedSet<String> names = new TreeSet<String>();
         for (Map.Entry<String, CacheStat> stats : cacheStats.entrySet()) {
             names.add(stats.getKey());
+            names.add(stats.getKey() + LOAD_TIME_P50_SUFFIX);
+            names.add(stats.getKey() + LOAD_TIME_P99_SUFFIX);
         }
         MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[names.size()];
         Iterator<String> it = names.iterator();
@@ -18,7 +18,11 @@
 package org.broadleafcommerce.common.extension;
 
 import org.apache.commons.beanutils.BeanComparator;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -27,6 +31,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The ExtensionManager pattern is intended for out of box components to be extended by Broadleaf modules.
@@ -37,6 +43,10 @@ import java.util.List;
  * The default extension manager pattern loops through all handlers and examines their {@link ExtensionResultStatusType} 
  * to determine whether or not to continue with other handlers.
  * 
+ * Calls made through {@link #getProxy()} return immediately when no handlers are registered. When the
+ * <code>extension.manager.methodHandleDispatch</code> property is true, handlers are called through a
+ * {@link MethodHandle} resolved once per extension method instead of through {@link Method#invoke(Object, Object...)}.
+ * 
  * @author bpolster
  *
  * @param <T>
@@ -49,6 +59,11 @@ public abstract class ExtensionManager<T extends ExtensionHandler> implements In
     protected T extensionHandler;
     protected List<T> handlers = new ArrayList<T>();
 
+    @Value("${extension.manager.methodHandleDispatch:false}")
+    protected boolean methodHandleDispatch = false;
+
+    protected final ConcurrentMap<Method, MethodHandle> dispatchHandles = new ConcurrentHashMap<Method, MethodHandle>();
+
     /**
      * Should take in a className that matches the ExtensionHandler interface being managed.
      * @param className
@@ -164,10 +179,25 @@ public abstract class ExtensionManager<T extends ExtensionHandler> implements In
         throw new UnsupportedOperationException();
     }
 
+    public boolean isMethodHandleDispatch() {
+        return methodHandleDispatch;
+    }
+
+    public void setMethodHandleDispatch(boolean methodHandleDispatch) {
+        this.methodHandleDispatch = methodHandleDispatch;
+    }
+
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        List<T> sortedHandlers = getHandlers();
+        if (sortedHandlers.isEmpty()) {
+            return ExtensionResultStatusType.NOT_HANDLED;
+        }
+        if (methodHandleDispatch) {
+            return invokeWithMethodHandle(sortedHandlers, method, args);
+        }
         boolean notHandled = true;
-        for (ExtensionHandler handler : getHandlers()) {
+        for (ExtensionHandler handler : sortedHandlers) {
             try {
                 if (handler.isEnabled()) {
                     ExtensionResultStatusType result = (ExtensionResultStatusType) method.invoke(handler, args);
@@ -189,6 +219,53 @@ public abstract class ExtensionManager<T extends ExtensionHandler> implements In
         }
     }
 
+    /**
+     * Same contract as {@link #invoke(Object, Method, Object[])}, but calls each handler through the
+     * {@link MethodHandle} returned by {@link #getDispatchHandle(Method)}. Exceptions thrown by a handler propagate
+     * unwrapped.
+     */
+    protected Object invokeWithMethodHandle(List<T> sortedHandlers, Method method, Object[] args) throws Throwable {
+        MethodHandle dispatchHandle = getDispatchHandle(method);
+        boolean notHandled = true;
+        for (ExtensionHandler handler : sortedHandlers) {
+            if (handler.isEnabled()) {
+                // invokeExact requires the call site to match the handle's (Object, Object[])Object type exactly
+                Object returned = dispatchHandle.invokeExact((Object) handler, args);
+                ExtensionResultStatusType result = (ExtensionResultStatusType) returned;
+                if (!ExtensionResultStatusType.NOT_HANDLED.equals(result)) {
+                    notHandled = false;
+                }
+                if (!shouldContinue(result, handler, method, args)) {
+                    break;
+                }
+            }
+        }
+        if (notHandled) {
+            return ExtensionResultStatusType.NOT_HANDLED;
+        } else {
+            return ExtensionResultStatusType.HANDLED;
+        }
+    }
+
+    /**
+     * Returns a handle of type <code>(Object, Object[])Object</code> that invokes the passed in extension method on
+     * the handler given as the first argument, spreading the second argument over the method parameters.
+     */
+    protected MethodHandle getDispatchHandle(Method method) throws IllegalAccessException {
+        MethodHandle dispatchHandle = dispatchHandles.get(method);
+        if (dispatchHandle == null) {
+            int parameterCount = method.getParameterTypes().length;
+            if (!method.isAccessible()) {
+                method.setAccessible(true);
+            }
+            dispatchHandle = MethodHandles.lookup().unreflect(method)
+                    .asType(MethodType.genericMethodType(parameterCount + 1))
+                    .asSpreader(Object[].class, parameterCount);
+            dispatchHandles.putIfAbsent(method, dispatchHandle);
+        }
+        return dispatchHandle;
+    }
+
     /**
      * Provides a mechanism for executing multiple extension handler touchpoints without utilizing reflection. This is a reasonable
      * alternative when the ExtensionManager is used in an operation that is very sensitive to the time cost involved in reflection
@@ -23,6 +23,7 @@ import org.broadleafcommerce.common.extension.StandardCacheItem;
 import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
 import org.broadleafcommerce.common.i18n.domain.Translation;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -138,6 +139,29 @@ public interface TranslationDao {
      */
     List<Translation> readAllTranslationEntries(TranslatedEntity entityType, ResultType stage, List<String> entityIds);
 
+    /**
+     * Read all the available translations for the given params.
+     *
+     * @param entityType
+     * @param stage param drives whether to look for entries at a template level or standard site level (multitenant concepts). Can be IGNORE. Any multitenant behavior is ignored in the absence of the multitenant module.
+     * @param entityIds the {@link Translation#getEntityId()} to restrict the results by
+     * @param fieldNames the {@link Translation#getFieldName()} to restrict the results by, or null for all fields
+     * @return
+     */
+    List<Translation> readAllTranslationEntries(TranslatedEntity entityType, ResultType stage, List<String> entityIds,
+            Collection<String> fieldNames);
+
+    /**
+     * Read all the available translations for the given entity type whose locale is the given language or one of its
+     * countries (e.g. "en", "en_US" and "en_GB" for "en"). The results are not placed in the query cache.
+     *
+     * @param entityType
+     * @param stage param drives whether to look for entries at a template level or standard site level (multitenant concepts). Can be IGNORE. Any multitenant behavior is ignored in the absence of the multitenant module.
+     * @param languageCode the language portion of the locale code
+     * @return
+     */
+    List<Translation> readAllTranslationEntriesForLanguage(TranslatedEntity entityType, ResultType stage, String languageCode);
+
     /**
      * Read all translation entries (see {@link #readAllTranslationEntries(org.broadleafcommerce.common.i18n.domain.TranslatedEntity, org.broadleafcommerce.common.extension.ResultType)}),
      * and convert those results into a list of {@link org.broadleafcommerce.common.extension.StandardCacheItem} instances.
@@ -37,6 +37,7 @@ import org.hibernate.type.Type;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -205,6 +206,23 @@ public class TranslationDaoImpl implements TranslationDao {
     }
     
     public List<Translation> readAllTranslationEntries(TranslatedEntity entityType, ResultType stage, List<String> entityIds) {
+        return readTranslationEntries(entityType, stage, entityIds, null, null, true);
+    }
+
+    @Override
+    public List<Translation> readAllTranslationEntries(TranslatedEntity entityType, ResultType stage, List<String> entityIds,
+            Collection<String> fieldNames) {
+        return readTranslationEntries(entityType, stage, entityIds, fieldNames, null, true);
+    }
+
+    @Override
+    public List<Translation> readAllTranslationEntriesForLanguage(TranslatedEntity entityType, ResultType stage, String languageCode) {
+        // this can be a very large result, so keep it out of the query cache
+        return readTranslationEntries(entityType, stage, null, null, languageCode, false);
+    }
+
+    protected List<Translation> readTranslationEntries(TranslatedEntity entityType, ResultType stage, List<String> entityIds,
+            Collection<String> fieldNames, String languageCode, boolean cacheable) {
         CriteriaBuilder builder = em.getCriteriaBuilder();
         CriteriaQuery<Translation> criteria = builder.createQuery(Translation.class);
         Root<TranslationImpl> root = criteria.from(TranslationImpl.class);
@@ -214,6 +232,14 @@ public class TranslationDaoImpl implements TranslationDao {
         if (CollectionUtils.isNotEmpty(entityIds)) {
             restrictions.add(root.get("entityId").in(entityIds));
         }
+        if (CollectionUtils.isNotEmpty(fieldNames)) {
+            restrictions.add(root.get("fieldName").in(fieldNames));
+        }
+        if (languageCode != null) {
+            restrictions.add(builder.or(
+                    builder.equal(root.get("localeCode"), languageCode),
+                    builder.like(root.get("localeCode").as(String.class), languageCode + "\\_%", '\\')));
+        }
         try {
             Class<?> aClass = entityConfiguration.createEntityInstance(entityType.getType()).getClass();
             if (extensionManager != null) {
@@ -226,7 +252,7 @@ public class TranslationDaoImpl implements TranslationDao {
             if (extensionManager != null) {
                 extensionManager.getProxy().refineQuery(aClass, stage, query);
             }
-            query.setHint(QueryHints.HINT_CACHEABLE, true);
+            query.setHint(QueryHints.HINT_CACHEABLE, cacheable);
             return query.getResultList();
         } finally {
             if (extensionManager != null) {
@@ -66,6 +66,9 @@ public class ThresholdCacheTranslationOverrideStrategy implements TranslationOve
     @Autowired
     protected TranslationSupport translationSupport;
 
+    @Resource(name = "blTranslationStore")
+    protected TranslationStore translationStore;
+
     @Override
     public LocalePair getLocaleBasedOverride(String property, TranslatedEntity entityType, String entityId,
                                              String localeCode, String localeCountryCode, String basicCacheKey) {
@@ -95,6 +98,12 @@ public class ThresholdCacheTranslationOverrideStrategy implements TranslationOve
                 //Translation is dual discriminated by site and catalog, which can make it impossible to find results under normal
                 //circumstances because the two discriminators can cancel eachother out. We use the CATALOG_ONLY ResultType
                 //to force the system to only honor the catalog discrimination during this call.
+                if (translationStore.isEnabled()) {
+                    String translatedValue = translationStore.getTranslatedValue(basicCacheKey, entityType, entityId, property,
+                            localeCode, localeCountryCode);
+                    buildSingleItemResponse(response, translatedValue);
+                    return response;
+                }
                 Translation translation = dao.readTranslation(entityType, entityId, property, localeCode, localeCountryCode, ResultType.CATALOG_ONLY);
                 buildSingleItemResponse(response, translation);
                 return response;
@@ -165,6 +174,13 @@ public class ThresholdCacheTranslationOverrideStrategy implements TranslationOve
             return 0;
         }
 
+    protected void buildSingleItemResponse(LocalePair response, String translatedValue) {
+        StandardCacheItem cacheItem = new StandardCacheItem();
+        cacheItem.setItemStatus(ItemStatus.NORMAL);
+        cacheItem.setCacheItem(translatedValue==null?"":translatedValue);
+        response.setSpecificItem(cacheItem);
+    }
+
     protected void buildSingleItemResponse(LocalePair response, Translation translation) {
         StandardCacheItem cacheItem = new StandardCacheItem();
         cacheItem.setItemStatus(ItemStatus.NORMAL);
@@ -0,0 +1,146 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.i18n.service;
+
+import org.apache.commons.lang3.StringUtils;
+import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The translated values for a batch of entities of one type, as returned by
+ * {@link TranslationService#getTranslatedValues(TranslatedEntity, Collection, Collection, Collection)}.
+ * <p>
+ * A batch knows which entities, properties and languages it was read for, so a caller can tell the difference between
+ * a value that has no translation and one that was never read. See {@link #covers(String, String, String)}.
+ */
+public class TranslatedValues implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final TranslatedEntity entityType;
+    protected final Set<String> entityIds;
+    protected final Set<String> properties;
+    protected final Set<String> languageCodes;
+
+    /**
+     * entity id -> property -> locale code -> translated value
+     */
+    protected final Map<String, Map<String, Map<String, String>>> values = new HashMap<String, Map<String, Map<String, String>>>();
+
+    /**
+     * @param entityType
+     * @param entityIds the entities that were read
+     * @param properties the properties that were read, or null for all properties
+     * @param languageCodes the languages that were read, or null for all languages
+     */
+    public TranslatedValues(TranslatedEntity entityType, Collection<String> entityIds, Collection<String> properties,
+            Collection<String> languageCodes) {
+        this.entityType = entityType;
+        this.entityIds = new HashSet<String>(entityIds);
+        this.properties = properties == null ? null : new HashSet<String>(properties);
+        this.languageCodes = languageCodes == null ? null : new HashSet<String>(languageCodes);
+    }
+
+    public TranslatedEntity getEntityType() {
+        return entityType;
+    }
+
+    public void add(String entityId, String property, String localeCode, String translatedValue) {
+        Map<String, Map<String, String>> byProperty = values.get(entityId);
+        if (byProperty == null) {
+            byProperty = new HashMap<String, Map<String, String>>();
+            values.put(entityId, byProperty);
+        }
+        Map<String, String> byLocale = byProperty.get(property);
+        if (byLocale == null) {
+            byLocale = new HashMap<String, String>(4);
+            byProperty.put(property, byLocale);
+        }
+        byLocale.put(localeCode, translatedValue);
+    }
+
+    /**
+     * @return whether this batch was read for the entity, property and language, in which case
+     * {@link #getTranslatedValue(String, String, String, String)} is authoritative even when it returns null
+     */
+    public boolean covers(String entityId, String property, String localeCode) {
+        return entityIds.contains(entityId)
+                && (properties == null || properties.contains(property))
+                && (languageCodes == null || languageCodes.contains(getLanguageCode(localeCode)));
+    }
+
+    /**
+     * Returns the translated value with the same precedence as a single lookup through
+     * {@link TranslationService#getTranslatedValue(Object, String, Locale)}: the exact locale first and, when a country
+     * is given, any other translation for the language.
+     *
+     * @param entityId
+     * @param property
+     * @param localeCode the language code, e.g. "en"
+     * @param localeCountryCode the language and country code, e.g. "en_US", or the language code if there is no country
+     * @return the translated value, or null if there is none
+     */
+    public String getTranslatedValue(String entityId, String property, String localeCode, String localeCountryCode) {
+        Map<String, Map<String, String>> byProperty = values.get(entityId);
+        if (byProperty == null) {
+            return null;
+        }
+        Map<String, String> byLocale = byProperty.get(property);
+        if (byLocale == null) {
+            return null;
+        }
+        String value = byLocale.get(localeCountryCode);
+        if (value != null || localeCode.equals(localeCountryCode)) {
+            return value;
+        }
+        value = byLocale.get(localeCode);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> entry : byLocale.entrySet()) {
+            if (localeCode.equals(getLanguageCode(entry.getKey()))) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Convenience for {@link #getTranslatedValue(String, String, String, String)}
+     */
+    public String getTranslatedValue(String entityId, String property, Locale locale) {
+        String localeCode = locale.getLanguage();
+        String localeCountryCode = localeCode;
+        if (StringUtils.isNotBlank(locale.getCountry())) {
+            localeCountryCode += "_" + locale.getCountry();
+        }
+        return getTranslatedValue(entityId, property, localeCode, localeCountryCode);
+    }
+
+    public static String getLanguageCode(String localeCode) {
+        int separator = localeCode.indexOf('_');
+        return separator < 0 ? localeCode : localeCode.substring(0, separator);
+    }
+}
@@ -22,6 +22,7 @@ import org.broadleafcommerce.common.extension.ResultType;
 import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
 import org.broadleafcommerce.common.i18n.domain.Translation;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 
@@ -168,4 +169,36 @@ public interface TranslationService {
      */
     List<Translation> findAllTranslationEntries(TranslatedEntity translatedEntity, ResultType standard, List<String> entityIds);
 
+    /**
+     * Resolves the translations for many entities of one type with a single query, rather than one
+     * {@link #getTranslatedValue(Object, String, Locale)} call per field.
+     *
+     * @param entityType
+     * @param entityIds the ids of the entities to translate
+     * @param properties the properties to translate, or null for every translated property
+     * @param localeCodes the locales to translate into, e.g. "fr" or "fr_CA", or null for every locale
+     * @return the translated values, which answer lookups with the same precedence as {@link #getTranslatedValue(Object, String, Locale)}
+     */
+    TranslatedValues getTranslatedValues(TranslatedEntity entityType, Collection<String> entityIds, Collection<String> properties,
+            Collection<String> localeCodes);
+
+    /**
+     * Reads the translations for the given entities with {@link #getTranslatedValues(TranslatedEntity, Collection, Collection, Collection)}
+     * and holds them on the current {@link org.broadleafcommerce.common.web.BroadleafRequestContext}. Until
+     * {@link #clearPreloadedTranslatedValues()} is called or the request ends, {@link #getTranslatedValue(Object, String, Locale)}
+     * answers from them for any entity, property and locale they cover. Anything else is looked up as usual.
+     *
+     * @param entityType
+     * @param entityIds
+     * @param properties the properties to translate, or null for every translated property
+     * @param localeCodes the locales to translate into, or null for every locale
+     */
+    void preloadTranslatedValues(TranslatedEntity entityType, Collection<String> entityIds, Collection<String> properties,
+            Collection<String> localeCodes);
+
+    /**
+     * Discards the values added to the current request by {@link #preloadTranslatedValues(TranslatedEntity, Collection, Collection, Collection)}
+     */
+    void clearPreloadedTranslatedValues();
+
 }
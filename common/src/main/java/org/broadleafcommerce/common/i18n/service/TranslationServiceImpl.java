@@ -17,6 +17,7 @@
  */
 package org.broadleafcommerce.common.i18n.service;
 
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,12 +37,18 @@ import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.annotation.Resource;
 import javax.cache.Cache;
@@ -53,6 +60,7 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
     protected static final Log LOG = LogFactory.getLog(TranslationServiceImpl.class);
     private static final Translation DELETED_TRANSLATION = new TranslationImpl();
     private static final String TRANSLATION_CACHE_NAME = "blTranslationElements";
+    protected static final String PRELOADED_TRANSLATED_VALUES = "blPreloadedTranslatedValues";
     
     @Resource(name = "blTranslationDao")
     protected TranslationDao dao;
@@ -94,13 +102,18 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
     
     @Resource(name = "blCacheManager")
     protected CacheManager cacheManager;
+
+    @Resource(name = "blTranslationStore")
+    protected TranslationStore translationStore;
     
     protected Cache<String, Object> cache;
     
     @Override
     @Transactional("blTransactionManager")
     public Translation save(Translation translation) {
-        return dao.save(translation);
+        Translation saved = dao.save(translation);
+        addToTranslationStore(saved);
+        return saved;
     }
     
     @Override
@@ -139,9 +152,14 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
             dao.delete(t2);
         }
         
+        String previousLocaleCode = t.getLocaleCode();
         t.setLocaleCode(localeCode);
         t.setTranslatedValue(translatedValue);
-        return save(t);
+        Translation saved = save(t);
+        if (previousLocaleCode != null && !previousLocaleCode.equals(localeCode)) {
+            removeFromTranslationStore(saved.getEntityType(), saved.getEntityId(), saved.getFieldName(), previousLocaleCode);
+        }
+        return saved;
     }
     
     @Override
@@ -149,6 +167,73 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
     public void deleteTranslationById(Long translationId) {
         Translation t = dao.readTranslationById(translationId);
         dao.delete(t);
+        removeFromTranslationStore(t.getEntityType(), t.getEntityId(), t.getFieldName(), t.getLocaleCode());
+    }
+
+    /**
+     * Applies a saved production translation to the {@link TranslationStore} once the transaction commits
+     */
+    protected void addToTranslationStore(Translation translation) {
+        if (!shouldUpdateTranslationStore(translation)) {
+            return;
+        }
+        final TranslatedEntity entityType = translation.getEntityType();
+        final String cacheKey = getCacheKey(ResultType.STANDARD, entityType);
+        final String entityId = translation.getEntityId();
+        final String fieldName = translation.getFieldName();
+        final String localeCode = translation.getLocaleCode();
+        final String translatedValue = translation.getTranslatedValue();
+        runAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                translationStore.addOrUpdate(cacheKey, entityType, entityId, fieldName, localeCode, translatedValue);
+            }
+        });
+    }
+
+    /**
+     * Removes a deleted production translation from the {@link TranslationStore} once the transaction commits
+     */
+    protected void removeFromTranslationStore(final TranslatedEntity entityType, final String entityId,
+            final String fieldName, final String localeCode) {
+        if (!translationStore.isEnabled() || entityType == null || !isProductionContext()) {
+            return;
+        }
+        final String cacheKey = getCacheKey(ResultType.STANDARD, entityType);
+        runAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                translationStore.remove(cacheKey, entityType, entityId, fieldName, localeCode);
+            }
+        });
+    }
+
+    protected boolean shouldUpdateTranslationStore(Translation translation) {
+        return translationStore.isEnabled() && translation != null && translation.getEntityType() != null
+                && isProductionContext();
+    }
+
+    /**
+     * Changes made in a sandbox are not visible in production until promoted, at which point
+     * {@link #removeTranslationFromCache(Translation)} is called
+     */
+    protected boolean isProductionContext() {
+        BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        return context == null || context.isProductionSandBox();
+    }
+
+    protected void runAfterCommit(final Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
     }
     
     @Override
@@ -192,6 +277,11 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
 
         TranslatedEntity entityType = getEntityType(entity);
         String entityId = dao.getEntityId(entityType, entity);
+
+        TranslatedValues preloaded = findPreloadedTranslatedValues(entityType, entityId, property, localeCountryCode);
+        if (preloaded != null) {
+            return preloaded.getTranslatedValue(entityId, property, localeCode, localeCountryCode);
+        }
         
         if (TranslationBatchReadCache.hasCache()) {
             Translation translation = TranslationBatchReadCache.getFromCache(entityType, entityId, property, localeCountryCode);
@@ -211,6 +301,10 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
             isValidForCache = response.getResult();
         }
         if (!BroadleafRequestContext.getBroadleafRequestContext().isProductionSandBox() || !isValidForCache) {
+            if (translationStore.isEnabled() && BroadleafRequestContext.getBroadleafRequestContext().isProductionSandBox()) {
+                return translationStore.getTranslatedValue(getCacheKey(ResultType.STANDARD, entityType), entityType, entityId,
+                        property, localeCode, localeCountryCode);
+            }
             Translation translation = dao.readTranslation(entityType, entityId, property, localeCode, localeCountryCode,
                     ResultType.CATALOG_ONLY);
             if (translation != null) {
@@ -223,6 +317,90 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
         return getOverrideTranslatedValue(property, entityType, entityId, localeCode, localeCountryCode);
     }
 
+    @Override
+    public TranslatedValues getTranslatedValues(TranslatedEntity entityType, Collection<String> entityIds,
+            Collection<String> properties, Collection<String> localeCodes) {
+        Set<String> languageCodes = null;
+        if (localeCodes != null) {
+            languageCodes = new HashSet<String>();
+            for (String localeCode : localeCodes) {
+                languageCodes.add(TranslatedValues.getLanguageCode(localeCode));
+            }
+        }
+        TranslatedValues values = new TranslatedValues(entityType, entityIds, properties, languageCodes);
+        if (CollectionUtils.isEmpty(entityIds) || (properties != null && properties.isEmpty())
+                || (languageCodes != null && languageCodes.isEmpty())) {
+            return values;
+        }
+        //Use the same catalog only discrimination as the uncached single value lookup in getTranslatedValue
+        List<Translation> translations = dao.readAllTranslationEntries(entityType, ResultType.CATALOG_ONLY,
+                new ArrayList<String>(entityIds), properties);
+        for (Translation translation : translations) {
+            if (languageCodes == null || languageCodes.contains(TranslatedValues.getLanguageCode(translation.getLocaleCode()))) {
+                values.add(translation.getEntityId(), translation.getFieldName(), translation.getLocaleCode(),
+                        translation.getTranslatedValue());
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void preloadTranslatedValues(TranslatedEntity entityType, Collection<String> entityIds,
+            Collection<String> properties, Collection<String> localeCodes) {
+        BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        if (context == null || CollectionUtils.isEmpty(entityIds)) {
+            return;
+        }
+        TranslatedValues values = getTranslatedValues(entityType, entityIds, properties, localeCodes);
+        Map<String, List<TranslatedValues>> preloaded = getPreloadedTranslatedValues(context);
+        if (preloaded == null) {
+            preloaded = new HashMap<String, List<TranslatedValues>>();
+            context.getAdditionalProperties().put(PRELOADED_TRANSLATED_VALUES, preloaded);
+        }
+        List<TranslatedValues> forType = preloaded.get(entityType.getType());
+        if (forType == null) {
+            forType = new ArrayList<TranslatedValues>();
+            preloaded.put(entityType.getType(), forType);
+        }
+        forType.add(values);
+    }
+
+    @Override
+    public void clearPreloadedTranslatedValues() {
+        BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        if (context != null) {
+            context.getAdditionalProperties().remove(PRELOADED_TRANSLATED_VALUES);
+        }
+    }
+
+    /**
+     * @return the preloaded batch that covers the lookup, or null if the lookup should be resolved as usual
+     */
+    protected TranslatedValues findPreloadedTranslatedValues(TranslatedEntity entityType, String entityId, String property,
+            String localeCountryCode) {
+        Map<String, List<TranslatedValues>> preloaded = getPreloadedTranslatedValues(BroadleafRequestContext.getBroadleafRequestContext());
+        if (preloaded == null) {
+            return null;
+        }
+        List<TranslatedValues> forType = preloaded.get(entityType.getType());
+        if (forType != null) {
+            for (TranslatedValues values : forType) {
+                if (values.covers(entityId, property, localeCountryCode)) {
+                    return values;
+                }
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Map<String, List<TranslatedValues>> getPreloadedTranslatedValues(BroadleafRequestContext context) {
+        if (context == null) {
+            return null;
+        }
+        return (Map<String, List<TranslatedValues>>) context.getAdditionalProperties().get(PRELOADED_TRANSLATED_VALUES);
+    }
+
     /**
      * Whether translations should be gathered for the provided locale.
      *
@@ -243,6 +421,10 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
     @Override
     public void removeTranslationFromCache(Translation translation) {
         if (BroadleafRequestContext.getBroadleafRequestContext().isProductionSandBox()) {
+            if (translationStore.isEnabled()) {
+                // the promoted change may be a deletion, so reload rather than trying to apply it
+                translationStore.invalidate(getCacheKey(ResultType.STANDARD, translation.getEntityType()));
+            }
             ResultType resultType = ResultType.STANDARD;
             if (extensionManager != null) {
                 ExtensionResultHolder<ResultType> response = new ExtensionResultHolder<ResultType>();
@@ -0,0 +1,73 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.i18n.service;
+
+import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
+
+/**
+ * Holds every translation for an entity type and language in memory, so that translated values can be served without
+ * a query per field once the type has more translations than {@link TranslationSupport#getThresholdForFullCache()}.
+ * Translations are loaded the first time a type and language are requested and are kept up to date as translations
+ * are saved and deleted through {@link TranslationService}.
+ * <p>
+ * Tables are keyed by the standard cache key from {@link TranslationSupport#getCacheKey}, so each site that resolves
+ * to its own cache key gets its own copy.
+ * <p>
+ * The store is disabled by default. Set 'translation.store.enabled' to true to enable it.
+ *
+ * @see TranslationStoreImpl
+ */
+public interface TranslationStore {
+
+    boolean isEnabled();
+
+    /**
+     * Returns the translated value with the same precedence as
+     * {@link org.broadleafcommerce.common.i18n.dao.TranslationDao#readTranslation(TranslatedEntity, String, String, String, String, org.broadleafcommerce.common.extension.ResultType)}:
+     * the exact locale first and, when a country is given, any other translation for the language.
+     *
+     * @param cacheKey the standard cache key for the entity type
+     * @param entityType
+     * @param entityId
+     * @param property
+     * @param localeCode the language code, e.g. "en"
+     * @param localeCountryCode the language and country code, e.g. "en_US", or the language code if there is no country
+     * @return the translated value, or null if there is none
+     */
+    String getTranslatedValue(String cacheKey, TranslatedEntity entityType, String entityId, String property,
+            String localeCode, String localeCountryCode);
+
+    /**
+     * Apply a saved translation to the loaded table for its language, if there is one
+     */
+    void addOrUpdate(String cacheKey, TranslatedEntity entityType, String entityId, String fieldName, String localeCode,
+            String translatedValue);
+
+    /**
+     * Remove a deleted translation from the loaded table for its language, if there is one
+     */
+    void remove(String cacheKey, TranslatedEntity entityType, String entityId, String fieldName, String localeCode);
+
+    /**
+     * Drop every loaded table for the cache key. They are reloaded on their next request.
+     */
+    void invalidate(String cacheKey);
+
+    void clear();
+
+}
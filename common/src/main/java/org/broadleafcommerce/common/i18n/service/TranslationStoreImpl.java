@@ -0,0 +1,237 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.i18n.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.cache.CacheStatType;
+import org.broadleafcommerce.common.cache.StatisticsService;
+import org.broadleafcommerce.common.extension.ResultType;
+import org.broadleafcommerce.common.i18n.dao.TranslationDao;
+import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
+import org.broadleafcommerce.common.i18n.domain.Translation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+
+/**
+ * Default {@link TranslationStore}. Each (cache key, language) table is loaded with a single query the first time it is
+ * requested. Concurrent requests for a table that is still loading wait for that load rather than starting their own.
+ * <p>
+ * Updates are only applied to tables that are already loaded. A table that has not been loaded yet will read the
+ * change from the database when it is. Updates only reach the tables of the node they are made on, so every table is
+ * also reloaded once it is older than {@link #refreshSeconds} to pick up changes made on other nodes.
+ *
+ * @see TranslationTable
+ */
+@Service("blTranslationStore")
+public class TranslationStoreImpl implements TranslationStore {
+
+    protected static final Log LOG = LogFactory.getLog(TranslationStoreImpl.class);
+
+    @Resource(name = "blTranslationDao")
+    protected TranslationDao dao;
+
+    @Resource(name = "blStatisticsService")
+    protected StatisticsService statisticsService;
+
+    @Value("${translation.store.enabled:false}")
+    protected boolean enabled = false;
+
+    @Value("${translation.store.refreshSeconds:600}")
+    protected long refreshSeconds = 600;
+
+    /**
+     * cache key -> language code -> table
+     */
+    protected final ConcurrentMap<String, ConcurrentMap<String, TableHolder>> tables =
+            new ConcurrentHashMap<String, ConcurrentMap<String, TableHolder>>();
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public String getTranslatedValue(String cacheKey, TranslatedEntity entityType, String entityId, String property,
+            String localeCode, String localeCountryCode) {
+        TranslationTable table = getTable(cacheKey, entityType, localeCode);
+        return table.find(property, entityId, localeCode, localeCountryCode);
+    }
+
+    @Override
+    public void addOrUpdate(String cacheKey, TranslatedEntity entityType, String entityId, String fieldName,
+            String localeCode, String translatedValue) {
+        TranslationTable table = getLoadedTable(cacheKey, localeCode);
+        if (table != null) {
+            table.put(localeCode, fieldName, entityId, translatedValue);
+        }
+    }
+
+    @Override
+    public void remove(String cacheKey, TranslatedEntity entityType, String entityId, String fieldName, String localeCode) {
+        TranslationTable table = getLoadedTable(cacheKey, localeCode);
+        if (table != null) {
+            table.remove(localeCode, fieldName, entityId);
+        }
+    }
+
+    @Override
+    public void invalidate(String cacheKey) {
+        tables.remove(cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        tables.clear();
+    }
+
+    protected TranslationTable getTable(String cacheKey, TranslatedEntity entityType, String languageCode) {
+        ConcurrentMap<String, TableHolder> byLanguage = tables.get(cacheKey);
+        if (byLanguage == null) {
+            byLanguage = new ConcurrentHashMap<String, TableHolder>();
+            ConcurrentMap<String, TableHolder> existing = tables.putIfAbsent(cacheKey, byLanguage);
+            if (existing != null) {
+                byLanguage = existing;
+            }
+        }
+        TableHolder holder = byLanguage.get(languageCode);
+        if (holder != null && isExpired(holder)) {
+            // the next request to get here reloads the table, the others wait for it
+            byLanguage.remove(languageCode, holder);
+            holder = byLanguage.get(languageCode);
+        }
+        if (holder != null) {
+            statisticsService.addCacheStat(CacheStatType.TRANSLATION_STORE_HIT_RATE.toString(), true);
+            return holder.get();
+        }
+        statisticsService.addCacheStat(CacheStatType.TRANSLATION_STORE_HIT_RATE.toString(), false);
+        TableHolder created = new TableHolder();
+        holder = byLanguage.putIfAbsent(languageCode, created);
+        if (holder != null) {
+            return holder.get();
+        }
+        long start = System.nanoTime();
+        try {
+            List<Translation> translations = dao.readAllTranslationEntriesForLanguage(entityType, ResultType.CATALOG_ONLY,
+                    languageCode);
+            TranslationTable table = new TranslationTable(translations);
+            created.set(table);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Loaded " + table.size() + " translations for [" + cacheKey + "] and language " + languageCode);
+            }
+            return table;
+        } catch (RuntimeException e) {
+            // let the next request try again, and never leave waiting threads blocked
+            byLanguage.remove(languageCode, created);
+            created.fail(e);
+            throw e;
+        } finally {
+            statisticsService.addCacheLoadTime(CacheStatType.TRANSLATION_STORE_HIT_RATE.toString(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * A table is expired once it has been loaded for longer than {@link #refreshSeconds}. Tables never expire when
+     * that is not positive.
+     */
+    protected boolean isExpired(TableHolder holder) {
+        return refreshSeconds > 0 && holder.isOlderThan(TimeUnit.SECONDS.toMillis(refreshSeconds));
+    }
+
+    public void setRefreshSeconds(long refreshSeconds) {
+        this.refreshSeconds = refreshSeconds;
+    }
+
+    protected TranslationTable getLoadedTable(String cacheKey, String localeCode) {
+        ConcurrentMap<String, TableHolder> byLanguage = tables.get(cacheKey);
+        if (byLanguage == null) {
+            return null;
+        }
+        int separator = localeCode.indexOf('_');
+        TableHolder holder = byLanguage.get(separator < 0 ? localeCode : localeCode.substring(0, separator));
+        return holder == null ? null : holder.getIfLoaded();
+    }
+
+    /**
+     * A table that may still be loading on another thread
+     */
+    protected static class TableHolder {
+
+        protected final CountDownLatch done = new CountDownLatch(1);
+        protected volatile TranslationTable table;
+        protected volatile RuntimeException failure;
+        protected volatile long loaded;
+
+        protected void set(TranslationTable table) {
+            this.loaded = System.currentTimeMillis();
+            this.table = table;
+            done.countDown();
+        }
+
+        /**
+         * Tables that are still loading are never considered old
+         */
+        protected boolean isOlderThan(long millis) {
+            return table != null && System.currentTimeMillis() - loaded > millis;
+        }
+
+        protected void fail(RuntimeException failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        protected TranslationTable getIfLoaded() {
+            return table;
+        }
+
+        protected TranslationTable get() {
+            TranslationTable result = table;
+            if (result != null) {
+                return result;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.i18n.service;
+
+import org.broadleafcommerce.common.i18n.domain.Translation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The translations for one entity type and language, held by {@link TranslationStoreImpl}.
+ * <p>
+ * Values are grouped by locale code and field name. Within a field, numeric entity ids are kept in a sorted
+ * {@code long[]} that is binary searched, with the values in a parallel array, so a lookup needs no boxing and no
+ * composite key string. Field names and locale codes are interned, and equal translated values share one String.
+ * <p>
+ * Columns are immutable. An update copies the affected column and swaps it in, so reads never lock.
+ */
+public class TranslationTable {
+
+    /**
+     * locale code -> field name -> column
+     */
+    protected final ConcurrentMap<String, ConcurrentMap<String, Column>> locales =
+            new ConcurrentHashMap<String, ConcurrentMap<String, Column>>();
+
+    public TranslationTable(List<Translation> translations) {
+        Map<String, Map<String, TreeMap<Long, String>>> numeric = new HashMap<String, Map<String, TreeMap<Long, String>>>();
+        Map<String, Map<String, Map<String, String>>> other = new HashMap<String, Map<String, Map<String, String>>>();
+        Map<String, String> sharedValues = new HashMap<String, String>();
+        for (Translation translation : translations) {
+            String localeCode = translation.getLocaleCode().intern();
+            String fieldName = translation.getFieldName().intern();
+            String value = share(sharedValues, translation.getTranslatedValue());
+            long id = parseId(translation.getEntityId());
+            if (id >= 0) {
+                getOrCreate(getOrCreate(numeric, localeCode), fieldName, new TreeMap<Long, String>()).put(id, value);
+            } else {
+                getOrCreate(getOrCreate(other, localeCode), fieldName, new HashMap<String, String>())
+                        .put(translation.getEntityId(), value);
+            }
+        }
+        for (Map.Entry<String, Map<String, TreeMap<Long, String>>> byLocale : numeric.entrySet()) {
+            for (Map.Entry<String, TreeMap<Long, String>> byField : byLocale.getValue().entrySet()) {
+                TreeMap<Long, String> values = byField.getValue();
+                long[] ids = new long[values.size()];
+                String[] columnValues = new String[values.size()];
+                int i = 0;
+                for (Map.Entry<Long, String> entry : values.entrySet()) {
+                    ids[i] = entry.getKey();
+                    columnValues[i++] = entry.getValue();
+                }
+                getColumns(byLocale.getKey()).put(byField.getKey(), new Column(ids, columnValues, null));
+            }
+        }
+        for (Map.Entry<String, Map<String, Map<String, String>>> byLocale : other.entrySet()) {
+            ConcurrentMap<String, Column> columns = getColumns(byLocale.getKey());
+            for (Map.Entry<String, Map<String, String>> byField : byLocale.getValue().entrySet()) {
+                Column column = columns.get(byField.getKey());
+                if (column == null) {
+                    column = Column.EMPTY;
+                }
+                columns.put(byField.getKey(), new Column(column.ids, column.values, byField.getValue()));
+            }
+        }
+    }
+
+    /**
+     * @see TranslationStore#getTranslatedValue(String, org.broadleafcommerce.common.i18n.domain.TranslatedEntity, String, String, String, String)
+     */
+    public String find(String property, String entityId, String localeCode, String localeCountryCode) {
+        long id = parseId(entityId);
+        String value = find(localeCountryCode, property, id, entityId);
+        if (value != null || localeCode.equals(localeCountryCode)) {
+            return value;
+        }
+        value = find(localeCode, property, id, entityId);
+        if (value != null) {
+            return value;
+        }
+        for (String otherLocaleCode : locales.keySet()) {
+            value = find(otherLocaleCode, property, id, entityId);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    protected String find(String localeCode, String property, long id, String entityId) {
+        Map<String, Column> columns = locales.get(localeCode);
+        if (columns == null) {
+            return null;
+        }
+        Column column = columns.get(property);
+        return column == null ? null : column.get(id, entityId);
+    }
+
+    public synchronized void put(String localeCode, String fieldName, String entityId, String value) {
+        ConcurrentMap<String, Column> columns = getColumns(localeCode.intern());
+        Column column = columns.get(fieldName);
+        if (column == null) {
+            column = Column.EMPTY;
+        }
+        columns.put(fieldName.intern(), column.with(parseId(entityId), entityId, value));
+    }
+
+    public synchronized void remove(String localeCode, String fieldName, String entityId) {
+        Map<String, Column> columns = locales.get(localeCode);
+        if (columns != null) {
+            Column column = columns.get(fieldName);
+            if (column != null) {
+                columns.put(fieldName, column.without(parseId(entityId), entityId));
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, Column> columns : locales.values()) {
+            for (Column column : columns.values()) {
+                size += column.size();
+            }
+        }
+        return size;
+    }
+
+    protected ConcurrentMap<String, Column> getColumns(String localeCode) {
+        ConcurrentMap<String, Column> columns = locales.get(localeCode);
+        if (columns == null) {
+            columns = new ConcurrentHashMap<String, Column>();
+            ConcurrentMap<String, Column> existing = locales.putIfAbsent(localeCode, columns);
+            if (existing != null) {
+                columns = existing;
+            }
+        }
+        return columns;
+    }
+
+    protected static <V> Map<String, V> getOrCreate(Map<String, Map<String, V>> map, String key) {
+        return getOrCreate(map, key, new HashMap<String, V>());
+    }
+
+    protected static <V> V getOrCreate(Map<String, V> map, String key, V newValue) {
+        V value = map.get(key);
+        if (value == null) {
+            value = newValue;
+            map.put(key, value);
+        }
+        return value;
+    }
+
+    protected static String share(Map<String, String> sharedValues, String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = sharedValues.get(value);
+        if (shared == null) {
+            sharedValues.put(value, value);
+            shared = value;
+        }
+        return shared;
+    }
+
+    /**
+     * @return the entity id as a non-negative long, or -1 if it is not a plain number
+     */
+    protected static long parseId(String entityId) {
+        int length = entityId == null ? 0 : entityId.length();
+        if (length == 0 || length > 18) {
+            return -1L;
+        }
+        long id = 0L;
+        for (int i = 0; i < length; i++) {
+            char c = entityId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1L;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    protected static class Column {
+
+        protected static final Column EMPTY = new Column(new long[0], new String[0], null);
+
+        protected final long[] ids;
+        protected final String[] values;
+        protected final Map<String, String> otherIds;
+
+        protected Column(long[] ids, String[] values, Map<String, String> otherIds) {
+            this.ids = ids;
+            this.values = values;
+            this.otherIds = otherIds == null ? Collections.<String, String>emptyMap() : otherIds;
+        }
+
+        protected String get(long id, String entityId) {
+            if (id < 0) {
+                return otherIds.get(entityId);
+            }
+            int index = Arrays.binarySearch(ids, id);
+            return index < 0 ? null : values[index];
+        }
+
+        protected Column with(long id, String entityId, String value) {
+            if (id < 0) {
+                Map<String, String> copy = new HashMap<String, String>(otherIds);
+                copy.put(entityId, value);
+                return new Column(ids, values, copy);
+            }
+            int index = Arrays.binarySearch(ids, id);
+            if (index >= 0) {
+                String[] newValues = values.clone();
+                newValues[index] = value;
+                return new Column(ids, newValues, otherIds);
+            }
+            int insertion = -index - 1;
+            long[] newIds = new long[ids.length + 1];
+            String[] newValues = new String[values.length + 1];
+            System.arraycopy(ids, 0, newIds, 0, insertion);
+            System.arraycopy(values, 0, newValues, 0, insertion);
+            newIds[insertion] = id;
+            newValues[insertion] = value;
+            System.arraycopy(ids, insertion, newIds, insertion + 1, ids.length - insertion);
+            System.arraycopy(values, insertion, newValues, insertion + 1, values.length - insertion);
+            return new Column(newIds, newValues, otherIds);
+        }
+
+        protected Column without(long id, String entityId) {
+            if (id < 0) {
+                if (!otherIds.containsKey(entityId)) {
+                    return this;
+                }
+                Map<String, String> copy = new HashMap<String, String>(otherIds);
+                copy.remove(entityId);
+                return new Column(ids, values, copy);
+            }
+            int index = Arrays.binarySearch(ids, id);
+            if (index < 0) {
+                return this;
+            }
+            long[] newIds = new long[ids.length - 1];
+            String[] newValues = new String[values.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, index);
+            System.arraycopy(values, 0, newValues, 0, index);
+            System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+            System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+            return new Column(newIds, newValues, otherIds);
+        }
+
+        protected int size() {
+            return ids.length + otherIds.size();
+        }
+    }
+}
@@ -17,27 +17,62 @@
  */
 package org.broadleafcommerce.common.id.service;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import javax.annotation.Resource;
-import javax.persistence.OptimisticLockException;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.id.dao.IdGenerationDao;
 import org.broadleafcommerce.common.id.domain.IdGeneration;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+import javax.persistence.OptimisticLockException;
+
+/**
+ * Hands out ids from ranges reserved through {@link IdGenerationDao}. Each id type is served by its own
+ * {@link IdAllocator}, so callers for different types never contend with one another, and callers for the same
+ * type only claim the next value of an {@link AtomicLong} cursor. A thread only blocks when the current range is
+ * exhausted and no prefetched range is waiting.
+ * <p>
+ * Once a range is drained past {@link #getPrefetchThreshold()}, the next range is reserved on a background thread.
+ * The number of batches reserved at once grows while ranges are being consumed faster than
+ * {@link #getTargetRefillMillis()} and shrinks again when the type goes quiet, up to {@link #getMaxBatchMultiplier()}.
+ * Ids left in a prefetched range are lost on shutdown, exactly as ids left in the current range always have been.
+ */
 @Service("blIdGenerationService")
-public class IdGenerationServiceImpl implements IdGenerationService {
+public class IdGenerationServiceImpl implements IdGenerationService, DisposableBean {
 
     private static final Log LOG = LogFactory.getLog(IdGenerationServiceImpl.class);
 
     @Resource(name="blIdGenerationDao")
     protected IdGenerationDao idGenerationDao;
 
-    protected Map<String, Id> idTypeIdMap = new HashMap<String, Id>();
+    @Value("${id.generation.prefetch.enabled:true}")
+    protected boolean prefetchEnabled = true;
+
+    @Value("${id.generation.prefetch.threshold:0.25}")
+    protected double prefetchThreshold = 0.25;
+
+    @Value("${id.generation.maxBatchMultiplier:8}")
+    protected int maxBatchMultiplier = 8;
+
+    @Value("${id.generation.targetRefillMillis:5000}")
+    protected long targetRefillMillis = 5000L;
+
+    protected final ConcurrentMap<String, IdAllocator> idTypeAllocatorMap = new ConcurrentHashMap<String, IdAllocator>();
+
+    protected volatile ExecutorService prefetchExecutor;
 
     @Override
     public Long findNextId(String idType) {
@@ -46,40 +81,83 @@ public class IdGenerationServiceImpl implements IdGenerationService {
 
     @Override
     public Long findNextId(String idType, Long batchSize) {
-        Id id;
-        synchronized (idTypeIdMap) {
-            id = idTypeIdMap.get(idType);
-            if (id == null) {
-                // recheck, another thread may have added this.
-                id = idTypeIdMap.get(idType);
-                if (id == null) {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Getting the initial id from the database.");
+        IdAllocator allocator = idTypeAllocatorMap.get(idType);
+        if (allocator == null) {
+            IdAllocator newAllocator = new IdAllocator(idType, batchSize);
+            allocator = idTypeAllocatorMap.putIfAbsent(idType, newAllocator);
+            if (allocator == null) {
+                allocator = newAllocator;
+            }
+        }
+        return allocator.nextId();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        ExecutorService executor = prefetchExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    protected IdRange reserveRange(String idType, Long batchSize, int batchMultiplier) {
+        IdGeneration idGeneration = getCurrentIdRange(idType, batchSize);
+        IdRange range = new IdRange(idGeneration.getBatchStart(), idGeneration.getBatchSize(), prefetchThreshold);
+        for (int i = 1; i < batchMultiplier; i++) {
+            IdGeneration additional = getCurrentIdRange(idType, batchSize);
+            if (range.end == additional.getBatchStart()) {
+                range = new IdRange(range.start, range.end - range.start + additional.getBatchSize(), prefetchThreshold);
+            } else {
+                // the range wrapped, or another node reserved in between; hand back what is contiguous so far
+                range.next = new IdRange(additional.getBatchStart(), additional.getBatchSize(), prefetchThreshold);
+                break;
+            }
+        }
+        return range;
+    }
+
+    protected void schedulePrefetch(final IdAllocator allocator) {
+        try {
+            getPrefetchExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        allocator.offer(reserveRange(allocator.idType, allocator.batchSize, allocator.batchMultiplier));
+                    } catch (RuntimeException e) {
+                        LOG.warn("Unable to prefetch the next id range for " + allocator.idType
+                                + ". The range will be read when the current one is exhausted.", e);
+                    } finally {
+                        allocator.prefetching.set(false);
                     }
-                    IdGeneration idGeneration = getCurrentIdRange(idType, batchSize);
-                    id = new Id(idGeneration.getBatchStart(), idGeneration.getBatchSize());
                 }
-                idTypeIdMap.put(idType, id);
-            }
+            });
+        } catch (RejectedExecutionException e) {
+            allocator.prefetching.set(false);
         }
+    }
 
-        synchronized(id) {
-            if (id.batchSize == 0L) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Updating batch size for idType " + idType);
+    protected ExecutorService getPrefetchExecutor() {
+        ExecutorService executor = prefetchExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = prefetchExecutor;
+                if (executor == null) {
+                    executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "Id-Generation-Prefetch");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    prefetchExecutor = executor;
                 }
-                IdGeneration idGeneration = getCurrentIdRange(idType, batchSize);
-                id.nextId = idGeneration.getBatchStart();
-                id.batchSize = idGeneration.getBatchSize();
             }
-            Long retId = id.nextId++;
-            id.batchSize--;
-
-            return retId;
         }
+        return executor;
     }
-    
-    private IdGeneration getCurrentIdRange(String idType, Long batchSize) {
+
+    protected IdGeneration getCurrentIdRange(String idType, Long batchSize) {
         IdGeneration idGeneration = null;
         int retryCount = 0;
         boolean stale = true;
@@ -103,13 +181,133 @@ public class IdGenerationServiceImpl implements IdGenerationService {
         return idGeneration;
     }
 
-    private class Id {
-        public Long nextId;
-        public Long batchSize;
+    public boolean isPrefetchEnabled() {
+        return prefetchEnabled;
+    }
 
-        public Id(Long nextId, Long batchSize) {
-            this.nextId = nextId;
+    public void setPrefetchEnabled(boolean prefetchEnabled) {
+        this.prefetchEnabled = prefetchEnabled;
+    }
+
+    public double getPrefetchThreshold() {
+        return prefetchThreshold;
+    }
+
+    public void setPrefetchThreshold(double prefetchThreshold) {
+        this.prefetchThreshold = prefetchThreshold;
+    }
+
+    public int getMaxBatchMultiplier() {
+        return maxBatchMultiplier;
+    }
+
+    public void setMaxBatchMultiplier(int maxBatchMultiplier) {
+        this.maxBatchMultiplier = maxBatchMultiplier;
+    }
+
+    public long getTargetRefillMillis() {
+        return targetRefillMillis;
+    }
+
+    public void setTargetRefillMillis(long targetRefillMillis) {
+        this.targetRefillMillis = targetRefillMillis;
+    }
+
+    /**
+     * A reserved, half open range of ids. {@link #cursor} may run past {@link #end} once the range is exhausted;
+     * values claimed beyond the end are simply discarded.
+     */
+    protected static class IdRange {
+
+        protected final long start;
+        protected final long end;
+        protected final long prefetchAt;
+        protected final AtomicLong cursor;
+        protected volatile IdRange next;
+
+        public IdRange(long start, long size, double prefetchThreshold) {
+            this.start = start;
+            this.end = start + size;
+            this.cursor = new AtomicLong(start);
+            this.prefetchAt = end - Math.max(1L, (long) (size * prefetchThreshold));
+        }
+    }
+
+    protected class IdAllocator {
+
+        protected final String idType;
+        protected final Long batchSize;
+        protected final Queue<IdRange> prefetched = new ConcurrentLinkedQueue<IdRange>();
+        protected final AtomicBoolean prefetching = new AtomicBoolean();
+        protected volatile IdRange current;
+        protected volatile int batchMultiplier = 1;
+        protected volatile long lastRefillTime;
+
+        public IdAllocator(String idType, Long batchSize) {
+            this.idType = idType;
             this.batchSize = batchSize;
         }
+
+        public Long nextId() {
+            while (true) {
+                IdRange range = current;
+                if (range != null) {
+                    long id = range.cursor.getAndIncrement();
+                    if (id < range.end) {
+                        if (id == range.prefetchAt && prefetchEnabled) {
+                            triggerPrefetch();
+                        }
+                        return id;
+                    }
+                }
+                advance(range);
+            }
+        }
+
+        protected void triggerPrefetch() {
+            if (prefetched.isEmpty() && prefetching.compareAndSet(false, true)) {
+                schedulePrefetch(this);
+            }
+        }
+
+        protected void offer(IdRange range) {
+            while (range != null) {
+                prefetched.offer(range);
+                range = range.next;
+            }
+        }
+
+        /**
+         * Replaces an exhausted range. Only threads that found the range exhausted get here, and they serialize on
+         * this allocator so that a single database read refills the type when nothing has been prefetched.
+         */
+        protected synchronized void advance(IdRange exhausted) {
+            if (current != exhausted) {
+                return;
+            }
+            IdRange replacement = prefetched.poll();
+            if (replacement == null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Reading the next id range from the database for idType " + idType);
+                }
+                adjustBatchMultiplier();
+                replacement = reserveRange(idType, batchSize, batchMultiplier);
+                offer(replacement.next);
+            } else {
+                adjustBatchMultiplier();
+            }
+            current = replacement;
+        }
+
+        protected void adjustBatchMultiplier() {
+            long now = System.currentTimeMillis();
+            long elapsed = now - lastRefillTime;
+            lastRefillTime = now;
+            if (elapsed < targetRefillMillis && batchMultiplier < maxBatchMultiplier) {
+                batchMultiplier = Math.min(maxBatchMultiplier, batchMultiplier * 2);
+            } else if (elapsed > targetRefillMillis * 4L && batchMultiplier > 1) {
+                batchMultiplier = Math.max(1, batchMultiplier / 2);
+            }
+        }
     }
 }
@@ -125,7 +125,7 @@ public class Money implements Serializable, Cloneable, Comparable<Money>, Extern
     }
 
     public Money(int amount, String currencyCode) {
-        this(BigDecimal.valueOf(amount).setScale(BankersRounding.getScaleForCurrency(Currency.getInstance(currencyCode)), RoundingMode.HALF_EVEN), Currency.getInstance(currencyCode));
+        this((long) amount, Currency.getInstance(currencyCode));
     }
 
     public Money(long amount, Currency currency) {
@@ -133,7 +133,7 @@ public class Money implements Serializable, Cloneable, Comparable<Money>, Extern
     }
 
     public Money(long amount, String currencyCode) {
-        this(BigDecimal.valueOf(amount).setScale(BankersRounding.getScaleForCurrency(Currency.getInstance(currencyCode)), RoundingMode.HALF_EVEN), Currency.getInstance(currencyCode));
+        this(amount, Currency.getInstance(currencyCode));
     }
 
     public Money(String amount, Currency currency) {
@@ -281,7 +281,7 @@ public class Money implements Serializable, Cloneable, Comparable<Money>, Extern
     }
 
     public boolean isZero() {
-        return amount.compareTo(BankersRounding.zeroAmount()) == 0;
+        return amount.signum() == 0;
     }
 
     public Money zero() {
@@ -0,0 +1,157 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Mutable running total for summing many {@link Money} values of one currency without creating an intermediate
+ * {@link Money} and {@link BigDecimal} for every addition. While the total fits, it is kept as a <code>long</code>
+ * count of minor units (e.g. cents) at a fixed scale and only converted back to a {@link BigDecimal} by
+ * {@link #toMoney()}.
+ * <p>
+ * Results are identical to chaining {@link Money#add(Money)} and {@link Money#subtract(Money)} starting from the
+ * same initial value: the total keeps the scale {@link Money} arithmetic would keep and operands with more decimal
+ * places than that are rounded half even exactly as {@link Money} rounds them. Operands in another currency are
+ * handed to {@link Money} so that currency conversion behaves as it always has.
+ * <p>
+ * Instances are not thread safe and are intended to live for the duration of a single calculation.
+ */
+public class MoneyAccumulator {
+
+    protected static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        long power = 1L;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10L;
+        }
+    }
+
+    protected Currency currency;
+    protected int scale;
+    protected long units;
+
+    /**
+     * Holds the total instead of {@link #units} once it no longer fits in a long
+     */
+    protected BigDecimal overflow;
+
+    /**
+     * The {@link Money} the total was last reset to, kept until the total changes so that operations handed to
+     * {@link Money} see the original instance
+     */
+    protected Money value;
+
+    public MoneyAccumulator(Money initialValue) {
+        reset(initialValue);
+    }
+
+    public MoneyAccumulator(Currency currency) {
+        this(Money.zero(currency));
+    }
+
+    public MoneyAccumulator add(Money other) {
+        return add(other, false);
+    }
+
+    public MoneyAccumulator subtract(Money other) {
+        return add(other, true);
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal getAmount() {
+        if (overflow != null) {
+            return overflow;
+        }
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    public Money toMoney() {
+        if (value != null) {
+            return value;
+        }
+        return new Money(getAmount(), currency, scale);
+    }
+
+    protected MoneyAccumulator add(Money other, boolean negate) {
+        if (!other.getCurrency().equals(currency)) {
+            Money current = value != null ? value : toMoney();
+            reset(negate ? current.subtract(other) : current.add(other));
+            return this;
+        }
+        value = null;
+        int resultScale = scale == 0 ? BankersRounding.getScaleForCurrency(currency) : scale;
+        if (resultScale != scale) {
+            setScale(resultScale);
+        }
+
+        BigDecimal amount = other.getAmount();
+        if (overflow == null && amount.scale() >= 0 && amount.scale() <= scale && amount.precision() < 19) {
+            try {
+                long otherUnits = Math.multiplyExact(amount.unscaledValue().longValue(),
+                        POWERS_OF_TEN[scale - amount.scale()]);
+                units = negate ? Math.subtractExact(units, otherUnits) : Math.addExact(units, otherUnits);
+                return this;
+            } catch (ArithmeticException e) {
+                // the total no longer fits in a long, fall through to BigDecimal arithmetic
+            }
+        }
+
+        BigDecimal total = getAmount();
+        total = negate ? total.subtract(amount) : total.add(amount);
+        setTotal(total.setScale(scale, RoundingMode.HALF_EVEN));
+        return this;
+    }
+
+    protected void reset(Money initialValue) {
+        value = initialValue;
+        currency = initialValue.getCurrency();
+        scale = initialValue.getAmount().scale();
+        setTotal(initialValue.getAmount());
+    }
+
+    /**
+     * @param total an amount whose scale is {@link #scale}
+     */
+    protected void setTotal(BigDecimal total) {
+        if (scale >= 0 && scale < POWERS_OF_TEN.length && total.precision() < 19) {
+            units = total.unscaledValue().longValue();
+            overflow = null;
+        } else {
+            overflow = total;
+        }
+    }
+
+    protected void setScale(int newScale) {
+        BigDecimal current = getAmount();
+        scale = newScale;
+        setTotal(current.setScale(newScale, RoundingMode.HALF_EVEN));
+    }
+
+    @Override
+    public String toString() {
+        return getAmount().toString();
+    }
+}
@@ -0,0 +1,263 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.rule;
+
+import org.broadleafcommerce.common.cache.CacheStatType;
+import org.broadleafcommerce.common.cache.StatisticsService;
+import org.broadleafcommerce.common.util.LatencyHistogram;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe cache of compiled MVEL expressions, keyed on the trimmed rule text together with the additional
+ * context imports the rule is compiled against. Reads never lock. When several threads miss on the same rule at once,
+ * only the first compiles it and the others wait for its result.
+ * <p>
+ * The cache is bounded by {@link #getMaxSize()}. Once full, an arbitrary entry is dropped for every new rule, which
+ * is enough to protect the heap from unbounded rule text without paying for LRU bookkeeping on every read.
+ * <p>
+ * Hit and miss counts are reported to the {@link StatisticsService} under
+ * {@link CacheStatType#COMPILED_RULE_CACHE_HIT_RATE} when one has been set.
+ *
+ * @see MvelHelper#getCompiledRuleCache()
+ * @see CompiledRuleCacheService
+ */
+public class CompiledRuleCache {
+
+    protected final ConcurrentMap<RuleKey, CompiledRule> cache = new ConcurrentHashMap<RuleKey, CompiledRule>();
+    protected final AtomicLong hitCount = new AtomicLong();
+    protected final AtomicLong missCount = new AtomicLong();
+    protected final LatencyHistogram compileTimes = new LatencyHistogram();
+
+    protected volatile int maxSize;
+    protected volatile StatisticsService statisticsService;
+
+    public CompiledRuleCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the compiled form of the passed in rule, compiling it on the calling thread if no other thread has
+     * done so already.
+     *
+     * @param rule the rule expression, which must not be null
+     * @param ruleParameters the parameters the rule is about to be evaluated with, passed to
+     * {@link MvelHelper#modifyExpression(String, Map, org.mvel2.ParserContext)} on a miss
+     * @param additionalContextImports imports besides the defaults added by {@link MvelHelper}, may be null
+     * @return the compiled expression
+     */
+    public Serializable getCompiledExpression(String rule, Map<String, Object> ruleParameters,
+            Map<String, Class<?>> additionalContextImports) {
+        RuleKey key = new RuleKey(rule.trim(), additionalContextImports);
+        CompiledRule compiledRule = cache.get(key);
+        if (compiledRule != null) {
+            recordStat(true);
+            return compiledRule.get();
+        }
+        CompiledRule created = new CompiledRule();
+        compiledRule = cache.putIfAbsent(key.copy(), created);
+        if (compiledRule != null) {
+            recordStat(true);
+            return compiledRule.get();
+        }
+        recordStat(false);
+        evictIfNecessary();
+        long start = System.nanoTime();
+        Serializable expression = null;
+        RuntimeException failure = null;
+        try {
+            expression = MvelHelper.compileExpression(key.rule, ruleParameters, additionalContextImports);
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            long compileTime = System.nanoTime() - start;
+            compileTimes.recordNanos(compileTime);
+            StatisticsService statistics = statisticsService;
+            if (statistics != null) {
+                statistics.addCacheLoadTime(CacheStatType.COMPILED_RULE_CACHE_HIT_RATE.toString(), compileTime);
+            }
+            if (expression == null) {
+                // don't cache failures, and never leave waiting threads blocked
+                cache.remove(key, created);
+                if (failure == null) {
+                    failure = new IllegalStateException("Unable to compile the rule expression");
+                }
+            }
+            created.complete(expression, failure);
+        }
+        return created.get();
+    }
+
+    /**
+     * Compiles the passed in rule ahead of its first evaluation. Used to warm the cache at startup.
+     */
+    public void precompile(String rule, Map<String, Class<?>> additionalContextImports) {
+        if (rule != null && rule.trim().length() > 0) {
+            getCompiledExpression(rule, null, additionalContextImports);
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public void resetStatistics() {
+        hitCount.set(0L);
+        missCount.set(0L);
+        compileTimes.reset();
+    }
+
+    protected void evictIfNecessary() {
+        Iterator<RuleKey> iterator = cache.keySet().iterator();
+        while (cache.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    protected void recordStat(boolean isHit) {
+        if (isHit) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        StatisticsService statistics = statisticsService;
+        if (statistics != null) {
+            statistics.addCacheStat(CacheStatType.COMPILED_RULE_CACHE_HIT_RATE.toString(), isHit);
+        }
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return a histogram of the time spent compiling rules on a miss
+     */
+    public LatencyHistogram getCompileTimes() {
+        return compileTimes;
+    }
+
+    public StatisticsService getStatisticsService() {
+        return statisticsService;
+    }
+
+    public void setStatisticsService(StatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
+    }
+
+    protected static class RuleKey {
+
+        protected final String rule;
+        protected final Map<String, Class<?>> imports;
+        protected final int hashCode;
+
+        public RuleKey(String rule, Map<String, Class<?>> imports) {
+            this.rule = rule;
+            this.imports = imports == null ? Collections.<String, Class<?>>emptyMap() : imports;
+            this.hashCode = 31 * rule.hashCode() + this.imports.hashCode();
+        }
+
+        /**
+         * @return a key that no longer shares the caller's import map, suitable for storing in the cache
+         */
+        public RuleKey copy() {
+            if (imports.isEmpty()) {
+                return this;
+            }
+            return new RuleKey(rule, Collections.unmodifiableMap(new HashMap<String, Class<?>>(imports)));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RuleKey)) {
+                return false;
+            }
+            RuleKey other = (RuleKey) obj;
+            return hashCode == other.hashCode && rule.equals(other.rule) && imports.equals(other.imports);
+        }
+    }
+
+    protected static class CompiledRule {
+
+        protected final CountDownLatch done = new CountDownLatch(1);
+        protected volatile Serializable expression;
+        protected volatile RuntimeException failure;
+
+        protected void complete(Serializable expression, RuntimeException failure) {
+            this.expression = expression;
+            this.failure = failure;
+            done.countDown();
+        }
+
+        public Serializable get() {
+            Serializable result = expression;
+            if (result != null) {
+                return result;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return expression;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.rule;
+
+/**
+ * Manages the shared {@link CompiledRuleCache} used by {@link MvelHelper}: warms it at startup from every
+ * {@link CompiledRuleWarmUpProvider} and exposes its statistics.
+ */
+public interface CompiledRuleCacheService {
+
+    /**
+     * Compiles every rule returned by the registered {@link CompiledRuleWarmUpProvider}s into the cache.
+     *
+     * @return the number of rules compiled
+     */
+    int warmUp();
+
+    void clear();
+
+    void resetStatistics();
+
+    int getSize();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    double getCompileTimeMeanMillis();
+
+    double getCompileTimePercentileMillis(double percentile);
+
+}
@@ -0,0 +1,180 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.rule;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.cache.StatisticsService;
+import org.broadleafcommerce.common.util.TransactionUtils;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Resource;
+
+@Service("blCompiledRuleCacheService")
+@ManagedResource(objectName="org.broadleafcommerce:name=CompiledRuleCache", description="Compiled MVEL Rule Cache", currencyTimeLimit=15)
+public class CompiledRuleCacheServiceImpl implements CompiledRuleCacheService, InitializingBean, ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Log LOG = LogFactory.getLog(CompiledRuleCacheServiceImpl.class);
+
+    @Resource(name = "blStatisticsService")
+    protected StatisticsService statisticsService;
+
+    @Resource(name = "blTransactionManager")
+    protected PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    protected List<CompiledRuleWarmUpProvider> warmUpProviders;
+
+    @Value("${rule.cache.maxSize:5000}")
+    protected int maxSize = 5000;
+
+    @Value("${rule.cache.warmup.enabled:true}")
+    protected boolean warmUpEnabled = true;
+
+    protected final AtomicBoolean warmedUp = new AtomicBoolean();
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        CompiledRuleCache cache = getCache();
+        cache.setMaxSize(maxSize);
+        cache.setStatisticsService(statisticsService);
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (warmUpEnabled && warmedUp.compareAndSet(false, true)) {
+            warmUp();
+        }
+    }
+
+    @Override
+    @ManagedOperation(description="Compile the rules of all registered warm up providers")
+    public int warmUp() {
+        if (warmUpProviders == null) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        int compiled = 0;
+        for (CompiledRuleWarmUpProvider provider : warmUpProviders) {
+            Map<String, Map<String, Class<?>>> rules;
+            TransactionStatus status = TransactionUtils.createTransaction("warmUpCompiledRules",
+                    TransactionDefinition.PROPAGATION_REQUIRED, transactionManager, true);
+            try {
+                rules = provider.readRulesForWarmUp();
+            } catch (RuntimeException e) {
+                LOG.warn("Unable to read rules to precompile from " + provider.getClass().getName(), e);
+                continue;
+            } finally {
+                TransactionUtils.finalizeTransaction(status, transactionManager, true);
+            }
+            for (Map.Entry<String, Map<String, Class<?>>> rule : rules.entrySet()) {
+                if (getCache().getSize() >= getCache().getMaxSize()) {
+                    LOG.info("Stopped precompiling rules once the compiled rule cache was full");
+                    return compiled;
+                }
+                try {
+                    getCache().precompile(rule.getKey(), rule.getValue());
+                    compiled++;
+                } catch (RuntimeException e) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Unable to precompile rule: " + rule.getKey(), e);
+                    }
+                }
+            }
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Precompiled " + compiled + " rules in " + (System.currentTimeMillis() - start) + "ms");
+        }
+        return compiled;
+    }
+
+    @Override
+    @ManagedOperation(description="Remove all compiled rules")
+    public void clear() {
+        getCache().clear();
+    }
+
+    @Override
+    @ManagedOperation(description="Reset the hit, miss and compile time statistics")
+    public void resetStatistics() {
+        getCache().resetStatistics();
+    }
+
+    @Override
+    @ManagedAttribute(description="Number of compiled rules held")
+    public int getSize() {
+        return getCache().getSize();
+    }
+
+    @Override
+    @ManagedAttribute(description="Rule lookups answered from the cache")
+    public long getHitCount() {
+        return getCache().getHitCount();
+    }
+
+    @Override
+    @ManagedAttribute(description="Rule lookups that required compilation")
+    public long getMissCount() {
+        return getCache().getMissCount();
+    }
+
+    @Override
+    @ManagedAttribute(description="Percentage of rule lookups answered from the cache")
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0L ? 0D : hits * 100D / total;
+    }
+
+    @Override
+    @ManagedAttribute(description="Mean rule compile time in milliseconds")
+    public double getCompileTimeMeanMillis() {
+        return getCache().getCompileTimes().getMeanNanos() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public double getCompileTimePercentileMillis(double percentile) {
+        return getCache().getCompileTimes().getPercentileMillis(percentile);
+    }
+
+    @ManagedAttribute(description="99th percentile rule compile time in milliseconds")
+    public double getCompileTime99thPercentileMillis() {
+        return getCompileTimePercentileMillis(99D);
+    }
+
+    protected CompiledRuleCache getCache() {
+        return MvelHelper.getCompiledRuleCache();
+    }
+
+}
@@ -0,0 +1,37 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.rule;
+
+import java.util.Map;
+
+/**
+ * Implemented by beans that own rule expressions stored in the database so that {@link CompiledRuleCacheService}
+ * can compile them at startup, before the first request has to.
+ */
+public interface CompiledRuleWarmUpProvider {
+
+    /**
+     * Reads the rule expressions to precompile. Each key must be the expression exactly as it will later be handed to
+     * {@link MvelHelper#evaluateRule(String, Map, Map, Map)}, mapped to the additional context imports it is
+     * evaluated with, or to null if it uses none. Called within a read-only transaction.
+     *
+     * @return the rules to compile, never null
+     */
+    Map<String, Map<String, Class<?>>> readRulesForWarmUp();
+
+}
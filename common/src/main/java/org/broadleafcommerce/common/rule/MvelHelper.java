@@ -24,7 +24,6 @@ import org.broadleafcommerce.common.RequestDTO;
 import org.broadleafcommerce.common.TimeDTO;
 import org.broadleafcommerce.common.presentation.client.SupportedFieldType;
 import org.broadleafcommerce.common.time.SystemTime;
-import org.broadleafcommerce.common.util.EfficientLRUMap;
 import org.broadleafcommerce.common.util.FormatUtil;
 import org.broadleafcommerce.common.util.StringUtil;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
@@ -56,7 +55,7 @@ import javax.servlet.http.HttpServletRequest;
  */
 public class MvelHelper {
 
-    private static final Map<String, Serializable> DEFAULT_EXPRESSION_CACHE = new EfficientLRUMap<String, Serializable>(5000);
+    private static final CompiledRuleCache COMPILED_RULE_CACHE = new CompiledRuleCache(5000);
     private static final Log LOG = LogFactory.getLog(MvelHelper.class);
 
     private static boolean TEST_MODE = false;
@@ -125,16 +124,15 @@ public class MvelHelper {
      * 
      * Also returns true if the rule is blank or null.
      * 
-     * Calls the {@link #evaluateRule(String, Map, Map)} method passing in the DEFAULT_EXPRESSION_CACHE.
-     * For systems that need to cache a large number of rule expressions, an alternate cache can be passed in.   The
-     * default cache is able to cache up to 1,000 rule expressions which should suffice for most systems.
+     * Compiled expressions are kept in the shared {@link CompiledRuleCache} returned by {@link #getCompiledRuleCache()},
+     * which holds up to 5,000 rule expressions by default.
      * 
      * @param rule
      * @param ruleParameters
      * @return
      */
     public static boolean evaluateRule(String rule, Map<String, Object> ruleParameters) {
-        return evaluateRule(rule, ruleParameters, DEFAULT_EXPRESSION_CACHE);
+        return evaluateRule(rule, ruleParameters, null);
     }
 
     /**
@@ -142,6 +140,7 @@ public class MvelHelper {
      * 
      * @param rule
      * @param ruleParameters
+     * @param expressionCache cache to hold the compiled expression, or null to use the shared {@link CompiledRuleCache}
      * @return
      */
     public static boolean evaluateRule(String rule, Map<String, Object> ruleParameters,
@@ -152,7 +151,9 @@ public class MvelHelper {
     /**
      * @param rule
      * @param ruleParameters
-     * @param expressionCache
+     * @param expressionCache cache to hold the compiled expression, or null to use the shared {@link CompiledRuleCache}
+     * which keys on the additional imports as well as the rule. Caches passed in by the caller must not be shared by
+     * rules compiled with different imports.
      * @param additionalContextImports additional imports to give to the {@link ParserContext} besides "MVEL" ({@link MVEL} and
      * "MvelHelper" ({@link MvelHelper}) since they are automatically added 
      * @return
@@ -165,35 +166,24 @@ public class MvelHelper {
             return true;
         } else {
             // MVEL expression compiling can be expensive so let's cache the expression
-            Serializable exp = null;
-            if (expressionCache != null) {
+            Serializable exp;
+            if (expressionCache == null) {
+                exp = COMPILED_RULE_CACHE.getCompiledExpression(rule, ruleParameters, additionalContextImports);
+            } else {
                 exp = expressionCache.get(rule);
-            }
-            if (exp == null) {
-                ParserContext context = new ParserContext();
-                context.addImport("MVEL", MVEL.class);
-                context.addImport("MvelHelper", MvelHelper.class);
-                context.addImport("CollectionUtils", SelectizeCollectionUtils.class);
-                if (MapUtils.isNotEmpty(additionalContextImports)) {
-                    for (Entry<String, Class<?>> entry : additionalContextImports.entrySet()) {
-                        context.addImport(entry.getKey(), entry.getValue());
+                if (exp == null) {
+                    exp = compileExpression(rule, ruleParameters, additionalContextImports);
+                    synchronized (expressionCache) {
+                        expressionCache.put(rule, exp);
                     }
                 }
-                
-                String modifiedRule = modifyExpression(rule, ruleParameters, context);
-
-                synchronized (expressionCache) {
-                    exp = MVEL.compileExpression(modifiedRule, context);
-                    expressionCache.put(rule, exp);
-                }
             }
 
-            Map<String, Object> mvelParameters = new HashMap<String, Object>();
-
+            Map<String, Object> mvelParameters;
             if (ruleParameters != null) {
-                for (String parameter : ruleParameters.keySet()) {
-                    mvelParameters.put(parameter, ruleParameters.get(parameter));
-                }
+                mvelParameters = new HashMap<String, Object>(ruleParameters);
+            } else {
+                mvelParameters = new HashMap<String, Object>();
             }
 
             try {
@@ -214,6 +204,34 @@ public class MvelHelper {
             }
         }
     }
+
+    /**
+     * Compiles the passed in rule with a {@link ParserContext} holding the default imports plus the passed in
+     * additional imports, after running it through {@link #modifyExpression(String, Map, ParserContext)}.
+     */
+    protected static Serializable compileExpression(String rule, Map<String, Object> ruleParameters,
+            Map<String, Class<?>> additionalContextImports) {
+        ParserContext context = new ParserContext();
+        context.addImport("MVEL", MVEL.class);
+        context.addImport("MvelHelper", MvelHelper.class);
+        context.addImport("CollectionUtils", SelectizeCollectionUtils.class);
+        if (MapUtils.isNotEmpty(additionalContextImports)) {
+            for (Entry<String, Class<?>> entry : additionalContextImports.entrySet()) {
+                context.addImport(entry.getKey(), entry.getValue());
+            }
+        }
+
+        String modifiedRule = modifyExpression(rule, ruleParameters, context);
+        return MVEL.compileExpression(modifiedRule, context);
+    }
+
+    /**
+     * Returns the cache used by {@link #evaluateRule(String, Map)} and by any evaluation that does not pass in its
+     * own expression cache.
+     */
+    public static CompiledRuleCache getCompiledRuleCache() {
+        return COMPILED_RULE_CACHE;
+    }
     
     /**
      * <p>
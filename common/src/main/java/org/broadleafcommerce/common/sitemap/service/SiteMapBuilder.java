@@ -18,19 +18,23 @@
 
 package org.broadleafcommerce.common.sitemap.service;
 
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.file.domain.FileWorkArea;
 import org.broadleafcommerce.common.file.service.BroadleafFileUtils;
 import org.broadleafcommerce.common.sitemap.domain.SiteMapConfiguration;
+import org.broadleafcommerce.common.sitemap.wrapper.SiteMapImageWrapper;
 import org.broadleafcommerce.common.sitemap.wrapper.SiteMapIndexWrapper;
 import org.broadleafcommerce.common.sitemap.wrapper.SiteMapURLSetWrapper;
 import org.broadleafcommerce.common.sitemap.wrapper.SiteMapURLWrapper;
 import org.broadleafcommerce.common.sitemap.wrapper.SiteMapWrapper;
 import org.broadleafcommerce.common.util.FormatUtil;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
@@ -41,15 +45,32 @@ import java.util.List;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Handles creating the various sitemap files. 
+ * <p>
+ * When streaming, each URL is written to the current sitemap file as it is added rather than being held until the file
+ * is full, and a new file is started once the current one reaches the configured entry count or
+ * {@link #MAX_STREAMED_FILE_BYTES}. {@link #addUrl(SiteMapURLWrapper)} is safe to call from several generators at once.
  * 
  * @author bpolster
  */
 public class SiteMapBuilder {
 
     protected static final Log LOG = LogFactory.getLog(SiteMapBuilder.class);
+
+    protected static final String SITEMAP_NAMESPACE = "http://www.sitemaps.org/schemas/sitemap/0.9";
+    protected static final String IMAGE_NAMESPACE = "http://www.google.com/schemas/sitemap-image/1.1";
+
+    /**
+     * The sitemap protocol limits an uncompressed file to 50MB. Files are rolled over a little before that since the size
+     * is only checked every {@link #SIZE_CHECK_INTERVAL} entries.
+     */
+    protected static final long MAX_STREAMED_FILE_BYTES = 50L * 1024 * 1024 - 1024 * 1024;
+    protected static final int SIZE_CHECK_INTERVAL = 100;
     protected FileWorkArea fileWorkArea;
 
     protected SiteMapConfiguration siteMapConfig;
@@ -57,20 +78,34 @@ public class SiteMapBuilder {
     protected List<String> indexedFileNames = new ArrayList<String>();
     protected String baseUrl;
     protected boolean gzipSiteMapFiles = true;
+    protected boolean streaming = false;
+
+    protected XMLStreamWriter currentStreamWriter;
+    protected CountingOutputStream currentStream;
+    protected int currentStreamEntryCount = 0;
 
     public SiteMapBuilder(SiteMapConfiguration siteMapConfig, FileWorkArea fileWorkArea, String baseUrl, boolean gzipSiteMapFiles) {
+        this(siteMapConfig, fileWorkArea, baseUrl, gzipSiteMapFiles, false);
+    }
+
+    public SiteMapBuilder(SiteMapConfiguration siteMapConfig, FileWorkArea fileWorkArea, String baseUrl, boolean gzipSiteMapFiles, boolean streaming) {
         this.fileWorkArea = fileWorkArea;
         this.siteMapConfig = siteMapConfig;
         this.currentURLSetWrapper = new SiteMapURLSetWrapper();
         this.baseUrl = baseUrl;
         this.gzipSiteMapFiles = gzipSiteMapFiles;
+        this.streaming = streaming;
     }
 
     /**
      * Returns the SiteMapURLSetWrapper that a Generator should use to add its next URL element.
      * 
      */
-    public void addUrl(SiteMapURLWrapper urlWrapper) {
+    public synchronized void addUrl(SiteMapURLWrapper urlWrapper) {
+        if (streaming) {
+            streamUrl(urlWrapper);
+            return;
+        }
         if (currentURLSetWrapper.getSiteMapUrlWrappers().size() >= siteMapConfig.getMaximumUrlEntriesPerFile()) {
             persistIndexedURLSetWrapper(currentURLSetWrapper);
             currentURLSetWrapper = new SiteMapURLSetWrapper();
@@ -78,6 +113,118 @@ public class SiteMapBuilder {
         currentURLSetWrapper.getSiteMapUrlWrappers().add(urlWrapper);
     }
 
+    protected void streamUrl(SiteMapURLWrapper urlWrapper) {
+        try {
+            if (currentStreamWriter != null && isCurrentStreamFull()) {
+                closeCurrentStream();
+            }
+            if (currentStreamWriter == null) {
+                openNextStream();
+            }
+            XMLStreamWriter writer = currentStreamWriter;
+            writer.writeStartElement(SITEMAP_NAMESPACE, "url");
+            writeElement(writer, SITEMAP_NAMESPACE, "loc", urlWrapper.getLoc());
+            writeElement(writer, SITEMAP_NAMESPACE, "lastmod", urlWrapper.getLastmod());
+            writeElement(writer, SITEMAP_NAMESPACE, "changefreq", urlWrapper.getChangefreq());
+            writeElement(writer, SITEMAP_NAMESPACE, "priority", urlWrapper.getPriority());
+            for (SiteMapImageWrapper image : urlWrapper.getSiteMapImageWrappers()) {
+                writer.writeStartElement(IMAGE_NAMESPACE, "image");
+                writeElement(writer, IMAGE_NAMESPACE, "loc", image.getLoc());
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+            currentStreamEntryCount++;
+        } catch (XMLStreamException | IOException e) {
+            LOG.error("Exception occurred streaming a SiteMap URL", e);
+            throw new RuntimeException("Error persisting XML document when trying to build Sitemap", e);
+        }
+    }
+
+    protected boolean isCurrentStreamFull() throws XMLStreamException {
+        if (currentStreamEntryCount >= siteMapConfig.getMaximumUrlEntriesPerFile()) {
+            return true;
+        }
+        if (currentStreamEntryCount % SIZE_CHECK_INTERVAL == 0) {
+            currentStreamWriter.flush();
+            return currentStream.getByteCount() >= MAX_STREAMED_FILE_BYTES;
+        }
+        return false;
+    }
+
+    protected void writeElement(XMLStreamWriter writer, String namespace, String name, String value) throws XMLStreamException {
+        if (value != null) {
+            writer.writeStartElement(namespace, name);
+            writer.writeCharacters(value);
+            writer.writeEndElement();
+        }
+    }
+
+    protected void openNextStream() throws IOException, XMLStreamException {
+        String indexedFileName = createNextIndexedFileName();
+        indexedFileNames.add(indexedFileName);
+        File file = new File(fileWorkArea.getFilePathLocation() + indexedFileName);
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Streaming SiteMap document " + file.getAbsolutePath());
+        }
+        currentStream = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        currentStreamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(currentStream, "UTF-8");
+        currentStreamEntryCount = 0;
+        currentStreamWriter.writeStartDocument("UTF-8", "1.0");
+        currentStreamWriter.writeCharacters("\n");
+        currentStreamWriter.setDefaultNamespace(SITEMAP_NAMESPACE);
+        currentStreamWriter.setPrefix("image", IMAGE_NAMESPACE);
+        currentStreamWriter.writeStartElement(SITEMAP_NAMESPACE, "urlset");
+        currentStreamWriter.writeDefaultNamespace(SITEMAP_NAMESPACE);
+        currentStreamWriter.writeNamespace("image", IMAGE_NAMESPACE);
+    }
+
+    protected void closeCurrentStream() throws IOException, XMLStreamException {
+        try {
+            currentStreamWriter.writeEndElement();
+            currentStreamWriter.writeEndDocument();
+            currentStreamWriter.close();
+        } finally {
+            currentStream.close();
+            currentStreamWriter = null;
+            currentStream = null;
+        }
+    }
+
+    /**
+     * Finishes the streamed files. A single file is renamed to the non-indexed sitemap file name, the same file the
+     * buffered path would have written; otherwise the index file is written.
+     */
+    protected void persistStreamedSiteMap() {
+        try {
+            if (currentStreamWriter == null && indexedFileNames.isEmpty()) {
+                openNextStream();
+            }
+            if (currentStreamWriter != null) {
+                closeCurrentStream();
+            }
+        } catch (XMLStreamException | IOException e) {
+            LOG.error("Exception occurred finishing a streamed SiteMap document", e);
+            throw new RuntimeException("Error persisting XML document when trying to build Sitemap", e);
+        }
+        if (indexedFileNames.size() == 1) {
+            File streamed = new File(fileWorkArea.getFilePathLocation() + indexedFileNames.get(0));
+            File siteMapFile = new File(fileWorkArea.getFilePathLocation() + siteMapConfig.getSiteMapFileName());
+            if (!streamed.equals(siteMapFile)) {
+                if (siteMapFile.exists()) {
+                    siteMapFile.delete();
+                }
+                if (!streamed.renameTo(siteMapFile)) {
+                    throw new RuntimeException("Error persisting XML document when trying to build Sitemap, unable to rename "
+                            + streamed.getAbsolutePath());
+                }
+            }
+            indexedFileNames.clear();
+            indexedFileNames.add(siteMapConfig.getSiteMapFileName());
+        } else {
+            persistSiteMapIndex();
+        }
+    }
+
     /**
      * Method takes in a valid JAXB object (e.g. has a RootElement) and persists it to 
      * the temporary directory associated with this builder. 
@@ -140,11 +287,18 @@ public class SiteMapBuilder {
      * @return
      */
     protected void persistIndexedSiteMap() {
-        String now = FormatUtil.formatDateUsingW3C(new Date());
-        
         // Save the leftover URL set
         persistIndexedURLSetWrapper(currentURLSetWrapper);
 
+        persistSiteMapIndex();
+    }
+
+    /**
+     * Save the site map index file listing every indexed file written so far.
+     */
+    protected void persistSiteMapIndex() {
+        String now = FormatUtil.formatDateUsingW3C(new Date());
+
         // Build the siteMapIndex
         SiteMapIndexWrapper siteMapIndexWrapper = new SiteMapIndexWrapper();
         for (String fileName : indexedFileNames) {
@@ -181,8 +335,10 @@ public class SiteMapBuilder {
         return fileName;
     }
 
-    protected void persistSiteMap() {
-        if (indexedFileNames.size() > 0) {
+    protected synchronized void persistSiteMap() {
+        if (streaming) {
+            persistStreamedSiteMap();
+        } else if (indexedFileNames.size() > 0) {
             persistIndexedSiteMap();
         } else {
             persistNonIndexedSiteMap();
@@ -29,8 +29,13 @@ import org.broadleafcommerce.common.file.service.BroadleafFileService;
 import org.broadleafcommerce.common.sitemap.domain.SiteMapConfiguration;
 import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration;
 import org.broadleafcommerce.common.sitemap.exception.SiteMapException;
+import org.broadleafcommerce.common.util.ApplicationContextHolder;
 import org.broadleafcommerce.common.util.BLCSystemProperty;
+import org.broadleafcommerce.common.util.EntityManagerAwareRunnable;
 import org.broadleafcommerce.common.web.BaseUrlResolver;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.hibernate.Hibernate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
@@ -39,9 +44,18 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Resource;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 
 /**
  * Component responsible for generating a sitemap.   Relies on SiteMapGenerators to 
@@ -61,6 +75,10 @@ public class SiteMapServiceImpl implements SiteMapService {
 
     protected Boolean gzipSiteMapFiles;
 
+    protected Boolean streamSiteMapFiles;
+
+    protected Integer siteMapGenerationThreads;
+
     @Resource(name = "blModuleConfigurationService")
     protected ModuleConfigurationService moduleConfigurationService;
 
@@ -87,11 +105,13 @@ public class SiteMapServiceImpl implements SiteMapService {
         }
 
         FileWorkArea fileWorkArea = broadleafFileService.initializeWorkArea();
-        SiteMapBuilder siteMapBuilder = new SiteMapBuilder(smc, fileWorkArea, baseUrlResolver.getSiteBaseUrl(), getGzipSiteMapFiles());
+        SiteMapBuilder siteMapBuilder = new SiteMapBuilder(smc, fileWorkArea, baseUrlResolver.getSiteBaseUrl(),
+                getGzipSiteMapFiles(), getStreamSiteMapFiles());
 
         if (LOG.isTraceEnabled()) {
             LOG.trace("File work area initalized with path " + fileWorkArea.getFilePathLocation());
         }
+        List<SiteMapGeneratorConfiguration> activeConfigurations = new ArrayList<SiteMapGeneratorConfiguration>();
         for (SiteMapGeneratorConfiguration currentConfiguration : smc.getSiteMapGeneratorConfigurations()) {
             if (currentConfiguration.isDisabled()) {
                 if (LOG.isTraceEnabled()) {
@@ -99,14 +119,15 @@ public class SiteMapServiceImpl implements SiteMapService {
                 }
                 continue;
             }
-            SiteMapGenerator generator = selectSiteMapGenerator(currentConfiguration);
-            if (generator != null) {
-                if (LOG.isTraceEnabled()) {
-                    LOG.trace("SiteMapGenerator found, adding entries" + generator.getClass());
-                }
-                generator.addSiteMapEntries(currentConfiguration, siteMapBuilder);
-            } else {
-                LOG.warn("No site map generator found to process generator configuration for " + currentConfiguration.getSiteMapGeneratorType());
+            activeConfigurations.add(currentConfiguration);
+        }
+
+        int threads = getStreamSiteMapFiles() ? Math.min(getSiteMapGenerationThreads(), activeConfigurations.size()) : 1;
+        if (threads > 1) {
+            addSiteMapEntriesInParallel(activeConfigurations, siteMapBuilder, threads);
+        } else {
+            for (SiteMapGeneratorConfiguration currentConfiguration : activeConfigurations) {
+                addSiteMapEntries(currentConfiguration, siteMapBuilder);
             }
         }
 
@@ -133,6 +154,110 @@ public class SiteMapServiceImpl implements SiteMapService {
         return smgr;
     }
 
+    protected void addSiteMapEntries(SiteMapGeneratorConfiguration currentConfiguration, SiteMapBuilder siteMapBuilder) {
+        SiteMapGenerator generator = selectSiteMapGenerator(currentConfiguration);
+        if (generator != null) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("SiteMapGenerator found, adding entries" + generator.getClass());
+            }
+            generator.addSiteMapEntries(currentConfiguration, siteMapBuilder);
+        } else {
+            LOG.warn("No site map generator found to process generator configuration for " + currentConfiguration.getSiteMapGeneratorType());
+        }
+    }
+
+    /**
+     * Runs each generator configuration on its own thread. Only used when the builder streams, since that is when
+     * {@link SiteMapBuilder#addUrl} writes straight to the files and can take URLs from several generators at once.
+     * <p>
+     * Generators lazily load catalog and content state as they go, so each task runs with its own thread-bound
+     * {@link EntityManager} and re-reads its configuration through it rather than using the caller's instance.
+     */
+    protected void addSiteMapEntriesInParallel(List<SiteMapGeneratorConfiguration> configurations,
+            final SiteMapBuilder siteMapBuilder, int threads) throws SiteMapException {
+        final BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        final EntityManagerFactory emf = getEntityManagerFactory();
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+            protected final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SiteMap-Generator-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<?>> results = new ArrayList<Future<?>>();
+            for (final SiteMapGeneratorConfiguration currentConfiguration : configurations) {
+                results.add(executor.submit(new EntityManagerAwareRunnable() {
+
+                    @Override
+                    protected void executeInternal() throws Exception {
+                        if (failure.get() != null) {
+                            return;
+                        }
+                        BroadleafRequestContext.setBroadleafRequestContext(context == null ? new BroadleafRequestContext()
+                                : context.createLightWeightClone());
+                        addSiteMapEntries(readConfiguration(getEntityManager(), currentConfiguration), siteMapBuilder);
+                    }
+
+                    @Override
+                    protected EntityManagerFactory getEntityManagerFactory() {
+                        return emf;
+                    }
+
+                    @Override
+                    protected void registerError(Exception e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SiteMapException("Interrupted while generating the sitemap", e);
+                } catch (ExecutionException e) {
+                    failure.compareAndSet(null, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Exception e = failure.get();
+        if (e != null) {
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new SiteMapException("Unable to generate the sitemap", e);
+        }
+    }
+
+    /**
+     * Reads the configuration through the given {@link EntityManager} so that anything it lazily loads is loaded
+     * through it. Configurations that have not been persisted are returned as they are.
+     */
+    protected SiteMapGeneratorConfiguration readConfiguration(EntityManager em, SiteMapGeneratorConfiguration configuration) {
+        if (em == null || configuration.getId() == null) {
+            return configuration;
+        }
+        SiteMapGeneratorConfiguration found = (SiteMapGeneratorConfiguration) em.find(Hibernate.getClass(configuration), configuration.getId());
+        return found == null ? configuration : found;
+    }
+
+    /**
+     * The persistence unit that parallel generator tasks bind an {@link EntityManager} from
+     */
+    protected EntityManagerFactory getEntityManagerFactory() {
+        return EntityManagerFactoryUtils.findEntityManagerFactory(ApplicationContextHolder.getApplicationContext(),
+                EntityManagerAwareRunnable.DEFAULT_ENTITY_MANAGER_NAME);
+    }
+
     @Override
     public File getSiteMapFile(String fileName) throws SiteMapException, IOException {
         if (LOG.isTraceEnabled()) {
@@ -282,6 +407,34 @@ public class SiteMapServiceImpl implements SiteMapService {
         return BLCSystemProperty.resolveBooleanSystemProperty("sitemap.gzip.files");
     }
 
+    /**
+     * When true, sitemap files are written as URLs are generated rather than once each file's worth of URLs is in memory
+     */
+    public boolean getStreamSiteMapFiles() {
+        if (this.streamSiteMapFiles != null) {
+            return this.streamSiteMapFiles.booleanValue();
+        }
+        return BLCSystemProperty.resolveBooleanSystemProperty("sitemap.streaming.enabled", false);
+    }
+
+    public void setStreamSiteMapFiles(Boolean streamSiteMapFiles) {
+        this.streamSiteMapFiles = streamSiteMapFiles;
+    }
+
+    /**
+     * The number of generator configurations run at once when streaming
+     */
+    public int getSiteMapGenerationThreads() {
+        if (this.siteMapGenerationThreads != null) {
+            return this.siteMapGenerationThreads.intValue();
+        }
+        return BLCSystemProperty.resolveIntSystemProperty("sitemap.generation.threads", 1);
+    }
+
+    public void setSiteMapGenerationThreads(Integer siteMapGenerationThreads) {
+        this.siteMapGenerationThreads = siteMapGenerationThreads;
+    }
+
     public boolean getCreateSiteMapIfNotFound() {
         return BLCSystemProperty.resolveBooleanSystemProperty("sitemap.createIfNotFound");
     }
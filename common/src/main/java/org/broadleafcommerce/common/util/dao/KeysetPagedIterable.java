@@ -0,0 +1,149 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.util.dao;
+
+import org.hibernate.Session;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Walks an arbitrarily large result one page at a time using keyset pagination: each page is read starting after the
+ * id of the last row of the previous page, so reading the millionth row costs the same as reading the first, unlike
+ * an offset based query. Pages are read lazily as the iterator advances, and only one page is held at a time.
+ * <p>
+ * When an {@link EntityManager} is supplied, its persistence context is cleared before each subsequent page is read so
+ * that entities from earlier pages do not accumulate in the session. The clear is skipped if the session holds
+ * unflushed changes, since clearing would discard them. Entities from previous pages are detached once the next page
+ * has been read, so callers should consume each entity before moving on.
+ *
+ * @param <T> the type of row being read
+ * @author Jeff Fischer
+ */
+public class KeysetPagedIterable<T> implements Iterable<T> {
+
+    /**
+     * Reads a single page of rows in ascending key order
+     */
+    public interface PageReader<T> {
+
+        /**
+         * @param lastId the key of the last row of the previous page, or null for the first page
+         * @param pageSize the maximum number of rows to return
+         * @return the page, which is the last one when it holds fewer than {@code pageSize} rows
+         */
+        List<T> readPage(Long lastId, int pageSize);
+
+    }
+
+    protected final PageReader<T> pageReader;
+    protected final Function<T, Long> idExtractor;
+    protected final int pageSize;
+    protected final EntityManager em;
+
+    /**
+     * @param pageReader reads each page
+     * @param idExtractor returns the key of a row, used as the starting point for the next page
+     * @param pageSize the number of rows read per query
+     * @param em the persistence context to clear between pages, or null to leave it alone
+     */
+    public KeysetPagedIterable(PageReader<T> pageReader, Function<T, Long> idExtractor, int pageSize, EntityManager em) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("The page size must be greater than zero");
+        }
+        this.pageReader = pageReader;
+        this.idExtractor = idExtractor;
+        this.pageSize = pageSize;
+        this.em = em;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PageIterator();
+    }
+
+    /**
+     * @return a sequential stream over the rows, reading pages as the stream is consumed
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    protected void clearPersistenceContext() {
+        if (em == null || !em.isOpen()) {
+            return;
+        }
+        if (!em.unwrap(Session.class).isDirty()) {
+            em.clear();
+        }
+    }
+
+    protected class PageIterator implements Iterator<T> {
+
+        protected List<T> page = Collections.emptyList();
+        protected int position = 0;
+        protected Long lastId = null;
+        protected boolean started = false;
+        protected boolean exhausted = false;
+
+        @Override
+        public boolean hasNext() {
+            if (position < page.size()) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            readNextPage();
+            return position < page.size();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T next = page.get(position++);
+            lastId = idExtractor.apply(next);
+            return next;
+        }
+
+        protected void readNextPage() {
+            if (started) {
+                clearPersistenceContext();
+            }
+            started = true;
+            List<T> results = pageReader.readPage(lastId, pageSize);
+            page = results == null ? Collections.<T>emptyList() : results;
+            position = 0;
+            exhausted = page.size() < pageSize;
+        }
+
+    }
+
+}
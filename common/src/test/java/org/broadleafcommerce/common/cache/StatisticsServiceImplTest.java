@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class StatisticsServiceImplTest extends TestCase {
+
+    public void testConcurrentHitsAreAllCounted() throws Exception {
+        final StatisticsServiceImpl statisticsService = new StatisticsServiceImpl();
+        final int threads = 8;
+        final int requestsPerThread = 10000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < requestsPerThread; j++) {
+                        statisticsService.addCacheStat("test", j % 4 != 0);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        List<CacheStatSnapshot> snapshots = statisticsService.getCacheStatSnapshots();
+        assertEquals(1, snapshots.size());
+        CacheStatSnapshot snapshot = snapshots.get(0);
+        assertEquals(threads * requestsPerThread, snapshot.getRequestCount());
+        assertEquals(threads * requestsPerThread * 3 / 4, snapshot.getCacheHitCount());
+        assertEquals(75D, snapshot.getHitRatePercentage());
+        assertEquals(75D, statisticsService.getAttribute("test"));
+    }
+
+    public void testLoadTimesArePublishedToExporters() throws Exception {
+        StatisticsServiceImpl statisticsService = new StatisticsServiceImpl();
+        final List<CacheStatSnapshot> exported = new ArrayList<CacheStatSnapshot>();
+        statisticsService.setExporters(Collections.<StatisticsExporter>singletonList(new StatisticsExporter() {
+            @Override
+            public void export(List<CacheStatSnapshot> snapshots) {
+                exported.addAll(snapshots);
+            }
+        }));
+        statisticsService.addCacheStat("test", false);
+        statisticsService.addCacheLoadTime("test", TimeUnit.MILLISECONDS.toNanos(4));
+        statisticsService.exportStats();
+
+        assertEquals(1, exported.size());
+        assertEquals(1L, exported.get(0).getCacheMissCount());
+        assertEquals(1L, exported.get(0).getLoadTimes().getCount());
+        assertEquals(4D, (Double) statisticsService.getAttribute("test" + StatisticsServiceImpl.LOAD_TIME_P99_SUFFIX), 0.5D);
+
+        // the snapshot is a copy, so later recordings do not change what was exported
+        statisticsService.addCacheLoadTime("test", TimeUnit.MILLISECONDS.toNanos(4));
+        assertEquals(1L, exported.get(0).getLoadTimes().getCount());
+    }
+
+    public void testNoExportThreadWithoutExporters() {
+        StatisticsServiceImpl statisticsService = new StatisticsServiceImpl();
+        statisticsService.setExporters(Collections.<StatisticsExporter>emptyList());
+        statisticsService.init();
+        assertNull(statisticsService.exportExecutor);
+        statisticsService.destroy();
+    }
+}
@@ -0,0 +1,110 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.extension;
+
+import junit.framework.TestCase;
+
+public class ExtensionManagerTest extends TestCase {
+
+    public void testNoHandlersIsNotHandled() {
+        TestExtensionManager manager = new TestExtensionManager();
+        assertEquals(ExtensionResultStatusType.NOT_HANDLED, manager.getProxy().append(null, "a"));
+    }
+
+    public void testReflectiveDispatch() {
+        assertDispatch(false);
+    }
+
+    public void testMethodHandleDispatch() {
+        assertDispatch(true);
+    }
+
+    public void testMethodHandleDispatchDoesNotWrapExceptions() {
+        TestExtensionManager manager = new TestExtensionManager();
+        manager.setMethodHandleDispatch(true);
+        manager.registerHandler(new FailingHandler());
+        try {
+            manager.getProxy().append(null, "a");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
+    protected void assertDispatch(boolean methodHandleDispatch) {
+        TestExtensionManager manager = new TestExtensionManager();
+        manager.setMethodHandleDispatch(methodHandleDispatch);
+        LastHandler last = new LastHandler();
+        last.setPriority(2);
+        manager.registerHandler(last);
+        FirstHandler first = new FirstHandler();
+        first.setPriority(1);
+        manager.registerHandler(first);
+
+        StringBuilder builder = new StringBuilder();
+        assertEquals(ExtensionResultStatusType.HANDLED, manager.getProxy().append(builder, "x"));
+        assertEquals("first:x,last:x,", builder.toString());
+
+        first.setEnabled(false);
+        last.setEnabled(false);
+        assertEquals(ExtensionResultStatusType.NOT_HANDLED, manager.getProxy().append(builder, "x"));
+    }
+
+    public interface TestExtensionHandler extends ExtensionHandler {
+
+        ExtensionResultStatusType append(StringBuilder builder, String value);
+    }
+
+    public static class TestExtensionManager extends ExtensionManager<TestExtensionHandler> {
+
+        public TestExtensionManager() {
+            super(TestExtensionHandler.class);
+        }
+
+        @Override
+        public boolean continueOnHandled() {
+            return true;
+        }
+    }
+
+    public static class FirstHandler extends AbstractExtensionHandler implements TestExtensionHandler {
+
+        @Override
+        public ExtensionResultStatusType append(StringBuilder builder, String value) {
+            builder.append("first:").append(value).append(',');
+            return ExtensionResultStatusType.HANDLED_CONTINUE;
+        }
+    }
+
+    public static class LastHandler extends AbstractExtensionHandler implements TestExtensionHandler {
+
+        @Override
+        public ExtensionResultStatusType append(StringBuilder builder, String value) {
+            builder.append("last:").append(value).append(',');
+            return ExtensionResultStatusType.HANDLED;
+        }
+    }
+
+    public static class FailingHandler extends AbstractExtensionHandler implements TestExtensionHandler {
+
+        @Override
+        public ExtensionResultStatusType append(StringBuilder builder, String value) {
+            throw new IllegalStateException("failed");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.i18n.service;
+
+import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+public class TranslatedValuesTest extends TestCase {
+
+    public void testCoverage() {
+        TranslatedValues values = new TranslatedValues(TranslatedEntity.PRODUCT, Arrays.asList("1", "2"),
+                Collections.singletonList("name"), Collections.singletonList("fr"));
+        assertTrue(values.covers("1", "name", "fr"));
+        assertTrue(values.covers("2", "name", "fr_CA"));
+        assertFalse(values.covers("3", "name", "fr"));
+        assertFalse(values.covers("1", "description", "fr"));
+        assertFalse(values.covers("1", "name", "es"));
+
+        TranslatedValues everything = new TranslatedValues(TranslatedEntity.PRODUCT, Arrays.asList("1"), null, null);
+        assertTrue(everything.covers("1", "description", "es_MX"));
+    }
+
+    public void testLocalePrecedence() {
+        TranslatedValues values = new TranslatedValues(TranslatedEntity.PRODUCT, Arrays.asList("1", "2"), null, null);
+        values.add("1", "name", "fr", "Sauce");
+        values.add("1", "name", "fr_CA", "Sauce Piquante");
+        values.add("2", "name", "fr_FR", "Piment");
+
+        assertEquals("Sauce Piquante", values.getTranslatedValue("1", "name", Locale.CANADA_FRENCH));
+        assertEquals("Sauce", values.getTranslatedValue("1", "name", Locale.FRENCH));
+        assertEquals("Sauce", values.getTranslatedValue("1", "name", "fr", "fr_BE"));
+        assertEquals("Piment", values.getTranslatedValue("2", "name", Locale.CANADA_FRENCH));
+        assertNull(values.getTranslatedValue("2", "name", Locale.FRENCH));
+        assertNull(values.getTranslatedValue("2", "description", Locale.FRENCH));
+    }
+}
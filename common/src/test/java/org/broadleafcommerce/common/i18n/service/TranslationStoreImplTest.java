@@ -0,0 +1,116 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.i18n.service;
+
+import org.broadleafcommerce.common.cache.StatisticsService;
+import org.broadleafcommerce.common.extension.ResultType;
+import org.broadleafcommerce.common.i18n.dao.TranslationDao;
+import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
+import org.broadleafcommerce.common.i18n.domain.Translation;
+import org.broadleafcommerce.common.i18n.domain.TranslationImpl;
+import org.easymock.EasyMock;
+
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TranslationStoreImplTest extends TestCase {
+
+    protected TranslationStoreImpl store;
+    protected TranslationDao dao;
+
+    @Override
+    protected void setUp() throws Exception {
+        dao = EasyMock.createMock(TranslationDao.class);
+        store = new TranslationStoreImpl();
+        store.dao = dao;
+        store.statisticsService = EasyMock.createNiceMock(StatisticsService.class);
+        EasyMock.replay(store.statisticsService);
+        store.setEnabled(true);
+        store.setRefreshSeconds(60);
+    }
+
+    public void testTableIsReloadedOnceItExpires() {
+        expectLoad("Salsa");
+        expectLoad("Salsa Verde");
+        EasyMock.replay(dao);
+
+        assertEquals("Salsa", find());
+        // a change made on another node is not seen until the table expires
+        assertEquals("Salsa", find());
+
+        age(61);
+        assertEquals("Salsa Verde", find());
+        assertEquals("Salsa Verde", find());
+
+        EasyMock.verify(dao);
+    }
+
+    public void testLocalUpdatesSurviveUntilTheTableExpires() {
+        expectLoad("Salsa");
+        EasyMock.replay(dao);
+
+        assertEquals("Salsa", find());
+        store.addOrUpdate("product", TranslatedEntity.PRODUCT, "100", "name", "es", "Salsa Roja");
+        assertEquals("Salsa Roja", find());
+
+        age(30);
+        assertEquals("Salsa Roja", find());
+
+        EasyMock.verify(dao);
+    }
+
+    public void testTablesNeverExpireWithoutARefreshInterval() {
+        store.setRefreshSeconds(0);
+        expectLoad("Salsa");
+        EasyMock.replay(dao);
+
+        assertEquals("Salsa", find());
+        age(3600);
+        assertEquals("Salsa", find());
+
+        EasyMock.verify(dao);
+    }
+
+    protected String find() {
+        return store.getTranslatedValue("product", TranslatedEntity.PRODUCT, "100", "name", "es", "es");
+    }
+
+    protected void expectLoad(String value) {
+        EasyMock.expect(dao.readAllTranslationEntriesForLanguage(TranslatedEntity.PRODUCT, ResultType.CATALOG_ONLY, "es"))
+                .andReturn(translations(value));
+    }
+
+    /**
+     * Makes the loaded table look as if it was loaded the given number of seconds ago
+     */
+    protected void age(int seconds) {
+        TranslationStoreImpl.TableHolder holder = store.tables.get("product").get("es");
+        holder.loaded = System.currentTimeMillis() - seconds * 1000L;
+    }
+
+    protected List<Translation> translations(String value) {
+        Translation translation = new TranslationImpl();
+        translation.setEntityId("100");
+        translation.setFieldName("name");
+        translation.setLocaleCode("es");
+        translation.setTranslatedValue(value);
+        return Collections.singletonList(translation);
+    }
+}
@@ -0,0 +1,93 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.i18n.service;
+
+import org.broadleafcommerce.common.i18n.domain.Translation;
+import org.broadleafcommerce.common.i18n.domain.TranslationImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TranslationTableTest extends TestCase {
+
+    protected TranslationTable buildTable() {
+        List<Translation> translations = new ArrayList<Translation>();
+        translations.add(translation("100", "name", "es", "Salsa"));
+        translations.add(translation("100", "name", "es_MX", "Salsa Picante"));
+        translations.add(translation("200", "name", "es", "Chile"));
+        translations.add(translation("300", "name", "es_ES", "Pimiento"));
+        translations.add(translation("abc", "name", "es", "Texto"));
+        return new TranslationTable(translations);
+    }
+
+    public void testExactLocaleIsPreferred() {
+        TranslationTable table = buildTable();
+        assertEquals("Salsa Picante", table.find("name", "100", "es", "es_MX"));
+        assertEquals("Salsa", table.find("name", "100", "es", "es"));
+        assertEquals("Salsa", table.find("name", "100", "es", "es_ES"));
+    }
+
+    public void testCountryFallsBackToAnyTranslationForTheLanguage() {
+        TranslationTable table = buildTable();
+        assertEquals("Pimiento", table.find("name", "300", "es", "es_MX"));
+        // a language only request does not fall back to a country specific translation
+        assertNull(table.find("name", "300", "es", "es"));
+        assertNull(table.find("description", "100", "es", "es"));
+        assertNull(table.find("name", "999", "es", "es"));
+    }
+
+    public void testNonNumericIds() {
+        TranslationTable table = buildTable();
+        assertEquals("Texto", table.find("name", "abc", "es", "es"));
+        table.put("es", "name", "abc", "Otro");
+        assertEquals("Otro", table.find("name", "abc", "es", "es"));
+        table.remove("es", "name", "abc");
+        assertNull(table.find("name", "abc", "es", "es"));
+    }
+
+    public void testIncrementalUpdates() {
+        TranslationTable table = buildTable();
+        assertEquals(5, table.size());
+
+        table.put("es", "name", "150", "Nuevo");
+        table.put("es", "name", "200", "Chile Rojo");
+        table.put("es", "description", "100", "Descripcion");
+        assertEquals("Nuevo", table.find("name", "150", "es", "es"));
+        assertEquals("Chile Rojo", table.find("name", "200", "es", "es"));
+        assertEquals("Descripcion", table.find("description", "100", "es", "es"));
+        assertEquals("Salsa", table.find("name", "100", "es", "es"));
+        assertEquals(7, table.size());
+
+        table.remove("es", "name", "100");
+        table.remove("es", "name", "999");
+        assertNull(table.find("name", "100", "es", "es"));
+        assertEquals("Nuevo", table.find("name", "150", "es", "es"));
+        assertEquals(6, table.size());
+    }
+
+    protected Translation translation(String entityId, String fieldName, String localeCode, String value) {
+        Translation translation = new TranslationImpl();
+        translation.setEntityId(entityId);
+        translation.setFieldName(fieldName);
+        translation.setLocaleCode(localeCode);
+        translation.setTranslatedValue(value);
+        return translation;
+    }
+}
@@ -0,0 +1,139 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.id.service;
+
+import org.broadleafcommerce.common.id.dao.IdGenerationDao;
+import org.broadleafcommerce.common.id.domain.IdGeneration;
+import org.broadleafcommerce.common.id.domain.IdGenerationImpl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+public class IdGenerationServiceImplTest extends TestCase {
+
+    public void testIdsAreSequentialWithinTheFirstRange() {
+        IdGenerationServiceImpl service = createService(new InMemoryIdGenerationDao(100L), false);
+        for (long i = 1; i <= 100; i++) {
+            assertEquals(Long.valueOf(i), service.findNextId("order"));
+        }
+    }
+
+    public void testIdTypesAreIndependent() {
+        IdGenerationServiceImpl service = createService(new InMemoryIdGenerationDao(10L), false);
+        assertEquals(Long.valueOf(1L), service.findNextId("order"));
+        assertEquals(Long.valueOf(1L), service.findNextId("customer"));
+        assertEquals(Long.valueOf(2L), service.findNextId("order"));
+    }
+
+    public void testConcurrentCallersNeverReceiveTheSameId() throws Exception {
+        InMemoryIdGenerationDao dao = new InMemoryIdGenerationDao(50L);
+        final IdGenerationServiceImpl service = createService(dao, true);
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        final AtomicInteger duplicates = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final int threads = 8;
+        final int idsPerThread = 5000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < idsPerThread; j++) {
+                            if (!ids.add(service.findNextId("order"))) {
+                                duplicates.incrementAndGet();
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        service.destroy();
+
+        assertNull(failure.get());
+        assertEquals(0, duplicates.get());
+        assertEquals(threads * idsPerThread, ids.size());
+        assertTrue(dao.getReservedCount("order") >= threads * idsPerThread);
+    }
+
+    public void testBatchMultiplierGrowsWhenRangesAreConsumedQuickly() {
+        InMemoryIdGenerationDao dao = new InMemoryIdGenerationDao(10L);
+        IdGenerationServiceImpl service = createService(dao, false);
+        service.setTargetRefillMillis(60000L);
+        for (int i = 0; i < 200; i++) {
+            service.findNextId("order");
+        }
+        assertTrue(service.idTypeAllocatorMap.get("order").batchMultiplier > 1);
+        assertEquals(Long.valueOf(201L), service.findNextId("order"));
+    }
+
+    protected IdGenerationServiceImpl createService(IdGenerationDao dao, boolean prefetch) {
+        IdGenerationServiceImpl service = new IdGenerationServiceImpl();
+        service.idGenerationDao = dao;
+        service.setPrefetchEnabled(prefetch);
+        return service;
+    }
+
+    protected static class InMemoryIdGenerationDao implements IdGenerationDao {
+
+        protected final long batchSize;
+        protected final Map<String, Long> batchStarts = new HashMap<String, Long>();
+
+        public InMemoryIdGenerationDao(long batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public IdGeneration findNextId(String idType) {
+            return findNextId(idType, null);
+        }
+
+        @Override
+        public synchronized IdGeneration findNextId(String idType, Long requestedBatchSize) {
+            Long batchStart = batchStarts.get(idType);
+            if (batchStart == null) {
+                batchStart = 1L;
+            }
+            IdGeneration response = new IdGenerationImpl();
+            response.setType(idType);
+            response.setBatchStart(batchStart);
+            response.setBatchSize(batchSize);
+            batchStarts.put(idType, batchStart + batchSize);
+            return response;
+        }
+
+        public synchronized long getReservedCount(String idType) {
+            return batchStarts.get(idType) - 1L;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.money;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class MoneyAccumulatorTest extends TestCase {
+
+    protected static final Currency USD = Currency.getInstance("USD");
+
+    public void testMatchesChainedMoneyArithmetic() {
+        Random random = new Random(42L);
+        for (int run = 0; run < 100; run++) {
+            Money expected = Money.zero(USD);
+            MoneyAccumulator accumulator = new MoneyAccumulator(USD);
+            for (int i = 0; i < 50; i++) {
+                // mix in amounts with more decimal places than the currency to exercise rounding
+                int scale = random.nextInt(4);
+                Money value = new Money(BigDecimal.valueOf(random.nextInt(2000000) - 1000000, scale), USD, scale);
+                if (random.nextBoolean()) {
+                    expected = expected.add(value);
+                    accumulator.add(value);
+                } else {
+                    expected = expected.subtract(value);
+                    accumulator.subtract(value);
+                }
+            }
+            assertEquals(expected, accumulator.toMoney());
+            assertEquals(expected.getAmount().scale(), accumulator.getAmount().scale());
+        }
+    }
+
+    public void testKeepsTheScaleOfTheInitialValue() {
+        Money initial = new Money(new BigDecimal("1.2345"), USD, 4);
+        MoneyAccumulator accumulator = new MoneyAccumulator(initial);
+        accumulator.add(new Money(new BigDecimal("0.00005"), USD, 5));
+        assertEquals(initial.add(new Money(new BigDecimal("0.00005"), USD, 5)), accumulator.toMoney());
+        assertEquals(4, accumulator.getAmount().scale());
+    }
+
+    public void testHalfEvenRoundingUsesTheRunningTotal() {
+        MoneyAccumulator accumulator = new MoneyAccumulator(new Money(new BigDecimal("0.01"), USD));
+        accumulator.add(new Money(new BigDecimal("0.005"), USD, 3));
+        assertEquals(new BigDecimal("0.02"), accumulator.getAmount());
+    }
+
+    public void testFallsBackToBigDecimalOnOverflow() {
+        MoneyAccumulator accumulator = new MoneyAccumulator(USD);
+        Money large = new Money(new BigDecimal(Long.MAX_VALUE).movePointLeft(2), USD);
+        accumulator.add(large).add(large);
+        assertEquals(large.add(large), accumulator.toMoney());
+    }
+
+    public void testUnchangedAccumulatorReturnsTheInitialValue() {
+        Money initial = new Money(new BigDecimal("3.50"), USD);
+        assertSame(initial, new MoneyAccumulator(initial).toMoney());
+    }
+}
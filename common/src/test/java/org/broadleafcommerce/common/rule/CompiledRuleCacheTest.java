@@ -0,0 +1,92 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.rule;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+public class CompiledRuleCacheTest extends TestCase {
+
+    public void testRepeatedLookupsReuseTheCompiledExpression() {
+        CompiledRuleCache cache = new CompiledRuleCache(10);
+        Serializable first = cache.getCompiledExpression("1 == 1", null, null);
+        Serializable second = cache.getCompiledExpression(" 1 == 1 ", null, null);
+        assertSame(first, second);
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(1L, cache.getHitCount());
+        assertEquals(1L, cache.getCompileTimes().getCount());
+    }
+
+    public void testImportsArePartOfTheKey() {
+        CompiledRuleCache cache = new CompiledRuleCache(10);
+        Map<String, Class<?>> imports = Collections.<String, Class<?>>singletonMap("Helper", MvelHelper.class);
+        Serializable withoutImports = cache.getCompiledExpression("1 == 1", null, null);
+        Serializable withImports = cache.getCompiledExpression("1 == 1", null, imports);
+        assertNotSame(withoutImports, withImports);
+        assertEquals(2, cache.getSize());
+    }
+
+    public void testSizeIsBounded() {
+        CompiledRuleCache cache = new CompiledRuleCache(5);
+        for (int i = 0; i < 20; i++) {
+            cache.getCompiledExpression(i + " == " + i, null, null);
+        }
+        assertTrue(cache.getSize() <= 5);
+    }
+
+    public void testConcurrentMissesCompileOnce() throws Exception {
+        final CompiledRuleCache cache = new CompiledRuleCache(10);
+        final Set<Serializable> results = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        results.add(cache.getCompiledExpression("MvelHelper.toUpperCase('a') == 'A'", null, null));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        assertEquals(1, results.size());
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(threads - 1L, cache.getHitCount());
+    }
+
+    public void testSharedCacheIsUsedWithoutAnExpressionCache() {
+        long misses = MvelHelper.getCompiledRuleCache().getMissCount();
+        assertTrue(MvelHelper.evaluateRule("'unique-rule-for-shared-cache-test' != null", null));
+        assertTrue(MvelHelper.evaluateRule("'unique-rule-for-shared-cache-test' != null", null));
+        assertEquals(misses + 1L, MvelHelper.getCompiledRuleCache().getMissCount());
+    }
+}
@@ -63,6 +63,23 @@ public class CustomUrlSiteMapGeneratorTest extends SiteMapGeneratorTest {
 
     }
     
+    @Test
+    public void testStreamedCustomUrlSiteMapGenerator() throws SiteMapException, IOException {
+        siteMapService.setStreamSiteMapFiles(true);
+        CustomUrlSiteMapGeneratorConfiguration smgc = getConfiguration();
+        testGenerator(smgc, new CustomUrlSiteMapGenerator());
+
+        String index = convertFileToString(fileService.getResource("/sitemap_index.xml"));
+        String siteMap1 = convertFileToString(fileService.getResource("/sitemap1.xml"));
+        String siteMap2 = convertFileToString(fileService.getResource("/sitemap2.xml"));
+
+        assertThat(index, containsString("<loc>http://www.heatclinic.com/sitemap2.xml</loc>"));
+        assertThat(siteMap1, containsString("<loc>http://www.heatclinic.com/1</loc>"));
+        assertThat(siteMap1, containsString("<loc>http://www.heatclinic.com/2</loc>"));
+        assertThat(siteMap2, containsString("<loc>http://www.heatclinic.com/3</loc>"));
+        assertThat(siteMap2, containsString("</urlset>"));
+    }
+
     @Test
     public void testSiteMapsWithSiteContext() throws SiteMapException, IOException {
         BroadleafRequestContext brc = new BroadleafRequestContext();
@@ -0,0 +1,153 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.sitemap.service;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.broadleafcommerce.common.sitemap.domain.CustomUrlSiteMapGeneratorConfiguration;
+import org.broadleafcommerce.common.sitemap.domain.CustomUrlSiteMapGeneratorConfigurationImpl;
+import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration;
+import org.broadleafcommerce.common.sitemap.domain.SiteMapUrlEntry;
+import org.broadleafcommerce.common.sitemap.domain.SiteMapUrlEntryImpl;
+import org.broadleafcommerce.common.sitemap.exception.SiteMapException;
+import org.broadleafcommerce.common.sitemap.service.type.SiteMapChangeFreqType;
+import org.broadleafcommerce.common.sitemap.service.type.SiteMapGeneratorType;
+import org.broadleafcommerce.common.sitemap.service.type.SiteMapPriorityType;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Streams several generator configurations at once and checks that each one runs with its own entity manager
+ * 
+ * @author Jeff Fischer
+ */
+public class ParallelSiteMapGenerationTest extends SiteMapGeneratorTest {
+
+    protected EntityManagerFactory emf;
+    protected EntityManager em;
+
+    @Before
+    public void setupParallel() {
+        emf = EasyMock.createMock(EntityManagerFactory.class);
+        em = EasyMock.createNiceMock(EntityManager.class);
+        EasyMock.expect(emf.createEntityManager()).andReturn(em).times(2);
+
+        siteMapService = new SiteMapServiceImpl() {
+
+            @Override
+            protected EntityManagerFactory getEntityManagerFactory() {
+                return emf;
+            }
+        };
+        siteMapService.broadleafFileService = fileService;
+        siteMapService.baseUrlResolver = baseUrlResolver;
+        siteMapService.setStreamSiteMapFiles(true);
+        siteMapService.setSiteMapGenerationThreads(2);
+    }
+
+    @Test
+    public void testGeneratorsRunConcurrentlyWithTheirOwnEntityManager() throws SiteMapException, IOException {
+        CustomUrlSiteMapGeneratorConfiguration first = getConfiguration(1L, "/first");
+        CustomUrlSiteMapGeneratorConfiguration second = getConfiguration(2L, "/second");
+        CustomUrlSiteMapGeneratorConfiguration firstRead = getConfiguration(1L, "/first");
+        CustomUrlSiteMapGeneratorConfiguration secondRead = getConfiguration(2L, "/second");
+        EasyMock.expect(em.find(CustomUrlSiteMapGeneratorConfigurationImpl.class, 1L)).andReturn(firstRead);
+        EasyMock.expect(em.find(CustomUrlSiteMapGeneratorConfigurationImpl.class, 2L)).andReturn(secondRead);
+        EasyMock.replay(emf, em);
+
+        final CountDownLatch running = new CountDownLatch(2);
+        final Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+        final List<SiteMapGeneratorConfiguration> generated = Collections.synchronizedList(new ArrayList<SiteMapGeneratorConfiguration>());
+        final List<Boolean> boundEntityManagers = Collections.synchronizedList(new ArrayList<Boolean>());
+        CustomUrlSiteMapGenerator generator = new CustomUrlSiteMapGenerator() {
+
+            @Override
+            public void addSiteMapEntries(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder) {
+                threadNames.add(Thread.currentThread().getName());
+                boundEntityManagers.add(TransactionSynchronizationManager.hasResource(emf));
+                generated.add(smgc);
+                running.countDown();
+                try {
+                    // Both generators have to be running at the same time for this to finish in time
+                    running.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.addSiteMapEntries(smgc, siteMapBuilder);
+            }
+        };
+
+        List<SiteMapGeneratorConfiguration> smgcList = new ArrayList<>();
+        smgcList.add(first);
+        smgcList.add(second);
+        testGenerator(smgcList, generator, 10);
+
+        assertEquals(0, running.getCount());
+        assertEquals(2, threadNames.size());
+        assertEquals(2, generated.size());
+        assertTrue(generated.contains(firstRead));
+        assertTrue(generated.contains(secondRead));
+        assertEquals(Collections.nCopies(2, Boolean.TRUE), boundEntityManagers);
+        assertFalse(generated.contains(first));
+        assertFalse(generated.contains(second));
+
+        String siteMap = convertFileToString(fileService.getResource("/sitemap1.xml"));
+        assertThat(siteMap, containsString("<loc>http://www.heatclinic.com/first</loc>"));
+        assertThat(siteMap, containsString("<loc>http://www.heatclinic.com/second</loc>"));
+
+        EasyMock.verify(emf);
+    }
+
+    protected CustomUrlSiteMapGeneratorConfiguration getConfiguration(Long id, String location) {
+        SiteMapUrlEntry urlEntry = new SiteMapUrlEntryImpl();
+        urlEntry.setLastMod(new Date());
+        urlEntry.setLocation(location);
+        urlEntry.setSiteMapChangeFreq(SiteMapChangeFreqType.HOURLY);
+        urlEntry.setSiteMapPriority(SiteMapPriorityType.POINT5);
+
+        List<SiteMapUrlEntry> urlEntries = new ArrayList<>();
+        urlEntries.add(urlEntry);
+
+        CustomUrlSiteMapGeneratorConfiguration smgc = new CustomUrlSiteMapGeneratorConfigurationImpl();
+        smgc.setId(id);
+        smgc.setDisabled(false);
+        smgc.setSiteMapGeneratorType(SiteMapGeneratorType.CUSTOM);
+        smgc.setCustomURLEntries(urlEntries);
+        return smgc;
+    }
+
+}
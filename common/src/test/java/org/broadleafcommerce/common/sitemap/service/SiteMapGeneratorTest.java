@@ -74,6 +74,8 @@ public class SiteMapGeneratorTest {
         fileService.setDefaultFileServiceProvider(defaultFileServiceProvider);
         siteMapService.broadleafFileService = fileService;
         siteMapService.baseUrlResolver = baseUrlResolver;
+        siteMapService.setStreamSiteMapFiles(false);
+        siteMapService.setSiteMapGenerationThreads(1);
 
     }
 
@@ -0,0 +1,89 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+
+package org.broadleafcommerce.common.util;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class LatencyHistogramTest extends TestCase {
+
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getPercentileNanos(99D));
+        assertEquals(0D, histogram.getMeanNanos());
+    }
+
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 0; i < 8; i++) {
+            histogram.recordNanos(i);
+        }
+        assertEquals(8L, histogram.getCount());
+        assertEquals(7L, histogram.getMaxNanos());
+        assertEquals(3L, histogram.getPercentileNanos(50D));
+        assertEquals(7L, histogram.getPercentileNanos(100D));
+    }
+
+    public void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i, TimeUnit.MICROSECONDS);
+        }
+        assertEquals(1000L, histogram.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), histogram.getMaxNanos());
+
+        long p50 = histogram.getPercentileNanos(50D);
+        assertTrue("p50 was " + p50, p50 >= 500000L && p50 <= 500000L * 1.125D);
+        long p99 = histogram.getPercentileNanos(99D);
+        assertTrue("p99 was " + p99, p99 >= 990000L && p99 <= 1000000L);
+        assertEquals(histogram.getMaxNanos(), histogram.getPercentileNanos(100D));
+    }
+
+    public void testBucketBoundsCoverAllValues() {
+        long[] values = new long[] { 8L, 15L, 16L, 17L, 1023L, 1024L, 123456789L, Long.MAX_VALUE };
+        for (long value : values) {
+            int index = LatencyHistogram.getBucketIndex(value);
+            assertTrue(index < LatencyHistogram.BUCKET_COUNT);
+            assertTrue("upper bound for " + value, LatencyHistogram.getBucketUpperBound(index) >= value);
+            if (index > 0) {
+                assertTrue("lower bound for " + value, LatencyHistogram.getBucketUpperBound(index - 1) < value);
+            }
+        }
+    }
+
+    public void testAddAndReset() {
+        LatencyHistogram first = new LatencyHistogram();
+        first.recordNanos(100L);
+        LatencyHistogram second = new LatencyHistogram();
+        second.recordNanos(5000L);
+        second.recordNanos(-1L);
+
+        first.add(second);
+        assertEquals(3L, first.getCount());
+        assertEquals(5000L, first.getMaxNanos());
+        assertEquals(5100L, first.getTotalNanos());
+
+        LatencyHistogram copy = first.copy();
+        first.reset();
+        assertEquals(0L, first.getCount());
+        assertEquals(3L, copy.getCount());
+    }
+}
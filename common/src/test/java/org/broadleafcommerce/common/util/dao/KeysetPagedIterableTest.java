@@ -0,0 +1,102 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.util.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import junit.framework.TestCase;
+
+public class KeysetPagedIterableTest extends TestCase {
+
+    protected static final Function<Long, Long> IDENTITY = Function.identity();
+
+    public void testPagesAreReadAfterLastId() {
+        RecordingReader reader = new RecordingReader(10);
+        List<Long> values = new KeysetPagedIterable<Long>(reader, IDENTITY, 4, null).stream()
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), values);
+        assertEquals(Arrays.asList(null, 4L, 8L), reader.requestedLastIds);
+    }
+
+    public void testExactMultipleOfPageSizeReadsOneEmptyPage() {
+        RecordingReader reader = new RecordingReader(8);
+        List<Long> values = new ArrayList<>();
+        for (Long value : new KeysetPagedIterable<Long>(reader, IDENTITY, 4, null)) {
+            values.add(value);
+        }
+
+        assertEquals(8, values.size());
+        assertEquals(Arrays.asList(null, 4L, 8L), reader.requestedLastIds);
+    }
+
+    public void testPagesAreReadLazily() {
+        RecordingReader reader = new RecordingReader(100);
+        List<Long> values = new KeysetPagedIterable<Long>(reader, IDENTITY, 5, null).stream()
+                .limit(7)
+                .collect(Collectors.toList());
+
+        assertEquals(7, values.size());
+        assertEquals(Arrays.asList(null, 5L), reader.requestedLastIds);
+    }
+
+    public void testEmptyResult() {
+        Iterator<Long> iterator = new KeysetPagedIterable<Long>(new RecordingReader(0), IDENTITY, 5, null).iterator();
+
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    protected static class RecordingReader implements KeysetPagedIterable.PageReader<Long> {
+
+        protected final long total;
+        protected final List<Long> requestedLastIds = new ArrayList<>();
+
+        public RecordingReader(long total) {
+            this.total = total;
+        }
+
+        @Override
+        public List<Long> readPage(Long lastId, int pageSize) {
+            requestedLastIds.add(lastId);
+            long start = lastId == null ? 1 : lastId + 1;
+            if (start > total) {
+                return Collections.emptyList();
+            }
+            List<Long> page = new ArrayList<>();
+            for (long i = start; i <= total && page.size() < pageSize; i++) {
+                page.add(i);
+            }
+            return page;
+        }
+
+    }
+
+}
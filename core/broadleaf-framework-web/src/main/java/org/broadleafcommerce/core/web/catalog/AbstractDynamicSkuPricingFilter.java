@@ -18,6 +18,9 @@
 package org.broadleafcommerce.core.web.catalog;
 
 import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingConsiderationContext;
+import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingResultCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -25,6 +28,8 @@ import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
 
 /**
  * 
@@ -33,16 +38,36 @@ import java.io.IOException;
  */
 public abstract class AbstractDynamicSkuPricingFilter implements DynamicSkuPricingFilter {
 
+    @Autowired(required = false)
+    @Qualifier("blSkuPricingResultCache")
+    protected SkuPricingResultCache skuPricingResultCache;
+
     public void destroy() {
         //do nothing
     }
 
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain) throws IOException, ServletException {
-        SkuPricingConsiderationContext.setSkuPricingConsiderationContext(getPricingConsiderations(request));
+        HashMap pricingConsiderations = getPricingConsiderations(request);
+        SkuPricingConsiderationContext.setSkuPricingConsiderationContext(pricingConsiderations);
         SkuPricingConsiderationContext.setSkuPricingService(getDynamicSkuPricingService(request));
+        String considerationKey = SkuPricingConsiderationContext.buildConsiderationCacheKey(pricingConsiderations,
+                getCacheableConsiderationNames());
+        SkuPricingConsiderationContext.setSkuPricingResultCache(skuPricingResultCache, considerationKey);
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Declares which of the {@link #getPricingConsiderations(ServletRequest)} entries prices depend on. When this
+     * returns a non-null collection, prices are shared through the {@link SkuPricingResultCache} with every request
+     * that has the same values for these considerations, site, currency and locale. Return null, the default, when
+     * prices are specific to each customer.
+     *
+     * @return the names of the considerations that determine prices, or null if prices should not be shared
+     */
+    protected Collection<String> getCacheableConsiderationNames() {
+        return null;
+    }
+
     public void init(FilterConfig config) throws ServletException {
         //do nothing
     }
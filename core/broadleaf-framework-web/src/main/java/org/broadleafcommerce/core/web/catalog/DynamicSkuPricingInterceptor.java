@@ -19,11 +19,15 @@ package org.broadleafcommerce.core.web.catalog;
 
 import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPricingService;
 import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingConsiderationContext;
+import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingResultCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.context.request.WebRequestInterceptor;
 
 import javax.annotation.Resource;
+import java.util.Collection;
 import java.util.HashMap;
 
 /**
@@ -41,10 +45,28 @@ public abstract class DynamicSkuPricingInterceptor implements WebRequestIntercep
     @Resource(name = "blDynamicSkuPricingService")
     protected DynamicSkuPricingService skuPricingService;
 
+    @Autowired(required = false)
+    @Qualifier("blSkuPricingResultCache")
+    protected SkuPricingResultCache skuPricingResultCache;
+
     @Override
     public void preHandle(WebRequest request) throws Exception {
-        SkuPricingConsiderationContext.setSkuPricingConsiderationContext(getPricingConsiderations(request));
+        HashMap pricingConsiderations = getPricingConsiderations(request);
+        SkuPricingConsiderationContext.setSkuPricingConsiderationContext(pricingConsiderations);
         SkuPricingConsiderationContext.setSkuPricingService(getDynamicSkuPricingService(request));
+        String considerationKey = SkuPricingConsiderationContext.buildConsiderationCacheKey(pricingConsiderations,
+                getCacheableConsiderationNames());
+        SkuPricingConsiderationContext.setSkuPricingResultCache(skuPricingResultCache, considerationKey);
+    }
+
+    /**
+     * Override to declare which considerations prices depend on, so they can be shared between requests through the
+     * {@link SkuPricingResultCache}. See {@link AbstractDynamicSkuPricingFilter#getCacheableConsiderationNames()}.
+     *
+     * @return the names of the considerations that determine prices, or null if prices should not be shared
+     */
+    protected Collection<String> getCacheableConsiderationNames() {
+        return null;
     }
 
     public DynamicSkuPricingService getDynamicSkuPricingService(WebRequest request) {
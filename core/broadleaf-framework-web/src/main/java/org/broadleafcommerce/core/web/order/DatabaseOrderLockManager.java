@@ -55,7 +55,7 @@ public class DatabaseOrderLockManager implements OrderLockManager {
         int count = 0;
         while (!lockAcquired) {
             try {
-                lockAcquired = orderService.acquireLock(order);
+                lockAcquired = attemptDatabaseLock(order);
             } catch (Exception e) {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Couldn't acquire lock - that's ok, we'll retry shortly", e);
@@ -94,10 +94,20 @@ public class DatabaseOrderLockManager implements OrderLockManager {
             return order;
         }
 
-        boolean lockAcquired = orderService.acquireLock(order); 
+        boolean lockAcquired = attemptDatabaseLock(order);
         return lockAcquired ? order : null;
     }
 
+    /**
+     * Makes a single, non-blocking attempt to acquire the {@link OrderLock} row for the given order
+     *
+     * @param order
+     * @return whether or not the lock was acquired
+     */
+    protected boolean attemptDatabaseLock(Order order) {
+        return orderService.acquireLock(order);
+    }
+
     @Override
     public void releaseLock(Object lockObject) {
         Order order = (Order) lockObject;
@@ -0,0 +1,265 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework Web
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.web.order;
+
+import org.broadleafcommerce.common.util.BLCSystemProperty;
+import org.broadleafcommerce.common.util.LatencyHistogram;
+import org.broadleafcommerce.core.order.domain.NullOrderImpl;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderLock;
+import org.broadleafcommerce.core.order.service.OrderLockManager;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * An {@link OrderLockManager} that serializes requests for the same {@link Order} on this node with an in-memory lock
+ * before falling back to the {@link OrderLock} row in the database. Only one thread per order on a given node ever
+ * contends for the database lock, so the database is only polled when the order is locked by a different node. Threads
+ * waiting on the same node are handed the lock in FIFO order as soon as it is released instead of sleeping for
+ * 'order.lock.databaseLockPollingIntervalMs' and issuing another UPDATE.
+ *
+ * <p>
+ * There is one in-memory lock per order id, created when the first thread asks for it and discarded once no thread
+ * holds or waits on it, so requests for different orders never wait on each other here.
+ *
+ * <p>
+ * This manager is not used by default. To use it, declare the 'blOrderLockManager' bean with this class in the
+ * application context.
+ *
+ * <p>
+ * The lock must be released by the thread that acquired it, which is already the case for the documented
+ * acquire / try / finally release idiom.
+ */
+@ManagedResource(objectName="org.broadleafcommerce:name=OrderLockManager", description="Order Lock Manager", currencyTimeLimit=15)
+public class HybridOrderLockManager extends DatabaseOrderLockManager {
+
+    /**
+     * The local lock for each order id that a thread on this node holds or is waiting on. Guarded by itself.
+     */
+    protected final Map<Long, LocalOrderLock> localLocks = new HashMap<>();
+
+    protected final LatencyHistogram localWaitTimes = new LatencyHistogram();
+    protected final LatencyHistogram databaseWaitTimes = new LatencyHistogram();
+    protected final AtomicLong localContentionCount = new AtomicLong();
+    protected final AtomicLong databaseContentionCount = new AtomicLong();
+    protected final AtomicLong localTimeoutCount = new AtomicLong();
+
+    @Override
+    public Object acquireLock(Order order) {
+        if (order == null || order instanceof NullOrderImpl || order.getId() == null) {
+            return super.acquireLock(order);
+        }
+
+        Long orderId = order.getId();
+        LocalOrderLock localLock = referenceLocalLock(orderId);
+        long start = System.nanoTime();
+        if (localLock.isLocked() && !localLock.isHeldByCurrentThread()) {
+            localContentionCount.incrementAndGet();
+        }
+        try {
+            if (!localLock.tryLock(getLocalLockTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                dereferenceLocalLock(orderId, localLock);
+                localTimeoutCount.incrementAndGet();
+                LOG.warn(String.format("Exceeded max wait time to acquire a local lock on current Order (%s)", orderId));
+                throw new RuntimeException("Exceeded max wait time to acquire a local lock on current Order");
+            }
+        } catch (InterruptedException e) {
+            dereferenceLocalLock(orderId, localLock);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        long localAcquired = System.nanoTime();
+        localWaitTimes.recordNanos(localAcquired - start);
+
+        try {
+            Object lockObject = super.acquireLock(order);
+            databaseWaitTimes.recordNanos(System.nanoTime() - localAcquired);
+            return lockObject;
+        } catch (RuntimeException e) {
+            releaseLocalLock(orderId, localLock);
+            throw e;
+        }
+    }
+
+    @Override
+    public Object acquireLockIfAvailable(Order order) {
+        if (order == null || order instanceof NullOrderImpl || order.getId() == null) {
+            return super.acquireLockIfAvailable(order);
+        }
+
+        Long orderId = order.getId();
+        LocalOrderLock localLock = referenceLocalLock(orderId);
+        if (!localLock.tryLock()) {
+            dereferenceLocalLock(orderId, localLock);
+            localContentionCount.incrementAndGet();
+            return null;
+        }
+
+        Object lockObject = null;
+        try {
+            lockObject = super.acquireLockIfAvailable(order);
+        } finally {
+            if (lockObject == null) {
+                releaseLocalLock(orderId, localLock);
+            }
+        }
+        return lockObject;
+    }
+
+    @Override
+    public void releaseLock(Object lockObject) {
+        try {
+            super.releaseLock(lockObject);
+        } finally {
+            if (lockObject instanceof Order && !(lockObject instanceof NullOrderImpl) && ((Order) lockObject).getId() != null) {
+                Long orderId = ((Order) lockObject).getId();
+                LocalOrderLock localLock;
+                synchronized (localLocks) {
+                    localLock = localLocks.get(orderId);
+                }
+                if (localLock != null && localLock.isHeldByCurrentThread()) {
+                    releaseLocalLock(orderId, localLock);
+                } else {
+                    LOG.warn("Thread[" + Thread.currentThread().getId() + "] released the lock for order["
+                            + orderId + "] without holding the local lock for it");
+                }
+            }
+        }
+    }
+
+    @Override
+    protected boolean attemptDatabaseLock(Order order) {
+        boolean lockAcquired = super.attemptDatabaseLock(order);
+        if (!lockAcquired) {
+            databaseContentionCount.incrementAndGet();
+        }
+        return lockAcquired;
+    }
+
+    /**
+     * Registers the calling thread as a holder or waiter of the local lock for the order, creating the lock if no other
+     * thread on this node is using it
+     */
+    protected LocalOrderLock referenceLocalLock(Long orderId) {
+        synchronized (localLocks) {
+            LocalOrderLock localLock = localLocks.get(orderId);
+            if (localLock == null) {
+                localLock = new LocalOrderLock();
+                localLocks.put(orderId, localLock);
+            }
+            localLock.references++;
+            return localLock;
+        }
+    }
+
+    protected void dereferenceLocalLock(Long orderId, LocalOrderLock localLock) {
+        synchronized (localLocks) {
+            localLock.references--;
+            if (localLock.references <= 0 && localLocks.get(orderId) == localLock) {
+                localLocks.remove(orderId);
+            }
+        }
+    }
+
+    protected void releaseLocalLock(Long orderId, LocalOrderLock localLock) {
+        localLock.unlock();
+        dereferenceLocalLock(orderId, localLock);
+    }
+
+    /**
+     * The maximum time to wait on another thread on this node before giving up. Defaults to the same amount of time
+     * a thread would have spent polling the database.
+     */
+    protected long getLocalLockTimeoutMs() {
+        long defaultTimeout = getDatabaseLockPollingIntervalMs() * getDatabaseLockAcquisitionNumRetries();
+        return BLCSystemProperty.resolveLongSystemProperty("order.lock.localLockTimeoutMs", defaultTimeout);
+    }
+
+    /**
+     * @return the distribution of time spent waiting on other threads on this node for the same order
+     */
+    public LatencyHistogram getLocalWaitTimes() {
+        return localWaitTimes;
+    }
+
+    /**
+     * @return the distribution of time spent acquiring the database lock once the local lock was held
+     */
+    public LatencyHistogram getDatabaseWaitTimes() {
+        return databaseWaitTimes;
+    }
+
+    @ManagedAttribute(description="The number of lock requests that had to wait on another thread on this node", currencyTimeLimit=15)
+    public long getLocalContentionCount() {
+        return localContentionCount.get();
+    }
+
+    @ManagedAttribute(description="The number of failed attempts to acquire the database lock", currencyTimeLimit=15)
+    public long getDatabaseContentionCount() {
+        return databaseContentionCount.get();
+    }
+
+    @ManagedAttribute(description="The number of lock requests that timed out waiting on another thread on this node", currencyTimeLimit=15)
+    public long getLocalTimeoutCount() {
+        return localTimeoutCount.get();
+    }
+
+    @ManagedAttribute(description="Local lock wait time distribution", currencyTimeLimit=15)
+    public String getLocalWaitTimeSummary() {
+        return localWaitTimes.toString();
+    }
+
+    @ManagedAttribute(description="Database lock wait time distribution", currencyTimeLimit=15)
+    public String getDatabaseWaitTimeSummary() {
+        return databaseWaitTimes.toString();
+    }
+
+    @ManagedOperation(description="Reset the lock wait time histograms and contention counters")
+    public void resetStatistics() {
+        localWaitTimes.reset();
+        databaseWaitTimes.reset();
+        localContentionCount.set(0L);
+        databaseContentionCount.set(0L);
+        localTimeoutCount.set(0L);
+    }
+
+    /**
+     * A fair lock that counts the threads holding or waiting on it, so it can be discarded once none are left
+     */
+    protected static class LocalOrderLock extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Guarded by {@link HybridOrderLockManager#localLocks}
+         */
+        protected int references;
+
+        public LocalOrderLock() {
+            super(true);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework Web
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.web.order;
+
+import junit.framework.TestCase;
+
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderImpl;
+import org.broadleafcommerce.core.order.service.OrderService;
+import org.easymock.EasyMock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Jeff Fischer
+ */
+public class HybridOrderLockManagerTest extends TestCase {
+
+    protected HybridOrderLockManager lockManager;
+
+    @Override
+    protected void setUp() throws Exception {
+        OrderService orderService = EasyMock.createNiceMock(OrderService.class);
+        EasyMock.replay(orderService);
+
+        lockManager = new HybridOrderLockManager() {
+            @Override
+            protected boolean attemptDatabaseLock(Order order) {
+                return true;
+            }
+
+            @Override
+            protected long getLocalLockTimeoutMs() {
+                return 200L;
+            }
+        };
+        lockManager.orderService = orderService;
+    }
+
+    public void testOrdersWithCollidingHashesDoNotWaitOnEachOther() throws Exception {
+        // 1 and 1025 shared a lock when the local locks were striped 1024 ways
+        Order held = createOrder(1L);
+        Order colliding = createOrder(1025L);
+        HeldLock holder = holdLock(held);
+        try {
+            long start = System.nanoTime();
+            Object lockObject = lockManager.acquireLock(colliding);
+            assertNotNull(lockObject);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 200L);
+            lockManager.releaseLock(lockObject);
+            assertEquals(0L, lockManager.getLocalTimeoutCount());
+        } finally {
+            holder.release();
+        }
+        assertTrue(lockManager.localLocks.isEmpty());
+    }
+
+    public void testLockIfAvailableOnlyFailsForTheHeldOrder() throws Exception {
+        // the order.lock.errorInsteadOfQueue path
+        Order held = createOrder(1L);
+        HeldLock holder = holdLock(held);
+        try {
+            assertNull(lockManager.acquireLockIfAvailable(createOrder(1L)));
+
+            Object lockObject = lockManager.acquireLockIfAvailable(createOrder(1025L));
+            assertNotNull(lockObject);
+            lockManager.releaseLock(lockObject);
+        } finally {
+            holder.release();
+        }
+
+        Object lockObject = lockManager.acquireLockIfAvailable(createOrder(1L));
+        assertNotNull(lockObject);
+        lockManager.releaseLock(lockObject);
+        assertTrue(lockManager.localLocks.isEmpty());
+    }
+
+    public void testWaitingForTheSameOrderTimesOut() throws Exception {
+        Order held = createOrder(1L);
+        HeldLock holder = holdLock(held);
+        try {
+            lockManager.acquireLock(createOrder(1L));
+            fail("The lock for an order held by another thread should not have been acquired");
+        } catch (RuntimeException e) {
+            assertEquals(1L, lockManager.getLocalTimeoutCount());
+        } finally {
+            holder.release();
+        }
+        assertTrue(lockManager.localLocks.isEmpty());
+    }
+
+    public void testReentrantAcquireKeepsTheLockUntilTheLastRelease() {
+        Order order = createOrder(1L);
+        Object first = lockManager.acquireLock(order);
+        Object second = lockManager.acquireLock(order);
+        lockManager.releaseLock(second);
+        assertTrue(lockManager.localLocks.containsKey(1L));
+        lockManager.releaseLock(first);
+        assertTrue(lockManager.localLocks.isEmpty());
+    }
+
+    protected Order createOrder(Long id) {
+        Order order = new OrderImpl();
+        order.setId(id);
+        return order;
+    }
+
+    /**
+     * Acquires the lock for the order on another thread, since the lock is reentrant for the thread that holds it
+     */
+    protected HeldLock holdLock(final Order order) throws InterruptedException {
+        final HeldLock heldLock = new HeldLock();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Object lockObject = lockManager.acquireLock(order);
+                    heldLock.acquired.countDown();
+                    heldLock.release.await(10, TimeUnit.SECONDS);
+                    lockManager.releaseLock(lockObject);
+                } catch (Throwable e) {
+                    heldLock.failure.set(e);
+                    heldLock.acquired.countDown();
+                }
+            }
+        });
+        heldLock.thread = thread;
+        thread.start();
+        assertTrue(heldLock.acquired.await(10, TimeUnit.SECONDS));
+        assertNull(heldLock.failure.get());
+        return heldLock;
+    }
+
+    protected static class HeldLock {
+
+        protected final CountDownLatch acquired = new CountDownLatch(1);
+        protected final CountDownLatch release = new CountDownLatch(1);
+        protected final AtomicReference<Throwable> failure = new AtomicReference<>();
+        protected Thread thread;
+
+        protected void release() throws InterruptedException {
+            release.countDown();
+            thread.join(10000);
+            assertNull(failure.get());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.catalog.dao;
+
+import java.util.List;
+
+/**
+ * Reads the scalar rows that a {@link org.broadleafcommerce.core.catalog.service.CatalogSnapshot} is built from.
+ * Each method returns plain column values rather than entities so that a full catalog can be read without
+ * populating the persistence context.
+ *
+ * @author Jeff Fischer
+ */
+public interface CatalogSnapshotDao {
+
+    /**
+     * Reads every non-archived category as {@code [id, url, activeStartDate, activeEndDate]}.
+     *
+     * @return the category rows
+     */
+    List<Object[]> readCategoryRows();
+
+    /**
+     * Reads every parent/child category relationship as {@code [parentCategoryId, subCategoryId]}, ordered by parent
+     * and then by display order.
+     *
+     * @return the category xref rows
+     */
+    List<Object[]> readCategoryXrefRows();
+
+    /**
+     * Reads every category/product relationship whose product is not archived as
+     * {@code [categoryId, productId, defaultSkuActiveStartDate, defaultSkuActiveEndDate]}, ordered by category and
+     * then by display order.
+     *
+     * @return the category product xref rows
+     */
+    List<Object[]> readCategoryProductRows();
+
+}
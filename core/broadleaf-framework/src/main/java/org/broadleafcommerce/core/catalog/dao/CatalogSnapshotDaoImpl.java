@@ -0,0 +1,71 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.catalog.dao;
+
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+/**
+ * @author Jeff Fischer
+ */
+@Repository("blCatalogSnapshotDao")
+public class CatalogSnapshotDaoImpl implements CatalogSnapshotDao {
+
+    @PersistenceContext(unitName = "blPU")
+    protected EntityManager em;
+
+    @Override
+    public List<Object[]> readCategoryRows() {
+        TypedQuery<Object[]> query = em.createQuery(
+                "SELECT category.id, category.url, category.activeStartDate, category.activeEndDate "
+                        + "FROM org.broadleafcommerce.core.catalog.domain.Category category "
+                        + "WHERE (category.archiveStatus.archived IS NULL OR category.archiveStatus.archived = 'N') "
+                        + "ORDER BY category.id",
+                Object[].class);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Object[]> readCategoryXrefRows() {
+        TypedQuery<Object[]> query = em.createQuery(
+                "SELECT xref.category.id, xref.subCategory.id "
+                        + "FROM org.broadleafcommerce.core.catalog.domain.CategoryXref xref "
+                        + "ORDER BY xref.category.id, COALESCE (xref.displayOrder,999999)",
+                Object[].class);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Object[]> readCategoryProductRows() {
+        TypedQuery<Object[]> query = em.createQuery(
+                "SELECT xref.category.id, product.id, defaultSku.activeStartDate, defaultSku.activeEndDate "
+                        + "FROM org.broadleafcommerce.core.catalog.domain.CategoryProductXrefImpl xref "
+                        + "JOIN xref.product product "
+                        + "JOIN product.defaultSku defaultSku "
+                        + "WHERE (product.archiveStatus.archived IS NULL OR product.archiveStatus.archived = 'N') "
+                        + "ORDER BY xref.category.id, COALESCE (xref.displayOrder,999999)",
+                Object[].class);
+        return query.getResultList();
+    }
+
+}
@@ -24,6 +24,7 @@ import org.broadleafcommerce.core.search.domain.SearchCriteria;
 
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
 
@@ -347,4 +348,34 @@ public interface ProductDao {
     public List<Long> readAllActiveProductIds(Long lastId, int pageSize);
 
     List<Product> readAllActiveProductsForSiteMap(int page, int pageSize);
+
+    /**
+     * Reads the active products for the site map in ascending id order, starting immediately after lastId, rather than
+     * by offset. If the lastId is null, then this returns the first page.
+     *
+     * @param lastId the last id from the previous page
+     * @param pageSize
+     * @return
+     */
+    List<Product> readAllActiveProductsForSiteMap(Long lastId, int pageSize);
+
+    /**
+     * Streams every currently active product in ascending id order, reading pageSize products at a time through
+     * {@link #readAllActiveProducts(Integer, Long)}. The persistence context is cleared between pages, so memory use
+     * does not grow with the size of the catalog. Each product should be fully consumed before advancing the stream,
+     * as products from earlier pages are detached.
+     *
+     * @param pageSize the number of products read per query
+     * @return a lazily read stream of active products
+     */
+    Stream<Product> streamAllActiveProducts(int pageSize);
+
+    /**
+     * Streams the active products for the site map in ascending id order, reading pageSize products at a time through
+     * {@link #readAllActiveProductsForSiteMap(Long, int)}. See {@link #streamAllActiveProducts(int)}.
+     *
+     * @param pageSize the number of products read per query
+     * @return a lazily read stream of active products
+     */
+    Stream<Product> streamAllActiveProductsForSiteMap(int pageSize);
 }
@@ -27,6 +27,7 @@ import org.broadleafcommerce.common.persistence.Status;
 import org.broadleafcommerce.common.sandbox.SandBoxHelper;
 import org.broadleafcommerce.common.time.SystemTime;
 import org.broadleafcommerce.common.util.DateUtil;
+import org.broadleafcommerce.common.util.dao.KeysetPagedIterable;
 import org.broadleafcommerce.common.util.dao.TypedQueryBuilder;
 import org.broadleafcommerce.core.catalog.domain.Category;
 import org.broadleafcommerce.core.catalog.domain.CategoryImpl;
@@ -48,6 +49,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Resource;
@@ -564,6 +566,29 @@ public class ProductDaoImpl implements ProductDao {
 
     }
 
+    @Override
+    public List<Product> readAllActiveProductsForSiteMap(Long lastId, int pageSize) {
+        Date currentDate = DateUtil.getCurrentDateAfterFactoringInDateResolution(cachedDate, getCurrentDateResolution());
+        CriteriaQuery<Product> criteria = getCriteriaForActiveProducts(currentDate, lastId, true);
+
+        TypedQuery<Product> query = em.createQuery(criteria);
+        query.setHint(QueryHints.HINT_CACHEABLE, true);
+        query.setHint(QueryHints.HINT_CACHE_REGION, "query.Catalog");
+        return query.setMaxResults(pageSize).getResultList();
+    }
+
+    @Override
+    public Stream<Product> streamAllActiveProducts(int pageSize) {
+        return new KeysetPagedIterable<Product>((lastId, size) -> readAllActiveProducts(size, lastId),
+                Product::getId, pageSize, em).stream();
+    }
+
+    @Override
+    public Stream<Product> streamAllActiveProductsForSiteMap(int pageSize) {
+        return new KeysetPagedIterable<Product>((lastId, size) -> readAllActiveProductsForSiteMap(lastId, size),
+                Product::getId, pageSize, em).stream();
+    }
+
     protected CriteriaQuery<Product> getCriteriaForActiveProductsForSiteMap(Date currentDate) {
         return getCriteriaForActiveProducts(currentDate, null, true);
     }
@@ -20,7 +20,10 @@ package org.broadleafcommerce.core.catalog.dao;
 import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.domain.SkuFee;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * {@code SkuDao} provides persistence access to {@code Sku} instances
@@ -157,6 +160,17 @@ public interface SkuDao {
      */
     List<Sku> readAllActiveSkus(Integer pageSize, Long lastId);
 
+    /**
+     * Streams every currently active sku in ascending id order, reading pageSize skus at a time through
+     * {@link #readAllActiveSkus(Integer, Long)}. The persistence context is cleared between pages, so memory use
+     * does not grow with the size of the catalog. Each sku should be fully consumed before advancing the stream, as
+     * skus from earlier pages are detached.
+     *
+     * @param pageSize the number of skus read per query
+     * @return a lazily read stream of active skus
+     */
+    Stream<Sku> streamAllActiveSkus(int pageSize);
+
     /**
      * Returns the number of milliseconds that the current date/time will be cached for queries before refreshing.
      * This aids in query caching, otherwise every query that utilized current date would be different and caching
@@ -183,4 +197,18 @@ public interface SkuDao {
      * 
      */
     List<Sku> findSkuByURI(String uri);
+
+    /**
+     * Reads the current quantity available for each of the given sku ids and takes a pessimistic write lock on the
+     * matching rows for the rest of the transaction. Rows are read in ascending id order so that concurrent callers
+     * always acquire their locks in the same sequence and cannot deadlock against one another. The lock is taken by
+     * selecting the {@link Sku} entities themselves so that it holds on dialects that use follow-on locking, and the
+     * returned quantities are read from the database after the lock is held, regardless of any stale state in the
+     * current persistence context.
+     *
+     * @param skuIds the ids of the skus to lock
+     * @return a map of sku id to the quantity available as stored in the database, in ascending id order. Skus that
+     * could not be found are not present in the map and skus without a quantity are mapped to null.
+     */
+    Map<Long, Integer> readQuantityAvailableForUpdate(Collection<Long> skuIds);
 }
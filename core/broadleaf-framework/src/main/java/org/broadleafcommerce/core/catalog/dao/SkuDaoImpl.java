@@ -26,6 +26,7 @@ import org.broadleafcommerce.common.persistence.EntityConfiguration;
 import org.broadleafcommerce.common.sandbox.SandBoxHelper;
 import org.broadleafcommerce.common.time.SystemTime;
 import org.broadleafcommerce.common.util.DateUtil;
+import org.broadleafcommerce.common.util.dao.KeysetPagedIterable;
 import org.broadleafcommerce.common.util.dao.TypedQueryBuilder;
 import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.domain.SkuFee;
@@ -35,11 +36,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import javax.annotation.Resource;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
@@ -169,6 +175,33 @@ public class SkuDaoImpl implements SkuDao {
         return query.getResultList();
     }
 
+    @Override
+    public Map<Long, Integer> readQuantityAvailableForUpdate(Collection<Long> skuIds) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        if (skuIds == null || skuIds.isEmpty()) {
+            return quantities;
+        }
+        // Lock through an entity select. Some dialects (e.g. Oracle) prefer follow-on locking, which only applies to
+        // the entities in a result and would silently leave the rows of a scalar projection unlocked.
+        TypedQuery<Sku> lockQuery = em.createNamedQuery("BC_READ_SKUS_FOR_UPDATE", Sku.class);
+        lockQuery.setParameter("skuIds", skuIds);
+        lockQuery.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        lockQuery.setHint(QueryHints.HINT_CACHEABLE, false);
+        lockQuery.getResultList();
+
+        // Skus already managed by this persistence context are not refreshed by the lock query, so read the current
+        // quantities separately. This is also a locking read so that it sees the latest committed values rather than
+        // the transaction's snapshot under REPEATABLE_READ.
+        TypedQuery<Object[]> query = em.createNamedQuery("BC_READ_SKU_QUANTITY_AVAILABLE_FOR_UPDATE", Object[].class);
+        query.setParameter("skuIds", skuIds);
+        query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        query.setHint(QueryHints.HINT_CACHEABLE, false);
+        for (Object[] row : query.getResultList()) {
+            quantities.put((Long) row[0], (Integer) row[1]);
+        }
+        return quantities;
+    }
+
     @Override
     public void delete(Sku sku) {
         if (!em.contains(sku)) {
@@ -230,6 +263,12 @@ public class SkuDaoImpl implements SkuDao {
         return readAllActiveSkusInternal(pageSize, currentDate, lastId);
     }
 
+    @Override
+    public Stream<Sku> streamAllActiveSkus(int pageSize) {
+        return new KeysetPagedIterable<Sku>((lastId, size) -> readAllActiveSkus(size, lastId),
+                Sku::getId, pageSize, em).stream();
+    }
+
     @Override
     public Long getCurrentDateResolution() {
         return currentDateResolution;
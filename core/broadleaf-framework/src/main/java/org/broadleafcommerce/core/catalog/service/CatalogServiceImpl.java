@@ -18,8 +18,10 @@
 package org.broadleafcommerce.core.catalog.service;
 
 import org.apache.commons.collections.MapUtils;
+import org.broadleafcommerce.common.event.BroadleafApplicationEventPublisher;
 import org.broadleafcommerce.common.extension.ExtensionResultHolder;
 import org.broadleafcommerce.common.extension.ExtensionResultStatusType;
+import org.broadleafcommerce.common.time.SystemTime;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.core.catalog.dao.CategoryDao;
 import org.broadleafcommerce.core.catalog.dao.ProductDao;
@@ -36,9 +38,12 @@ import org.broadleafcommerce.core.catalog.domain.SkuFee;
 import org.broadleafcommerce.core.catalog.domain.dto.AssignedProductOptionDTO;
 import org.broadleafcommerce.core.catalog.service.type.ProductType;
 import org.broadleafcommerce.core.search.domain.SearchCriteria;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -64,6 +69,13 @@ public class CatalogServiceImpl implements CatalogService {
     @Resource(name = "blCatalogServiceExtensionManager")
     protected CatalogServiceExtensionManager extensionManager;
 
+    @Resource(name = "blCatalogSnapshotService")
+    protected CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    @Qualifier("blApplicationEventPublisher")
+    protected BroadleafApplicationEventPublisher eventPublisher;
+
     @Override
     public Product findProductById(Long productId) {
         return productDao.readProductById(productId);
@@ -86,6 +98,10 @@ public class CatalogServiceImpl implements CatalogService {
 
     @Override
     public List<Product> findActiveProductsByCategory(Category category) {
+        List<Long> productIds = findSnapshotProductIds(category, SystemTime.asMillis());
+        if (productIds != null) {
+            return readProductsInOrder(productIds);
+        }
         return productDao.readActiveProductsByCategory(category.getId());
     }
 
@@ -101,12 +117,20 @@ public class CatalogServiceImpl implements CatalogService {
 
     @Override
     public List<Product> findActiveProductsByCategory(Category category, int limit, int offset) {
+        List<Long> productIds = findSnapshotProductIds(category, SystemTime.asMillis());
+        if (productIds != null) {
+            return readProductsInOrder(page(productIds, limit, offset));
+        }
         return productDao.readActiveProductsByCategory(category.getId(), limit, offset);
     }
 
     @Override
     @Deprecated
     public List<Product> findActiveProductsByCategory(Category category, Date currentDate) {
+        List<Long> productIds = findSnapshotProductIds(category, currentDate.getTime());
+        if (productIds != null) {
+            return readProductsInOrder(productIds);
+        }
         return productDao.readActiveProductsByCategory(category.getId(), currentDate);
     }
     
@@ -125,6 +149,10 @@ public class CatalogServiceImpl implements CatalogService {
     @Override
     @Deprecated
     public List<Product> findActiveProductsByCategory(Category category, Date currentDate, int limit, int offset) {
+        List<Long> productIds = findSnapshotProductIds(category, currentDate.getTime());
+        if (productIds != null) {
+            return readProductsInOrder(page(productIds, limit, offset));
+        }
         return productDao.readActiveProductsByCategory(category.getId(), currentDate, limit, offset);
     }
 
@@ -138,6 +166,7 @@ public class CatalogServiceImpl implements CatalogService {
     @Override
     @Transactional("blTransactionManager")
     public Product saveProduct(Product product) {
+        publishCatalogChange();
         return productDao.save(product);
     }
 
@@ -170,24 +199,28 @@ public class CatalogServiceImpl implements CatalogService {
     @Override
     @Transactional("blTransactionManager")
     public Category saveCategory(Category category) {
+        publishCatalogChange();
         return categoryDao.save(category);
     }
     
     @Override
     @Transactional("blTransactionManager")
     public void removeCategory(Category category){
+        publishCatalogChange();
         categoryDao.delete(category);
     }
     
     @Override
     @Transactional("blTransactionManager")
     public void removeSku(Sku sku) {
+        publishCatalogChange();
         skuDao.delete(sku);
     }
 
     @Override
     @Transactional("blTransactionManager")
     public void removeProduct(Product product) {
+        publishCatalogChange();
         productDao.delete(product);
     }
 
@@ -218,11 +251,19 @@ public class CatalogServiceImpl implements CatalogService {
 
     @Override
     public List<Category> findActiveSubCategoriesByCategory(Category category) {
+        List<Long> categoryIds = findSnapshotSubCategoryIds(category);
+        if (categoryIds != null) {
+            return readCategoriesInOrder(categoryIds);
+        }
         return categoryDao.readActiveSubCategoriesByCategory(category);
     }
 
     @Override
     public List<Category> findActiveSubCategoriesByCategory(Category category, int limit, int offset) {
+        List<Long> categoryIds = findSnapshotSubCategoryIds(category);
+        if (categoryIds != null) {
+            return readCategoriesInOrder(page(categoryIds, limit, offset));
+        }
         return categoryDao.readActiveSubCategoriesByCategory(category, limit, offset);
     }
 
@@ -264,6 +305,7 @@ public class CatalogServiceImpl implements CatalogService {
     @Override
     @Transactional("blTransactionManager")
     public Sku saveSku(Sku sku) {
+        publishCatalogChange();
         return skuDao.save(sku);
     }
     
@@ -368,9 +410,92 @@ public class CatalogServiceImpl implements CatalogService {
                 return (Category) holder.getResult();
             }
         }
+        CatalogSnapshot snapshot = getCatalogSnapshot();
+        if (snapshot != null) {
+            Long categoryId = snapshot.findActiveCategoryIdByUrl(uri, SystemTime.asMillis());
+            if (categoryId != null) {
+                Category category = categoryDao.readCategoryById(categoryId);
+                if (category != null) {
+                    return category;
+                }
+            }
+        }
         return findOriginalCategoryByURI(uri);
     }
 
+    /**
+     * Returns the {@link CatalogSnapshot} when it is enabled and the request reads production data. Sandbox requests
+     * always go to the database, since the snapshot only reflects production.
+     */
+    protected CatalogSnapshot getCatalogSnapshot() {
+        if (catalogSnapshotService == null || !catalogSnapshotService.isEnabled()) {
+            return null;
+        }
+        BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        if (context != null && !context.isProductionSandBox()) {
+            return null;
+        }
+        return catalogSnapshotService.getSnapshot();
+    }
+
+    /**
+     * @return the ordered active product ids for the category from the snapshot, or null if the database has to be used
+     */
+    protected List<Long> findSnapshotProductIds(Category category, long now) {
+        CatalogSnapshot snapshot = getCatalogSnapshot();
+        return snapshot == null ? null : snapshot.findActiveProductIds(category.getId(), now);
+    }
+
+    /**
+     * @return the ordered active sub category ids from the snapshot, or null if the database has to be used
+     */
+    protected List<Long> findSnapshotSubCategoryIds(Category category) {
+        CatalogSnapshot snapshot = getCatalogSnapshot();
+        return snapshot == null ? null : snapshot.findActiveSubCategoryIds(category.getId(), SystemTime.asMillis());
+    }
+
+    /**
+     * Resolves snapshot ids by primary key, which is served by the second level cache for catalog entities
+     */
+    protected List<Product> readProductsInOrder(List<Long> productIds) {
+        List<Product> products = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            Product product = productDao.readProductById(productId);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    protected List<Category> readCategoriesInOrder(List<Long> categoryIds) {
+        List<Category> categories = new ArrayList<>(categoryIds.size());
+        for (Long categoryId : categoryIds) {
+            Category category = categoryDao.readCategoryById(categoryId);
+            if (category != null) {
+                categories.add(category);
+            }
+        }
+        return categories;
+    }
+
+    protected List<Long> page(List<Long> ids, int limit, int offset) {
+        if (offset >= ids.size()) {
+            return Collections.emptyList();
+        }
+        return ids.subList(offset, Math.min(ids.size(), offset + limit));
+    }
+
+    /**
+     * Publishes a {@link CatalogChangedEvent} once the current transaction commits, so the catalog snapshot and cached
+     * sku prices are refreshed
+     */
+    protected void publishCatalogChange() {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(this));
+        }
+    }
+
     @Override
     public Category findOriginalCategoryByURI(String uri) {
         return categoryDao.findCategoryByURI(uri);
@@ -0,0 +1,267 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.catalog.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, id-level picture of the catalog structure used to answer the hot storefront navigation reads without
+ * a query: which category a URL resolves to, the ordered sub categories of a category and the ordered products of
+ * a category, together with the active date windows needed to filter them. Instances are never modified once built;
+ * {@link CatalogSnapshotService} replaces the whole snapshot when the catalog changes.
+ * <p>
+ * Categories are held in a sorted {@code long[]} with parallel arrays for their active windows and relationships, so
+ * a lookup is a binary search and the snapshot costs a few longs per category and per category/product link.
+ *
+ * @author Jeff Fischer
+ */
+public class CatalogSnapshot {
+
+    protected static final long[] EMPTY = new long[0];
+
+    protected final long createdTime;
+    protected final long[] categoryIds;
+    protected final long[] categoryStarts;
+    protected final long[] categoryEnds;
+    protected final long[][] subCategoryIds;
+    protected final long[][] productIds;
+    protected final long[][] productStarts;
+    protected final long[][] productEnds;
+    protected final Map<String, long[]> categoryIdsByUrl;
+    protected final int productLinkCount;
+
+    /**
+     * @param categoryRows {@code [id, url, activeStartDate, activeEndDate]} for every non-archived category
+     * @param categoryXrefRows {@code [parentCategoryId, subCategoryId]} ordered by parent, then display order
+     * @param categoryProductRows {@code [categoryId, productId, activeStartDate, activeEndDate]} for every non-archived
+     * product, ordered by category, then display order
+     * @param createdTime the time the rows were read
+     */
+    public CatalogSnapshot(List<Object[]> categoryRows, List<Object[]> categoryXrefRows,
+            List<Object[]> categoryProductRows, long createdTime) {
+        this.createdTime = createdTime;
+        int size = categoryRows.size();
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = ((Number) categoryRows.get(i)[0]).longValue();
+        }
+        Arrays.sort(ids);
+        categoryIds = ids;
+        categoryStarts = new long[size];
+        categoryEnds = new long[size];
+        Map<String, List<Long>> urls = new HashMap<>();
+        for (Object[] row : categoryRows) {
+            int index = Arrays.binarySearch(categoryIds, ((Number) row[0]).longValue());
+            categoryStarts[index] = toStart((Date) row[2]);
+            categoryEnds[index] = toEnd((Date) row[3]);
+            String url = (String) row[1];
+            if (url != null) {
+                List<Long> urlIds = urls.get(url);
+                if (urlIds == null) {
+                    urlIds = new ArrayList<>(1);
+                    urls.put(url, urlIds);
+                }
+                urlIds.add(categoryIds[index]);
+            }
+        }
+        Map<String, long[]> byUrl = new HashMap<>(urls.size() * 4 / 3 + 1);
+        for (Map.Entry<String, List<Long>> entry : urls.entrySet()) {
+            byUrl.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        categoryIdsByUrl = byUrl;
+
+        subCategoryIds = groupByCategory(categoryXrefRows, 1).toArray(new long[size][]);
+
+        productIds = new long[size][];
+        productStarts = new long[size][];
+        productEnds = new long[size][];
+        int links = 0;
+        int row = 0;
+        while (row < categoryProductRows.size()) {
+            long categoryId = ((Number) categoryProductRows.get(row)[0]).longValue();
+            int end = row;
+            while (end < categoryProductRows.size()
+                    && ((Number) categoryProductRows.get(end)[0]).longValue() == categoryId) {
+                end++;
+            }
+            int index = Arrays.binarySearch(categoryIds, categoryId);
+            if (index >= 0) {
+                int count = end - row;
+                long[] products = new long[count];
+                long[] starts = new long[count];
+                long[] ends = new long[count];
+                for (int i = 0; i < count; i++) {
+                    Object[] values = categoryProductRows.get(row + i);
+                    products[i] = ((Number) values[1]).longValue();
+                    starts[i] = toStart((Date) values[2]);
+                    ends[i] = toEnd((Date) values[3]);
+                }
+                productIds[index] = products;
+                productStarts[index] = starts;
+                productEnds[index] = ends;
+                links += count;
+            }
+            row = end;
+        }
+        productLinkCount = links;
+    }
+
+    /**
+     * @param url the category url
+     * @param now the current time in milliseconds
+     * @return the id of the first category with the given url that is active at {@code now}, or null if there is none
+     */
+    public Long findActiveCategoryIdByUrl(String url, long now) {
+        long[] ids = url == null ? null : categoryIdsByUrl.get(url);
+        if (ids != null) {
+            for (long id : ids) {
+                if (isCategoryActive(Arrays.binarySearch(categoryIds, id), now)) {
+                    return id;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param categoryId the parent category id
+     * @param now the current time in milliseconds
+     * @return the ids of the sub categories that are active at {@code now} in display order, or null when the parent
+     * category is not part of this snapshot
+     */
+    public List<Long> findActiveSubCategoryIds(Long categoryId, long now) {
+        int index = indexOf(categoryId);
+        if (index < 0) {
+            return null;
+        }
+        long[] children = subCategoryIds[index];
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        List<Long> response = new ArrayList<>(children.length);
+        for (long child : children) {
+            if (isCategoryActive(Arrays.binarySearch(categoryIds, child), now)) {
+                response.add(child);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * @param categoryId the category id
+     * @param now the current time in milliseconds
+     * @return the ids of the products whose default sku is active at {@code now} in display order, or null when the
+     * category is not part of this snapshot
+     */
+    public List<Long> findActiveProductIds(Long categoryId, long now) {
+        int index = indexOf(categoryId);
+        if (index < 0) {
+            return null;
+        }
+        long[] products = productIds[index];
+        if (products == null) {
+            return Collections.emptyList();
+        }
+        long[] starts = productStarts[index];
+        long[] ends = productEnds[index];
+        List<Long> response = new ArrayList<>(products.length);
+        for (int i = 0; i < products.length; i++) {
+            if (starts[i] <= now && ends[i] > now) {
+                response.add(products[i]);
+            }
+        }
+        return response;
+    }
+
+    public boolean containsCategory(Long categoryId) {
+        return indexOf(categoryId) >= 0;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public int getCategoryCount() {
+        return categoryIds.length;
+    }
+
+    public int getProductLinkCount() {
+        return productLinkCount;
+    }
+
+    protected int indexOf(Long categoryId) {
+        return categoryId == null ? -1 : Arrays.binarySearch(categoryIds, categoryId);
+    }
+
+    /**
+     * Mirrors the category queries, which require a start date strictly before the current date
+     */
+    protected boolean isCategoryActive(int index, long now) {
+        return index >= 0 && categoryStarts[index] < now && categoryEnds[index] > now;
+    }
+
+    protected List<long[]> groupByCategory(List<Object[]> rows, int valueColumn) {
+        List<List<Long>> grouped = new ArrayList<>(categoryIds.length);
+        for (int i = 0; i < categoryIds.length; i++) {
+            grouped.add(null);
+        }
+        for (Object[] row : rows) {
+            int index = Arrays.binarySearch(categoryIds, ((Number) row[0]).longValue());
+            if (index < 0) {
+                continue;
+            }
+            List<Long> values = grouped.get(index);
+            if (values == null) {
+                values = new ArrayList<>();
+                grouped.set(index, values);
+            }
+            values.add(((Number) row[valueColumn]).longValue());
+        }
+        List<long[]> response = new ArrayList<>(grouped.size());
+        for (List<Long> values : grouped) {
+            response.add(values == null ? null : toArray(values));
+        }
+        return response;
+    }
+
+    protected static long toStart(Date date) {
+        return date == null ? Long.MAX_VALUE : date.getTime();
+    }
+
+    protected static long toEnd(Date date) {
+        return date == null ? Long.MAX_VALUE : date.getTime();
+    }
+
+    protected static long[] toArray(List<Long> values) {
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+        long[] response = new long[values.size()];
+        for (int i = 0; i < response.length; i++) {
+            response[i] = values.get(i);
+        }
+        return response;
+    }
+
+}
@@ -0,0 +1,53 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.catalog.service;
+
+/**
+ * Holds the current {@link CatalogSnapshot} and replaces it when the catalog changes. Readers always see a complete
+ * snapshot: a new one is built in the background and swapped in atomically.
+ *
+ * @author Jeff Fischer
+ */
+public interface CatalogSnapshotService {
+
+    /**
+     * @return whether catalog reads should consult the snapshot, as controlled by {@code catalog.snapshot.enabled}
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the current snapshot. When none has been built yet, a build is started in the background and null is
+     * returned so the caller can fall back to the database.
+     *
+     * @return the current snapshot, or null if it is disabled or not yet available
+     */
+    CatalogSnapshot getSnapshot();
+
+    /**
+     * Builds a new snapshot on the calling thread and swaps it in
+     *
+     * @return the new snapshot
+     */
+    CatalogSnapshot rebuild();
+
+    /**
+     * Schedules a background rebuild. Requests made while a rebuild is already pending are folded into it.
+     */
+    void requestRebuild();
+
+}
@@ -0,0 +1,160 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.catalog.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.time.SystemTime;
+import org.broadleafcommerce.core.catalog.dao.CatalogSnapshotDao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+/**
+ * Keeps the current {@link CatalogSnapshot} in an {@link AtomicReference}. Snapshots are built on a single background
+ * thread: the first time one is asked for, whenever a {@link CatalogChangedEvent} is received and every
+ * {@code catalog.snapshot.refresh.interval} milliseconds, which picks up changes made outside of
+ * {@link CatalogService}, such as admin saves and sandbox promotions.
+ *
+ * @author Jeff Fischer
+ */
+@Service("blCatalogSnapshotService")
+public class CatalogSnapshotServiceImpl implements CatalogSnapshotService, ApplicationListener<CatalogChangedEvent> {
+
+    private static final Log LOG = LogFactory.getLog(CatalogSnapshotServiceImpl.class);
+
+    @Value("${catalog.snapshot.enabled:false}")
+    protected boolean enabled = false;
+
+    @Value("${catalog.snapshot.refresh.interval:300000}")
+    protected long refreshInterval = 300000L;
+
+    @Resource(name = "blCatalogSnapshotDao")
+    protected CatalogSnapshotDao catalogSnapshotDao;
+
+    protected final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    protected final AtomicBoolean rebuildPending = new AtomicBoolean(false);
+
+    protected ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "CatalogSnapshot-Builder");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        if (refreshInterval > 0) {
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    requestRebuild();
+                }
+            }, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public CatalogSnapshot getSnapshot() {
+        if (!enabled) {
+            return null;
+        }
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            requestRebuild();
+        }
+        return current;
+    }
+
+    @Override
+    public CatalogSnapshot rebuild() {
+        long start = System.nanoTime();
+        long createdTime = SystemTime.asMillis();
+        CatalogSnapshot built = new CatalogSnapshot(catalogSnapshotDao.readCategoryRows(),
+                catalogSnapshotDao.readCategoryXrefRows(), catalogSnapshotDao.readCategoryProductRows(), createdTime);
+        snapshot.set(built);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Built catalog snapshot of %d categories and %d product links in %dms",
+                    built.getCategoryCount(), built.getProductLinkCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        }
+        return built;
+    }
+
+    @Override
+    public void requestRebuild() {
+        ScheduledExecutorService current = executor;
+        if (current == null || !rebuildPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            current.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // cleared before reading so that a change committed during the build schedules another one
+                    rebuildPending.set(false);
+                    try {
+                        rebuild();
+                    } catch (RuntimeException e) {
+                        LOG.error("Unable to build the catalog snapshot, the previous snapshot remains in use", e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuildPending.set(false);
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(CatalogChangedEvent event) {
+        requestRebuild();
+    }
+
+}
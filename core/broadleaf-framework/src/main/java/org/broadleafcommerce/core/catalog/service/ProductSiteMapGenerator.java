@@ -59,12 +59,13 @@ public class ProductSiteMapGenerator implements SiteMapGenerator {
     @Override
     public void addSiteMapEntries(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder) {
 
-        int pageNum = 0;
+        Long lastId = null;
         List<Product> products;
 
         do {
-            products = productDao.readAllActiveProductsForSiteMap(pageNum++, pageSize);
+            products = productDao.readAllActiveProductsForSiteMap(lastId, pageSize);
             for (Product product : products) {
+                lastId = product.getId();
                 if (StringUtils.isEmpty(product.getUrl())) {
                     continue;
                 }
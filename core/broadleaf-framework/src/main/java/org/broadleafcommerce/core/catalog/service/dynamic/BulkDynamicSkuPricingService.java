@@ -0,0 +1,47 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.catalog.service.dynamic;
+
+import org.broadleafcommerce.core.catalog.domain.pricing.SkuPriceWrapper;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Optional extension of {@link DynamicSkuPricingService} for implementations that can price many skus more cheaply
+ * together than one at a time, for example with a single price list query. When the configured pricing service
+ * implements this interface, {@link SkuPricingConsiderationContext#preloadDynamicSkuPrices(java.util.Collection)}
+ * prices a whole page of skus with one call.
+ *
+ * @author Jeff Fischer
+ */
+public interface BulkDynamicSkuPricingService extends DynamicSkuPricingService {
+
+    /**
+     * @param skuWrappers the skus to price
+     * @param skuPricingConsiderations the considerations for the current request
+     * @return the prices for each sku, keyed by sku id
+     */
+    @Nonnull
+    @SuppressWarnings("rawtypes")
+    Map<Long, DynamicSkuPrices> getSkuPrices(List<SkuPriceWrapper> skuWrappers, HashMap skuPricingConsiderations);
+
+}
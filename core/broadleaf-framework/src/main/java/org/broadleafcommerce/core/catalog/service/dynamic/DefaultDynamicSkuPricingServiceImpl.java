@@ -25,6 +25,9 @@ import org.broadleafcommerce.core.catalog.domain.pricing.SkuPriceWrapper;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Default implementation of the {@link DynamicSkuPricingService} which simply ignores the considerations hashmap in all
@@ -34,7 +37,7 @@ import java.util.HashMap;
  * 
  */
 @Service("blDynamicSkuPricingService")
-public class DefaultDynamicSkuPricingServiceImpl implements DynamicSkuPricingService {
+public class DefaultDynamicSkuPricingServiceImpl implements BulkDynamicSkuPricingService {
 
     @Override
     @Deprecated
@@ -55,6 +58,16 @@ public class DefaultDynamicSkuPricingServiceImpl implements DynamicSkuPricingSer
         return prices;
     }
 
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Map<Long, DynamicSkuPrices> getSkuPrices(List<SkuPriceWrapper> skuWrappers, HashMap skuPricingConsiderations) {
+        Map<Long, DynamicSkuPrices> prices = new LinkedHashMap<>(skuWrappers.size());
+        for (SkuPriceWrapper skuWrapper : skuWrappers) {
+            prices.put(skuWrapper.getTargetSku().getId(), getSkuPrices(skuWrapper, skuPricingConsiderations));
+        }
+        return prices;
+    }
+
     @Override
     @SuppressWarnings("rawtypes")
     public DynamicSkuPrices getSkuBundleItemPrice(SkuBundleItem skuBundleItem,
@@ -20,6 +20,7 @@ package org.broadleafcommerce.core.catalog.service.dynamic;
 import org.broadleafcommerce.common.classloader.release.ThreadLocalManager;
 import org.broadleafcommerce.common.exception.ExceptionHelper;
 import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.domain.SkuImpl;
 import org.broadleafcommerce.core.catalog.domain.pricing.SkuPriceWrapper;
@@ -27,8 +28,14 @@ import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -60,6 +67,58 @@ public class SkuPricingConsiderationContext {
         SkuPricingConsiderationContext.skuPricingConsiderationContext.get().pricingService = skuPricingService;
     }
 
+    /**
+     * Sets the cache used to share prices with other requests that have the same consideration key. A null cache or
+     * key turns sharing off for the current request.
+     *
+     * @param resultCache the shared cache
+     * @param considerationKey the key for the current request's considerations, see
+     * {@link #buildConsiderationCacheKey(Map, Collection)}
+     */
+    public static void setSkuPricingResultCache(SkuPricingResultCache resultCache, String considerationKey) {
+        SkuPricingConsiderationContext context = SkuPricingConsiderationContext.skuPricingConsiderationContext.get();
+        context.resultCache = resultCache;
+        context.considerationKey = considerationKey;
+    }
+
+    public static String getConsiderationKey() {
+        return SkuPricingConsiderationContext.skuPricingConsiderationContext.get().considerationKey;
+    }
+
+    /**
+     * Builds a key that identifies the pricing inputs of the current request: the site, currency and locale, plus the
+     * value of each named consideration. Requests with the same key are expected to receive the same prices, so only
+     * the considerations prices actually depend on, such as a customer segment, should be named, and their values
+     * should have a stable {@code toString()}.
+     *
+     * @param considerations the considerations for the current request
+     * @param considerationNames the considerations that prices depend on, or null if prices cannot be shared
+     * @return the key, or null if prices for the current request should not be shared
+     */
+    @SuppressWarnings("rawtypes")
+    public static String buildConsiderationCacheKey(Map considerations, Collection<String> considerationNames) {
+        if (considerationNames == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        if (context != null) {
+            if (!context.isProductionSandBox()) {
+                // sandbox previews may price with unpromoted changes
+                return null;
+            }
+            Long siteId = context.getNonPersistentSite() == null ? null : context.getNonPersistentSite().getId();
+            String currencyCode = context.getBroadleafCurrency() == null ? null
+                    : context.getBroadleafCurrency().getCurrencyCode();
+            String localeCode = context.getLocale() == null ? null : context.getLocale().getLocaleCode();
+            key.append(siteId).append(';').append(currencyCode).append(';').append(localeCode).append(';');
+        }
+        for (String name : new TreeSet<>(considerationNames)) {
+            key.append(name).append('=').append(considerations == null ? null : considerations.get(name)).append(';');
+        }
+        return key.toString();
+    }
+
     public static void startPricingConsideration() {
         SkuPricingConsiderationContext.skuPricingConsiderationContext.get().isActive = true;
     }
@@ -98,12 +157,16 @@ public class SkuPricingConsiderationContext {
             if (!getThreadCache().containsKey(sku.getId())) {
                 // We have dynamic pricing, so we will pull the retail price from there
                 if (!SkuPricingConsiderationContext.isPricingConsiderationActive()) {
-                    SkuPriceWrapper wrapper = new SkuPriceWrapper(sku);
-                    SkuPricingConsiderationContext.startPricingConsideration();
-                    try {
-                        prices = SkuPricingConsiderationContext.getSkuPricingService().getSkuPrices(wrapper, SkuPricingConsiderationContext.getSkuPricingConsiderationContext());
-                    } finally {
-                        SkuPricingConsiderationContext.endPricingConsideration();
+                    prices = getSharedPrices(sku.getId());
+                    if (prices == null) {
+                        SkuPriceWrapper wrapper = new SkuPriceWrapper(sku);
+                        SkuPricingConsiderationContext.startPricingConsideration();
+                        try {
+                            prices = SkuPricingConsiderationContext.getSkuPricingService().getSkuPrices(wrapper, SkuPricingConsiderationContext.getSkuPricingConsiderationContext());
+                        } finally {
+                            SkuPricingConsiderationContext.endPricingConsideration();
+                        }
+                        putSharedPrices(sku.getId(), prices);
                     }
                 } else {
                     try {
@@ -128,6 +191,76 @@ public class SkuPricingConsiderationContext {
         return prices;
     }
 
+    /**
+     * Prices every sku in the collection that has not been priced yet in this request, so that rendering a list of
+     * products does not call the pricing service once per sku. Prices are taken from the {@link SkuPricingResultCache}
+     * when possible, and the rest are priced with a single call when the pricing service is a
+     * {@link BulkDynamicSkuPricingService}.
+     *
+     * @param skus the skus that are about to be displayed
+     */
+    @SuppressWarnings("rawtypes")
+    public static void preloadDynamicSkuPrices(Collection<? extends Sku> skus) {
+        if (skus == null || skus.isEmpty() || !SkuPricingConsiderationContext.hasDynamicPricing()
+                || SkuPricingConsiderationContext.isPricingConsiderationActive()) {
+            return;
+        }
+        Map<Long, DynamicSkuPrices> threadCache = getThreadCache();
+        Set<Long> requested = new HashSet<>();
+        List<SkuPriceWrapper> misses = new ArrayList<>();
+        for (Sku sku : skus) {
+            if (sku == null || sku.getId() == null || threadCache.containsKey(sku.getId())
+                    || !requested.add(sku.getId())) {
+                continue;
+            }
+            DynamicSkuPrices prices = getSharedPrices(sku.getId());
+            if (prices != null) {
+                threadCache.put(sku.getId(), prices);
+            } else {
+                misses.add(new SkuPriceWrapper(sku));
+            }
+        }
+        if (misses.isEmpty()) {
+            return;
+        }
+        DynamicSkuPricingService pricingService = SkuPricingConsiderationContext.getSkuPricingService();
+        HashMap considerations = SkuPricingConsiderationContext.getSkuPricingConsiderationContext();
+        Map<Long, DynamicSkuPrices> computed;
+        SkuPricingConsiderationContext.startPricingConsideration();
+        try {
+            if (pricingService instanceof BulkDynamicSkuPricingService) {
+                computed = ((BulkDynamicSkuPricingService) pricingService).getSkuPrices(misses, considerations);
+            } else {
+                computed = new HashMap<>();
+                for (SkuPriceWrapper wrapper : misses) {
+                    computed.put(wrapper.getTargetSku().getId(), pricingService.getSkuPrices(wrapper, considerations));
+                }
+            }
+        } finally {
+            SkuPricingConsiderationContext.endPricingConsideration();
+        }
+        for (Map.Entry<Long, DynamicSkuPrices> entry : computed.entrySet()) {
+            threadCache.put(entry.getKey(), entry.getValue());
+            putSharedPrices(entry.getKey(), entry.getValue());
+        }
+    }
+
+    protected static DynamicSkuPrices getSharedPrices(Long skuId) {
+        SkuPricingConsiderationContext context = SkuPricingConsiderationContext.skuPricingConsiderationContext.get();
+        if (context.resultCache == null || context.considerationKey == null || !context.resultCache.isEnabled()) {
+            return null;
+        }
+        return context.resultCache.get(context.considerationKey, skuId);
+    }
+
+    protected static void putSharedPrices(Long skuId, DynamicSkuPrices prices) {
+        SkuPricingConsiderationContext context = SkuPricingConsiderationContext.skuPricingConsiderationContext.get();
+        if (context.resultCache == null || context.considerationKey == null || !context.resultCache.isEnabled()) {
+            return;
+        }
+        context.resultCache.put(context.considerationKey, skuId, prices);
+    }
+
     protected static synchronized Field getSingleField(Class<?> clazz, String fieldName) throws IllegalStateException {
         String cacheKey = clazz.getName() + fieldName;
         if (FIELD_CACHE.containsKey(cacheKey)) {
@@ -146,6 +279,8 @@ public class SkuPricingConsiderationContext {
 
     protected DynamicSkuPricingService pricingService;
     protected HashMap considerations;
+    protected SkuPricingResultCache resultCache;
+    protected String considerationKey;
     protected boolean isActive = false;
     protected HashMap<Long, DynamicSkuPrices> pricesBySku = new HashMap<>();
 }
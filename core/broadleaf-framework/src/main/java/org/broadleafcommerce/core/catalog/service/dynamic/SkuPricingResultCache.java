@@ -0,0 +1,64 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.catalog.service.dynamic;
+
+/**
+ * Shares {@link DynamicSkuPrices} between requests whose pricing considerations are the same. Entries are keyed by a
+ * consideration key, built by the {@link SkuPricingConsiderationContext} from the considerations a pricing filter
+ * declares, together with the sku id. Entries expire after the TTL of the {@code blSkuPricingElements} cache region.
+ * <p>
+ * Modules that maintain price data outside of the sku, such as price lists, should call {@link #invalidateSku(Long)}
+ * or {@link #invalidateAll()} when that data changes.
+ *
+ * @author Jeff Fischer
+ * @see SkuPricingConsiderationContext#getDynamicSkuPrices(org.broadleafcommerce.core.catalog.domain.Sku)
+ */
+public interface SkuPricingResultCache {
+
+    /**
+     * @return whether results should be shared, as controlled by {@code pricing.result.cache.enabled}
+     */
+    boolean isEnabled();
+
+    /**
+     * @param considerationKey the key describing the pricing considerations
+     * @param skuId the sku id
+     * @return the cached prices, or null
+     */
+    DynamicSkuPrices get(String considerationKey, Long skuId);
+
+    /**
+     * @param considerationKey the key describing the pricing considerations
+     * @param skuId the sku id
+     * @param prices the prices computed for the sku under those considerations
+     */
+    void put(String considerationKey, Long skuId, DynamicSkuPrices prices);
+
+    /**
+     * Removes the prices of a single sku under every consideration key
+     *
+     * @param skuId the sku id
+     */
+    void invalidateSku(Long skuId);
+
+    /**
+     * Removes every cached price
+     */
+    void invalidateAll();
+
+}
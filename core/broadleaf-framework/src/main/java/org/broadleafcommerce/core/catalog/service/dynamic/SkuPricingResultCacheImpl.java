@@ -0,0 +1,125 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.catalog.service.dynamic;
+
+import org.broadleafcommerce.common.cache.CacheStatType;
+import org.broadleafcommerce.common.cache.StatisticsService;
+import org.broadleafcommerce.core.catalog.service.CatalogChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.annotation.Resource;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+/**
+ * {@link SkuPricingResultCache} backed by the {@code blSkuPricingElements} cache region. The whole cache is cleared
+ * when a {@link CatalogChangedEvent} is received, since a sku save may change the prices of any sku that depends on it.
+ *
+ * @author Jeff Fischer
+ */
+@Service("blSkuPricingResultCache")
+public class SkuPricingResultCacheImpl implements SkuPricingResultCache, ApplicationListener<CatalogChangedEvent> {
+
+    protected static final String CACHE_NAME = "blSkuPricingElements";
+    protected static final String KEY_SEPARATOR = "|";
+
+    @Value("${pricing.result.cache.enabled:false}")
+    protected boolean enabled = false;
+
+    @Resource(name = "blCacheManager")
+    protected CacheManager cacheManager;
+
+    @Resource(name = "blStatisticsService")
+    protected StatisticsService statisticsService;
+
+    protected Cache<String, DynamicSkuPrices> cache;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public DynamicSkuPrices get(String considerationKey, Long skuId) {
+        if (!enabled || considerationKey == null || skuId == null) {
+            return null;
+        }
+        DynamicSkuPrices prices = getCache().get(buildKey(considerationKey, skuId));
+        statisticsService.addCacheStat(CacheStatType.SKU_PRICING_RESULT_CACHE_HIT_RATE.toString(), prices != null);
+        return prices;
+    }
+
+    @Override
+    public void put(String considerationKey, Long skuId, DynamicSkuPrices prices) {
+        if (!enabled || considerationKey == null || skuId == null || prices == null) {
+            return;
+        }
+        getCache().put(buildKey(considerationKey, skuId), prices);
+    }
+
+    @Override
+    public void invalidateSku(Long skuId) {
+        if (!enabled || skuId == null) {
+            return;
+        }
+        String suffix = KEY_SEPARATOR + skuId;
+        Set<String> keys = new HashSet<>();
+        Iterator<Cache.Entry<String, DynamicSkuPrices>> iterator = getCache().iterator();
+        while (iterator.hasNext()) {
+            Cache.Entry<String, DynamicSkuPrices> entry = iterator.next();
+            if (entry != null && entry.getKey().endsWith(suffix)) {
+                keys.add(entry.getKey());
+            }
+        }
+        getCache().removeAll(keys);
+    }
+
+    @Override
+    public void invalidateAll() {
+        if (enabled) {
+            getCache().removeAll();
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(CatalogChangedEvent event) {
+        invalidateAll();
+    }
+
+    protected String buildKey(String considerationKey, Long skuId) {
+        return considerationKey + KEY_SEPARATOR + skuId;
+    }
+
+    protected Cache<String, DynamicSkuPrices> getCache() {
+        if (cache == null) {
+            synchronized (this) {
+                if (cache == null) {
+                    cache = cacheManager.getCache(CACHE_NAME);
+                }
+            }
+        }
+        return cache;
+    }
+
+}
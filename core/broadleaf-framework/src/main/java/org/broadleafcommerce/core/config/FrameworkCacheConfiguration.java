@@ -69,6 +69,11 @@ public class FrameworkCacheConfiguration {
         return new JCacheRegionConfiguration("blSkuMedia", 86400, 40000);
     }
 
+    @Bean
+    public JCacheRegionConfiguration blSkuPricingElements() {
+        return new JCacheRegionConfiguration("blSkuPricingElements", 300, 20000);
+    }
+
     @Bean
     public JCacheRegionConfiguration blStoreElements() {
         return new JCacheRegionConfiguration("blStoreElements", 86400, 1000);
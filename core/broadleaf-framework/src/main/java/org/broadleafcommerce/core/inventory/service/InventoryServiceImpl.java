@@ -28,6 +28,7 @@ import org.broadleafcommerce.common.event.BroadleafSystemEventDetail;
 import org.broadleafcommerce.common.extension.ExtensionResultHolder;
 import org.broadleafcommerce.common.extension.ExtensionResultStatusType;
 import org.broadleafcommerce.common.util.TransactionUtils;
+import org.broadleafcommerce.core.catalog.dao.SkuDao;
 import org.broadleafcommerce.core.catalog.domain.ProductSkuUsage;
 import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.service.CatalogService;
@@ -51,6 +52,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
 
 import javax.annotation.Resource;
 
@@ -61,6 +63,9 @@ public class InventoryServiceImpl implements ContextualInventoryService {
     
     @Resource(name = "blCatalogService")
     protected CatalogService catalogService;
+
+    @Resource(name = "blSkuDao")
+    protected SkuDao skuDao;
     
     @Resource(name = "blInventoryServiceExtensionManager")
     protected InventoryServiceExtensionManager extensionManager;
@@ -71,6 +76,9 @@ public class InventoryServiceImpl implements ContextualInventoryService {
     @Value("${enable.weave.use.default.sku.inventory:false}")
     protected boolean enableUseDefaultSkuInventory = false;
 
+    @Value("${inventory.decrement.bulk.enabled:false}")
+    protected boolean bulkDecrementEnabled = false;
+
     @Override
     public boolean checkBasicAvailablility(Sku sku) {
         if(sku != null) {
@@ -207,6 +215,10 @@ public class InventoryServiceImpl implements ContextualInventoryService {
     }
 
     protected void decrementSku(Map<Sku, Integer> skuQuantities, Map<String, Object> context) throws InventoryUnavailableException {
+        if (bulkDecrementEnabled) {
+            decrementSkusInBulk(skuQuantities, context);
+            return;
+        }
         for (Entry<Sku, Integer> entry : skuQuantities.entrySet()) {
             Sku sku = entry.getKey();
             Sku skuForInventory = sku;
@@ -241,6 +253,83 @@ public class InventoryServiceImpl implements ContextualInventoryService {
         }
     }
 
+    /**
+     * Decrements inventory for a whole set of skus at once. All of the rows are locked up front with a single query in
+     * ascending sku id order, which keeps concurrent checkouts sharing the same hot skus from deadlocking and avoids a
+     * lock round trip per sku. Every sku is validated against the locked quantities before any of them is changed, so
+     * a failure leaves the persistence context untouched. The resulting updates are written together when the
+     * transaction flushes.
+     *
+     * <p>Unlike the sequential path, quantities are read directly from the database rather than through
+     * {@link #retrieveQuantitiesAvailable(Collection, Map)}, since only the database value is protected by the lock.</p>
+     *
+     * <p>A sku without a quantity available is treated as untracked and skipped, while the remaining skus are still
+     * decremented. The sequential path instead stops at the first such sku, which leaves any skus that happen to come
+     * after it in the map's iteration order undecremented. Skipping only the untracked sku gives the same result
+     * regardless of iteration order.</p>
+     *
+     * @param skuQuantities the skus and quantities to decrement
+     * @param context can be null
+     * @throws InventoryUnavailableException if any of the skus is unavailable or does not have enough inventory
+     */
+    protected void decrementSkusInBulk(Map<Sku, Integer> skuQuantities, Map<String, Object> context) throws InventoryUnavailableException {
+        Map<Long, Sku> inventorySkus = new HashMap<>();
+        Map<Long, Integer> requestedQuantities = new TreeMap<>();
+        for (Entry<Sku, Integer> entry : skuQuantities.entrySet()) {
+            Sku sku = entry.getKey();
+            Sku skuForInventory = sku;
+            if (enableUseDefaultSkuInventory && ((ProductSkuUsage) sku.getProduct()).getUseDefaultSkuInInventory()){
+                skuForInventory = sku.getProduct().getDefaultSku();
+            }
+            Integer quantity = entry.getValue();
+            if (quantity == null || quantity < 1) {
+                throw new IllegalArgumentException("Quantity " + quantity + " is not valid. Must be greater than zero and not null.");
+            }
+
+            if (!checkBasicAvailablility(skuForInventory)) {
+                throw new InventoryUnavailableException("The Sku has been marked as unavailable", sku.getId(), quantity, 0);
+            }
+            if (!InventoryType.CHECK_QUANTITY.equals(skuForInventory.getInventoryType())) {
+                LOG.info("Not decrementing inventory as the Sku has been marked as always available");
+                continue;
+            }
+
+            // Several skus can share the inventory of the same default sku
+            Long skuId = skuForInventory.getId();
+            Integer requested = requestedQuantities.get(skuId);
+            requestedQuantities.put(skuId, requested == null ? quantity : requested + quantity);
+            inventorySkus.put(skuId, skuForInventory);
+        }
+
+        if (requestedQuantities.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> lockedQuantities = skuDao.readQuantityAvailableForUpdate(requestedQuantities.keySet());
+        Map<Long, Integer> newQuantities = new TreeMap<>();
+        for (Entry<Long, Integer> entry : requestedQuantities.entrySet()) {
+            Long skuId = entry.getKey();
+            Integer quantity = entry.getValue();
+            Integer inventoryAvailable = lockedQuantities.get(skuId);
+            if (inventoryAvailable == null) {
+                // No quantity is being tracked for this sku, leave it alone but keep processing the others
+                continue;
+            }
+            if (inventoryAvailable < quantity) {
+                throw new InventoryUnavailableException(
+                        "There was not enough inventory to fulfill this request.", skuId, quantity, inventoryAvailable);
+            }
+            newQuantities.put(skuId, inventoryAvailable - quantity);
+        }
+
+        for (Entry<Long, Integer> entry : newQuantities.entrySet()) {
+            Sku skuForInventory = inventorySkus.get(entry.getKey());
+            skuForInventory.setQuantityAvailable(entry.getValue());
+            catalogService.saveSku(skuForInventory);
+            invalidateSkuInventory(skuForInventory);
+        }
+    }
+
     @Override
     @Transactional(TransactionUtils.DEFAULT_TRANSACTION_MANAGER)
     public void incrementInventory(Sku sku, int quantity, Map<String, Object> context) {
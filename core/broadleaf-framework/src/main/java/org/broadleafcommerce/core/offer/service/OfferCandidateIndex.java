@@ -0,0 +1,375 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.offer.service;
+
+import org.apache.commons.lang3.BooleanUtils;
+import org.broadleafcommerce.core.catalog.domain.Category;
+import org.broadleafcommerce.core.offer.domain.Offer;
+import org.broadleafcommerce.core.offer.domain.OfferQualifyingCriteriaXref;
+import org.broadleafcommerce.core.offer.domain.OfferTargetCriteriaXref;
+import org.broadleafcommerce.core.offer.service.type.OfferType;
+import org.broadleafcommerce.core.order.domain.BundleOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>An inverted index over a list of offers, keyed by the sku, product and category ids that their item criteria
+ * require. Given the ids present in a cart, {@link #findCandidateOffers(List, Set)} returns only the offers that could
+ * possibly qualify, so the full rule evaluation only needs to run for that subset.</p>
+ *
+ * <p>Only {@link OfferType#ORDER_ITEM} offers are indexed, and only through item criteria whose rule is a conjunction
+ * containing an id comparison of one of these forms, as produced by the admin rule builder:</p>
+ * <ul>
+ *  <li><code>?discreteOrderItem.?product.?id==123</code></li>
+ *  <li><code>([123,456] contains ?discreteOrderItem.?sku.?id)</code></li>
+ *  <li><code>CollectionUtils.intersection(?discreteOrderItem.?category.?id,[123,456]).size()&gt;0</code></li>
+ * </ul>
+ * <p>Every such criteria, qualifying or target, must be satisfied by at least one item in the cart for the offer to
+ * be returned. Offers without any recognizable criteria are always returned.</p>
+ *
+ * <p>Instances are immutable and safe to share between threads. {@link #isBuiltFrom(List)} tells whether an index
+ * still reflects a freshly read list of offers, so that it can be rebuilt when the offers change.</p>
+ */
+public class OfferCandidateIndex {
+
+    public static final String SKU_KEY_PREFIX = "sku:";
+    public static final String PRODUCT_KEY_PREFIX = "product:";
+    public static final String CATEGORY_KEY_PREFIX = "category:";
+
+    protected static final String ITEM_ID_PATH = "\\??(?:discreteOrderItem|orderItem)\\.\\??(sku|product|category)\\.\\??id(?:\\.intValue\\(\\))?";
+    protected static final String ID_VALUE = "\"?\\d+L?\"?";
+    protected static final String ID_VALUES = ID_VALUE + "(?:," + ID_VALUE + ")*";
+
+    protected static final Pattern EQUALS_PATTERN = Pattern.compile(ITEM_ID_PATH + "==(" + ID_VALUE + ")");
+    protected static final Pattern REVERSE_EQUALS_PATTERN = Pattern.compile("(" + ID_VALUE + ")==" + ITEM_ID_PATH);
+    protected static final Pattern CONTAINS_PATTERN = Pattern.compile("\\[(" + ID_VALUES + ")\\]contains" + ITEM_ID_PATH);
+    protected static final Pattern INTERSECTION_PATTERN = Pattern.compile("CollectionUtils\\.intersection\\(" + ITEM_ID_PATH
+            + ",\\[(" + ID_VALUES + ")\\]\\)\\.size\\(\\)>0");
+    protected static final Pattern DIGITS = Pattern.compile("\\d+");
+
+    protected final List<Long> offerIds;
+    protected final List<List<String>> offerFingerprints;
+    protected final List<List<Set<String>>> offerRequirements;
+    protected final Map<String, BitSet> offersByKey = new HashMap<>();
+    protected final BitSet unindexedOffers = new BitSet();
+
+    public OfferCandidateIndex(List<Offer> offers) {
+        offerIds = new ArrayList<>(offers.size());
+        offerFingerprints = new ArrayList<>(offers.size());
+        offerRequirements = new ArrayList<>(offers.size());
+        for (int i = 0; i < offers.size(); i++) {
+            Offer offer = offers.get(i);
+            List<Set<String>> requirements = buildRequirements(offer);
+            offerIds.add(offer.getId());
+            offerFingerprints.add(buildFingerprint(offer));
+            offerRequirements.add(requirements);
+            if (requirements.isEmpty()) {
+                unindexedOffers.set(i);
+            } else {
+                // Any one requirement is enough to find the offer; the most selective keeps the posting lists short
+                Set<String> mostSelective = requirements.get(0);
+                for (Set<String> requirement : requirements) {
+                    if (requirement.size() < mostSelective.size()) {
+                        mostSelective = requirement;
+                    }
+                }
+                for (String key : mostSelective) {
+                    BitSet postings = offersByKey.get(key);
+                    if (postings == null) {
+                        postings = new BitSet();
+                        offersByKey.put(key, postings);
+                    }
+                    postings.set(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param offers a list of offers read after this index was built
+     * @return whether the given offers are, position by position, the same offers with the same criteria as the ones
+     * this index was built from
+     */
+    public boolean isBuiltFrom(List<Offer> offers) {
+        if (offers.size() != offerIds.size()) {
+            return false;
+        }
+        for (int i = 0; i < offers.size(); i++) {
+            Offer offer = offers.get(i);
+            if (!offerIds.get(i).equals(offer.getId()) || !offerFingerprints.get(i).equals(buildFingerprint(offer))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param offers the offers this index was built from, see {@link #isBuiltFrom(List)}
+     * @param itemKeys the keys of the items in the cart, see {@link #buildItemKeys(Order)}
+     * @return the offers that could qualify for a cart with the given keys, in their original order
+     */
+    public List<Offer> findCandidateOffers(List<Offer> offers, Set<String> itemKeys) {
+        BitSet candidates = (BitSet) unindexedOffers.clone();
+        for (String key : itemKeys) {
+            BitSet postings = offersByKey.get(key);
+            if (postings != null) {
+                candidates.or(postings);
+            }
+        }
+        List<Offer> response = new ArrayList<>(candidates.cardinality());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (meetsRequirements(offerRequirements.get(i), itemKeys)) {
+                response.add(offers.get(i));
+            }
+        }
+        return response;
+    }
+
+    public int getIndexedOfferCount() {
+        return offerIds.size() - unindexedOffers.cardinality();
+    }
+
+    /**
+     * Builds the set of index keys for the skus, products and categories of every item in the given order, including
+     * the items inside of bundles.
+     */
+    public static Set<String> buildItemKeys(Order order) {
+        Set<String> keys = new HashSet<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            addItemKeys(orderItem, keys);
+            if (orderItem instanceof BundleOrderItem) {
+                for (DiscreteOrderItem discreteOrderItem : ((BundleOrderItem) orderItem).getDiscreteOrderItems()) {
+                    addItemKeys(discreteOrderItem, keys);
+                }
+            }
+        }
+        return keys;
+    }
+
+    protected static void addItemKeys(OrderItem orderItem, Set<String> keys) {
+        Category category = orderItem.getCategory();
+        if (category != null && category.getId() != null) {
+            keys.add(CATEGORY_KEY_PREFIX + category.getId());
+        }
+        if (orderItem instanceof DiscreteOrderItem) {
+            DiscreteOrderItem discreteOrderItem = (DiscreteOrderItem) orderItem;
+            if (discreteOrderItem.getSku() != null && discreteOrderItem.getSku().getId() != null) {
+                keys.add(SKU_KEY_PREFIX + discreteOrderItem.getSku().getId());
+            }
+            if (discreteOrderItem.getProduct() != null && discreteOrderItem.getProduct().getId() != null) {
+                keys.add(PRODUCT_KEY_PREFIX + discreteOrderItem.getProduct().getId());
+            }
+        }
+    }
+
+    protected boolean meetsRequirements(List<Set<String>> requirements, Set<String> itemKeys) {
+        for (Set<String> requirement : requirements) {
+            if (Collections.disjoint(requirement, itemKeys)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected List<Set<String>> buildRequirements(Offer offer) {
+        List<Set<String>> requirements = new ArrayList<>();
+        if (!OfferType.ORDER_ITEM.equals(offer.getType())) {
+            return requirements;
+        }
+        if (offer.getQualifyingItemCriteriaXref() != null) {
+            for (OfferQualifyingCriteriaXref xref : offer.getQualifyingItemCriteriaXref()) {
+                if (xref.getOfferItemCriteria() != null) {
+                    addRequirement(xref.getOfferItemCriteria().getMatchRule(), requirements);
+                }
+            }
+        }
+        // Targets come from the price data rather than the target criteria when list discounts are used
+        if (offer.getTargetItemCriteriaXref() != null && !BooleanUtils.isTrue(offer.getUseListForDiscounts())) {
+            for (OfferTargetCriteriaXref xref : offer.getTargetItemCriteriaXref()) {
+                if (xref.getOfferItemCriteria() != null) {
+                    addRequirement(xref.getOfferItemCriteria().getMatchRule(), requirements);
+                }
+            }
+        }
+        return requirements;
+    }
+
+    protected void addRequirement(String rule, List<Set<String>> requirements) {
+        Set<String> keys = parseRequiredKeys(rule);
+        if (keys != null) {
+            requirements.add(keys);
+        }
+    }
+
+    /**
+     * @return the keys of which an item must have at least one to satisfy the given rule, or null if the rule does not
+     * require a particular sku, product or category
+     */
+    protected Set<String> parseRequiredKeys(String rule) {
+        if (rule == null) {
+            return null;
+        }
+        for (String conjunct : splitConjuncts(rule.replaceAll("\\s+", ""))) {
+            Set<String> keys = parseIdComparison(stripParentheses(conjunct));
+            if (keys != null) {
+                return keys;
+            }
+        }
+        return null;
+    }
+
+    protected Set<String> parseIdComparison(String expression) {
+        Matcher matcher = EQUALS_PATTERN.matcher(expression);
+        if (matcher.matches()) {
+            return buildKeys(matcher.group(1), matcher.group(2));
+        }
+        matcher = REVERSE_EQUALS_PATTERN.matcher(expression);
+        if (matcher.matches()) {
+            return buildKeys(matcher.group(2), matcher.group(1));
+        }
+        matcher = CONTAINS_PATTERN.matcher(expression);
+        if (matcher.matches()) {
+            return buildKeys(matcher.group(2), matcher.group(1));
+        }
+        matcher = INTERSECTION_PATTERN.matcher(expression);
+        if (matcher.matches()) {
+            return buildKeys(matcher.group(1), matcher.group(2));
+        }
+        return null;
+    }
+
+    protected Set<String> buildKeys(String entity, String values) {
+        Set<String> keys = new HashSet<>();
+        Matcher matcher = DIGITS.matcher(values);
+        while (matcher.find()) {
+            keys.add(entity + ":" + Long.valueOf(matcher.group()));
+        }
+        return keys;
+    }
+
+    /**
+     * Splits the given expression on its top level <code>&amp;&amp;</code> operators. If the expression has a top
+     * level <code>||</code>, none of its parts is required on its own and an empty list is returned.
+     */
+    protected List<String> splitConjuncts(String expression) {
+        List<String> conjuncts = new ArrayList<>();
+        int depth = 0;
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '"' && (i == 0 || expression.charAt(i - 1) != '\\')) {
+                quoted = !quoted;
+            } else if (quoted) {
+                continue;
+            } else if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                depth--;
+            } else if (depth == 0 && i + 1 < expression.length()) {
+                String operator = expression.substring(i, i + 2);
+                if ("||".equals(operator)) {
+                    return Collections.emptyList();
+                }
+                if ("&&".equals(operator)) {
+                    conjuncts.add(expression.substring(start, i));
+                    start = i + 2;
+                    i++;
+                }
+            }
+        }
+        conjuncts.add(expression.substring(start));
+        return conjuncts;
+    }
+
+    /**
+     * Removes parentheses that wrap the whole expression. Conjuncts of a nested group are not considered.
+     */
+    protected String stripParentheses(String expression) {
+        while (expression.length() > 1 && expression.charAt(0) == '(' && closingParenthesis(expression) == expression.length() - 1) {
+            List<String> conjuncts = splitConjuncts(expression.substring(1, expression.length() - 1));
+            if (conjuncts.size() != 1) {
+                return expression;
+            }
+            expression = conjuncts.get(0);
+        }
+        return expression;
+    }
+
+    protected int closingParenthesis(String expression) {
+        int depth = 0;
+        boolean quoted = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '"' && (i == 0 || expression.charAt(i - 1) != '\\')) {
+                quoted = !quoted;
+            } else if (!quoted && c == '(') {
+                depth++;
+            } else if (!quoted && c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    protected List<String> buildFingerprint(Offer offer) {
+        List<String> qualifiers = new ArrayList<>();
+        if (offer.getQualifyingItemCriteriaXref() != null) {
+            for (OfferQualifyingCriteriaXref xref : offer.getQualifyingItemCriteriaXref()) {
+                if (xref.getOfferItemCriteria() != null) {
+                    qualifiers.add(String.valueOf(xref.getOfferItemCriteria().getMatchRule()));
+                }
+            }
+        }
+        List<String> targets = new ArrayList<>();
+        if (offer.getTargetItemCriteriaXref() != null) {
+            for (OfferTargetCriteriaXref xref : offer.getTargetItemCriteriaXref()) {
+                if (xref.getOfferItemCriteria() != null) {
+                    targets.add(String.valueOf(xref.getOfferItemCriteria().getMatchRule()));
+                }
+            }
+        }
+        // The criteria are held in sets, so their iteration order is not stable from one read to the next
+        Collections.sort(qualifiers);
+        Collections.sort(targets);
+
+        List<String> fingerprint = new ArrayList<>(qualifiers.size() + targets.size() + 3);
+        fingerprint.add(String.valueOf(offer.getType()));
+        fingerprint.add(String.valueOf(offer.getUseListForDiscounts()));
+        fingerprint.add(String.valueOf(qualifiers.size()));
+        fingerprint.addAll(qualifiers);
+        fingerprint.addAll(targets);
+        return fingerprint;
+    }
+
+}
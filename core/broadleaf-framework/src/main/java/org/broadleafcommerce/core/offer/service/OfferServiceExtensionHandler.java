@@ -116,7 +116,14 @@ public interface OfferServiceExtensionHandler extends ExtensionHandler {
             OrderItemPriceDetail itemDetail);
 
     /**
-     * Allows a module to append additional rule variables that may be needed for order item evaluation
+     * Allows a module to append additional rule variables that may be needed for order item evaluation.
+     * <p>
+     * This is always called on the thread that is pricing the order. When parallel item offer qualification is
+     * turned on (see {@link org.broadleafcommerce.core.offer.service.processor.ItemOfferProcessorImpl#PARALLEL_QUALIFICATION_ENABLED_PROPERTY}),
+     * it is called once per item before the offers are qualified, and the variables it adds are then read by several
+     * qualification threads at once. Those values must be fully loaded and safe to read concurrently, and must not
+     * depend on the offer being qualified.
+     *
      * @param orderItem - the promotable order item in consideration
      * @param vars - the rule map
      * @return
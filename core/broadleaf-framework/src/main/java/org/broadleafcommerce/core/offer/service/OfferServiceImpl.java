@@ -23,9 +23,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.persistence.EntityDuplicateModifier;
 import org.broadleafcommerce.common.persistence.EntityDuplicator;
+import org.broadleafcommerce.common.rule.CompiledRuleWarmUpProvider;
 import org.broadleafcommerce.common.sandbox.SandBoxHelper;
 import org.broadleafcommerce.common.util.StreamCapableTransactionalOperationAdapter;
 import org.broadleafcommerce.common.util.StreamingTransactionCapableUtil;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.core.offer.dao.CustomerOfferDao;
 import org.broadleafcommerce.core.offer.dao.OfferCodeDao;
 import org.broadleafcommerce.core.offer.dao.OfferDao;
@@ -34,12 +36,17 @@ import org.broadleafcommerce.core.offer.domain.CustomerOffer;
 import org.broadleafcommerce.core.offer.domain.Offer;
 import org.broadleafcommerce.core.offer.domain.OfferCode;
 import org.broadleafcommerce.core.offer.domain.OfferImpl;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
+import org.broadleafcommerce.core.offer.domain.OfferOfferRuleXref;
+import org.broadleafcommerce.core.offer.domain.OfferQualifyingCriteriaXref;
+import org.broadleafcommerce.core.offer.domain.OfferTargetCriteriaXref;
 import org.broadleafcommerce.core.offer.domain.OrderItemPriceDetailAdjustment;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableCandidateFulfillmentGroupOffer;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableCandidateItemOffer;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableCandidateOrderOffer;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableItemFactory;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrder;
+import org.broadleafcommerce.core.offer.service.processor.AbstractBaseProcessor;
 import org.broadleafcommerce.core.offer.service.processor.FulfillmentGroupOfferProcessor;
 import org.broadleafcommerce.core.offer.service.processor.ItemOfferProcessor;
 import org.broadleafcommerce.core.offer.service.processor.OrderOfferProcessor;
@@ -52,6 +59,7 @@ import org.broadleafcommerce.core.order.domain.OrderItemPriceDetail;
 import org.broadleafcommerce.core.order.service.OrderService;
 import org.broadleafcommerce.core.pricing.service.exception.PricingException;
 import org.broadleafcommerce.profile.core.domain.Customer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -64,6 +72,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Resource;
 import javax.persistence.EntityManager;
@@ -73,7 +82,7 @@ import javax.persistence.PersistenceContext;
  * The Class OfferServiceImpl.
  */
 @Service("blOfferService")
-public class OfferServiceImpl implements OfferService {
+public class OfferServiceImpl implements OfferService, CompiledRuleWarmUpProvider {
     
     private static final Log LOG = LogFactory.getLog(OfferServiceImpl.class);
 
@@ -120,6 +129,14 @@ public class OfferServiceImpl implements OfferService {
     @Resource(name="blEntityDuplicator")
     protected EntityDuplicator duplicator;
 
+    @Value("${offer.candidate.index.enabled:false}")
+    protected boolean candidateIndexEnabled = false;
+
+    /**
+     * Candidate indexes over the automatic delivery offers, by site id
+     */
+    protected final Map<Long, OfferCandidateIndex> automaticOfferIndexes = new ConcurrentHashMap<>();
+
     /**
      * @deprecated Add {@link EntityDuplicateModifier}s to {@code blEntityDuplicationHelpers}
      */
@@ -210,6 +227,9 @@ public class OfferServiceImpl implements OfferService {
             extensionManager.getProxy().addAdditionalOffersForCode(offers, orderOfferCode);
         }
         List<Offer> globalOffers = lookupAutomaticDeliveryOffers();
+        if (candidateIndexEnabled) {
+            globalOffers = filterAutomaticDeliveryOffers(globalOffers, order);
+        }
         for (Offer globalOffer : globalOffers) {
             if (!offers.contains(globalOffer) && verifyMaxCustomerUsageThreshold(order, globalOffer)) {
                 offers.add(globalOffer);
@@ -284,6 +304,25 @@ public class OfferServiceImpl implements OfferService {
         return globalOffers;
     }
 
+    /**
+     * Removes the automatic delivery offers whose item criteria require a sku, product or category that is not in the
+     * order, using an {@link OfferCandidateIndex} that is rebuilt whenever the offers read for the site change.
+     */
+    protected List<Offer> filterAutomaticDeliveryOffers(List<Offer> globalOffers, Order order) {
+        BroadleafRequestContext brc = BroadleafRequestContext.getBroadleafRequestContext();
+        Long siteId = brc == null || brc.getNonPersistentSite() == null ? -1L : brc.getNonPersistentSite().getId();
+        OfferCandidateIndex index = automaticOfferIndexes.get(siteId);
+        if (index == null || !index.isBuiltFrom(globalOffers)) {
+            index = new OfferCandidateIndex(globalOffers);
+            automaticOfferIndexes.put(siteId, index);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Rebuilt the offer candidate index for site %s, indexing %d of %d automatic offers",
+                        siteId, index.getIndexedOfferCount(), globalOffers.size()));
+            }
+        }
+        return index.findCandidateOffers(globalOffers, OfferCandidateIndex.buildItemKeys(order));
+    }
+
     /**
      * Removes all out of date offerCodes based on the offerCode and its offer's start and end
      * date.  If an offerCode has a later start date, that offerCode will be removed.
@@ -738,4 +777,36 @@ public class OfferServiceImpl implements OfferService {
     public Offer findOfferById(Long offerId) {
         return offerDao.readOfferById(offerId);
     }
+
+    @Override
+    public Map<String, Map<String, Class<?>>> readRulesForWarmUp() {
+        Map<String, Map<String, Class<?>>> rules = new HashMap<>();
+        for (Offer offer : offerDao.readAllOffers()) {
+            for (OfferOfferRuleXref xref : offer.getOfferMatchRulesXref().values()) {
+                if (xref.getOfferRule() != null) {
+                    addOfferRuleForWarmUp(rules, xref.getOfferRule().getMatchRule());
+                }
+            }
+            for (OfferQualifyingCriteriaXref xref : offer.getQualifyingItemCriteriaXref()) {
+                addOfferRuleForWarmUp(rules, xref.getOfferItemCriteria());
+            }
+            for (OfferTargetCriteriaXref xref : offer.getTargetItemCriteriaXref()) {
+                addOfferRuleForWarmUp(rules, xref.getOfferItemCriteria());
+            }
+        }
+        return rules;
+    }
+
+    protected void addOfferRuleForWarmUp(Map<String, Map<String, Class<?>>> rules, OfferItemCriteria criteria) {
+        if (criteria != null) {
+            addOfferRuleForWarmUp(rules, criteria.getMatchRule());
+        }
+    }
+
+    protected void addOfferRuleForWarmUp(Map<String, Map<String, Class<?>>> rules, String matchRule) {
+        if (matchRule != null && matchRule.trim().length() != 0) {
+            rules.put(AbstractBaseProcessor.toPriceBeforeAdjustmentsExpression(matchRule),
+                    AbstractBaseProcessor.OFFER_RULE_CONTEXT_IMPORTS);
+        }
+    }
 }
@@ -19,6 +19,7 @@ package org.broadleafcommerce.core.offer.service.discount.domain;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.money.MoneyAccumulator;
 import org.broadleafcommerce.core.offer.domain.Offer;
 import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
 import org.broadleafcommerce.core.offer.service.discount.PromotionDiscount;
@@ -338,14 +339,14 @@ public class PromotableOrderItemPriceDetailImpl implements PromotableOrderItemPr
 
         PromotionQualifier pq = new PromotionQualifier();
         
-        Money pqPriceBeforeAdjustment = new Money(0);
+        MoneyAccumulator pqPriceBeforeAdjustment = new MoneyAccumulator(new Money(0));
         for (Map.Entry<OfferItemCriteria, List<PromotableOrderItem>> qualifierMapEntry : candidatePromotion.getCandidateQualifiersMap().entrySet()) {
             for (PromotableOrderItem promotableOrderItem : qualifierMapEntry.getValue()) {
                 Money priceBeforeAdjustments = promotableOrderItem.getOrderItem().getPriceBeforeAdjustments(candidatePromotion.getOffer().getApplyDiscountToSalePrice());
-                pqPriceBeforeAdjustment = pqPriceBeforeAdjustment.add(priceBeforeAdjustments);
+                pqPriceBeforeAdjustment.add(priceBeforeAdjustments);
             }
         }
-        pq.setPrice(pqPriceBeforeAdjustment);
+        pq.setPrice(pqPriceBeforeAdjustment.toMoney());
         pq.setPromotion(promotion);
         promotionQualifiers.add(pq);
         return pq;
@@ -466,25 +467,30 @@ public class PromotableOrderItemPriceDetailImpl implements PromotableOrderItemPr
             priceWithAdjustments = promotableOrderItem.getRetailPriceBeforeAdjustments();
         }
 
+        if (promotableOrderItemPriceDetailAdjustments.isEmpty()) {
+            return priceWithAdjustments;
+        }
+
+        MoneyAccumulator adjustedPrice = new MoneyAccumulator(priceWithAdjustments);
         for (PromotableOrderItemPriceDetailAdjustment adjustment : promotableOrderItemPriceDetailAdjustments) {
             if (allowSalePrice) {
-                priceWithAdjustments = priceWithAdjustments.subtract(adjustment.getSaleAdjustmentValue());
+                adjustedPrice.subtract(adjustment.getSaleAdjustmentValue());
             } else {
-                priceWithAdjustments = priceWithAdjustments.subtract(adjustment.getRetailAdjustmentValue());
+                adjustedPrice.subtract(adjustment.getRetailAdjustmentValue());
             }
         }
 
-        return priceWithAdjustments;
+        return adjustedPrice.toMoney();
     }
 
     protected Money calculateAdjustmentsUnitValue() {
-        Money adjustmentUnitValue = new Money(promotableOrderItem.getCurrency());
+        MoneyAccumulator adjustmentUnitValue = new MoneyAccumulator(new Money(promotableOrderItem.getCurrency()));
 
         for (PromotableOrderItemPriceDetailAdjustment adjustment : promotableOrderItemPriceDetailAdjustments) {
-            adjustmentUnitValue = adjustmentUnitValue.add(adjustment.getAdjustmentValue());
+            adjustmentUnitValue.add(adjustment.getAdjustmentValue());
         }
 
-        return adjustmentUnitValue;
+        return adjustmentUnitValue.toMoney();
     }
 
     /**
@@ -19,7 +19,6 @@ package org.broadleafcommerce.core.offer.service.processor;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.Predicate;
-import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -50,6 +49,7 @@ import org.joda.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
@@ -69,7 +69,19 @@ import javax.annotation.Resource;
 public abstract class AbstractBaseProcessor implements BaseProcessor {
 
     private static final Log LOG = LogFactory.getLog(AbstractBaseProcessor.class);
-    private static final Map EXPRESSION_CACHE = new LRUMap(1000);
+
+    /**
+     * Additional imports offer rules are compiled with. Shared so that the compiled rule cache sees the same imports
+     * for every offer rule.
+     */
+    public static final Map<String, Class<?>> OFFER_RULE_CONTEXT_IMPORTS;
+
+    static {
+        Map<String, Class<?>> contextImports = new HashMap<>();
+        contextImports.put("OfferType", OfferType.class);
+        contextImports.put("FulfillmentType", FulfillmentType.class);
+        OFFER_RULE_CONTEXT_IMPORTS = Collections.unmodifiableMap(contextImports);
+    }
 
     @Resource(name = "blOfferTimeZoneProcessor")
     protected OfferTimeZoneProcessor offerTimeZoneProcessor;
@@ -77,6 +89,9 @@ public abstract class AbstractBaseProcessor implements BaseProcessor {
     @Resource(name = "blOfferServiceExtensionManager")
     protected OfferServiceExtensionManager extensionManager;
 
+    @Resource(name = "blOrderItemRuleResultCache")
+    protected OrderItemRuleResultCache ruleResultCache;
+
     protected final PromotableOfferUtility promotableOfferUtility;
 
     protected AbstractBaseProcessor(PromotableOfferUtility promotableOfferUtility) {
@@ -262,17 +277,28 @@ public abstract class AbstractBaseProcessor implements BaseProcessor {
         boolean appliesToItem = false;
 
         if (criteria.getMatchRule() != null && criteria.getMatchRule().trim().length() != 0) {
-            HashMap<String, Object> vars = new HashMap<String, Object>();
-            orderItem.updateRuleVariables(vars);
+            HashMap<String, Object> vars = buildItemRuleVariables(orderItem);
 
-            if (extensionManager != null) {
-                extensionManager.applyAdditionalRuleVariablesForItemOfferEvaluation(orderItem, vars);
+            Set<String> additionalVariables = null;
+            boolean useResultCache = isRuleResultCacheUsable();
+            if (useResultCache) {
+                additionalVariables = getAdditionalItemRuleVariableNames(orderItem, vars);
+                useResultCache = ruleResultCache.isCacheable(criteria.getMatchRule(), additionalVariables);
+            }
+            if (useResultCache) {
+                Boolean cachedOutcome = ruleResultCache.getResult(orderItem, criteria.getMatchRule());
+                if (cachedOutcome != null) {
+                    return cachedOutcome;
+                }
             }
 
             Boolean expressionOutcome = executeExpression(criteria.getMatchRule(), vars);
             if (expressionOutcome != null && expressionOutcome) {
                 appliesToItem = true;
             }
+            if (useResultCache) {
+                ruleResultCache.putResult(orderItem, criteria.getMatchRule(), additionalVariables, appliesToItem);
+            }
         } else {
             appliesToItem = true;
         }
@@ -280,6 +306,42 @@ public abstract class AbstractBaseProcessor implements BaseProcessor {
         return appliesToItem;
     }
 
+    /**
+     * Builds the variables an item criteria rule is evaluated against, including any added by the
+     * {@link OfferServiceExtensionManager}
+     */
+    protected HashMap<String, Object> buildItemRuleVariables(PromotableOrderItem orderItem) {
+        HashMap<String, Object> vars = new HashMap<String, Object>();
+        orderItem.updateRuleVariables(vars);
+
+        if (extensionManager != null) {
+            extensionManager.applyAdditionalRuleVariablesForItemOfferEvaluation(orderItem, vars);
+        }
+        return vars;
+    }
+
+    protected boolean isRuleResultCacheUsable() {
+        return ruleResultCache != null && ruleResultCache.isEnabled();
+    }
+
+    /**
+     * Extension handlers can add rule variables from anywhere, so cached item rule outcomes are not used for rules that
+     * read them
+     *
+     * @return the names of the variables in {@code vars} that were added or replaced by an extension handler
+     */
+    protected Set<String> getAdditionalItemRuleVariableNames(PromotableOrderItem orderItem, Map<String, Object> vars) {
+        Map<String, Object> itemVars = new HashMap<String, Object>();
+        orderItem.updateRuleVariables(itemVars);
+        Set<String> additionalVariables = new HashSet<String>();
+        for (Map.Entry<String, Object> entry : vars.entrySet()) {
+            if (!itemVars.containsKey(entry.getKey()) || itemVars.get(entry.getKey()) != entry.getValue()) {
+                additionalVariables.add(entry.getKey());
+            }
+        }
+        return additionalVariables;
+    }
+
     /**
      * Private method used by couldOfferApplyToOrder to execute the MVEL expression in the
      * appliesToOrderRules to determine if this offer can be applied.
@@ -289,16 +351,19 @@ public abstract class AbstractBaseProcessor implements BaseProcessor {
      * @return a Boolean object containing the result of executing the MVEL expression
      */
     public Boolean executeExpression(String expression, Map<String, Object> vars) {
-        Map<String, Class<?>> contextImports = new HashMap<>();
-
         expression = usePriceBeforeAdjustments(expression);
-        contextImports.put("OfferType", OfferType.class);
-        contextImports.put("FulfillmentType", FulfillmentType.class);
-        return MvelHelper.evaluateRule(expression, vars, EXPRESSION_CACHE, contextImports);
-
+        return MvelHelper.evaluateRule(expression, vars, null, OFFER_RULE_CONTEXT_IMPORTS);
     }
 
     protected String usePriceBeforeAdjustments(String expression) {
+        return toPriceBeforeAdjustmentsExpression(expression);
+    }
+
+    /**
+     * Rewrites the passed in offer rule so that item price comparisons use the price before adjustments. This is the
+     * form in which offer rules are compiled and cached.
+     */
+    public static String toPriceBeforeAdjustmentsExpression(String expression) {
         return expression.replace("?price.", "?getPriceBeforeAdjustments(true).");
     }
     
@@ -20,10 +20,17 @@ package org.broadleafcommerce.core.offer.service.processor;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.config.service.SystemPropertiesService;
 import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.offer.domain.Offer;
 import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
+import org.broadleafcommerce.core.offer.domain.OfferOfferRuleXref;
 import org.broadleafcommerce.core.offer.domain.OfferPriceData;
+import org.broadleafcommerce.core.offer.domain.OfferQualifyingCriteriaXref;
+import org.broadleafcommerce.core.offer.domain.OfferTargetCriteriaXref;
 import org.broadleafcommerce.core.offer.service.OfferServiceExtensionManager;
 import org.broadleafcommerce.core.offer.service.discount.CandidatePromotionItems;
 import org.broadleafcommerce.core.offer.service.discount.ItemOfferComparator;
@@ -42,21 +49,36 @@ import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderI
 import org.broadleafcommerce.core.offer.service.type.OfferDiscountType;
 import org.broadleafcommerce.core.offer.service.type.OfferItemRestrictionRuleType;
 import org.broadleafcommerce.core.offer.service.type.OfferType;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.order.domain.dto.OrderItemHolder;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Resource;
 
 /**
  * Filter and apply order item offers.
@@ -65,10 +87,32 @@ import java.util.Set;
  *
  */
 @Service("blItemOfferProcessor")
-public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements ItemOfferProcessor, ItemOfferMarkTargets {
+public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements ItemOfferProcessor, ItemOfferMarkTargets, DisposableBean {
     
     protected static final Log LOG = LogFactory.getLog(ItemOfferProcessorImpl.class);
 
+    /**
+     * Site-level system property that turns on parallel qualification of item offers
+     */
+    public static final String PARALLEL_QUALIFICATION_ENABLED_PROPERTY = "offer.qualification.parallel.enabled";
+
+    @Resource(name = "blSystemPropertiesService")
+    protected SystemPropertiesService systemPropertiesService;
+
+    @Value("${offer.qualification.parallel.threads:4}")
+    protected int parallelQualificationThreads = 4;
+
+    @Value("${offer.qualification.parallel.minOffers:20}")
+    protected int parallelQualificationMinOffers = 20;
+
+    protected volatile ForkJoinPool qualificationPool;
+
+    /**
+     * Item rule variables built on the calling thread before a parallel fan-out, keyed by item. Only bound on the
+     * qualification pool's threads while they qualify an offer.
+     */
+    protected final ThreadLocal<Map<PromotableOrderItem, HashMap<String, Object>>> preparedItemRuleVariables = new ThreadLocal<>();
+
     public ItemOfferProcessorImpl(PromotableOfferUtility promotableOfferUtility) {
         super(promotableOfferUtility);
     }
@@ -78,12 +122,24 @@ public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements I
      */
     @Override
     public void filterItemLevelOffer(PromotableOrder order, List<PromotableCandidateItemOffer> qualifiedItemOffers, Offer offer) {
+        filterItemLevelOffer(order, qualifiedItemOffers, offer, order.getDiscountableOrderItems(), null);
+    }
+
+    /**
+     * Qualifies the given item offer against the given lists of order items rather than the lists held by the order.
+     *
+     * @param discountableOrderItems the items to check the offer's order rule against
+     * @param sortedOrderItems the items, sorted for the offer's sale/retail setting, to check the item criteria
+     * against. If null, the list is read from the order.
+     */
+    protected void filterItemLevelOffer(PromotableOrder order, List<PromotableCandidateItemOffer> qualifiedItemOffers, Offer offer,
+            List<PromotableOrderItem> discountableOrderItems, List<PromotableOrderItem> sortedOrderItems) {
         boolean isNewFormat = CollectionUtils.isNotEmpty(offer.getQualifyingItemCriteriaXref()) ||
                 CollectionUtils.isNotEmpty(offer.getTargetItemCriteriaXref());
         boolean itemLevelQualification = false;
         boolean offerCreated = false;
 
-        for (PromotableOrderItem promotableOrderItem : order.getDiscountableOrderItems()) {
+        for (PromotableOrderItem promotableOrderItem : discountableOrderItems) {
             if(couldOfferApplyToOrder(offer, order, promotableOrderItem)) {
                 if (!isNewFormat) {
                     //support legacy offers                   
@@ -116,8 +172,10 @@ public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements I
         }
         //Item Qualification - new for 1.5!
         if (itemLevelQualification && !offerCreated) {
-            CandidatePromotionItems candidates = couldOfferApplyToOrderItems(offer,
-                    order.getDiscountableOrderItems(offer.getApplyDiscountToSalePrice()));
+            if (sortedOrderItems == null) {
+                sortedOrderItems = order.getDiscountableOrderItems(offer.getApplyDiscountToSalePrice());
+            }
+            CandidatePromotionItems candidates = couldOfferApplyToOrderItems(offer, sortedOrderItems);
             PromotableCandidateItemOffer candidateOffer = null;
             if (candidates.isMatchedQualifier()) {
                 //we don't know the final target yet, so put null for the order item for now
@@ -406,6 +464,11 @@ public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements I
         // set order subTotal price to total item price without adjustments
         order.setOrderSubTotalToPriceWithoutAdjustments();
 
+        if (isParallelQualificationEnabled(filteredOffers)) {
+            filterOffersInParallel(order, filteredOffers, qualifiedOrderOffers, qualifiedItemOffers);
+            return;
+        }
+
         for (Offer offer : filteredOffers) {            
             if(offer.getType().equals(OfferType.ORDER)){
                 filterOrderLevelOffer(order, qualifiedOrderOffers, offer);
@@ -414,6 +477,217 @@ public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements I
             }
         }
     }
+
+    /**
+     * Parallel qualification is used when it is turned on for the current site through
+     * {@link #PARALLEL_QUALIFICATION_ENABLED_PROPERTY} and there are enough offers to make fanning out worthwhile.
+     */
+    protected boolean isParallelQualificationEnabled(List<Offer> filteredOffers) {
+        if (parallelQualificationThreads < 2 || filteredOffers.size() < parallelQualificationMinOffers) {
+            return false;
+        }
+        return systemPropertiesService.resolveBooleanSystemProperty(PARALLEL_QUALIFICATION_ENABLED_PROPERTY, false);
+    }
+
+    /**
+     * <p>Order offers are filtered on the calling thread. Item offers, whose rules have to be evaluated against every
+     * discountable item, are each qualified on the shared qualification pool. Each task collects its candidates into
+     * its own list and the lists are appended in the original offer order, so the candidates are the same, and in
+     * the same order, from one run to the next.</p>
+     *
+     * <p>The order's discountable item list is re-sorted in place whenever an offer with a different sale price
+     * setting reads it, so both orderings are copied up front and the tasks only read the copies.</p>
+     *
+     * <p>The tasks evaluate rules against the caller's entities, but the caller's persistence context cannot be used
+     * from other threads. Everything the tasks are expected to read is therefore loaded on the calling thread first:
+     * the offers' rules (see {@link #prepareOfferForParallelQualification(Offer)}), the order and item state that the
+     * rule builders expose (see {@link #prepareOrderForParallelQualification(PromotableOrder, List)}) and the item rule
+     * variables themselves. The latter means that
+     * {@link org.broadleafcommerce.core.offer.service.OfferServiceExtensionHandler#applyAdditionalRuleVariablesForItemOfferEvaluation(PromotableOrderItem, HashMap)}
+     * is only ever called on the calling thread, once per item, and the variables it adds are then read concurrently
+     * by the tasks. Sites whose rules or extension handlers navigate further than that should initialize the extra
+     * state by overriding {@link #prepareOrderForParallelQualification(PromotableOrder, List)}, or leave parallel
+     * qualification turned off.</p>
+     */
+    protected void filterOffersInParallel(final PromotableOrder order, List<Offer> filteredOffers,
+            List<PromotableCandidateOrderOffer> qualifiedOrderOffers, List<PromotableCandidateItemOffer> qualifiedItemOffers) {
+        List<Offer> itemOffers = new ArrayList<>();
+        for (Offer offer : filteredOffers) {
+            if (offer.getType().equals(OfferType.ORDER)) {
+                filterOrderLevelOffer(order, qualifiedOrderOffers, offer);
+            } else if (offer.getType().equals(OfferType.ORDER_ITEM)) {
+                prepareOfferForParallelQualification(offer);
+                itemOffers.add(offer);
+            }
+        }
+        if (itemOffers.isEmpty()) {
+            return;
+        }
+
+        final List<PromotableOrderItem> retailSortedItems = new ArrayList<>(order.getDiscountableOrderItems(false));
+        final List<PromotableOrderItem> saleSortedItems = new ArrayList<>(order.getDiscountableOrderItems(true));
+        prepareOrderForParallelQualification(order, retailSortedItems);
+
+        final Map<PromotableOrderItem, HashMap<String, Object>> itemRuleVariables = new IdentityHashMap<>();
+        for (PromotableOrderItem item : retailSortedItems) {
+            itemRuleVariables.put(item, buildItemRuleVariables(item));
+        }
+
+        final BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        ForkJoinPool pool = getQualificationPool();
+        List<Future<List<PromotableCandidateItemOffer>>> results = new ArrayList<>(itemOffers.size());
+        try {
+            for (final Offer offer : itemOffers) {
+                final List<PromotableOrderItem> sortedItems = offer.getApplyDiscountToSalePrice() ? saleSortedItems : retailSortedItems;
+                results.add(pool.submit(new Callable<List<PromotableCandidateItemOffer>>() {
+                    @Override
+                    public List<PromotableCandidateItemOffer> call() {
+                        BroadleafRequestContext.setBroadleafRequestContext(context == null ? new BroadleafRequestContext()
+                                : context.createLightWeightClone());
+                        preparedItemRuleVariables.set(itemRuleVariables);
+                        try {
+                            List<PromotableCandidateItemOffer> candidates = new ArrayList<>();
+                            filterItemLevelOffer(order, candidates, offer, sortedItems, sortedItems);
+                            return candidates;
+                        } finally {
+                            preparedItemRuleVariables.remove();
+                            BroadleafRequestContext.setBroadleafRequestContext(null);
+                        }
+                    }
+                }));
+            }
+            for (Future<List<PromotableCandidateItemOffer>> result : results) {
+                qualifiedItemOffers.addAll(getQualificationResult(result));
+            }
+        } finally {
+            for (Future<List<PromotableCandidateItemOffer>> result : results) {
+                result.cancel(false);
+            }
+        }
+
+        // Leave the order's item list sorted the way the sequential path would have left it
+        order.getDiscountableOrderItems(itemOffers.get(itemOffers.size() - 1).getApplyDiscountToSalePrice());
+    }
+
+    /**
+     * Initializes the offer state read during qualification on the calling thread, so that the qualification tasks do
+     * not trigger lazy loading through the caller's persistence context.
+     */
+    protected void prepareOfferForParallelQualification(Offer offer) {
+        for (OfferOfferRuleXref ruleXref : offer.getOfferMatchRulesXref().values()) {
+            if (ruleXref.getOfferRule() != null) {
+                ruleXref.getOfferRule().getMatchRule();
+            }
+        }
+        for (OfferQualifyingCriteriaXref xref : offer.getQualifyingItemCriteriaXref()) {
+            if (xref.getOfferItemCriteria() != null) {
+                xref.getOfferItemCriteria().getMatchRule();
+            }
+        }
+        for (OfferTargetCriteriaXref xref : offer.getTargetItemCriteriaXref()) {
+            if (xref.getOfferItemCriteria() != null) {
+                xref.getOfferItemCriteria().getMatchRule();
+            }
+        }
+        offer.getOfferPriceData().size();
+    }
+
+    /**
+     * Initializes, on the calling thread, the order and item state that offer rules built through the admin rule
+     * builders can reach, so that the qualification tasks do not trigger lazy loading through the caller's
+     * persistence context. Override to initialize anything else that custom rules or
+     * {@link org.broadleafcommerce.core.offer.service.OfferServiceExtensionHandler} implementations read.
+     *
+     * @param items every discountable item of the order
+     */
+    protected void prepareOrderForParallelQualification(PromotableOrder order, List<PromotableOrderItem> items) {
+        order.getFulfillmentGroups();
+        Order rawOrder = order.getOrder();
+        if (rawOrder != null && rawOrder.getCustomer() != null) {
+            Hibernate.initialize(rawOrder.getCustomer());
+            Hibernate.initialize(rawOrder.getCustomer().getCustomerAttributes());
+        }
+        for (PromotableOrderItem item : items) {
+            OrderItem orderItem = item.getOrderItem();
+            Hibernate.initialize(orderItem.getCategory());
+            Hibernate.initialize(orderItem.getOrderItemAttributes());
+            Hibernate.initialize(orderItem.getChildOrderItems());
+            if (orderItem instanceof DiscreteOrderItem) {
+                Sku sku = ((DiscreteOrderItem) orderItem).getSku();
+                Product product = ((DiscreteOrderItem) orderItem).getProduct();
+                if (sku != null) {
+                    Hibernate.initialize(sku);
+                    Hibernate.initialize(sku.getSkuAttributes());
+                }
+                if (product != null) {
+                    Hibernate.initialize(product);
+                    Hibernate.initialize(product.getProductAttributes());
+                }
+            }
+        }
+    }
+
+    /**
+     * Uses the variables prepared on the calling thread when this is a parallel qualification task
+     */
+    @Override
+    protected HashMap<String, Object> buildItemRuleVariables(PromotableOrderItem orderItem) {
+        Map<PromotableOrderItem, HashMap<String, Object>> prepared = preparedItemRuleVariables.get();
+        if (prepared != null) {
+            HashMap<String, Object> vars = prepared.get(orderItem);
+            if (vars != null) {
+                return new HashMap<>(vars);
+            }
+        }
+        return super.buildItemRuleVariables(orderItem);
+    }
+
+    protected List<PromotableCandidateItemOffer> getQualificationResult(Future<List<PromotableCandidateItemOffer>> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while qualifying item offers", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Unable to qualify item offer", e.getCause());
+        }
+    }
+
+    protected ForkJoinPool getQualificationPool() {
+        ForkJoinPool pool = qualificationPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = qualificationPool;
+                if (pool == null) {
+                    pool = new ForkJoinPool(parallelQualificationThreads, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+
+                        protected final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                        @Override
+                        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                            thread.setName("Offer-Qualification-" + threadNumber.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    }, null, false);
+                    qualificationPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    @Override
+    public void destroy() {
+        ForkJoinPool pool = qualificationPool;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
     
     /**
      * Provide an opportunity to for modules to override the potentialSavingsCalculation 
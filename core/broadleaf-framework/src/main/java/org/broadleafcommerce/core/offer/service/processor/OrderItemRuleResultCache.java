@@ -0,0 +1,320 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.core.catalog.service.CatalogChangedEvent;
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+import org.broadleafcommerce.core.order.domain.OrderItemAttribute;
+import org.broadleafcommerce.core.order.service.workflow.OrderItemChangeSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Remembers the outcome of offer item criteria rules for the items of recently priced orders so that incremental
+ * repricing only evaluates rules against the items a cart operation actually changed.
+ * <p>
+ * Results are kept per order and are only reused while the {@link OrderItemChangeSet} bound by the cart workflow says
+ * the item is unchanged and the item still looks the way it did when the rule was evaluated. Rules that read the order,
+ * the request or the current time can change outcome without the item changing, so those are never cached and always
+ * run in full. Offers are still qualified and applied against the whole order; only the per-item rule work is skipped.
+ * <p>
+ * Rules that navigate from the item to another entity are only cached when that entity is one of
+ * {@link #cacheableItemNavigations}. By default these are the sku, product and category, as used by the rules the admin
+ * rule builder produces (for example {@code discreteOrderItem.?category.?name}), and the item's prices. The fingerprint
+ * holds the sku, product and category ids, so pointing the item at another one invalidates the result, and every cached
+ * result is dropped when a {@link CatalogChangedEvent} is received. That event is only published for catalog changes
+ * made on this node, so changes made elsewhere are picked up once {@link #ttlSeconds} has passed.
+ * <p>
+ * Variables added by an {@link org.broadleafcommerce.core.offer.service.OfferServiceExtensionHandler} can hold anything,
+ * so a rule that reads one of them is never cached.
+ */
+@Service("blOrderItemRuleResultCache")
+public class OrderItemRuleResultCache implements ApplicationListener<CatalogChangedEvent> {
+
+    private static final Log LOG = LogFactory.getLog(OrderItemRuleResultCache.class);
+
+    protected static final Pattern NON_ITEM_SCOPE_PATTERN = Pattern.compile("\\b(order|getOrder|time|request)\\b");
+
+    /**
+     * Matches a rule that reads a property of something the item refers to, rather than just a property of the item. The
+     * first group is the item property that is navigated through.
+     */
+    protected static final Pattern ITEM_NAVIGATION_PATTERN = Pattern.compile(
+            "\\b(?:orderItem|discreteOrderItem|bundleOrderItem)\\s*\\.\\s*\\??\\s*(\\w+)\\s*(?:\\(\\s*\\))?\\s*\\.");
+
+    @Value("${pricing.incremental.enabled:false}")
+    protected boolean enabled = false;
+
+    @Value("${pricing.incremental.maxOrders:1000}")
+    protected int maxOrders = 1000;
+
+    @Value("${pricing.incremental.ttlSeconds:600}")
+    protected int ttlSeconds = 600;
+
+    /**
+     * The item properties a cached rule may navigate through, either as a property ({@code sku}) or as its getter
+     * ({@code getSku()})
+     */
+    @Value("${pricing.incremental.cacheableItemNavigations:sku,product,category,price,retailPrice,salePrice}")
+    protected String cacheableItemNavigations = "sku,product,category,price,retailPrice,salePrice";
+
+    protected volatile Set<String> cacheableItemNavigationSet;
+
+    protected final Map<Long, OrderResults> resultsByOrder = Collections.synchronizedMap(new LinkedHashMap<Long, OrderResults>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, OrderResults> eldest) {
+            return size() > maxOrders;
+        }
+    });
+
+    /**
+     * Called at the start of a pricing pass. Drops the results for the items in the change set bound to this thread,
+     * or every result for the order when no change set is bound or it asks for full repricing.
+     */
+    public void startPricing(Order order) {
+        if (!enabled || order == null || order.getId() == null) {
+            return;
+        }
+        OrderItemChangeSet changeSet = OrderItemChangeSet.getChangeSet();
+        OrderResults results = resultsByOrder.get(order.getId());
+        if (changeSet == null || changeSet.isFullRepricing() || results == null || results.isExpired(ttlSeconds)) {
+            resultsByOrder.put(order.getId(), new OrderResults());
+            return;
+        }
+        int evicted = results.evict(changeSet);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Incrementally repricing order %s, dropped %d cached item rule results",
+                    order.getId(), evicted));
+        }
+    }
+
+    /**
+     * @return the cached outcome of the rule for this item, or null if the rule has to be evaluated
+     */
+    public Boolean getResult(PromotableOrderItem promotableOrderItem, String rule) {
+        OrderResults results = getOrderResults(promotableOrderItem);
+        if (results == null) {
+            return null;
+        }
+        OrderItem orderItem = promotableOrderItem.getOrderItem();
+        RuleResult result = results.get(orderItem.getId(), rule);
+        if (result == null || !result.fingerprint.equals(buildFingerprint(orderItem))) {
+            return null;
+        }
+        return result.outcome;
+    }
+
+    public void putResult(PromotableOrderItem promotableOrderItem, String rule, boolean outcome) {
+        putResult(promotableOrderItem, rule, Collections.<String>emptySet(), outcome);
+    }
+
+    /**
+     * @param additionalVariables the names of the rule variables added by extension handlers for this item
+     */
+    public void putResult(PromotableOrderItem promotableOrderItem, String rule, Collection<String> additionalVariables,
+            boolean outcome) {
+        OrderResults results = getOrderResults(promotableOrderItem);
+        if (results != null && isCacheable(rule, additionalVariables)) {
+            OrderItem orderItem = promotableOrderItem.getOrderItem();
+            results.put(orderItem.getId(), rule, new RuleResult(buildFingerprint(orderItem), outcome));
+        }
+    }
+
+    /**
+     * Rules that can see more than the order item are always evaluated
+     */
+    public boolean isCacheable(String rule) {
+        return isCacheable(rule, Collections.<String>emptySet());
+    }
+
+    public boolean isCacheable(String rule, Collection<String> additionalVariables) {
+        if (NON_ITEM_SCOPE_PATTERN.matcher(rule).find()) {
+            return false;
+        }
+        for (String variable : additionalVariables) {
+            if (Pattern.compile("\\b" + Pattern.quote(variable) + "\\b").matcher(rule).find()) {
+                return false;
+            }
+        }
+        Set<String> navigations = getCacheableItemNavigations();
+        Matcher matcher = ITEM_NAVIGATION_PATTERN.matcher(rule);
+        while (matcher.find()) {
+            if (!navigations.contains(toPropertyName(matcher.group(1)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected Set<String> getCacheableItemNavigations() {
+        Set<String> navigations = cacheableItemNavigationSet;
+        if (navigations == null) {
+            navigations = new HashSet<>();
+            for (String navigation : StringUtils.split(StringUtils.defaultString(cacheableItemNavigations), ",")) {
+                navigations.add(navigation.trim());
+            }
+            cacheableItemNavigationSet = navigations;
+        }
+        return navigations;
+    }
+
+    protected String toPropertyName(String navigation) {
+        if (navigation.length() > 3 && navigation.startsWith("get") && Character.isUpperCase(navigation.charAt(3))) {
+            return StringUtils.uncapitalize(navigation.substring(3));
+        }
+        return navigation;
+    }
+
+    public void clear() {
+        resultsByOrder.clear();
+    }
+
+    /**
+     * A catalog change can change the outcome of any rule that navigates into the catalog
+     */
+    @Override
+    public void onApplicationEvent(CatalogChangedEvent event) {
+        clear();
+    }
+
+    protected OrderResults getOrderResults(PromotableOrderItem promotableOrderItem) {
+        if (!enabled) {
+            return null;
+        }
+        OrderItem orderItem = promotableOrderItem.getOrderItem();
+        if (orderItem == null || orderItem.getId() == null || orderItem.getOrder() == null
+                || orderItem.getOrder().getId() == null) {
+            return null;
+        }
+        return resultsByOrder.get(orderItem.getOrder().getId());
+    }
+
+    /**
+     * The state of the item an item criteria rule is expected to read. Price is left out on purpose since offer rules
+     * are evaluated against the price before adjustments.
+     */
+    protected List<Object> buildFingerprint(OrderItem orderItem) {
+        List<Object> fingerprint = new ArrayList<>(8);
+        fingerprint.add(orderItem.getQuantity());
+        fingerprint.add(orderItem.getRetailPrice());
+        fingerprint.add(orderItem.getSalePrice());
+        fingerprint.add(orderItem.getCategory() == null ? null : orderItem.getCategory().getId());
+        if (orderItem instanceof DiscreteOrderItem) {
+            DiscreteOrderItem discreteOrderItem = (DiscreteOrderItem) orderItem;
+            fingerprint.add(discreteOrderItem.getSku() == null ? null : discreteOrderItem.getSku().getId());
+            fingerprint.add(discreteOrderItem.getProduct() == null ? null : discreteOrderItem.getProduct().getId());
+        }
+        if (orderItem.getAuditable() != null && orderItem.getAuditable().getDateUpdated() != null) {
+            fingerprint.add(orderItem.getAuditable().getDateUpdated().getTime());
+        }
+        if (orderItem.getOrderItemAttributes() != null && !orderItem.getOrderItemAttributes().isEmpty()) {
+            Map<String, String> attributes = new TreeMap<>();
+            for (Map.Entry<String, OrderItemAttribute> entry : orderItem.getOrderItemAttributes().entrySet()) {
+                attributes.put(entry.getKey(), entry.getValue() == null ? null : entry.getValue().getValue());
+            }
+            fingerprint.add(attributes);
+        }
+        return fingerprint;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setCacheableItemNavigations(String cacheableItemNavigations) {
+        this.cacheableItemNavigations = cacheableItemNavigations;
+        this.cacheableItemNavigationSet = null;
+    }
+
+    protected static class OrderResults {
+
+        protected final long created = System.currentTimeMillis();
+        protected final ConcurrentHashMap<Long, Map<String, RuleResult>> resultsByItem = new ConcurrentHashMap<>();
+
+        protected boolean isExpired(int ttlSeconds) {
+            return System.currentTimeMillis() - created > TimeUnit.SECONDS.toMillis(ttlSeconds);
+        }
+
+        protected RuleResult get(Long orderItemId, String rule) {
+            Map<String, RuleResult> results = resultsByItem.get(orderItemId);
+            return results == null ? null : results.get(rule);
+        }
+
+        protected void put(Long orderItemId, String rule, RuleResult result) {
+            Map<String, RuleResult> results = resultsByItem.get(orderItemId);
+            if (results == null) {
+                results = new ConcurrentHashMap<>();
+                Map<String, RuleResult> existing = resultsByItem.putIfAbsent(orderItemId, results);
+                if (existing != null) {
+                    results = existing;
+                }
+            }
+            results.put(rule, result);
+        }
+
+        protected int evict(OrderItemChangeSet changeSet) {
+            int evicted = 0;
+            Iterator<Long> itr = resultsByItem.keySet().iterator();
+            while (itr.hasNext()) {
+                if (changeSet.isChanged(itr.next())) {
+                    itr.remove();
+                    evicted++;
+                }
+            }
+            return evicted;
+        }
+    }
+
+    protected static class RuleResult {
+
+        protected final List<Object> fingerprint;
+        protected final boolean outcome;
+
+        protected RuleResult(List<Object> fingerprint, boolean outcome) {
+            this.fingerprint = fingerprint;
+            this.outcome = outcome;
+        }
+    }
+
+}
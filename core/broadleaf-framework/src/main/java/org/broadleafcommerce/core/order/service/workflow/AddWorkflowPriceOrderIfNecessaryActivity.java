@@ -108,6 +108,7 @@ public class AddWorkflowPriceOrderIfNecessaryActivity extends BaseActivity<Proce
 
         // We now need to delete any OrderItems that were marked as such, including their children, if any
         for (OrderItem oi : request.getOisToDelete()) {
+            request.getChangeSet().addRemovedOrderItem(oi);
             order.getOrderItems().remove(oi);
 
             if (oi.getParentOrderItem() != null) {
@@ -184,9 +185,17 @@ public class AddWorkflowPriceOrderIfNecessaryActivity extends BaseActivity<Proce
         // can be overridden to provide that functionality.
         preSaveOperation(request);
 
+        // The item this operation added or updated is the only one pricing has to treat as changed
+        request.getChangeSet().addChangedOrderItem(request.getOrderItem());
+
         // Now that our collection items in our Order have been saved and the state of our Order is in a place where we
         // won't get a transient save exception, we are able to go ahead and save the order with optional pricing.
-        order = orderService.save(order, request.isPriceOrder());
+        OrderItemChangeSet.setChangeSet(request.getChangeSet());
+        try {
+            order = orderService.save(order, request.isPriceOrder());
+        } finally {
+            OrderItemChangeSet.setChangeSet(null);
+        }
         request.setOrder(order);
 
         return context;
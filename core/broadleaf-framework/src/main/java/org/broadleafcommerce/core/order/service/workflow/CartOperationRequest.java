@@ -52,6 +52,9 @@ public class CartOperationRequest {
     protected List<Long[]> multishipOptionsToDelete = new ArrayList<Long[]>();
     protected List<FulfillmentGroupItem> fgisToDelete = new ArrayList<FulfillmentGroupItem>();
     protected List<OrderItem> oisToDelete = new ArrayList<OrderItem>();
+
+    // The order items touched by this operation, handed to pricing so unchanged items can reuse earlier work
+    protected OrderItemChangeSet changeSet = new OrderItemChangeSet();
     
     public CartOperationRequest(Order order, OrderItemRequestDTO itemRequest, boolean priceOrder) {
         setOrder(order);
@@ -159,4 +162,12 @@ public class CartOperationRequest {
         this.oisToDelete = oisToDelete;
     }
     
+    public OrderItemChangeSet getChangeSet() {
+        return changeSet;
+    }
+
+    public void setChangeSet(OrderItemChangeSet changeSet) {
+        this.changeSet = changeSet;
+    }
+
 }
@@ -0,0 +1,100 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.order.service.workflow;
+
+import org.broadleafcommerce.common.classloader.release.ThreadLocalManager;
+import org.broadleafcommerce.core.order.domain.BundleOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The order items touched by a single cart operation. A {@link CartOperationRequest} builds one up as the add, update
+ * or remove workflow runs, and the change set is bound to the current thread while the order is saved and priced so
+ * that pricing can reuse work done for the items that did not change.
+ * <p>
+ * When no change set is bound, or {@link #isFullRepricing()} is true, pricing treats every item as changed.
+ */
+public class OrderItemChangeSet {
+
+    private static final ThreadLocal<OrderItemChangeSet> CHANGESET = ThreadLocalManager.createThreadLocal(OrderItemChangeSet.class, false);
+
+    public static OrderItemChangeSet getChangeSet() {
+        return CHANGESET.get();
+    }
+
+    public static void setChangeSet(OrderItemChangeSet changeSet) {
+        CHANGESET.set(changeSet);
+    }
+
+    protected Set<Long> changedOrderItemIds = new HashSet<>();
+    protected Set<Long> removedOrderItemIds = new HashSet<>();
+    protected boolean fullRepricing = false;
+
+    /**
+     * Records the given item, its child items and, for bundles, its discrete items as changed. An item that has not
+     * been saved yet has no id to record; it is new to the order and has no previous pricing work to reuse anyway.
+     */
+    public void addChangedOrderItem(OrderItem orderItem) {
+        if (orderItem == null) {
+            return;
+        }
+        if (orderItem.getId() != null) {
+            changedOrderItemIds.add(orderItem.getId());
+        }
+        if (orderItem.getChildOrderItems() != null) {
+            for (OrderItem child : orderItem.getChildOrderItems()) {
+                addChangedOrderItem(child);
+            }
+        }
+        if (orderItem instanceof BundleOrderItem) {
+            for (DiscreteOrderItem discreteOrderItem : ((BundleOrderItem) orderItem).getDiscreteOrderItems()) {
+                addChangedOrderItem(discreteOrderItem);
+            }
+        }
+    }
+
+    public void addRemovedOrderItem(OrderItem orderItem) {
+        if (orderItem != null && orderItem.getId() != null) {
+            removedOrderItemIds.add(orderItem.getId());
+        }
+    }
+
+    public boolean isChanged(Long orderItemId) {
+        return fullRepricing || changedOrderItemIds.contains(orderItemId) || removedOrderItemIds.contains(orderItemId);
+    }
+
+    public Set<Long> getChangedOrderItemIds() {
+        return changedOrderItemIds;
+    }
+
+    public Set<Long> getRemovedOrderItemIds() {
+        return removedOrderItemIds;
+    }
+
+    public boolean isFullRepricing() {
+        return fullRepricing;
+    }
+
+    public void setFullRepricing(boolean fullRepricing) {
+        this.fullRepricing = fullRepricing;
+    }
+
+}
@@ -18,10 +18,14 @@
 package org.broadleafcommerce.core.pricing.service.workflow;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.util.LatencyHistogram;
 import org.broadleafcommerce.core.offer.domain.Offer;
 import org.broadleafcommerce.core.offer.domain.OfferCode;
 import org.broadleafcommerce.core.offer.service.OfferService;
 import org.broadleafcommerce.core.offer.service.OfferValueModifierExtensionManager;
+import org.broadleafcommerce.core.offer.service.processor.OrderItemRuleResultCache;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.service.OrderService;
 import org.broadleafcommerce.core.workflow.BaseActivity;
@@ -29,12 +33,15 @@ import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 
 @Component("blOfferActivity")
 public class OfferActivity extends BaseActivity<ProcessContext<Order>> {
 
+    private static final Log LOG = LogFactory.getLog(OfferActivity.class);
+
     public static final int ORDER = 1000;
     public static final String FINALIZE_CHECKOUT = "FINALIZE_CHECKOUT";
     public static final String OFFERS_EXPIRED = "OFFERS_EXPIRED";
@@ -48,6 +55,19 @@ public class OfferActivity extends BaseActivity<ProcessContext<Order>> {
 
     @Resource(name = "blOfferValueModifierExtensionManager")
     protected OfferValueModifierExtensionManager offerModifierExtensionManager;
+
+    @Resource(name = "blOrderItemRuleResultCache")
+    protected OrderItemRuleResultCache ruleResultCache;
+
+    /**
+     * Time spent building the list of offers that could apply to an order
+     */
+    protected final LatencyHistogram buildOffersTimings = new LatencyHistogram();
+
+    /**
+     * Time spent qualifying and applying those offers to the order
+     */
+    protected final LatencyHistogram applyOffersTimings = new LatencyHistogram();
     
     public OfferActivity() {
         setOrder(ORDER);
@@ -62,19 +82,42 @@ public class OfferActivity extends BaseActivity<ProcessContext<Order>> {
             order = orderService.addOfferCodes(order, offerCodes, false);
         }
 
+        if (ruleResultCache != null) {
+            ruleResultCache.startPricing(order);
+        }
+
+        long start = System.nanoTime();
         List<Offer> offers = offerService.buildOfferListForOrder(order);
 
         if (CollectionUtils.isNotEmpty(offers) && offerModifierExtensionManager != null) {
             offerModifierExtensionManager.getProxy().modifyOfferValues(offers, order);
         }
+        long built = System.nanoTime();
+        buildOffersTimings.recordNanos(built - start);
 
         order = offerService.applyAndSaveOffersToOrder(offers, order);
+        long applied = System.nanoTime();
+        applyOffersTimings.recordNanos(applied - built);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Built %d candidate offers in %dms and applied them in %dms for order %s",
+                    offers == null ? 0 : offers.size(), TimeUnit.NANOSECONDS.toMillis(built - start),
+                    TimeUnit.NANOSECONDS.toMillis(applied - built), order == null ? null : order.getId()));
+        }
 
         context.setSeedData(order);
 
         return context;
     }
 
+    public LatencyHistogram getBuildOffersTimings() {
+        return buildOffersTimings;
+    }
+
+    public LatencyHistogram getApplyOffersTimings() {
+        return applyOffersTimings;
+    }
+
     protected List<OfferCode> getNewOfferCodesFromCustomer(Order order) {
         List<OfferCode> offerCodesFromCustomer = offerService.buildOfferCodeListForCustomer(order);
         List<OfferCode> offerCodesFromOrder = order.getAddedOfferCodes();
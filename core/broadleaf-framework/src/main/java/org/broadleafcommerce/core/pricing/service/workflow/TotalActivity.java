@@ -19,6 +19,7 @@ package org.broadleafcommerce.core.pricing.service.workflow;
 
 import org.broadleafcommerce.common.currency.util.BroadleafCurrencyUtils;
 import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.money.MoneyAccumulator;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroupFee;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
@@ -53,32 +54,32 @@ public class TotalActivity extends BaseActivity<ProcessContext<Order>> {
         
         setTaxSums(order);
         
-        Money total = BroadleafCurrencyUtils.getMoney(BigDecimal.ZERO, order.getCurrency());
-        total = total.add(order.getSubTotal());
-        total = total.subtract(order.getOrderAdjustmentsValue());
-        total = total.add(order.getTotalShipping());
+        MoneyAccumulator total = new MoneyAccumulator(BroadleafCurrencyUtils.getMoney(BigDecimal.ZERO, order.getCurrency()));
+        total.add(order.getSubTotal());
+        total.subtract(order.getOrderAdjustmentsValue());
+        total.add(order.getTotalShipping());
         // There may not be any taxes on the order
         if (order.getTotalTax() != null) {
-            total = total.add(order.getTotalTax());
+            total.add(order.getTotalTax());
         }
 
-        Money fees = BroadleafCurrencyUtils.getMoney(BigDecimal.ZERO, order.getCurrency());
+        MoneyAccumulator fees = new MoneyAccumulator(BroadleafCurrencyUtils.getMoney(BigDecimal.ZERO, order.getCurrency()));
         for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
-            Money fgTotal = BroadleafCurrencyUtils.getMoney(BigDecimal.ZERO, order.getCurrency());
-            fgTotal = fgTotal.add(fulfillmentGroup.getMerchandiseTotal());
-            fgTotal = fgTotal.add(fulfillmentGroup.getShippingPrice());
-            fgTotal = fgTotal.add(fulfillmentGroup.getTotalTax());
+            MoneyAccumulator fgTotal = new MoneyAccumulator(BroadleafCurrencyUtils.getMoney(BigDecimal.ZERO, order.getCurrency()));
+            fgTotal.add(fulfillmentGroup.getMerchandiseTotal());
+            fgTotal.add(fulfillmentGroup.getShippingPrice());
+            fgTotal.add(fulfillmentGroup.getTotalTax());
             
             for (FulfillmentGroupFee fulfillmentGroupFee : fulfillmentGroup.getFulfillmentGroupFees()) {
-                fgTotal = fgTotal.add(fulfillmentGroupFee.getAmount());
-                fees = fees.add(fulfillmentGroupFee.getAmount());
+                fgTotal.add(fulfillmentGroupFee.getAmount());
+                fees.add(fulfillmentGroupFee.getAmount());
             }
             
-            fulfillmentGroup.setTotal(fgTotal);
+            fulfillmentGroup.setTotal(fgTotal.toMoney());
         }
 
-        total = total.add(fees);
-        order.setTotal(total);
+        total.add(fees.toMoney());
+        order.setTotal(total.toMoney());
         
         context.setSeedData(order);
         return context;
@@ -30,6 +30,9 @@ import org.apache.solr.common.SolrDocument;
 import org.broadleafcommerce.common.exception.ServiceException;
 import org.broadleafcommerce.common.extension.ExtensionResultHolder;
 import org.broadleafcommerce.common.extension.ExtensionResultStatusType;
+import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
+import org.broadleafcommerce.common.i18n.service.TranslationConsiderationContext;
+import org.broadleafcommerce.common.i18n.service.TranslationService;
 import org.broadleafcommerce.common.locale.domain.Locale;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.core.catalog.dao.ProductDao;
@@ -37,6 +40,8 @@ import org.broadleafcommerce.core.catalog.dao.SkuDao;
 import org.broadleafcommerce.core.catalog.domain.Category;
 import org.broadleafcommerce.core.catalog.domain.CategoryProductXref;
 import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingConsiderationContext;
 import org.broadleafcommerce.core.search.dao.FieldDao;
 import org.broadleafcommerce.core.search.dao.IndexFieldDao;
 import org.broadleafcommerce.core.search.dao.SearchFacetDao;
@@ -107,6 +112,9 @@ public class SolrSearchServiceImpl implements SearchService, DisposableBean {
     @Resource(name = "blSolrSearchServiceExtensionManager")
     protected SolrSearchServiceExtensionManager extensionManager;
 
+    @Resource(name = "blTranslationService")
+    protected TranslationService translationService;
+
     @Value("${solr.global.facets.category.search:false}")
     protected boolean globalFacetsForCategorySearch;
 
@@ -585,6 +593,9 @@ public class SolrSearchServiceImpl implements SearchService, DisposableBean {
 
         extensionManager.getProxy().batchFetchCatalogData(products);
 
+        preloadTranslations(products);
+        preloadDynamicPrices(products);
+
         // We have to sort the products list by the order of the productIds list to maintain sortability in the UI
         if (products != null) {
             Collections.sort(products, new Comparator<Product>() {
@@ -602,6 +613,50 @@ public class SolrSearchServiceImpl implements SearchService, DisposableBean {
         return products;
     }
 
+    /**
+     * When translations are in use, reads the translations for the page of products and their default skus with one
+     * query per entity type, so rendering the page does not look up each translated field on its own.
+     *
+     * @param products
+     */
+    protected void preloadTranslations(List<Product> products) {
+        BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        if (products == null || products.isEmpty() || !TranslationConsiderationContext.hasTranslation()
+                || context == null || context.getLocale() == null || Boolean.TRUE.equals(context.getLocale().getDefaultFlag())) {
+            // default locale values are never translated
+            return;
+        }
+        List<String> productIds = new ArrayList<>(products.size());
+        List<String> skuIds = new ArrayList<>(products.size());
+        for (Product product : products) {
+            productIds.add(String.valueOf(product.getId()));
+            if (product.getDefaultSku() != null) {
+                skuIds.add(String.valueOf(product.getDefaultSku().getId()));
+            }
+        }
+        List<String> localeCodes = Collections.singletonList(context.getLocale().getLocaleCode());
+        translationService.preloadTranslatedValues(TranslatedEntity.PRODUCT, productIds, null, localeCodes);
+        translationService.preloadTranslatedValues(TranslatedEntity.SKU, skuIds, null, localeCodes);
+    }
+
+    /**
+     * Prices the default skus of the page of products together, rather than one at a time as the page renders
+     *
+     * @param products
+     */
+    protected void preloadDynamicPrices(List<Product> products) {
+        if (products == null || products.isEmpty() || !SkuPricingConsiderationContext.hasDynamicPricing()) {
+            return;
+        }
+        List<Sku> skus = new ArrayList<>(products.size());
+        for (Product product : products) {
+            if (product.getDefaultSku() != null) {
+                skus.add(product.getDefaultSku());
+            }
+        }
+        SkuPricingConsiderationContext.preloadDynamicSkuPrices(skus);
+    }
+
     /**
      * Create the wrapper DTO around the SearchFacet
      * 
@@ -23,9 +23,12 @@ package org.broadleafcommerce.core.search.service.solr.index;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.solr.client.solrj.SolrClient;
+import org.broadleafcommerce.common.exception.ServiceException;
 import org.broadleafcommerce.core.search.service.solr.SolrConfiguration;
 import org.broadleafcommerce.core.search.service.solr.SolrHelperService;
 
+import java.util.List;
+
 /**
  * Rebuilds the entire Solr index. This type of indexing operation prevents other threads from performing any other global
  * reindex operation. The rebuild operation is done on {@link SolrContext#getReindexServer()} and then at the end, the
@@ -35,7 +38,7 @@ import org.broadleafcommerce.core.search.service.solr.SolrHelperService;
  * @see {@link SolrHelperService#swapActiveCores()}
  * @author Phillip Verheyden (phillipuniverse)
  */
-public abstract class GlobalSolrFullReIndexOperation implements SolrIndexOperation {
+public abstract class GlobalSolrFullReIndexOperation implements ParallelSolrIndexOperation {
 
     private static final Log LOG = LogFactory.getLog(GlobalSolrFullReIndexOperation.class);
     
@@ -89,6 +92,15 @@ public abstract class GlobalSolrFullReIndexOperation implements SolrIndexOperati
         return solrConfiguration.getReindexCollectionName();
     }
 
+    /**
+     * By default, a full reindex operation does not know how to page by id and is executed serially. Override this
+     * to allow pages to be built concurrently when 'solr.index.parallel.enabled' is true.
+     */
+    @Override
+    public List<Long> readIndexableIds(int pageSize, Long lastId) throws ServiceException {
+        return null;
+    }
+
     @Override
     public void beforeCountIndexables() {
         // By default we want to do nothing here
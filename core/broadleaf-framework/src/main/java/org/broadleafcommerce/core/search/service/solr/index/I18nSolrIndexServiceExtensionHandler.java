@@ -18,9 +18,7 @@
 package org.broadleafcommerce.core.search.service.solr.index;
 
 import org.broadleafcommerce.common.extension.ExtensionResultStatusType;
-import org.broadleafcommerce.common.extension.ResultType;
 import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
-import org.broadleafcommerce.common.i18n.domain.Translation;
 import org.broadleafcommerce.common.i18n.service.TranslationBatchReadCache;
 import org.broadleafcommerce.common.i18n.service.TranslationConsiderationContext;
 import org.broadleafcommerce.common.i18n.service.TranslationService;
@@ -184,6 +182,9 @@ public class I18nSolrIndexServiceExtensionHandler extends AbstractSolrIndexServi
         }
 
         if (getTranslationEnabled()) {
+            if (BroadleafRequestContext.getBroadleafRequestContext() == null) {
+                BroadleafRequestContext.setBroadleafRequestContext(new BroadleafRequestContext());
+            }
             addEntitiesToTranslationCache(skuIds, TranslatedEntity.SKU);
             addEntitiesToTranslationCache(productIds, TranslatedEntity.PRODUCT);
             addEntitiesToTranslationCache(skuAttributeIds, TranslatedEntity.SKU_ATTRIBUTE);
@@ -193,13 +194,18 @@ public class I18nSolrIndexServiceExtensionHandler extends AbstractSolrIndexServi
         return ExtensionResultStatusType.HANDLED_CONTINUE;
     }
 
+    /**
+     * Reads every translation for the page of entities with one query per entity type. The values are held on the
+     * request context until {@link #endBatchEvent(List)}, so building each document's translated fields needs no
+     * further queries.
+     */
     protected void addEntitiesToTranslationCache(List<String> entityIds, TranslatedEntity translatedEntity) {
-        List<Translation> translations = translationService.findAllTranslationEntries(translatedEntity, ResultType.STANDARD, entityIds);
-        TranslationBatchReadCache.addToCache(translations);
+        translationService.preloadTranslatedValues(translatedEntity, entityIds, null, null);
     }
 
     @Override
     public ExtensionResultStatusType endBatchEvent(List<? extends Indexable> indexables) {
+        translationService.clearPreloadedTranslatedValues();
         TranslationBatchReadCache.clearCache();
         return ExtensionResultStatusType.HANDLED_CONTINUE;
     }
@@ -62,5 +62,14 @@ public interface IndexStatusInfo {
     Map<Long, Date> getDeadIndexEvents();
 
     void setDeadIndexEvents(Map<Long, Date> deadIndexEvents);
+
+    /**
+     * Progress and throughput of the current (or most recently completed) full index operation, if any
+     *
+     * @return
+     */
+    SolrIndexProgress getIndexProgress();
+
+    void setIndexProgress(SolrIndexProgress indexProgress);
     
 }
@@ -30,6 +30,7 @@ public class IndexStatusInfoImpl implements IndexStatusInfo {
     private Map<String, String> additionalInfo = new HashMap<String, String>();
     private Map<Long, Integer> indexErrors = new HashMap<Long, Integer>();
     private Map<Long, Date> deadIndexEvents = new HashMap<Long, Date>();
+    private SolrIndexProgress indexProgress;
 
     @Override
     public Date getLastIndexDate() {
@@ -70,5 +71,15 @@ public class IndexStatusInfoImpl implements IndexStatusInfo {
     public void setDeadIndexEvents(Map<Long, Date> deadIndexEvents) {
         this.deadIndexEvents = deadIndexEvents;
     }
+
+    @Override
+    public SolrIndexProgress getIndexProgress() {
+        return indexProgress;
+    }
+
+    @Override
+    public void setIndexProgress(SolrIndexProgress indexProgress) {
+        this.indexProgress = indexProgress;
+    }
     
 }
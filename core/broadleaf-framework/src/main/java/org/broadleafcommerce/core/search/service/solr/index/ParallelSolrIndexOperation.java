@@ -0,0 +1,49 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.search.service.solr.index;
+
+import org.broadleafcommerce.common.exception.ServiceException;
+import org.broadleafcommerce.core.catalog.domain.Indexable;
+
+import java.util.List;
+
+/**
+ * A {@link SolrIndexOperation} whose pages can be built concurrently. The only requirement is that the page boundaries
+ * can be determined cheaply up front by reading the ordered ids of the {@link Indexable} items. Each worker then calls
+ * {@link #readIndexables(int, Long)} with the last id of the previous page, so every page is read, built and added to
+ * Solr independently of the others.
+ * <p>
+ * Because the lifecycle hooks of an operation (e.g. {@link #beforeBuildPage()}) are invoked from several worker
+ * threads at once when parallel indexing is enabled, implementations must make sure those hooks are thread-safe.
+ *
+ * @see SolrIndexServiceImpl#executeSolrIndexOperation(SolrIndexOperation)
+ */
+public interface ParallelSolrIndexOperation extends SolrIndexOperation {
+
+    /**
+     * Read the ids of the next page of {@link Indexable} items in ascending id order, the same order and filtering
+     * used by {@link #readIndexables(int, Long)}.
+     *
+     * @param pageSize the maximum number of ids to return
+     * @param lastId the last id of the previous page, or null for the first page
+     * @return the ids for the page, or null if this operation is unable to page by id and should be executed serially
+     * @throws ServiceException
+     */
+    public List<Long> readIndexableIds(int pageSize, Long lastId) throws ServiceException;
+
+}
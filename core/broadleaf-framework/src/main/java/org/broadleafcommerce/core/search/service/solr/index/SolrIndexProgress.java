@@ -0,0 +1,159 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.search.service.solr.index;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and throughput information for a single {@link SolrIndexOperation} run. The counters are updated from the
+ * control thread and from any indexing worker threads, so all state is kept in atomics and a reference to an instance
+ * can safely be handed out to status consumers while the operation is still executing.
+ *
+ * @see IndexStatusInfo#getIndexProgress()
+ */
+public class SolrIndexProgress implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int parallelism;
+    private final long startTime;
+    private final AtomicLong endTime = new AtomicLong(-1L);
+    private final AtomicLong totalItems = new AtomicLong();
+    private final AtomicLong totalPages = new AtomicLong();
+    private final AtomicLong processedItems = new AtomicLong();
+    private final AtomicLong completedPages = new AtomicLong();
+    private final AtomicLong submittedPages = new AtomicLong();
+    private final AtomicBoolean failed = new AtomicBoolean(false);
+
+    public SolrIndexProgress(int parallelism) {
+        this.parallelism = parallelism;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the number of worker threads building pages, 1 for a serial operation
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public Date getStartDate() {
+        return new Date(startTime);
+    }
+
+    /**
+     * @return the date the operation finished, or null if it is still running
+     */
+    public Date getEndDate() {
+        long end = endTime.get();
+        return end < 0 ? null : new Date(end);
+    }
+
+    public boolean isRunning() {
+        return endTime.get() < 0;
+    }
+
+    public boolean isFailed() {
+        return failed.get();
+    }
+
+    public long getTotalItems() {
+        return totalItems.get();
+    }
+
+    public void setTotalItems(long totalItems) {
+        this.totalItems.set(totalItems);
+    }
+
+    public long getTotalPages() {
+        return totalPages.get();
+    }
+
+    public void setTotalPages(long totalPages) {
+        this.totalPages.set(totalPages);
+    }
+
+    public long getProcessedItems() {
+        return processedItems.get();
+    }
+
+    public long getCompletedPages() {
+        return completedPages.get();
+    }
+
+    /**
+     * @return the number of pages that have been handed to a worker but have not yet completed
+     */
+    public long getPendingPages() {
+        return Math.max(0L, submittedPages.get() - completedPages.get());
+    }
+
+    public void pageSubmitted() {
+        submittedPages.incrementAndGet();
+    }
+
+    public void pageCompleted(int itemCount) {
+        completedPages.incrementAndGet();
+        processedItems.addAndGet(itemCount);
+    }
+
+    public void complete(boolean failed) {
+        this.failed.set(failed);
+        endTime.compareAndSet(-1L, System.currentTimeMillis());
+    }
+
+    /**
+     * @return the elapsed time of the operation so far (or in total, once complete) in milliseconds
+     */
+    public long getElapsedMillis() {
+        long end = endTime.get();
+        return (end < 0 ? System.currentTimeMillis() : end) - startTime;
+    }
+
+    /**
+     * @return the average number of items indexed per second since the operation started
+     */
+    public double getItemsPerSecond() {
+        long elapsed = getElapsedMillis();
+        if (elapsed <= 0) {
+            return 0D;
+        }
+        return processedItems.get() * 1000D / elapsed;
+    }
+
+    /**
+     * @return the completion percentage based on the count of items determined at the start of the operation
+     */
+    public double getPercentComplete() {
+        long total = totalItems.get();
+        if (total <= 0) {
+            return isRunning() ? 0D : 100D;
+        }
+        return Math.min(100D, processedItems.get() * 100D / total);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s of %s items (%.1f%%) in %s of %s pages, %.1f items/sec, %s pending pages, parallelism %s",
+                getProcessedItems(), getTotalItems(), getPercentComplete(), getCompletedPages(), getTotalPages(),
+                getItemsPerSecond(), getPendingPages(), getParallelism());
+    }
+}
@@ -106,6 +106,14 @@ public interface SolrIndexService {
      * @throws IOException
      */
     public void executeSolrIndexOperation(SolrIndexOperation operation) throws ServiceException, IOException;
+
+    /**
+     * Progress and throughput of the index operation currently being executed by {@link #executeSolrIndexOperation(SolrIndexOperation)},
+     * or of the most recently completed one if none is running.
+     *
+     * @return the progress, or null if no operation has been executed yet
+     */
+    public SolrIndexProgress getIndexProgress();
     
     /**
      * Builds a set of {@link Indexable}s against the given {@link SolrServer}
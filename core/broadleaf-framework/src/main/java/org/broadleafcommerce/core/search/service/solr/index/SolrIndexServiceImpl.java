@@ -33,7 +33,9 @@ import org.broadleafcommerce.common.locale.domain.Locale;
 import org.broadleafcommerce.common.locale.service.LocaleService;
 import org.broadleafcommerce.common.sandbox.SandBoxHelper;
 import org.broadleafcommerce.common.site.domain.Catalog;
+import org.broadleafcommerce.common.util.ApplicationContextHolder;
 import org.broadleafcommerce.common.util.BLCCollectionUtils;
+import org.broadleafcommerce.common.util.EntityManagerAwareRunnable;
 import org.broadleafcommerce.common.util.StopWatch;
 import org.broadleafcommerce.common.util.StringUtil;
 import org.broadleafcommerce.common.util.TransactionUtils;
@@ -62,10 +64,12 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
+import org.springframework.util.ClassUtils;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
@@ -79,8 +83,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
+import javax.persistence.EntityManagerFactory;
 
 
 /**
@@ -119,6 +131,22 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
     @Value(value = "${solr.catalog.useLegacySolrIndexer:true}")
     protected boolean useLegacySolrIndexer = true;
 
+    @Value("${solr.index.parallel.enabled:false}")
+    protected boolean parallelIndexingEnabled = false;
+
+    @Value("${solr.index.parallel.threads:4}")
+    protected int parallelIndexingThreads = 4;
+
+    @Value("${solr.index.parallel.maxPendingPages:8}")
+    protected int parallelIndexingMaxPendingPages = 8;
+
+    protected volatile SolrIndexProgress indexProgress;
+
+    /**
+     * Cached result of {@link #isDefaultIndexableSource()}
+     */
+    protected volatile Boolean defaultIndexableSource;
+
     @Resource(name = "blProductDao")
     protected ProductDao productDao;
 
@@ -219,6 +247,11 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
                 return readAllActiveIndexables(pageSize, lastId);
             }
 
+            @Override
+            public List<Long> readIndexableIds(int pageSize, Long lastId) {
+                return readAllActiveIndexableIds(pageSize, lastId);
+            }
+
             @Override
             public Long countIndexables() {
                 return countIndexableItems();
@@ -239,6 +272,11 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
             LOG.info("Executing Indexing operation");
             StopWatch s = new StopWatch();
 
+            final boolean parallel = isParallelIndexingOperation(operation);
+            final SolrIndexProgress progress = new SolrIndexProgress(parallel ? parallelIndexingThreads : 1);
+            indexProgress = progress;
+            boolean failed = true;
+
             Object[] pack = saveState();
             try {
                 final Long numItemsToIndex;
@@ -253,36 +291,235 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("There are at most " + numItemsToIndex + " items to index");
                 }
-                performCachedOperation(new SolrIndexCachedOperation.CacheOperation() {
+                progress.setTotalItems(numItemsToIndex);
+                progress.setTotalPages(getTotalPageCount(numItemsToIndex));
 
-                    @Override
-                    public void execute() throws ServiceException {
-                        int page = 1;
-                        Long lastId = null;
-                        Long remainingNumItemsToIndex = numItemsToIndex;
-                        Long totalPages = getTotalPageCount(numItemsToIndex);
-
-                        while (remainingNumItemsToIndex > 0) {
-                            String pageNumberMessage = buildPageNumberMessage(page, totalPages);
-                            LOG.info(pageNumberMessage);
-
-                            lastId = buildIncrementalIndex(pageSize, lastId, operation);
-                            remainingNumItemsToIndex -= pageSize;
-                            page++;
-                        }
-                    }
-                });
+                if (parallel) {
+                    executeParallelIndexOperation((ParallelSolrIndexOperation) operation, numItemsToIndex, progress);
+                } else {
+                    performCachedOperation(new SolrIndexCachedOperation.CacheOperation() {
 
+                        @Override
+                        public void execute() throws ServiceException {
+                            executeSerialIndexPages(operation, numItemsToIndex, null, 1, progress);
+                        }
+                    });
+                }
+                failed = false;
             } finally {
+                progress.complete(failed);
                 restoreState(pack);
             }
 
-            LOG.info(String.format("Indexing operation completed in %s", s.toLapString()));
+            LOG.info(String.format("Indexing operation completed in %s (%s)", s.toLapString(), progress));
         } finally {
             operation.releaseLock();
         }
     }
 
+    /**
+     * Whether or not the pages of the given operation should be built concurrently by
+     * {@link #executeParallelIndexOperation(ParallelSolrIndexOperation, Long, SolrIndexProgress)}
+     *
+     * @param operation the operation about to be executed
+     * @return true if parallel indexing is enabled and supported by the operation
+     */
+    protected boolean isParallelIndexingOperation(SolrIndexOperation operation) {
+        return parallelIndexingEnabled && parallelIndexingThreads > 1 && operation instanceof ParallelSolrIndexOperation;
+    }
+
+    /**
+     * Reads and builds the remaining pages one at a time on the current thread. This must be called from within
+     * {@link #performCachedOperation(SolrIndexCachedOperation.CacheOperation)}.
+     */
+    protected void executeSerialIndexPages(SolrIndexOperation operation, Long numItemsToIndex, Long lastId, int page,
+            SolrIndexProgress progress) throws ServiceException {
+        Long remainingNumItemsToIndex = numItemsToIndex - ((long) (page - 1) * pageSize);
+        Long totalPages = getTotalPageCount(numItemsToIndex);
+
+        while (remainingNumItemsToIndex > 0) {
+            String pageNumberMessage = buildPageNumberMessage(page, totalPages);
+            LOG.info(pageNumberMessage);
+
+            progress.pageSubmitted();
+            lastId = buildIncrementalIndex(pageSize, lastId, operation);
+            remainingNumItemsToIndex -= pageSize;
+            page++;
+        }
+    }
+
+    /**
+     * <p>
+     * Builds the index with a bounded pipeline. The current thread walks the ordered ids of the indexables to determine
+     * the page boundaries, and each page is then read, built and added to Solr on a pool of
+     * 'solr.index.parallel.threads' workers, each with its own transaction, {@link BroadleafRequestContext} clone and
+     * {@link CatalogStructure} cache.
+     *
+     * <p>
+     * At most 'solr.index.parallel.maxPendingPages' pages may be queued or in flight at once; once that limit is reached
+     * the reading thread blocks until a worker finishes a page. The first failure stops any further pages from being
+     * submitted and is rethrown once the in-flight pages have drained.
+     *
+     * @param operation the operation being executed
+     * @param numItemsToIndex the count of items returned by {@link SolrIndexOperation#countIndexables()}
+     * @param progress the progress holder for this run
+     * @throws ServiceException
+     */
+    protected void executeParallelIndexOperation(final ParallelSolrIndexOperation operation, final Long numItemsToIndex,
+            final SolrIndexProgress progress) throws ServiceException {
+        final Semaphore pendingPages = new Semaphore(Math.max(parallelIndexingMaxPendingPages, parallelIndexingThreads));
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        final EntityManagerFactory emf = getEntityManagerFactory();
+        final Object[] pack = saveState();
+        ThreadPoolExecutor executor = createParallelIndexingExecutor();
+
+        try {
+            int page = 1;
+            Long lastId = null;
+            Long remainingNumItemsToIndex = numItemsToIndex;
+            Long totalPages = getTotalPageCount(numItemsToIndex);
+
+            while (remainingNumItemsToIndex > 0 && failure.get() == null) {
+                List<Long> ids = readIndexableIds(operation, lastId);
+                if (ids == null) {
+                    LOG.info("The index operation does not support reading by id, building the remaining pages serially");
+                    awaitParallelIndexPages(executor);
+                    executor = null;
+                    final Long serialLastId = lastId;
+                    final int serialPage = page;
+                    performCachedOperation(new SolrIndexCachedOperation.CacheOperation() {
+
+                        @Override
+                        public void execute() throws ServiceException {
+                            executeSerialIndexPages(operation, numItemsToIndex, serialLastId, serialPage, progress);
+                        }
+                    });
+                    break;
+                }
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                pendingPages.acquireUninterruptibly();
+                if (failure.get() != null) {
+                    pendingPages.release();
+                    break;
+                }
+
+                final String pageNumberMessage = buildPageNumberMessage(page, totalPages);
+                final Long pageLastId = lastId;
+                progress.pageSubmitted();
+                executor.execute(new EntityManagerAwareRunnable(pendingPages) {
+
+                    @Override
+                    protected void executeInternal() throws Exception {
+                        if (failure.get() != null) {
+                            return;
+                        }
+                        restoreState(pack);
+                        BroadleafRequestContext.setBroadleafRequestContext(context == null ? new BroadleafRequestContext()
+                                : context.createLightWeightClone());
+                        if (SolrIndexCachedOperation.getCache() == null) {
+                            SolrIndexCachedOperation.setCache(new CatalogStructure());
+                        }
+                        LOG.info(pageNumberMessage);
+                        buildIncrementalIndex(pageSize, pageLastId, operation);
+                    }
+
+                    @Override
+                    protected EntityManagerFactory getEntityManagerFactory() {
+                        return emf;
+                    }
+
+                    @Override
+                    protected void registerError(Exception e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+
+                lastId = ids.get(ids.size() - 1);
+                remainingNumItemsToIndex -= pageSize;
+                page++;
+            }
+        } finally {
+            awaitParallelIndexPages(executor);
+        }
+
+        Exception e = failure.get();
+        if (e != null) {
+            if (e instanceof ServiceException) {
+                throw (ServiceException) e;
+            }
+            throw new ServiceException("Could not build the Solr index in parallel", e);
+        }
+    }
+
+    /**
+     * Reads the ids for the next page in a read-only transaction
+     */
+    protected List<Long> readIndexableIds(ParallelSolrIndexOperation operation, Long lastId) throws ServiceException {
+        TransactionStatus status = TransactionUtils.createTransaction("readIndexableIds",
+                TransactionDefinition.PROPAGATION_REQUIRED, transactionManager, true);
+        try {
+            List<Long> ids = operation.readIndexableIds(pageSize, lastId);
+            TransactionUtils.finalizeTransaction(status, transactionManager, false);
+            return ids;
+        } catch (RuntimeException e) {
+            TransactionUtils.finalizeTransaction(status, transactionManager, true);
+            throw e;
+        }
+    }
+
+    /**
+     * The persistence unit that parallel indexing workers bind an {@link javax.persistence.EntityManager} from
+     */
+    protected EntityManagerFactory getEntityManagerFactory() {
+        return EntityManagerFactoryUtils.findEntityManagerFactory(ApplicationContextHolder.getApplicationContext(),
+                EntityManagerAwareRunnable.DEFAULT_ENTITY_MANAGER_NAME);
+    }
+
+    /**
+     * Creates the worker pool for a single parallel index operation. The queue is unbounded since the number of
+     * pending pages is already limited by the caller.
+     */
+    protected ThreadPoolExecutor createParallelIndexingExecutor() {
+        return new ThreadPoolExecutor(parallelIndexingThreads, parallelIndexingThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+                    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "Solr-Index-Worker-" + threadNumber.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    protected void awaitParallelIndexPages(ThreadPoolExecutor executor) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info("Waiting on Solr index pages to complete: " + indexProgress);
+                }
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public SolrIndexProgress getIndexProgress() {
+        return indexProgress;
+    }
+
     protected long getTotalPageCount(Long numItemsToIndex) {
         long numPagesToIndex = numItemsToIndex / pageSize;
         boolean hasRemainingItemsToIndex = numItemsToIndex % pageSize != 0;
@@ -388,6 +625,10 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
                 operation.afterBuildPage();
             }
 
+            SolrIndexProgress progress = indexProgress;
+            if (progress != null) {
+                progress.pageCompleted(indexables == null ? 0 : indexables.size());
+            }
 
             TransactionUtils.finalizeTransaction(status, transactionManager, false);
         } catch (RuntimeException e) {
@@ -476,6 +717,41 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
         return productDao.readAllActiveProducts(pageSize, lastId);
     }
 
+    /**
+     * Reads the ids that {@link #readAllActiveIndexables(int, Long)} would return for the same page. Used to determine
+     * page boundaries for parallel indexing.
+     * <p>
+     * The default implementation reads product ids, so it returns null (build the pages serially) when a subclass
+     * overrides {@link #readAllActiveIndexables(int, Long)} without also overriding this method. Otherwise the page
+     * boundaries would not match the indexables being read and pages would be skipped or built twice.
+     */
+    protected List<Long> readAllActiveIndexableIds(int pageSize, Long lastId) {
+        if (!isDefaultIndexableSource()) {
+            return null;
+        }
+        return productDao.readAllActiveProductIds(lastId, pageSize);
+    }
+
+    /**
+     * Whether or not {@link #readAllActiveIndexables(int, Long)} is the product based implementation declared here
+     */
+    protected boolean isDefaultIndexableSource() {
+        if (defaultIndexableSource == null) {
+            boolean isDefault = true;
+            Class<?> clazz = ClassUtils.getUserClass(getClass());
+            while (isDefault && clazz != null && clazz != SolrIndexServiceImpl.class) {
+                try {
+                    clazz.getDeclaredMethod("readAllActiveIndexables", int.class, Long.class);
+                    isDefault = false;
+                } catch (NoSuchMethodException e) {
+                    clazz = clazz.getSuperclass();
+                }
+            }
+            defaultIndexableSource = isDefault;
+        }
+        return defaultIndexableSource;
+    }
+
     @Override
     public List<Locale> getAllLocales() {
         List<Locale> allLocales = localeService.findAllLocales();
@@ -40,6 +40,9 @@ public class SolrIndexStatusServiceImpl implements SolrIndexStatusService {
     @Value("${solr.index.status.error.retry.count:3}")
     protected Integer solrIndexStatusErrorRetryCount;
 
+    @Resource(name="blSolrIndexService")
+    protected SolrIndexService solrIndexService;
+
     @Override
     public synchronized void setIndexStatus(IndexStatusInfo status) {
         clearErrorStatus(status);
@@ -60,6 +63,7 @@ public class SolrIndexStatusServiceImpl implements SolrIndexStatusService {
         for (SolrIndexStatusProvider provider : providers) {
             provider.readIndexStatus(status);
         }
+        status.setIndexProgress(solrIndexService.getIndexProgress());
         return status;
     }
 
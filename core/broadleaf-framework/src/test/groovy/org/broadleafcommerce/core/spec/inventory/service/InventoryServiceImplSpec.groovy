@@ -0,0 +1,152 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.spec.inventory.service
+
+import org.broadleafcommerce.core.catalog.dao.SkuDao
+import org.broadleafcommerce.core.catalog.domain.Sku
+import org.broadleafcommerce.core.catalog.service.CatalogService
+import org.broadleafcommerce.core.inventory.service.InventoryServiceImpl
+import org.broadleafcommerce.core.inventory.service.InventoryUnavailableException
+import org.broadleafcommerce.core.inventory.service.type.InventoryType
+
+import spock.lang.Specification
+
+class InventoryServiceImplSpec extends Specification {
+
+    SkuDao mockSkuDao = Mock()
+    CatalogService mockCatalogService = Mock()
+    InventoryServiceImpl inventoryService
+
+    def setup() {
+        inventoryService = new InventoryServiceImpl() {
+            @Override
+            protected void invalidateSkuInventory(Sku sku) {
+                // no cache to invalidate in this spec
+            }
+        }
+        inventoryService.skuDao = mockSkuDao
+        inventoryService.catalogService = mockCatalogService
+        inventoryService.bulkDecrementEnabled = true
+    }
+
+    def "Bulk decrement updates every sku once all of them are known to have enough inventory"() {
+        setup:
+        Sku first = Mock()
+        Sku second = Mock()
+        stubSku(first, 1L)
+        stubSku(second, 2L)
+        Map<Sku, Integer> quantities = new LinkedHashMap<>()
+        quantities.put(second, 2)
+        quantities.put(first, 1)
+
+        when:
+        inventoryService.decrementSku(quantities, null)
+
+        then:
+        1 * mockSkuDao.readQuantityAvailableForUpdate({ it as List == [1L, 2L] }) >> [(1L): 5, (2L): 5]
+        1 * first.setQuantityAvailable(4)
+        1 * second.setQuantityAvailable(3)
+        1 * mockCatalogService.saveSku(first)
+        1 * mockCatalogService.saveSku(second)
+    }
+
+    def "Bulk decrement leaves the first sku unchanged when the second one does not have enough inventory"() {
+        setup:
+        Sku first = Mock()
+        Sku second = Mock()
+        stubSku(first, 1L)
+        stubSku(second, 2L)
+        Map<Sku, Integer> quantities = new LinkedHashMap<>()
+        quantities.put(first, 1)
+        quantities.put(second, 3)
+
+        when:
+        inventoryService.decrementSku(quantities, null)
+
+        then:
+        1 * mockSkuDao.readQuantityAvailableForUpdate(_) >> [(1L): 5, (2L): 2]
+        InventoryUnavailableException e = thrown()
+        e.skuId == 2L
+        e.quantityRequested == 3
+        e.quantityAvailable == 2
+        0 * first.setQuantityAvailable(_)
+        0 * second.setQuantityAvailable(_)
+        0 * mockCatalogService.saveSku(_)
+    }
+
+    def "Bulk decrement aggregates the quantities of skus sharing the same inventory"() {
+        setup:
+        Sku first = Mock()
+        Sku duplicate = Mock()
+        stubSku(first, 1L)
+        stubSku(duplicate, 1L)
+        Map<Sku, Integer> quantities = new LinkedHashMap<>()
+        quantities.put(first, 2)
+        quantities.put(duplicate, 2)
+
+        when:
+        inventoryService.decrementSku(quantities, null)
+
+        then:
+        1 * mockSkuDao.readQuantityAvailableForUpdate(_) >> [(1L): 3]
+        thrown(InventoryUnavailableException)
+        0 * mockCatalogService.saveSku(_)
+    }
+
+    def "Bulk decrement skips only the skus without a tracked quantity"() {
+        setup:
+        Sku untracked = Mock()
+        Sku tracked = Mock()
+        stubSku(untracked, 1L)
+        stubSku(tracked, 2L)
+        Map<Sku, Integer> quantities = new LinkedHashMap<>()
+        quantities.put(untracked, 1)
+        quantities.put(tracked, 1)
+
+        when:
+        inventoryService.decrementSku(quantities, null)
+
+        then:
+        1 * mockSkuDao.readQuantityAvailableForUpdate(_) >> [(1L): null, (2L): 4]
+        0 * untracked.setQuantityAvailable(_)
+        0 * mockCatalogService.saveSku(untracked)
+        1 * tracked.setQuantityAvailable(3)
+        1 * mockCatalogService.saveSku(tracked)
+    }
+
+    def "Bulk decrement does not lock anything when no sku tracks its quantity"() {
+        setup:
+        Sku alwaysAvailable = Mock()
+        alwaysAvailable.isActive() >> true
+        alwaysAvailable.getId() >> 1L
+        alwaysAvailable.getInventoryType() >> InventoryType.ALWAYS_AVAILABLE
+
+        when:
+        inventoryService.decrementSku([(alwaysAvailable): 1], null)
+
+        then:
+        0 * mockSkuDao.readQuantityAvailableForUpdate(_)
+        0 * mockCatalogService.saveSku(_)
+    }
+
+    protected void stubSku(Sku sku, Long id) {
+        sku.isActive() >> true
+        sku.getId() >> id
+        sku.getInventoryType() >> InventoryType.CHECK_QUANTITY
+    }
+}
@@ -22,6 +22,7 @@ import org.broadleafcommerce.common.locale.service.LocaleService
 import org.broadleafcommerce.common.sandbox.SandBoxHelper
 import org.broadleafcommerce.core.catalog.dao.ProductDao
 import org.broadleafcommerce.core.catalog.dao.SkuDao
+import org.broadleafcommerce.core.catalog.domain.Indexable
 import org.broadleafcommerce.core.catalog.domain.ProductImpl
 import org.broadleafcommerce.core.catalog.domain.Sku
 import org.broadleafcommerce.core.catalog.domain.SkuImpl
@@ -34,10 +35,19 @@ import org.broadleafcommerce.core.search.service.solr.SolrHelperServiceImpl
 import org.broadleafcommerce.core.search.service.solr.SolrSearchServiceExtensionHandler
 import org.broadleafcommerce.core.search.service.solr.index.SolrIndexServiceExtensionHandler
 import org.broadleafcommerce.core.search.service.solr.index.SolrIndexServiceExtensionManager
+import org.broadleafcommerce.core.search.service.solr.index.ParallelSolrIndexOperation
+import org.broadleafcommerce.core.search.service.solr.index.SolrIndexOperation
+import org.broadleafcommerce.core.search.service.solr.index.SolrIndexProgress
 import org.broadleafcommerce.core.search.service.solr.index.SolrIndexServiceImpl
 import org.springframework.transaction.PlatformTransactionManager
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import javax.persistence.EntityManager
+import javax.persistence.EntityManagerFactory
+
 class SolrIndexServiceSpec extends Specification {
     
     SolrIndexServiceImpl service
@@ -66,5 +76,100 @@ class SolrIndexServiceSpec extends Specification {
         service.extensionManager = mockExtensionManager
         service.sandBoxHelper = mockSandBoxHelper
     }
-    
+
+    def "parallel indexing builds each page once on the worker threads"() {
+        setup:
+        CountDownLatch allPagesStarted = new CountDownLatch(3)
+        RecordingSolrIndexService parallelService = createRecordingService(new RecordingSolrIndexService(allPagesStarted))
+        mockProductDao.readAllActiveProductIds(null, 2) >> [1L, 2L]
+        mockProductDao.readAllActiveProductIds(2L, 2) >> [3L, 4L]
+        mockProductDao.readAllActiveProductIds(4L, 2) >> [5L, 6L]
+
+        when:
+        parallelService.executeParallelIndexOperation((ParallelSolrIndexOperation) parallelService.getReindexOperation(),
+                6L, new SolrIndexProgress(3))
+
+        then: "every page boundary is built exactly once, with all three pages in flight at the same time"
+        parallelService.builtLastIds.sort() == [null, 2L, 4L]
+        parallelService.concurrent == [true, true, true]
+        parallelService.buildThreads.unique().size() == 3
+        !parallelService.buildThreads.contains(Thread.currentThread().getName())
+    }
+
+    def "indexables read from another source are built serially"() {
+        setup:
+        RecordingSolrIndexService skuService = createRecordingService(new SkuSolrIndexService())
+
+        when:
+        skuService.executeParallelIndexOperation((ParallelSolrIndexOperation) skuService.getReindexOperation(),
+                6L, new SolrIndexProgress(3))
+
+        then: "the product ids are not used as page boundaries"
+        0 * mockProductDao.readAllActiveProductIds(_, _)
+        skuService.readAllActiveIndexableIds(2, null) == null
+        skuService.builtLastIds == [null, 2L, 4L]
+        skuService.buildThreads.unique() == [Thread.currentThread().getName()]
+    }
+
+    protected RecordingSolrIndexService createRecordingService(RecordingSolrIndexService recordingService) {
+        EntityManagerFactory mockEntityManagerFactory = Mock()
+        mockEntityManagerFactory.createEntityManager() >> Mock(EntityManager)
+
+        recordingService.transactionManager = mockTransactionManager
+        recordingService.productDao = mockProductDao
+        recordingService.entityManagerFactory = mockEntityManagerFactory
+        recordingService.pageSize = 2
+        recordingService.parallelIndexingEnabled = true
+        recordingService.parallelIndexingThreads = 3
+        recordingService.parallelIndexingMaxPendingPages = 3
+        return recordingService
+    }
+
+    /**
+     * Records the pages built instead of reading and indexing them
+     */
+    public static class RecordingSolrIndexService extends SolrIndexServiceImpl {
+
+        protected final CountDownLatch allPagesStarted
+        protected final List<Long> builtLastIds = Collections.synchronizedList(new ArrayList<Long>())
+        protected final List<String> buildThreads = Collections.synchronizedList(new ArrayList<String>())
+        protected final List<Boolean> concurrent = Collections.synchronizedList(new ArrayList<Boolean>())
+        protected EntityManagerFactory entityManagerFactory
+
+        public RecordingSolrIndexService(CountDownLatch allPagesStarted) {
+            this.allPagesStarted = allPagesStarted
+        }
+
+        @Override
+        protected Long buildIncrementalIndex(int pageSize, Long lastId, SolrIndexOperation operation) {
+            builtLastIds.add(lastId)
+            buildThreads.add(Thread.currentThread().getName())
+            if (allPagesStarted != null) {
+                allPagesStarted.countDown()
+                concurrent.add(allPagesStarted.await(10, TimeUnit.SECONDS))
+            }
+            return (lastId == null ? 0L : lastId) + pageSize
+        }
+
+        @Override
+        protected EntityManagerFactory getEntityManagerFactory() {
+            return entityManagerFactory
+        }
+    }
+
+    /**
+     * Indexes something other than products without overriding the id reader
+     */
+    public static class SkuSolrIndexService extends RecordingSolrIndexService {
+
+        public SkuSolrIndexService() {
+            super(null)
+        }
+
+        @Override
+        protected List<? extends Indexable> readAllActiveIndexables(int pageSize, Long lastId) {
+            return []
+        }
+    }
+
 }
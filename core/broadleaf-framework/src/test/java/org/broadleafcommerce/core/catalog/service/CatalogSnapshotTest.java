@@ -0,0 +1,94 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.catalog.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class CatalogSnapshotTest extends TestCase {
+
+    protected static final long NOW = 1000000L;
+
+    public void testCategoryUrlResolvesToActiveCategory() {
+        List<Object[]> categories = new ArrayList<>();
+        categories.add(category(3L, "/shoes", NOW - 10, NOW - 1));
+        categories.add(category(1L, "/shoes", NOW - 10, null));
+        categories.add(category(2L, "/hats", NOW + 10, null));
+        CatalogSnapshot snapshot = new CatalogSnapshot(categories, Collections.<Object[]>emptyList(),
+                Collections.<Object[]>emptyList(), NOW);
+
+        assertEquals(Long.valueOf(1L), snapshot.findActiveCategoryIdByUrl("/shoes", NOW));
+        assertNull(snapshot.findActiveCategoryIdByUrl("/hats", NOW));
+        assertEquals(Long.valueOf(2L), snapshot.findActiveCategoryIdByUrl("/hats", NOW + 11));
+        assertNull(snapshot.findActiveCategoryIdByUrl("/missing", NOW));
+    }
+
+    public void testSubCategoriesKeepDisplayOrderAndSkipInactive() {
+        List<Object[]> categories = new ArrayList<>();
+        categories.add(category(1L, "/root", NOW - 10, null));
+        categories.add(category(2L, "/a", NOW - 10, null));
+        categories.add(category(3L, "/b", NOW - 10, null));
+        categories.add(category(4L, "/c", null, null));
+        List<Object[]> xrefs = new ArrayList<>();
+        xrefs.add(new Object[] { 1L, 3L });
+        xrefs.add(new Object[] { 1L, 4L });
+        xrefs.add(new Object[] { 1L, 5L });
+        xrefs.add(new Object[] { 1L, 2L });
+        CatalogSnapshot snapshot = new CatalogSnapshot(categories, xrefs, Collections.<Object[]>emptyList(), NOW);
+
+        assertEquals(Arrays.asList(3L, 2L), snapshot.findActiveSubCategoryIds(1L, NOW));
+        assertEquals(Collections.emptyList(), snapshot.findActiveSubCategoryIds(2L, NOW));
+        assertNull(snapshot.findActiveSubCategoryIds(99L, NOW));
+    }
+
+    public void testActiveProductsFollowDefaultSkuDates() {
+        List<Object[]> categories = new ArrayList<>();
+        categories.add(category(1L, "/root", NOW - 10, null));
+        categories.add(category(2L, "/other", NOW - 10, null));
+        List<Object[]> products = new ArrayList<>();
+        products.add(product(1L, 30L, NOW, null));
+        products.add(product(1L, 10L, NOW - 10, NOW + 5));
+        products.add(product(1L, 20L, NOW + 1, null));
+        products.add(product(2L, 10L, NOW - 10, null));
+        CatalogSnapshot snapshot = new CatalogSnapshot(categories, Collections.<Object[]>emptyList(), products, NOW);
+
+        assertEquals(Arrays.asList(30L, 10L), snapshot.findActiveProductIds(1L, NOW));
+        assertEquals(Arrays.asList(30L, 20L), snapshot.findActiveProductIds(1L, NOW + 5));
+        assertEquals(Collections.singletonList(10L), snapshot.findActiveProductIds(2L, NOW));
+        assertNull(snapshot.findActiveProductIds(3L, NOW));
+        assertEquals(4, snapshot.getProductLinkCount());
+    }
+
+    protected Object[] category(Long id, String url, Long start, Long end) {
+        return new Object[] { id, url, toDate(start), toDate(end) };
+    }
+
+    protected Object[] product(Long categoryId, Long productId, Long start, Long end) {
+        return new Object[] { categoryId, productId, toDate(start), toDate(end) };
+    }
+
+    protected Date toDate(Long time) {
+        return time == null ? null : new Date(time);
+    }
+
+}
@@ -0,0 +1,196 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.catalog.service.dynamic;
+
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.broadleafcommerce.core.catalog.domain.ProductOptionValueImpl;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+import org.broadleafcommerce.core.catalog.domain.SkuBundleItem;
+import org.broadleafcommerce.core.catalog.domain.SkuImpl;
+import org.broadleafcommerce.core.catalog.domain.pricing.SkuPriceWrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class SkuPricingConsiderationContextTest extends TestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        BroadleafRequestContext.setBroadleafRequestContext(new BroadleafRequestContext());
+        SkuPricingConsiderationContext.clearThreadCache();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        SkuPricingConsiderationContext.clearThreadCache();
+        SkuPricingConsiderationContext.setSkuPricingService(null);
+        SkuPricingConsiderationContext.setSkuPricingConsiderationContext(null);
+        SkuPricingConsiderationContext.setSkuPricingResultCache(null, null);
+        BroadleafRequestContext.setBroadleafRequestContext(null);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testConsiderationKeyOnlyUsesDeclaredConsiderations() {
+        HashMap considerations = new HashMap();
+        considerations.put("segment", "gold");
+        considerations.put("customer", "customer-1");
+        List<String> names = Collections.singletonList("segment");
+        String key = SkuPricingConsiderationContext.buildConsiderationCacheKey(considerations, names);
+
+        considerations.put("customer", "customer-2");
+        assertEquals(key, SkuPricingConsiderationContext.buildConsiderationCacheKey(considerations, names));
+
+        considerations.put("segment", "silver");
+        assertFalse(key.equals(SkuPricingConsiderationContext.buildConsiderationCacheKey(considerations, names)));
+
+        assertNull(SkuPricingConsiderationContext.buildConsiderationCacheKey(considerations, null));
+    }
+
+    @SuppressWarnings("rawtypes")
+    public void testPreloadPricesMissesTogetherAndSharesResults() {
+        CountingPricingService pricingService = new CountingPricingService();
+        MapResultCache resultCache = new MapResultCache();
+        SkuPricingConsiderationContext.setSkuPricingService(pricingService);
+        SkuPricingConsiderationContext.setSkuPricingConsiderationContext(new HashMap());
+        SkuPricingConsiderationContext.setSkuPricingResultCache(resultCache, "gold");
+
+        Sku sku1 = createSku(1L);
+        Sku sku2 = createSku(2L);
+        SkuPricingConsiderationContext.preloadDynamicSkuPrices(Arrays.asList(sku1, sku2, sku1));
+
+        assertEquals(1, pricingService.bulkCalls);
+        assertEquals(2, pricingService.pricedSkus);
+        assertEquals(new Money("2"), SkuPricingConsiderationContext.getThreadCache().get(2L).getRetailPrice());
+        assertEquals(2, resultCache.prices.size());
+
+        // a later request with the same considerations is served from the shared cache
+        SkuPricingConsiderationContext.clearThreadCache();
+        SkuPricingConsiderationContext.preloadDynamicSkuPrices(Arrays.asList(sku1, sku2));
+        assertEquals(new Money("1"), SkuPricingConsiderationContext.getDynamicSkuPrices(sku1).getRetailPrice());
+        assertEquals(1, pricingService.bulkCalls);
+        assertEquals(2, pricingService.pricedSkus);
+    }
+
+    @SuppressWarnings("rawtypes")
+    public void testPricesAreNotSharedWithoutConsiderationKey() {
+        CountingPricingService pricingService = new CountingPricingService();
+        MapResultCache resultCache = new MapResultCache();
+        SkuPricingConsiderationContext.setSkuPricingService(pricingService);
+        SkuPricingConsiderationContext.setSkuPricingConsiderationContext(new HashMap());
+        SkuPricingConsiderationContext.setSkuPricingResultCache(resultCache, null);
+
+        SkuPricingConsiderationContext.getDynamicSkuPrices(createSku(1L));
+
+        assertEquals(1, pricingService.pricedSkus);
+        assertTrue(resultCache.prices.isEmpty());
+    }
+
+    protected Sku createSku(Long id) {
+        Sku sku = new SkuImpl();
+        sku.setId(id);
+        return sku;
+    }
+
+    protected static class CountingPricingService implements BulkDynamicSkuPricingService {
+
+        protected int bulkCalls = 0;
+        protected int pricedSkus = 0;
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Map<Long, DynamicSkuPrices> getSkuPrices(List<SkuPriceWrapper> skuWrappers, HashMap skuPricingConsiderations) {
+            bulkCalls++;
+            Map<Long, DynamicSkuPrices> prices = new HashMap<>();
+            for (SkuPriceWrapper wrapper : skuWrappers) {
+                prices.put(wrapper.getTargetSku().getId(), getSkuPrices(wrapper, skuPricingConsiderations));
+            }
+            return prices;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public DynamicSkuPrices getSkuPrices(SkuPriceWrapper skuWrapper, HashMap skuPricingConsiderations) {
+            pricedSkus++;
+            DynamicSkuPrices prices = new DynamicSkuPrices();
+            prices.setRetailPrice(new Money(String.valueOf(skuWrapper.getTargetSku().getId())));
+            return prices;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public DynamicSkuPrices getSkuPrices(Sku sku, HashMap skuPricingConsiderations) {
+            return getSkuPrices(new SkuPriceWrapper(sku), skuPricingConsiderations);
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public DynamicSkuPrices getSkuBundleItemPrice(SkuBundleItem sku, HashMap skuPricingConsiderations) {
+            return new DynamicSkuPrices();
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public DynamicSkuPrices getPriceAdjustment(ProductOptionValueImpl productOptionValueImpl, Money priceAdjustment,
+                HashMap skuPricingConsiderationContext) {
+            return new DynamicSkuPrices();
+        }
+    }
+
+    protected static class MapResultCache implements SkuPricingResultCache {
+
+        protected final Map<String, DynamicSkuPrices> prices = new HashMap<>();
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public DynamicSkuPrices get(String considerationKey, Long skuId) {
+            return prices.get(considerationKey + "|" + skuId);
+        }
+
+        @Override
+        public void put(String considerationKey, Long skuId, DynamicSkuPrices prices) {
+            this.prices.put(considerationKey + "|" + skuId, prices);
+        }
+
+        @Override
+        public void invalidateSku(Long skuId) {
+            List<String> keys = new ArrayList<>(prices.keySet());
+            for (String key : keys) {
+                if (key.endsWith("|" + skuId)) {
+                    prices.remove(key);
+                }
+            }
+        }
+
+        @Override
+        public void invalidateAll() {
+            prices.clear();
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.offer.service;
+
+import org.broadleafcommerce.core.offer.domain.Offer;
+import org.broadleafcommerce.core.offer.domain.OfferImpl;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteriaImpl;
+import org.broadleafcommerce.core.offer.domain.OfferQualifyingCriteriaXref;
+import org.broadleafcommerce.core.offer.domain.OfferQualifyingCriteriaXrefImpl;
+import org.broadleafcommerce.core.offer.domain.OfferTargetCriteriaXref;
+import org.broadleafcommerce.core.offer.domain.OfferTargetCriteriaXrefImpl;
+import org.broadleafcommerce.core.offer.service.type.OfferType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class OfferCandidateIndexTest extends TestCase {
+
+    protected long nextOfferId = 1;
+
+    public void testOffersArePrunedByRequiredIds() {
+        Offer productOffer = createItemOffer(null, "?discreteOrderItem.?product.?id==10");
+        Offer skuOffer = createItemOffer(null, "([100,101] contains ?discreteOrderItem.?sku.?id)");
+        Offer categoryOffer = createItemOffer(null,
+                "CollectionUtils.intersection(?discreteOrderItem.?category.?id,[5]).size()>0&&?discreteOrderItem.?quantity>1");
+        Offer unindexedOffer = createItemOffer(null, "?discreteOrderItem.?price.getAmount()>50");
+        List<Offer> offers = Arrays.asList(productOffer, skuOffer, categoryOffer, unindexedOffer);
+
+        OfferCandidateIndex index = new OfferCandidateIndex(offers);
+        assertEquals(3, index.getIndexedOfferCount());
+
+        assertEquals(Arrays.asList(productOffer, unindexedOffer), index.findCandidateOffers(offers, keys("product:10", "sku:1")));
+        assertEquals(Arrays.asList(skuOffer, categoryOffer, unindexedOffer),
+                index.findCandidateOffers(offers, keys("sku:101", "category:5")));
+        assertEquals(Collections.singletonList(unindexedOffer), index.findCandidateOffers(offers, keys("product:11")));
+    }
+
+    public void testDisjunctionsAndNegationsAreNotIndexed() {
+        Offer orOffer = createItemOffer(null, "?discreteOrderItem.?product.?id==10||?discreteOrderItem.?product.?id==11");
+        Offer notOffer = createItemOffer(null, "!(?discreteOrderItem.?product.?id==10)");
+        Offer notEqualsOffer = createItemOffer(null, "?discreteOrderItem.?product.?id!=10");
+        List<Offer> offers = Arrays.asList(orOffer, notOffer, notEqualsOffer);
+
+        OfferCandidateIndex index = new OfferCandidateIndex(offers);
+        assertEquals(0, index.getIndexedOfferCount());
+        assertEquals(offers, index.findCandidateOffers(offers, keys("product:12")));
+    }
+
+    public void testQualifierAndTargetMustBothBePresent() {
+        Offer offer = createItemOffer("(?discreteOrderItem.?product.?id==10)", "?discreteOrderItem.?sku.?id==200");
+        List<Offer> offers = Collections.singletonList(offer);
+
+        OfferCandidateIndex index = new OfferCandidateIndex(offers);
+        assertTrue(index.findCandidateOffers(offers, keys("product:10")).isEmpty());
+        assertTrue(index.findCandidateOffers(offers, keys("sku:200")).isEmpty());
+        assertEquals(offers, index.findCandidateOffers(offers, keys("product:10", "sku:200")));
+    }
+
+    public void testIndexIsStaleWhenCriteriaChange() {
+        Offer offer = createItemOffer(null, "?discreteOrderItem.?product.?id==10");
+        List<Offer> offers = new ArrayList<>(Collections.singletonList(offer));
+        OfferCandidateIndex index = new OfferCandidateIndex(offers);
+        assertTrue(index.isBuiltFrom(offers));
+
+        offer.getTargetItemCriteriaXref().iterator().next().getOfferItemCriteria().setMatchRule("?discreteOrderItem.?product.?id==11");
+        assertFalse(index.isBuiltFrom(offers));
+
+        offers.add(createItemOffer(null, null));
+        assertFalse(new OfferCandidateIndex(Collections.singletonList(offer)).isBuiltFrom(offers));
+    }
+
+    protected Set<String> keys(String... keys) {
+        return new HashSet<>(Arrays.asList(keys));
+    }
+
+    protected Offer createItemOffer(String qualifierRule, String targetRule) {
+        Offer offer = new OfferImpl();
+        offer.setId(nextOfferId++);
+        offer.setType(OfferType.ORDER_ITEM);
+        if (qualifierRule != null) {
+            OfferQualifyingCriteriaXref xref = new OfferQualifyingCriteriaXrefImpl();
+            xref.setOffer(offer);
+            xref.setOfferItemCriteria(createCriteria(qualifierRule));
+            offer.setQualifyingItemCriteriaXref(new HashSet<>(Collections.singleton(xref)));
+        }
+        if (targetRule != null) {
+            OfferTargetCriteriaXref xref = new OfferTargetCriteriaXrefImpl();
+            xref.setOffer(offer);
+            xref.setOfferItemCriteria(createCriteria(targetRule));
+            offer.setTargetItemCriteriaXref(new HashSet<>(Collections.singleton(xref)));
+        }
+        return offer;
+    }
+
+    protected OfferItemCriteria createCriteria(String rule) {
+        OfferItemCriteria criteria = new OfferItemCriteriaImpl();
+        criteria.setQuantity(1);
+        criteria.setMatchRule(rule);
+        return criteria;
+    }
+
+}
@@ -19,6 +19,8 @@ package org.broadleafcommerce.core.offer.service.processor;
 
 import junit.framework.TestCase;
 
+import org.broadleafcommerce.common.config.service.SystemPropertiesService;
+import org.broadleafcommerce.common.extension.ExtensionResultStatusType;
 import org.broadleafcommerce.common.money.Money;
 import org.broadleafcommerce.common.service.GenericEntityService;
 import org.broadleafcommerce.core.offer.dao.CustomerOfferDao;
@@ -33,11 +35,14 @@ import org.broadleafcommerce.core.offer.domain.OfferTargetCriteriaXref;
 import org.broadleafcommerce.core.offer.domain.OrderItemAdjustment;
 import org.broadleafcommerce.core.offer.domain.OrderItemAdjustmentImpl;
 import org.broadleafcommerce.core.offer.domain.OrderItemPriceDetailAdjustment;
+import org.broadleafcommerce.core.offer.service.AbstractOfferServiceExtensionHandler;
 import org.broadleafcommerce.core.offer.service.OfferDataItemProvider;
+import org.broadleafcommerce.core.offer.service.OfferServiceExtensionManager;
 import org.broadleafcommerce.core.offer.service.OfferServiceImpl;
 import org.broadleafcommerce.core.offer.service.OfferServiceUtilitiesImpl;
 import org.broadleafcommerce.core.offer.service.discount.CandidatePromotionItems;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableCandidateItemOffer;
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableCandidateOrderOffer;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableItemFactoryImpl;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOfferUtility;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOfferUtilityImpl;
@@ -61,8 +66,12 @@ import org.broadleafcommerce.core.order.service.call.FulfillmentGroupItemRequest
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 
@@ -266,6 +275,84 @@ public class ItemOfferProcessorTest extends TestCase {
         verify();
     }
 
+    public void testFilterOffersInParallel() throws Exception {
+        replay();
+
+        SystemPropertiesService propertiesServiceMock = EasyMock.createMock(SystemPropertiesService.class);
+        EasyMock.expect(propertiesServiceMock.resolveBooleanSystemProperty(ItemOfferProcessorImpl.PARALLEL_QUALIFICATION_ENABLED_PROPERTY, false)).andReturn(true).anyTimes();
+        EasyMock.replay(propertiesServiceMock);
+        itemProcessor.systemPropertiesService = propertiesServiceMock;
+        itemProcessor.parallelQualificationThreads = 2;
+        itemProcessor.parallelQualificationMinOffers = 1;
+
+        final Thread callingThread = Thread.currentThread();
+        final AtomicInteger handlerCalls = new AtomicInteger();
+        final AtomicBoolean handlerCalledOffThread = new AtomicBoolean();
+        OfferServiceExtensionManager extensionManager = new OfferServiceExtensionManager();
+        extensionManager.registerHandler(new AbstractOfferServiceExtensionHandler() {
+
+            @Override
+            public ExtensionResultStatusType applyAdditionalRuleVariablesForItemOfferEvaluation(PromotableOrderItem orderItem, HashMap<String, Object> vars) {
+                handlerCalls.incrementAndGet();
+                if (Thread.currentThread() != callingThread) {
+                    handlerCalledOffThread.set(true);
+                }
+                vars.put("promotedCategory", "TEST2");
+                return ExtensionResultStatusType.HANDLED_CONTINUE;
+            }
+        });
+        itemProcessor.extensionManager = extensionManager;
+
+        List<Offer> offers = new ArrayList<Offer>();
+        for (int i = 0; i < 4; i++) {
+            offers.addAll(dataProvider.createItemBasedOfferWithItemCriteria(
+                "order.subTotal.getAmount()>20",
+                OfferDiscountType.PERCENT_OFF,
+                "([MVEL.eval(\"toUpperCase()\",\"test1\"), MVEL.eval(\"toUpperCase()\",\"test2\")] contains MVEL.eval(\"toUpperCase()\", discreteOrderItem.category.name))",
+                "([MVEL.eval(\"toUpperCase()\",\"test1\"), MVEL.eval(\"toUpperCase()\",\"test2\")] contains MVEL.eval(\"toUpperCase()\", discreteOrderItem.category.name))"
+            ));
+            offers.addAll(dataProvider.createItemBasedOfferWithItemCriteria(
+                "order.subTotal.getAmount()>20",
+                OfferDiscountType.PERCENT_OFF,
+                "MVEL.eval(\"toUpperCase()\", discreteOrderItem.category.name) == promotedCategory",
+                "MVEL.eval(\"toUpperCase()\", discreteOrderItem.category.name) == promotedCategory"
+            ));
+            offers.addAll(dataProvider.createItemBasedOfferWithItemCriteria(
+                "order.subTotal.getAmount()>20",
+                OfferDiscountType.PERCENT_OFF,
+                "([MVEL.eval(\"toUpperCase()\",\"test5\"), MVEL.eval(\"toUpperCase()\",\"test6\")] contains MVEL.eval(\"toUpperCase()\", discreteOrderItem.category.name))",
+                "([MVEL.eval(\"toUpperCase()\",\"test5\"), MVEL.eval(\"toUpperCase()\",\"test6\")] contains MVEL.eval(\"toUpperCase()\", discreteOrderItem.category.name))"
+            ));
+        }
+
+        try {
+            PromotableOrder order = dataProvider.createBasicPromotableOrder(promotableOfferUtility);
+            List<PromotableCandidateItemOffer> parallelOffers = new ArrayList<PromotableCandidateItemOffer>();
+            itemProcessor.filterOffers(order, offers, new ArrayList<PromotableCandidateOrderOffer>(), parallelOffers);
+
+            //the extension handler is only called on the pricing thread, once per item, before the fan out
+            assertFalse(handlerCalledOffThread.get());
+            assertEquals(order.getDiscountableOrderItems().size(), handlerCalls.get());
+
+            //the same offers qualify, in the same order, as when qualifying sequentially
+            itemProcessor.parallelQualificationThreads = 1;
+            order = dataProvider.createBasicPromotableOrder(promotableOfferUtility);
+            List<PromotableCandidateItemOffer> sequentialOffers = new ArrayList<PromotableCandidateItemOffer>();
+            itemProcessor.filterOffers(order, offers, new ArrayList<PromotableCandidateOrderOffer>(), sequentialOffers);
+
+            assertEquals(8, sequentialOffers.size());
+            assertEquals(sequentialOffers.size(), parallelOffers.size());
+            for (int i = 0; i < sequentialOffers.size(); i++) {
+                assertSame(sequentialOffers.get(i).getOffer(), parallelOffers.get(i).getOffer());
+                assertEquals(sequentialOffers.get(i).getCandidateQualifiersMap().size(), parallelOffers.get(i).getCandidateQualifiersMap().size());
+            }
+        } finally {
+            itemProcessor.destroy();
+        }
+
+        verify();
+    }
+
     public void testCouldOfferApplyToOrder() throws Exception {
         replay();
 
@@ -324,6 +411,62 @@ public class ItemOfferProcessorTest extends TestCase {
         verify();
     }
 
+    public void testCouldOrderItemMeetOfferRequirementReusesCachedOutcome() throws Exception {
+        replay();
+
+        final AtomicInteger evaluations = new AtomicInteger();
+        ItemOfferProcessorImpl processor = new ItemOfferProcessorImpl(promotableOfferUtility) {
+            @Override
+            public Boolean executeExpression(String expression, Map<String, Object> vars) {
+                evaluations.incrementAndGet();
+                return super.executeExpression(expression, vars);
+            }
+        };
+        OrderItemRuleResultCache ruleResultCache = new OrderItemRuleResultCache();
+        ruleResultCache.setEnabled(true);
+        processor.ruleResultCache = ruleResultCache;
+        OfferServiceExtensionManager extensionManager = new OfferServiceExtensionManager();
+        extensionManager.registerHandler(new AbstractOfferServiceExtensionHandler() {
+
+            @Override
+            public ExtensionResultStatusType applyAdditionalRuleVariablesForItemOfferEvaluation(PromotableOrderItem orderItem, HashMap<String, Object> vars) {
+                vars.put("promotedCategory", "TEST1");
+                return ExtensionResultStatusType.HANDLED_CONTINUE;
+            }
+        });
+        processor.extensionManager = extensionManager;
+
+        PromotableOrder order = dataProvider.createBasicPromotableOrder(promotableOfferUtility);
+        PromotableOrderItem item = order.getDiscountableOrderItems().get(0);
+        ruleResultCache.startPricing(order.getOrder());
+
+        //a category rule as produced by the admin rule builder
+        List<Offer> offers = dataProvider.createItemBasedOfferWithItemCriteria(
+            "order.subTotal.getAmount()>20",
+            OfferDiscountType.PERCENT_OFF,
+            "MvelHelper.toUpperCase(discreteOrderItem.?category.?name)==MvelHelper.toUpperCase(\"test1\")",
+            "MvelHelper.toUpperCase(discreteOrderItem.?category.?name)==MvelHelper.toUpperCase(\"test1\")"
+        );
+        OfferQualifyingCriteriaXref xref = offers.get(0).getQualifyingItemCriteriaXref().iterator().next();
+        assertTrue(processor.couldOrderItemMeetOfferRequirement(xref.getOfferItemCriteria(), item));
+        assertTrue(processor.couldOrderItemMeetOfferRequirement(xref.getOfferItemCriteria(), item));
+        assertEquals(1, evaluations.get());
+
+        //a rule reading a variable added by an extension handler is evaluated every time
+        offers = dataProvider.createItemBasedOfferWithItemCriteria(
+            "order.subTotal.getAmount()>20",
+            OfferDiscountType.PERCENT_OFF,
+            "MvelHelper.toUpperCase(discreteOrderItem.?category.?name)==promotedCategory",
+            "MvelHelper.toUpperCase(discreteOrderItem.?category.?name)==promotedCategory"
+        );
+        xref = offers.get(0).getQualifyingItemCriteriaXref().iterator().next();
+        assertTrue(processor.couldOrderItemMeetOfferRequirement(xref.getOfferItemCriteria(), item));
+        assertTrue(processor.couldOrderItemMeetOfferRequirement(xref.getOfferItemCriteria(), item));
+        assertEquals(3, evaluations.get());
+
+        verify();
+    }
+
     public void testCouldOfferApplyToOrderItems() throws Exception {
         replay();
 
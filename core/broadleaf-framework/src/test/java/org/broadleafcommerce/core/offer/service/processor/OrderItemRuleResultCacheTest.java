@@ -0,0 +1,207 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2022 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import junit.framework.TestCase;
+
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.core.catalog.domain.Category;
+import org.broadleafcommerce.core.catalog.domain.CategoryImpl;
+import org.broadleafcommerce.core.catalog.service.CatalogChangedEvent;
+import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItemImpl;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderImpl;
+import org.broadleafcommerce.core.order.service.workflow.OrderItemChangeSet;
+import org.easymock.EasyMock;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Jeff Fischer
+ */
+public class OrderItemRuleResultCacheTest extends TestCase {
+
+    protected static final String ITEM_RULE = "discreteOrderItem.quantity > 1";
+    protected static final String CATALOG_RULE = "MvelHelper.toUpperCase(discreteOrderItem.?category.?name)==MvelHelper.toUpperCase(\"test1\")";
+
+    protected OrderItemRuleResultCache cache;
+
+    @Override
+    protected void setUp() throws Exception {
+        cache = new OrderItemRuleResultCache();
+        cache.setEnabled(true);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        OrderItemChangeSet.setChangeSet(null);
+    }
+
+    public void testRulesThatReadMoreThanTheItemAreNotCacheable() {
+        assertTrue(cache.isCacheable(ITEM_RULE));
+        assertTrue(cache.isCacheable("orderItem.getQuantity() > 1 && orderItem.?name == 'test'"));
+
+        assertFalse(cache.isCacheable("order.subTotal.getAmount() > 20"));
+        assertFalse(cache.isCacheable("time.hour > 12"));
+        assertFalse(cache.isCacheable("request.requestURI != null"));
+
+        assertFalse(cache.isCacheable("orderItem.?parentOrderItem.?name == 'test1'"));
+        assertFalse(cache.isCacheable("orderItem.getGiftWrapOrderItem().getName() == 'test1'"));
+        assertFalse(cache.isCacheable("discreteOrderItem.?category.?id == 1 && orderItem.?parentOrderItem.?name == 'test1'"));
+    }
+
+    public void testCatalogNavigationsAreCacheable() {
+        assertTrue(cache.isCacheable(CATALOG_RULE));
+        assertTrue(cache.isCacheable("CollectionUtils.intersection(discreteOrderItem.?category.?id,[5]).size()>0"));
+        assertTrue(cache.isCacheable("orderItem.getSku().getName() == 'test1'"));
+        assertTrue(cache.isCacheable("MVEL.eval(\"toUpperCase()\", discreteOrderItem.product.manufacturer) == 'ACME'"));
+        assertTrue(cache.isCacheable("orderItem.?product.?getProductAttributes()[\"color\"].value == 'red'"));
+        assertTrue(cache.isCacheable("orderItem.?price.getAmount()>5.00"));
+
+        cache.setCacheableItemNavigations("sku");
+        assertFalse(cache.isCacheable(CATALOG_RULE));
+        assertTrue(cache.isCacheable("orderItem.getSku().getName() == 'test1'"));
+    }
+
+    public void testRulesReadingExtensionVariablesAreNotCacheable() {
+        List<String> additionalVariables = Arrays.asList("promotedCategory");
+        assertFalse(cache.isCacheable("discreteOrderItem.?category.?name == promotedCategory", additionalVariables));
+        assertTrue(cache.isCacheable("discreteOrderItem.?category.?name == 'promotedCategoryName'", additionalVariables));
+        assertTrue(cache.isCacheable(CATALOG_RULE, additionalVariables));
+
+        Order order = createOrder(1L);
+        PromotableOrderItem item = createItem(order, 10L);
+        cache.startPricing(order);
+        cache.putResult(item, "discreteOrderItem.?category.?name == promotedCategory", additionalVariables, true);
+        assertNull(cache.getResult(item, "discreteOrderItem.?category.?name == promotedCategory"));
+    }
+
+    public void testFingerprintChangeInvalidatesResult() {
+        Order order = createOrder(1L);
+        PromotableOrderItem item = createItem(order, 10L);
+        cache.startPricing(order);
+
+        cache.putResult(item, ITEM_RULE, true);
+        assertEquals(Boolean.TRUE, cache.getResult(item, ITEM_RULE));
+
+        item.getOrderItem().setQuantity(1);
+        assertNull(cache.getResult(item, ITEM_RULE));
+
+        cache.putResult(item, ITEM_RULE, false);
+        assertEquals(Boolean.FALSE, cache.getResult(item, ITEM_RULE));
+
+        Category category = new CategoryImpl();
+        category.setId(2L);
+        item.getOrderItem().setCategory(category);
+        assertNull(cache.getResult(item, ITEM_RULE));
+    }
+
+    public void testCatalogChangeDropsCachedResults() {
+        Order order = createOrder(1L);
+        PromotableOrderItem item = createItem(order, 10L);
+        cache.startPricing(order);
+
+        cache.putResult(item, CATALOG_RULE, true);
+        assertEquals(Boolean.TRUE, cache.getResult(item, CATALOG_RULE));
+
+        cache.onApplicationEvent(new CatalogChangedEvent(this));
+        assertNull(cache.getResult(item, CATALOG_RULE));
+    }
+
+    public void testChangeSetOnlyDropsChangedItems() {
+        Order order = createOrder(1L);
+        PromotableOrderItem changed = createItem(order, 10L);
+        PromotableOrderItem unchanged = createItem(order, 11L);
+        cache.startPricing(order);
+        cache.putResult(changed, ITEM_RULE, true);
+        cache.putResult(unchanged, ITEM_RULE, true);
+
+        OrderItemChangeSet changeSet = new OrderItemChangeSet();
+        changeSet.addChangedOrderItem(changed.getOrderItem());
+        OrderItemChangeSet.setChangeSet(changeSet);
+        cache.startPricing(order);
+
+        assertNull(cache.getResult(changed, ITEM_RULE));
+        assertEquals(Boolean.TRUE, cache.getResult(unchanged, ITEM_RULE));
+
+        // without a change set every item is treated as changed
+        OrderItemChangeSet.setChangeSet(null);
+        cache.startPricing(order);
+        assertNull(cache.getResult(unchanged, ITEM_RULE));
+    }
+
+    public void testResultsExpireAfterTtl() throws Exception {
+        cache.ttlSeconds = 0;
+        Order order = createOrder(1L);
+        PromotableOrderItem item = createItem(order, 10L);
+        cache.startPricing(order);
+        cache.putResult(item, ITEM_RULE, true);
+
+        Thread.sleep(5);
+        OrderItemChangeSet.setChangeSet(new OrderItemChangeSet());
+        cache.startPricing(order);
+        assertNull(cache.getResult(item, ITEM_RULE));
+    }
+
+    public void testLeastRecentlyPricedOrdersAreEvicted() {
+        cache.maxOrders = 2;
+        Order first = createOrder(1L);
+        Order second = createOrder(2L);
+        Order third = createOrder(3L);
+        PromotableOrderItem firstItem = createItem(first, 10L);
+        PromotableOrderItem secondItem = createItem(second, 20L);
+
+        cache.startPricing(first);
+        cache.putResult(firstItem, ITEM_RULE, true);
+        cache.startPricing(second);
+        cache.putResult(secondItem, ITEM_RULE, true);
+        cache.startPricing(third);
+
+        assertEquals(2, cache.resultsByOrder.size());
+        assertNull(cache.getResult(firstItem, ITEM_RULE));
+        assertEquals(Boolean.TRUE, cache.getResult(secondItem, ITEM_RULE));
+    }
+
+    protected Order createOrder(Long id) {
+        Order order = new OrderImpl();
+        order.setId(id);
+        return order;
+    }
+
+    protected PromotableOrderItem createItem(Order order, Long id) {
+        Category category = new CategoryImpl();
+        category.setId(1L);
+        category.setName("test1");
+
+        DiscreteOrderItem orderItem = new DiscreteOrderItemImpl();
+        orderItem.setId(id);
+        orderItem.setOrder(order);
+        orderItem.setQuantity(2);
+        orderItem.setCategory(category);
+        orderItem.setRetailPrice(new Money(10D));
+        orderItem.setSalePrice(new Money(8D));
+
+        PromotableOrderItem promotableOrderItem = EasyMock.createMock(PromotableOrderItem.class);
+        EasyMock.expect(promotableOrderItem.getOrderItem()).andReturn(orderItem).anyTimes();
+        EasyMock.replay(promotableOrderItem);
+        return promotableOrderItem;
+    }
+}